@@ -0,0 +1,86 @@
+package com.pitstop.app.utils;
+
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+
+import java.util.Random;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Distance pass of a workshop search: per-point {@link GeoDistance#haversine} as search did before the
+ * batch kernel, against the batch kernel on its scalar and Vector API paths. Candidates are spread over
+ * the bounding box of the search circle, the way the spatial index hands them over.
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+@Warmup(iterations = 3, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(value = 1, jvmArgsAppend = "--add-modules=jdk.incubator.vector")
+public class GeoDistanceBenchmark {
+    private static final double LATITUDE = 12.97;
+    private static final double LONGITUDE = 77.59;
+    private static final double RADIUS_KM = 10;
+
+    @Param({"1000", "10000", "100000"})
+    private int candidates;
+
+    private double[] latitudes;
+    private double[] longitudes;
+    private double[] latitudesRad;
+    private double[] longitudesRad;
+    private double[] cosLatitudes;
+    private double[] out;
+
+    @Setup
+    public void setUp() {
+        Random random = new Random(42);
+        double latSpan = RADIUS_KM / 111.2;
+        double lonSpan = latSpan / Math.cos(Math.toRadians(LATITUDE));
+        latitudes = new double[candidates];
+        longitudes = new double[candidates];
+        latitudesRad = new double[candidates];
+        longitudesRad = new double[candidates];
+        cosLatitudes = new double[candidates];
+        out = new double[candidates];
+        for (int i = 0; i < candidates; i++) {
+            latitudes[i] = LATITUDE + (random.nextDouble() * 2 - 1) * latSpan;
+            longitudes[i] = LONGITUDE + (random.nextDouble() * 2 - 1) * lonSpan;
+            latitudesRad[i] = Math.toRadians(latitudes[i]);
+            longitudesRad[i] = Math.toRadians(longitudes[i]);
+            cosLatitudes[i] = Math.cos(latitudesRad[i]);
+        }
+    }
+
+    @Benchmark
+    public double[] perPointHaversine() {
+        for (int i = 0; i < candidates; i++) {
+            double distance = GeoDistance.haversine(LATITUDE, LONGITUDE, latitudes[i], longitudes[i]);
+            out[i] = distance <= RADIUS_KM ? distance : Double.POSITIVE_INFINITY;
+        }
+        return out;
+    }
+
+    @Benchmark
+    public double[] batchScalar() {
+        GeoDistance.haversineWithin(false, LATITUDE, LONGITUDE, RADIUS_KM,
+                latitudesRad, longitudesRad, cosLatitudes, candidates, out);
+        return out;
+    }
+
+    @Benchmark
+    public double[] batchVector() {
+        GeoDistance.haversineWithin(true, LATITUDE, LONGITUDE, RADIUS_KM,
+                latitudesRad, longitudesRad, cosLatitudes, candidates, out);
+        return out;
+    }
+}
@@ -0,0 +1,78 @@
+package com.pitstop.app.utils;
+
+import io.jsonwebtoken.Claims;
+import io.jsonwebtoken.JwtParser;
+import io.jsonwebtoken.Jwts;
+import io.jsonwebtoken.security.Keys;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+
+import javax.crypto.SecretKey;
+import java.util.Date;
+import java.util.List;
+import java.util.Map;
+import java.util.UUID;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Claims extraction for one authenticated request: a parser built per call as JwtUtil did before,
+ * a shared parser that still checks the HS256 signature every time, and {@link JwtUtil#parseClaims}
+ * answering a token it has already verified from its digest cache.
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.NANOSECONDS)
+@Warmup(iterations = 3, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(1)
+public class JwtParseBenchmark {
+    private static final String SECRET = "benchmark-secret-key-that-is-long-enough-for-hs256";
+
+    private SecretKey secretKey;
+    private JwtParser sharedParser;
+    private JwtUtil jwtUtil;
+    private String token;
+
+    @Setup
+    public void setUp() {
+        secretKey = Keys.hmacShaKeyFor(SECRET.getBytes());
+        sharedParser = Jwts.parser().verifyWith(secretKey).build();
+        jwtUtil = new JwtUtil(SECRET, 900_000, 10_000);
+
+        Date now = new Date();
+        token = Jwts.builder()
+                .header().type("JWT").and()
+                .claims(Map.of("roles", List.of("USER"), "userType", "APP_USER", JwtUtil.TOKEN_VERSION_CLAIM, 0L))
+                .id(UUID.randomUUID().toString())
+                .subject("user_benchmark")
+                .issuedAt(now)
+                .expiration(new Date(now.getTime() + 3_600_000))
+                .signWith(secretKey, Jwts.SIG.HS256)
+                .compact();
+        // the first call verifies and caches, every measured call after it is a hit
+        jwtUtil.parseClaims(token);
+    }
+
+    @Benchmark
+    public Claims coldParser() {
+        return Jwts.parser().verifyWith(secretKey).build().parseSignedClaims(token).getPayload();
+    }
+
+    @Benchmark
+    public Claims sharedParser() {
+        return sharedParser.parseSignedClaims(token).getPayload();
+    }
+
+    @Benchmark
+    public Claims cached() {
+        return jwtUtil.parseClaims(token);
+    }
+}
@@ -0,0 +1,22 @@
+package com.pitstop.app.config;
+
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.context.annotation.Configuration;
+import org.springframework.web.servlet.config.annotation.AsyncSupportConfigurer;
+import org.springframework.web.servlet.config.annotation.WebMvcConfigurer;
+
+/**
+ * Time limit for streamed (NDJSON) responses, which run as async requests. Without it the servlet
+ * container's default of 30 seconds would cut off large admin exports. SSE emitters set their own.
+ */
+@Configuration
+public class AsyncStreamingConfig implements WebMvcConfigurer {
+
+    @Value("${streaming.timeout-ms:600000}")
+    private long timeoutMs;
+
+    @Override
+    public void configureAsyncSupport(AsyncSupportConfigurer configurer) {
+        configurer.setDefaultTimeout(timeoutMs);
+    }
+}
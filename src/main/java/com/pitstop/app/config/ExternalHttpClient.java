@@ -0,0 +1,224 @@
+package com.pitstop.app.config;
+
+import com.pitstop.app.exception.ExternalServiceUnavailableException;
+import io.micrometer.core.instrument.Gauge;
+import io.micrometer.core.instrument.MeterRegistry;
+import io.micrometer.core.instrument.Timer;
+import jakarta.annotation.PreDestroy;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.core.env.Environment;
+import org.springframework.stereotype.Component;
+
+import java.io.IOException;
+import java.net.URI;
+import java.net.http.HttpClient;
+import java.net.http.HttpRequest;
+import java.net.http.HttpResponse;
+import java.net.http.HttpTimeoutException;
+import java.time.Duration;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Semaphore;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicBoolean;
+import java.util.concurrent.atomic.AtomicInteger;
+
+/**
+ * The one HTTP client for external APIs. A single JDK HttpClient (HTTP/2 where the server offers it)
+ * keeps connections open across calls. Each provider, e.g. "trueway" or "nominatim", gets its own
+ * request timeout, a bulkhead limiting concurrent calls, and a circuit breaker that stops calling for
+ * a while after consecutive failures, so one slow API cannot hold every request thread.
+ * <p>
+ * Settings are read per provider from {@code external.http.<provider>.*} and fall back to
+ * {@code external.http.default.*}. Latency is recorded as {@code pitstop.external.http} tagged
+ * with the provider and outcome.
+ */
+@Component
+@Slf4j
+public class ExternalHttpClient {
+
+    private final ExecutorService executor = Executors.newVirtualThreadPerTaskExecutor();
+    private final HttpClient httpClient;
+    private final MeterRegistry meterRegistry;
+    private final Environment environment;
+    private final Map<String, Provider> providers = new ConcurrentHashMap<>();
+
+    public ExternalHttpClient(MeterRegistry meterRegistry, Environment environment) {
+        this.meterRegistry = meterRegistry;
+        this.environment = environment;
+        this.httpClient = HttpClient.newBuilder()
+                .version(HttpClient.Version.HTTP_2)
+                .connectTimeout(Duration.ofMillis(environment.getProperty("external.http.connect-timeout-ms", Long.class, 2000L)))
+                .followRedirects(HttpClient.Redirect.NORMAL)
+                .executor(executor)
+                .build();
+    }
+
+    @PreDestroy
+    public void shutdown() {
+        httpClient.shutdownNow();
+        executor.close();
+    }
+
+    /**
+     * Sends a GET to the provider and returns the response whatever its status. Throws
+     * {@link ExternalServiceUnavailableException} without calling out when the provider's circuit is
+     * open or its concurrency limit is reached, and IOException on timeouts and network errors.
+     */
+    public HttpResponse<String> get(String provider, URI uri, Map<String, String> headers) throws IOException, InterruptedException {
+        Provider limits = providers.computeIfAbsent(provider, this::newProvider);
+        Admission admission = limits.admit();
+        if (admission == Admission.REJECTED) {
+            reject(provider, "circuit_open");
+        }
+        boolean probe = admission == Admission.PROBE;
+        boolean acquired;
+        try {
+            acquired = limits.bulkhead.tryAcquire(limits.queueWaitMs, TimeUnit.MILLISECONDS);
+        } catch (InterruptedException e) {
+            if (probe) {
+                limits.releaseProbe();
+            }
+            throw e;
+        }
+        if (!acquired) {
+            if (probe) {
+                limits.releaseProbe();
+            }
+            reject(provider, "bulkhead_full");
+        }
+
+        long start = System.nanoTime();
+        String outcome = "error";
+        // whether the call reported back to the circuit, which also hands back a probe slot
+        boolean settled = false;
+        try {
+            HttpRequest.Builder request = HttpRequest.newBuilder(uri)
+                    .timeout(limits.timeout)
+                    .GET();
+            headers.forEach(request::header);
+
+            HttpResponse<String> response = httpClient.send(request.build(), HttpResponse.BodyHandlers.ofString());
+            int status = response.statusCode();
+            outcome = status >= 500 ? "server_error" : status == 429 ? "throttled" : status >= 400 ? "client_error" : "success";
+            settled = true;
+            // a 4xx is about our request, only 429 and 5xx mean the provider is struggling
+            if (status >= 500 || status == 429) {
+                limits.onFailure(provider, probe);
+            } else {
+                limits.onSuccess();
+            }
+            return response;
+        } catch (HttpTimeoutException e) {
+            outcome = "timeout";
+            settled = true;
+            limits.onFailure(provider, probe);
+            throw e;
+        } catch (IOException e) {
+            outcome = "io_error";
+            settled = true;
+            limits.onFailure(provider, probe);
+            throw e;
+        } catch (InterruptedException e) {
+            outcome = "interrupted";
+            throw e;
+        } finally {
+            // interrupted or failed on our side, the provider's health is still unknown
+            if (probe && !settled) {
+                limits.releaseProbe();
+            }
+            limits.bulkhead.release();
+            Timer.builder("pitstop.external.http")
+                    .tag("provider", provider)
+                    .tag("outcome", outcome)
+                    .register(meterRegistry)
+                    .record(System.nanoTime() - start, TimeUnit.NANOSECONDS);
+        }
+    }
+
+    private void reject(String provider, String reason) {
+        meterRegistry.counter("pitstop.external.http.rejected", "provider", provider, "reason", reason).increment();
+        throw new ExternalServiceUnavailableException(provider + " is unavailable right now (" + reason + ")");
+    }
+
+    private Provider newProvider(String name) {
+        Provider provider = new Provider(
+                Duration.ofMillis(setting(name, "timeout-ms", 5000L)),
+                setting(name, "max-concurrent", 20L).intValue(),
+                setting(name, "queue-wait-ms", 100L),
+                setting(name, "failure-threshold", 5L).intValue(),
+                setting(name, "open-ms", 30000L));
+        Gauge.builder("pitstop.external.http.circuit.open", provider, p -> p.isOpen() ? 1 : 0)
+                .tag("provider", name)
+                .register(meterRegistry);
+        return provider;
+    }
+
+    private Long setting(String provider, String key, long defaultValue) {
+        Long fallback = environment.getProperty("external.http.default." + key, Long.class, defaultValue);
+        return environment.getProperty("external.http." + provider + "." + key, Long.class, fallback);
+    }
+
+    private enum Admission { REJECTED, ALLOWED, PROBE }
+
+    private static final class Provider {
+        private final Duration timeout;
+        private final Semaphore bulkhead;
+        private final long queueWaitMs;
+        private final int failureThreshold;
+        private final long openMs;
+
+        private final AtomicInteger consecutiveFailures = new AtomicInteger();
+        // 0 while closed, otherwise when the circuit may let a probe through
+        private volatile long openUntilMs;
+        // only one probe is sent while half-open
+        private final AtomicBoolean probing = new AtomicBoolean();
+
+        private Provider(Duration timeout, int maxConcurrent, long queueWaitMs, int failureThreshold, long openMs) {
+            this.timeout = timeout;
+            this.bulkhead = new Semaphore(maxConcurrent);
+            this.queueWaitMs = queueWaitMs;
+            this.failureThreshold = failureThreshold;
+            this.openMs = openMs;
+        }
+
+        // PROBE means this caller holds the single half-open slot and must hand it back
+        Admission admit() {
+            long openUntil = openUntilMs;
+            if (openUntil == 0) {
+                return Admission.ALLOWED;
+            }
+            return System.currentTimeMillis() >= openUntil && probing.compareAndSet(false, true)
+                    ? Admission.PROBE
+                    : Admission.REJECTED;
+        }
+
+        boolean isOpen() {
+            return openUntilMs != 0;
+        }
+
+        void onSuccess() {
+            consecutiveFailures.set(0);
+            openUntilMs = 0;
+            probing.set(false);
+        }
+
+        void onFailure(String name, boolean probe) {
+            if (probe) {
+                // reopen before freeing the slot, so nobody probes again right away
+                openUntilMs = System.currentTimeMillis() + openMs;
+                probing.set(false);
+                log.warn("Probe to {} failed, circuit stays open for {} ms", name, openMs);
+            } else if (consecutiveFailures.incrementAndGet() >= failureThreshold && openUntilMs == 0) {
+                openUntilMs = System.currentTimeMillis() + openMs;
+                log.warn("{} failed {} times in a row, circuit open for {} ms", name, failureThreshold, openMs);
+            }
+        }
+
+        void releaseProbe() {
+            probing.set(false);
+        }
+    }
+}
@@ -0,0 +1,56 @@
+package com.pitstop.app.config;
+
+import com.pitstop.app.model.BaseUser;
+import com.pitstop.app.model.CachedAuthUser;
+import com.pitstop.app.service.impl.AuthCacheInvalidationService;
+import lombok.RequiredArgsConstructor;
+import org.springframework.data.mongodb.core.mapping.event.AbstractMongoEventListener;
+import org.springframework.data.mongodb.core.mapping.event.AfterConvertEvent;
+import org.springframework.data.mongodb.core.mapping.event.AfterDeleteEvent;
+import org.springframework.data.mongodb.core.mapping.event.AfterSaveEvent;
+import org.springframework.stereotype.Component;
+
+/**
+ * Drops cached auth state on every node when a save changes what authentication reads (username,
+ * password, roles, tokenVersion) or a user is created or deleted. Users remember their auth state as
+ * loaded, so saves that only touch profile fields skip the eviction and the cluster event. Delete
+ * events only carry the id, and deletes are rare, so those clear the whole cache.
+ */
+@Component
+@RequiredArgsConstructor
+public class UserAuthStateListener extends AbstractMongoEventListener<Object> {
+
+    private final AuthCacheInvalidationService authCacheInvalidationService;
+
+    @Override
+    public void onAfterConvert(AfterConvertEvent<Object> event) {
+        if (event.getSource() instanceof BaseUser user) {
+            user.setLoadedAuthState(CachedAuthUser.of(user));
+        }
+    }
+
+    @Override
+    public void onAfterSave(AfterSaveEvent<Object> event) {
+        if (!(event.getSource() instanceof BaseUser user)) {
+            return;
+        }
+        // null for a new user, whose username may still be cached as unknown
+        CachedAuthUser before = user.getLoadedAuthState();
+        CachedAuthUser after = CachedAuthUser.of(user);
+        user.setLoadedAuthState(after);
+        if (after.equals(before)) {
+            return;
+        }
+        if (before != null && !before.username().equals(after.username())) {
+            authCacheInvalidationService.invalidate(before.username());
+        }
+        authCacheInvalidationService.invalidate(after.username());
+    }
+
+    @Override
+    public void onAfterDelete(AfterDeleteEvent<Object> event) {
+        if (event.getType() != null && BaseUser.class.isAssignableFrom(event.getType())) {
+            authCacheInvalidationService.invalidateAll();
+        }
+    }
+}
@@ -0,0 +1,39 @@
+package com.pitstop.app.config;
+
+import com.pitstop.app.model.WorkshopUser;
+import com.pitstop.app.service.impl.WorkshopSpatialIndex;
+import lombok.RequiredArgsConstructor;
+import org.bson.Document;
+import org.springframework.data.mongodb.core.mapping.event.AbstractMongoEventListener;
+import org.springframework.data.mongodb.core.mapping.event.AfterDeleteEvent;
+import org.springframework.data.mongodb.core.mapping.event.AfterSaveEvent;
+import org.springframework.stereotype.Component;
+
+/**
+ * Feeds every WorkshopUser save/delete into the in-memory spatial index, so open/close,
+ * service, vehicle type, address and premium changes are picked up without each
+ * service method having to remember to do it. Updates issued through mongoTemplate raise no
+ * events, those are left to the index's periodic resync.
+ */
+@Component
+@RequiredArgsConstructor
+public class WorkshopIndexSyncListener extends AbstractMongoEventListener<WorkshopUser> {
+
+    private final WorkshopSpatialIndex workshopSpatialIndex;
+
+    @Override
+    public void onAfterSave(AfterSaveEvent<WorkshopUser> event) {
+        workshopSpatialIndex.onWorkshopSaved(event.getSource());
+    }
+
+    @Override
+    public void onAfterDelete(AfterDeleteEvent<WorkshopUser> event) {
+        Document query = event.getSource();
+        Object id = query.get("_id");
+        if (id != null) {
+            workshopSpatialIndex.onWorkshopDeleted(id.toString());
+        } else if (query.get("username") != null) {
+            workshopSpatialIndex.onWorkshopDeletedByUsername(query.get("username").toString());
+        }
+    }
+}
@@ -0,0 +1,29 @@
+package com.pitstop.app.config;
+
+import com.pitstop.app.model.Address;
+import com.pitstop.app.model.WorkshopUser;
+import org.springframework.data.mongodb.core.geo.GeoJsonPoint;
+import org.springframework.data.mongodb.core.mapping.event.BeforeConvertCallback;
+import org.springframework.stereotype.Component;
+
+/**
+ * Keeps {@link WorkshopUser#getWorkshopLocation()} in sync with the workshop address
+ * so the 2dsphere index always reflects the latest latitude/longitude.
+ */
+@Component
+public class WorkshopLocationCallback implements BeforeConvertCallback<WorkshopUser> {
+
+    @Override
+    public WorkshopUser onBeforeConvert(WorkshopUser workshopUser, String collection) {
+        workshopUser.setWorkshopLocation(toGeoJsonPoint(workshopUser.getWorkshopAddress()));
+        return workshopUser;
+    }
+
+    public static GeoJsonPoint toGeoJsonPoint(Address address) {
+        if (address == null || address.getLatitude() == null || address.getLongitude() == null) {
+            return null;
+        }
+        // GeoJSON stores coordinates as [longitude, latitude]
+        return new GeoJsonPoint(address.getLongitude(), address.getLatitude());
+    }
+}
@@ -1,5 +1,6 @@
 package com.pitstop.app.controller;
 
+import com.pitstop.app.constants.BookingStatus;
 import com.pitstop.app.dto.AdminUserLoginRequest;
 import com.pitstop.app.dto.AdminUserRegisterRequest;
 import com.pitstop.app.dto.CreatePricingRuleRequest;
@@ -11,12 +12,14 @@ import com.pitstop.app.service.impl.AdminPricingServiceImpl;
 import com.pitstop.app.service.impl.AdminUserServiceImpl;
 import com.pitstop.app.service.impl.AppUserServiceImpl;
 import com.pitstop.app.service.impl.WorkshopUserServiceImpl;
+import com.pitstop.app.utils.NdjsonWriter;
 import lombok.RequiredArgsConstructor;
 import org.springframework.beans.factory.annotation.Value;
 import org.springframework.http.HttpStatus;
 import org.springframework.http.ResponseEntity;
 import org.springframework.security.access.prepost.PreAuthorize;
 import org.springframework.web.bind.annotation.*;
+import org.springframework.web.servlet.mvc.method.annotation.StreamingResponseBody;
 
 import java.util.List;
 
@@ -28,12 +31,18 @@ public class AdminController {
     private final WorkshopUserServiceImpl workshopService;
     private final AdminUserServiceImpl adminUserService;
     private final AdminPricingServiceImpl adminPricingService;
+    private final NdjsonWriter ndjsonWriter;
 
     @GetMapping("/appUsers")
     public ResponseEntity<List<AppUser>> getAllAppUser() {
         List<AppUser> appUserList =  appUserService.getAllAppUser();
         return new ResponseEntity<>(appUserList, HttpStatus.OK);
     }
+    // The listings below stream one document per line when sent with Accept: application/x-ndjson
+    @GetMapping(value = "/appUsers", produces = NdjsonWriter.MEDIA_TYPE)
+    public ResponseEntity<StreamingResponseBody> streamAllAppUser() {
+        return ndjsonWriter.stream(appUserService.streamAllAppUser());
+    }
     @GetMapping("/appUsers/{userId}")
     public ResponseEntity<?> getAppUserById(@PathVariable String userId){
         AppUser appUser = appUserService.getAppUserById(userId);
@@ -47,6 +56,10 @@ public class AdminController {
         List<WorkshopUser> workshopUserList =  workshopService.getAllWorkshopUser();
         return new ResponseEntity<>(workshopUserList, HttpStatus.OK);
     }
+    @GetMapping(value = "/workshops", produces = NdjsonWriter.MEDIA_TYPE)
+    public ResponseEntity<StreamingResponseBody> streamAllWorkshopUser() {
+        return ndjsonWriter.stream(workshopService.streamAllWorkshopUser());
+    }
     @GetMapping("/workshops/{workshopId}")
     public ResponseEntity<?> getWorkshopById(@PathVariable String workshopId){
         WorkshopUser workshopUser = workshopService.getWorkshopUserById(workshopId);
@@ -79,6 +92,36 @@ public class AdminController {
             return new ResponseEntity<>("Invalid WorkShopUser Id, WorkShopUser not found", HttpStatus.NOT_FOUND);
         }
     }
+    @GetMapping(value = "/bookingHistory/AppUser/{appUserId}", produces = NdjsonWriter.MEDIA_TYPE)
+    public ResponseEntity<StreamingResponseBody> streamBookingHistoryAppUser(@PathVariable String appUserId) {
+        return ndjsonWriter.stream(adminUserService.streamBookingHistoryAppUser(appUserId));
+    }
+    @GetMapping(value = "/bookingHistory/WorkshopUser/{workshopUserId}", produces = NdjsonWriter.MEDIA_TYPE)
+    public ResponseEntity<StreamingResponseBody> streamBookingHistoryWorkShopUser(@PathVariable String workshopUserId) {
+        return ndjsonWriter.stream(adminUserService.streamBookingHistoryWorkShopUser(workshopUserId));
+    }
+    @GetMapping("/bookingHistory/AppUser/{appUserId}/page")
+    public ResponseEntity<?> getBookingHistoryPageAppUser(@PathVariable String appUserId,
+                                                          @RequestParam(required = false) String cursor,
+                                                          @RequestParam(required = false) Integer size,
+                                                          @RequestParam(required = false) List<BookingStatus> status) {
+        try {
+            return new ResponseEntity<>(adminUserService.getBookingHistoryPageAppUser(appUserId, cursor, size, status), HttpStatus.OK);
+        } catch (IllegalArgumentException e) {
+            return new ResponseEntity<>(e.getMessage(), HttpStatus.BAD_REQUEST);
+        }
+    }
+    @GetMapping("/bookingHistory/WorkshopUser/{workshopUserId}/page")
+    public ResponseEntity<?> getBookingHistoryPageWorkShopUser(@PathVariable String workshopUserId,
+                                                               @RequestParam(required = false) String cursor,
+                                                               @RequestParam(required = false) Integer size,
+                                                               @RequestParam(required = false) List<BookingStatus> status) {
+        try {
+            return new ResponseEntity<>(adminUserService.getBookingHistoryPageWorkShopUser(workshopUserId, cursor, size, status), HttpStatus.OK);
+        } catch (IllegalArgumentException e) {
+            return new ResponseEntity<>(e.getMessage(), HttpStatus.BAD_REQUEST);
+        }
+    }
     @GetMapping("/booking/{bookingId}")
     public ResponseEntity<?> getBookingDetailsById(@PathVariable String bookingId) {
         try {
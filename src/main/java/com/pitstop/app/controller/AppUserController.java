@@ -1,16 +1,24 @@
 package com.pitstop.app.controller;
 
+import com.pitstop.app.constants.BookingStatus;
 import com.pitstop.app.dto.*;
 import com.pitstop.app.model.Address;
 import com.pitstop.app.service.VehicleService;
 import com.pitstop.app.service.impl.AppUserServiceImpl;
+import com.pitstop.app.service.impl.BookingEventStreamService;
 import com.pitstop.app.service.impl.BookingHistoryServiceImpl;
 import com.pitstop.app.service.impl.VehicleServiceImpl;
+import com.pitstop.app.utils.NdjsonWriter;
 import jakarta.validation.Valid;
 import lombok.RequiredArgsConstructor;
 import org.springframework.http.HttpStatus;
+import org.springframework.http.MediaType;
 import org.springframework.http.ResponseEntity;
+import org.springframework.security.core.Authentication;
+import org.springframework.security.core.context.SecurityContextHolder;
 import org.springframework.web.bind.annotation.*;
+import org.springframework.web.servlet.mvc.method.annotation.SseEmitter;
+import org.springframework.web.servlet.mvc.method.annotation.StreamingResponseBody;
 
 import java.util.ArrayList;
 import java.util.List;
@@ -25,6 +33,8 @@ public class AppUserController {
     private final AppUserServiceImpl appUserService;
     private final BookingHistoryServiceImpl bookingHistoryService;
     private final VehicleServiceImpl vehicleService;
+    private final BookingEventStreamService bookingEventStreamService;
+    private final NdjsonWriter ndjsonWriter;
 
     /*
     Create Secured endpoints / API for the below functionality:
@@ -56,6 +66,30 @@ public class AppUserController {
         return new ResponseEntity<>(bookingHistoryService.getBookingHistoryForAppUser(), HttpStatus.OK);
     }
 
+    // Same history one booking per line, sent with Accept: application/x-ndjson
+    @GetMapping(value = "/getBookingHistory", produces = NdjsonWriter.MEDIA_TYPE)
+    public ResponseEntity<StreamingResponseBody> streamBookingHistoryForAppUser(
+            @RequestParam(required = false) List<BookingStatus> status) {
+        return ndjsonWriter.stream(bookingHistoryService.streamBookingHistoryForAppUser(status));
+    }
+
+    // Newest first, pass nextCursor from the previous page as cursor to continue
+    @GetMapping("/booking-history")
+    public ResponseEntity<BookingHistoryPage<AppUserBookingHistoryResponse>> getBookingHistoryPage(
+            @RequestParam(required = false) String cursor,
+            @RequestParam(required = false) Integer size,
+            @RequestParam(required = false) List<BookingStatus> status) {
+        return ResponseEntity.ok(bookingHistoryService.getBookingHistoryPageForAppUser(cursor, size, status));
+    }
+
+    // Pushes booking status changes as they happen, replaces polling checkBookingStatus
+    @GetMapping(value = "/booking-events", produces = MediaType.TEXT_EVENT_STREAM_VALUE)
+    public SseEmitter streamBookingEvents(@RequestHeader(value = "Last-Event-ID", required = false) String lastEventId) {
+        Authentication authentication = SecurityContextHolder.getContext().getAuthentication();
+        String appUserId = appUserService.getAppUserByUsername(authentication.getName()).getId();
+        return bookingEventStreamService.subscribeAppUser(appUserId, lastEventId);
+    }
+
     @GetMapping("/me")
     public ResponseEntity<AppUserResponse> getCurrentUserDetails(){
         return new ResponseEntity<>(appUserService.getAppUserDetails(),HttpStatus.OK);
@@ -0,0 +1,53 @@
+package com.pitstop.app.controller;
+
+import com.pitstop.app.dto.RefreshTokenRequest;
+import com.pitstop.app.dto.RefreshTokenResponse;
+import com.pitstop.app.service.impl.RefreshTokenService;
+import com.pitstop.app.service.impl.TokenRevocationService;
+import com.pitstop.app.utils.JwtUtil;
+import io.jsonwebtoken.Claims;
+import jakarta.validation.Valid;
+import lombok.RequiredArgsConstructor;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.http.HttpHeaders;
+import org.springframework.http.HttpStatus;
+import org.springframework.http.ResponseEntity;
+import org.springframework.web.bind.annotation.*;
+
+@RestController
+@RequestMapping("/api/auth")
+@RequiredArgsConstructor
+@Slf4j
+public class AuthController {
+
+    private final JwtUtil jwtUtil;
+    private final TokenRevocationService tokenRevocationService;
+    private final RefreshTokenService refreshTokenService;
+
+    // Issues a new access token and rotates the refresh token, no password check involved
+    @PostMapping("/refresh")
+    public ResponseEntity<RefreshTokenResponse> refresh(@RequestBody @Valid RefreshTokenRequest request) {
+        return ResponseEntity.ok(refreshTokenService.refresh(request.getRefreshToken()));
+    }
+
+    // Revokes the bearer token of this request on every node, it stays rejected until it would have expired.
+    // Passing the refresh token as well ends the whole login.
+    @PostMapping("/logout")
+    public ResponseEntity<?> logout(@RequestHeader(HttpHeaders.AUTHORIZATION) String header,
+                                    @RequestBody(required = false) RefreshTokenRequest request) {
+        try {
+            if (request != null && request.getRefreshToken() != null) {
+                refreshTokenService.revokeFamily(request.getRefreshToken());
+            }
+            Claims claims = jwtUtil.parseClaims(header.substring("Bearer ".length()));
+            if (claims.getId() == null) {
+                return new ResponseEntity<>("Token was issued before logout support, it expires on its own", HttpStatus.BAD_REQUEST);
+            }
+            tokenRevocationService.revoke(claims.getId(), claims.getExpiration().toInstant());
+            return new ResponseEntity<>("Logged out successfully", HttpStatus.OK);
+        } catch (Exception e) {
+            log.warn("Logout failed: {}", e.getMessage());
+            return new ResponseEntity<>("Invalid token", HttpStatus.BAD_REQUEST);
+        }
+    }
+}
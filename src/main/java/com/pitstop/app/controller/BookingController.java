@@ -2,6 +2,7 @@ package com.pitstop.app.controller;
 
 import com.pitstop.app.constants.BookingStatus;
 import com.pitstop.app.dto.*;
+import com.pitstop.app.exception.BookingConflictException;
 import com.pitstop.app.service.impl.BookingServiceImpl;
 import lombok.RequiredArgsConstructor;
 import org.springframework.http.HttpStatus;
@@ -57,6 +58,8 @@ public class BookingController {
     public ResponseEntity<?> acceptBooking(@PathVariable String bookingId) {
         try {
             return new ResponseEntity<>(bookingService.acceptBooking(bookingId), HttpStatus.OK);
+        } catch (BookingConflictException e) {
+            return new ResponseEntity<>(e.getMessage(), HttpStatus.CONFLICT);
         } catch (Exception e) {
             return new ResponseEntity<>(e.getMessage(), HttpStatus.BAD_REQUEST);
         }
@@ -67,6 +70,8 @@ public class BookingController {
     public ResponseEntity<?> rejectBooking(@PathVariable String bookingId) {
         try {
             return new ResponseEntity<>(bookingService.rejectBooking(bookingId), HttpStatus.OK);
+        } catch (BookingConflictException e) {
+            return new ResponseEntity<>(e.getMessage(), HttpStatus.CONFLICT);
         } catch (Exception e) {
             return new ResponseEntity<>(e.getMessage(), HttpStatus.BAD_REQUEST);
         }
@@ -77,6 +82,8 @@ public class BookingController {
     public ResponseEntity<?> startJourney(@PathVariable String bookingId) {
         try {
             return new ResponseEntity<>(bookingService.startJourney(bookingId), HttpStatus.OK);
+        } catch (BookingConflictException e) {
+            return new ResponseEntity<>(e.getMessage(), HttpStatus.CONFLICT);
         } catch (Exception e) {
             return new ResponseEntity<>(e.getMessage(), HttpStatus.BAD_REQUEST);
         }
@@ -98,6 +105,8 @@ public class BookingController {
         try {
             bookingService.verifyOtpAndSetStatus(bookingRequestOtp, BookingStatus.WAITING);
             return new ResponseEntity<>(HttpStatus.OK);
+        } catch (BookingConflictException e) {
+            return new ResponseEntity<>(e.getMessage(), HttpStatus.CONFLICT);
         } catch (Exception e) {
             return new ResponseEntity<>(e.getMessage(), HttpStatus.BAD_REQUEST);
         }
@@ -109,6 +118,8 @@ public class BookingController {
         try {
             bookingService.verifyOtpAndSetStatus(bookingRequestOtp, BookingStatus.REPAIRING);
             return new ResponseEntity<>(HttpStatus.OK);
+        } catch (BookingConflictException e) {
+            return new ResponseEntity<>(e.getMessage(), HttpStatus.CONFLICT);
         } catch (Exception e) {
             return new ResponseEntity<>(e.getMessage(), HttpStatus.BAD_REQUEST);
         }
@@ -120,6 +131,8 @@ public class BookingController {
         try {
             bookingService.verifyOtpAndSetStatus(bookingRequestOtp, BookingStatus.COMPLETED);
             return new ResponseEntity<>(HttpStatus.OK);
+        } catch (BookingConflictException e) {
+            return new ResponseEntity<>(e.getMessage(), HttpStatus.CONFLICT);
         } catch (Exception e) {
             return new ResponseEntity<>(e.getMessage(), HttpStatus.BAD_REQUEST);
         }
@@ -131,6 +144,8 @@ public class BookingController {
         try {
             bookingService.cancelBookingByAppUser(bookingId);
             return new ResponseEntity<>("Booking Successfully Cancelled!", HttpStatus.OK);
+        } catch (BookingConflictException e) {
+            return new ResponseEntity<>(e.getMessage(), HttpStatus.CONFLICT);
         } catch (Exception e) {
             return new ResponseEntity<>(e.getMessage(), HttpStatus.BAD_REQUEST);
         }
@@ -142,6 +157,8 @@ public class BookingController {
         try {
             bookingService.cancelBookingByWorkshopUser(bookingRequestOtp);
             return new ResponseEntity<>("Booking Successfully Cancelled!", HttpStatus.OK);
+        } catch (BookingConflictException e) {
+            return new ResponseEntity<>(e.getMessage(), HttpStatus.CONFLICT);
         } catch (Exception e) {
             return new ResponseEntity<>(e.getMessage(), HttpStatus.BAD_REQUEST);
         }
@@ -1,16 +1,23 @@
 package com.pitstop.app.controller;
 
+import com.pitstop.app.constants.BookingStatus;
 import com.pitstop.app.dto.*;
+import com.pitstop.app.service.impl.BookingEventStreamService;
 import com.pitstop.app.service.impl.BookingHistoryServiceImpl;
 import com.pitstop.app.service.impl.WorkshopUserServiceImpl;
+import com.pitstop.app.utils.NdjsonWriter;
 import lombok.RequiredArgsConstructor;
 import lombok.extern.slf4j.Slf4j;
 import org.springframework.http.HttpStatus;
+import org.springframework.http.MediaType;
 import org.springframework.http.ResponseEntity;
 import org.springframework.security.core.Authentication;
 import org.springframework.security.core.context.SecurityContextHolder;
 import org.springframework.web.bind.annotation.*;
+import org.springframework.web.servlet.mvc.method.annotation.SseEmitter;
+import org.springframework.web.servlet.mvc.method.annotation.StreamingResponseBody;
 
+import java.util.List;
 import java.util.Map;
 
 @RestController
@@ -21,6 +28,8 @@ public class WorkshopController {
 
     private final WorkshopUserServiceImpl workshopService;
     private final BookingHistoryServiceImpl bookingHistoryService;
+    private final BookingEventStreamService bookingEventStreamService;
+    private final NdjsonWriter ndjsonWriter;
 
     // Role should be NORMAL_WORKSHOP_USER
     // Remove {workshopUserId} part from path variable after auth is implemented
@@ -64,6 +73,30 @@ public class WorkshopController {
         return new ResponseEntity<>(bookingHistoryService.getBookingHistoryForWorkShopUser(), HttpStatus.OK);
     }
 
+    // Same history one booking per line, sent with Accept: application/x-ndjson
+    @GetMapping(value = "/getBookingHistory", produces = NdjsonWriter.MEDIA_TYPE)
+    public ResponseEntity<StreamingResponseBody> streamBookingHistoryForWorkShopUser(
+            @RequestParam(required = false) List<BookingStatus> status) {
+        return ndjsonWriter.stream(bookingHistoryService.streamBookingHistoryForWorkShopUser(status));
+    }
+
+    // Newest first, pass nextCursor from the previous page as cursor to continue
+    @GetMapping("/booking-history")
+    public ResponseEntity<BookingHistoryPage<WorkShopUserBookingHistoryResponse>> getBookingHistoryPage(
+            @RequestParam(required = false) String cursor,
+            @RequestParam(required = false) Integer size,
+            @RequestParam(required = false) List<BookingStatus> status) {
+        return ResponseEntity.ok(bookingHistoryService.getBookingHistoryPageForWorkShopUser(cursor, size, status));
+    }
+
+    // Pushes new booking requests and status changes as they happen
+    @GetMapping(value = "/booking-events", produces = MediaType.TEXT_EVENT_STREAM_VALUE)
+    public SseEmitter streamBookingEvents(@RequestHeader(value = "Last-Event-ID", required = false) String lastEventId) {
+        Authentication authentication = SecurityContextHolder.getContext().getAuthentication();
+        String workshopUserId = workshopService.getWorkshopUserByUsername(authentication.getName()).getId();
+        return bookingEventStreamService.subscribeWorkshop(workshopUserId, lastEventId);
+    }
+
      @GetMapping("/me")
      public ResponseEntity<WorkshopUserResponse> getCurrentWorkshopUser(){
          return new ResponseEntity<>(workshopService.getWorkshopUserDetails(),HttpStatus.OK);
@@ -2,12 +2,16 @@ package com.pitstop.app.controller;
 
 import com.pitstop.app.constants.VehicleType;
 import com.pitstop.app.constants.WorkshopServiceType;
+import com.pitstop.app.dto.WorkshopSearchPage;
 import com.pitstop.app.dto.WorkshopUserFilterRequest;
 import com.pitstop.app.dto.WorkshopUserFilterResponse;
 import com.pitstop.app.service.impl.WorkshopSearchServiceImpl;
+import com.pitstop.app.utils.NdjsonWriter;
 import lombok.RequiredArgsConstructor;
+import org.springframework.http.HttpStatus;
 import org.springframework.http.ResponseEntity;
 import org.springframework.web.bind.annotation.*;
+import org.springframework.web.servlet.mvc.method.annotation.StreamingResponseBody;
 
 import java.util.List;
 
@@ -16,6 +20,7 @@ import java.util.List;
 @RequiredArgsConstructor
 public class WorkshopSearchController {
     private final WorkshopSearchServiceImpl workshopSearchService;
+    private final NdjsonWriter ndjsonWriter;
 
     @PostMapping("/filterWorkshops")
     public ResponseEntity<?> filterWorkshops(@RequestBody WorkshopUserFilterRequest workshopUserRequest){
@@ -27,6 +32,26 @@ public class WorkshopSearchController {
             return ResponseEntity.badRequest().body(e.getMessage());
         }
     }
+    // Same results one workshop per line, sent with Accept: application/x-ndjson
+    @PostMapping(value = "/filterWorkshops", produces = NdjsonWriter.MEDIA_TYPE)
+    public ResponseEntity<StreamingResponseBody> streamWorkshops(@RequestBody WorkshopUserFilterRequest workshopUserRequest){
+        try{
+            return ndjsonWriter.stream(workshopSearchService.streamWorkshopUsers(workshopUserRequest));
+        }
+        catch(Exception e){
+            return ndjsonWriter.error(HttpStatus.BAD_REQUEST, e.getMessage());
+        }
+    }
+    @PostMapping("/filterWorkshops/page")
+    public ResponseEntity<?> filterWorkshopsPage(@RequestBody WorkshopUserFilterRequest workshopUserRequest){
+        try{
+            WorkshopSearchPage page = workshopSearchService.filterWorkshopUsersPage(workshopUserRequest);
+            return ResponseEntity.ok().body(page);
+        }
+        catch(Exception e){
+            return ResponseEntity.badRequest().body(e.getMessage());
+        }
+    }
     @GetMapping("/available-services")
     public ResponseEntity<List<WorkshopServiceType>> getAvailableServices(@RequestParam VehicleType vehicleType) {
         return ResponseEntity.ok(workshopSearchService.getAvailableServices(vehicleType));
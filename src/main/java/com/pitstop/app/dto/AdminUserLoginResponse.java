@@ -8,5 +8,7 @@ import lombok.Data;
 public class AdminUserLoginResponse {
     private String username;
     private String token;
+    // exchange at /api/auth/refresh for a new token once the short-lived one expires
+    private String refreshToken;
     private String message;
 }
@@ -0,0 +1,44 @@
+package com.pitstop.app.dto;
+
+import com.pitstop.app.model.Booking;
+import com.pitstop.app.utils.BookingHistoryCursor;
+import lombok.AllArgsConstructor;
+import lombok.Getter;
+import lombok.NoArgsConstructor;
+import lombok.Setter;
+
+import java.util.List;
+import java.util.function.Function;
+
+@Getter
+@Setter
+@NoArgsConstructor
+@AllArgsConstructor
+public class BookingHistoryPage<T> {
+    public static final int DEFAULT_SIZE = 20;
+    public static final int MAX_SIZE = 100;
+
+    private List<T> items;
+    // pass back as ?cursor= to get the next page, null on the last page
+    private String nextCursor;
+    private boolean hasMore;
+
+    public static int pageSize(Integer requested) {
+        if (requested == null || requested <= 0) {
+            return DEFAULT_SIZE;
+        }
+        return Math.min(requested, MAX_SIZE);
+    }
+
+    // fetched holds up to size + 1 bookings, the extra one only tells whether another page exists
+    public static <T> BookingHistoryPage<T> of(List<Booking> fetched, int size, Function<Booking, T> mapper) {
+        boolean hasMore = fetched.size() > size;
+        List<Booking> page = hasMore ? fetched.subList(0, size) : fetched;
+        String nextCursor = null;
+        if (hasMore) {
+            Booking last = page.get(page.size() - 1);
+            nextCursor = new BookingHistoryCursor(last.getBookingStartedTime(), last.getId()).encode();
+        }
+        return new BookingHistoryPage<>(page.stream().map(mapper).toList(), nextCursor, hasMore);
+    }
+}
@@ -0,0 +1,32 @@
+package com.pitstop.app.dto;
+
+import com.pitstop.app.constants.BookingStatus;
+import com.pitstop.app.constants.PaymentStatus;
+import com.pitstop.app.model.Booking;
+import lombok.AllArgsConstructor;
+import lombok.Data;
+import lombok.NoArgsConstructor;
+
+import java.util.UUID;
+
+// Pushed to both parties of a booking whenever its status or payment status changes
+@Data
+@NoArgsConstructor
+@AllArgsConstructor
+public class BookingStatusEvent {
+    private String eventId;
+    private String bookingId;
+    private String appUserId;
+    private String workshopUserId;
+    private BookingStatus currentStatus;
+    private PaymentStatus currentPaymentStatus;
+    private long occurredAt;
+
+    public static BookingStatusEvent of(Booking booking) {
+        long now = System.currentTimeMillis();
+        // ids sort by time across nodes, which is what Last-Event-ID resume relies on
+        String eventId = now + "-" + UUID.randomUUID().toString().substring(0, 8);
+        return new BookingStatusEvent(eventId, booking.getId(), booking.getAppUserId(), booking.getWorkshopUserId(),
+                booking.getCurrentStatus(), booking.getCurrentPaymentStatus(), now);
+    }
+}
@@ -0,0 +1,10 @@
+package com.pitstop.app.dto;
+
+import jakarta.validation.constraints.NotBlank;
+import lombok.Data;
+
+@Data
+public class RefreshTokenRequest {
+    @NotBlank(message = "Refresh token cannot be blank")
+    private String refreshToken;
+}
@@ -0,0 +1,11 @@
+package com.pitstop.app.dto;
+
+import lombok.AllArgsConstructor;
+import lombok.Data;
+
+@Data
+@AllArgsConstructor
+public class RefreshTokenResponse {
+    private String token;
+    private String refreshToken;
+}
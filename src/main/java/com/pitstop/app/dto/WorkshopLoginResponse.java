@@ -7,5 +7,7 @@ import lombok.*;
 public class WorkshopLoginResponse {
     private String username;
     private String token;
+    // exchange at /api/auth/refresh for a new token once the short-lived one expires
+    private String refreshToken;
     private String message;
 }
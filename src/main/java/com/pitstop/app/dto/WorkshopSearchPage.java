@@ -0,0 +1,29 @@
+package com.pitstop.app.dto;
+
+import lombok.AllArgsConstructor;
+import lombok.Getter;
+import lombok.NoArgsConstructor;
+import lombok.Setter;
+
+import java.util.List;
+
+@Getter
+@Setter
+@NoArgsConstructor
+@AllArgsConstructor
+public class WorkshopSearchPage {
+    public static final int DEFAULT_SIZE = 20;
+    public static final int MAX_SIZE = 100;
+
+    private List<WorkshopUserFilterResponse> items;
+    // pass back as "cursor" in the next request, null on the last page
+    private String nextCursor;
+    private boolean hasMore;
+
+    public static int pageSize(Integer requested) {
+        if (requested == null || requested <= 0) {
+            return DEFAULT_SIZE;
+        }
+        return Math.min(requested, MAX_SIZE);
+    }
+}
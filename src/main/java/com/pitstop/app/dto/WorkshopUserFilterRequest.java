@@ -7,4 +7,7 @@ public class WorkshopUserFilterRequest {
     private String vehicleType;
     private String serviceType;
     private double maxDistanceKm = 5.0;
+    // only used by the paged search
+    private Integer limit;
+    private String cursor;
 }
@@ -0,0 +1,8 @@
+package com.pitstop.app.exception;
+
+// Thrown without calling out when an external API's circuit is open or its concurrency limit is reached
+public class ExternalServiceUnavailableException extends RuntimeException {
+    public ExternalServiceUnavailableException(String message) {
+        super(message);
+    }
+}
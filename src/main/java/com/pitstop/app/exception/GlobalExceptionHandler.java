@@ -1,6 +1,7 @@
 package com.pitstop.app.exception;
 
 import lombok.extern.slf4j.Slf4j;
+import org.springframework.dao.OptimisticLockingFailureException;
 import org.springframework.http.HttpStatus;
 import org.springframework.http.ResponseEntity;
 import org.springframework.web.bind.annotation.ExceptionHandler;
@@ -24,6 +25,25 @@ public class GlobalExceptionHandler {
     public ResponseEntity<?> handleUserAlreadyExist(UserAlreadyExistException ex , WebRequest request){
         return buildErrorResponse(ex.getMessage(),HttpStatus.CONFLICT,request.getDescription(false));
     }
+
+    @ExceptionHandler(BookingConflictException.class)
+    public ResponseEntity<?> handleBookingConflict(BookingConflictException ex, WebRequest request){
+        return buildErrorResponse(ex.getMessage(),HttpStatus.CONFLICT,request.getDescription(false));
+    }
+    // Only reaches here once OptimisticLockRetry has given up, the client can simply try again
+    @ExceptionHandler(OptimisticLockingFailureException.class)
+    public ResponseEntity<?> handleOptimisticLockingFailure(OptimisticLockingFailureException ex, WebRequest request){
+        log.warn("Version conflict not resolved by retries: {}", ex.getMessage());
+        return buildErrorResponse("The resource was modified concurrently, please retry",HttpStatus.CONFLICT,request.getDescription(false));
+    }
+    @ExceptionHandler(InvalidRefreshTokenException.class)
+    public ResponseEntity<?> handleInvalidRefreshToken(InvalidRefreshTokenException ex, WebRequest request){
+        return buildErrorResponse(ex.getMessage(),HttpStatus.UNAUTHORIZED,request.getDescription(false));
+    }
+    @ExceptionHandler(TooManyRequestsException.class)
+    public ResponseEntity<?> handleTooManyRequests(TooManyRequestsException ex, WebRequest request){
+        return buildErrorResponse(ex.getMessage(),HttpStatus.TOO_MANY_REQUESTS,request.getDescription(false));
+    }
     private ResponseEntity<Map<String, Object>> buildErrorResponse(String message, HttpStatus status, String path) {
         Map<String, Object> errorBody = new HashMap<>();
         errorBody.put("timestamp", LocalDateTime.now());
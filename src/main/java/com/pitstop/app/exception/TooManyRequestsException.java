@@ -0,0 +1,10 @@
+package com.pitstop.app.exception;
+
+import org.springframework.security.core.AuthenticationException;
+
+// An AuthenticationException so it passes through ProviderManager and the basic auth filter unchanged
+public class TooManyRequestsException extends AuthenticationException {
+    public TooManyRequestsException(String message) {
+        super(message);
+    }
+}
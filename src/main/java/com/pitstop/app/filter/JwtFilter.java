@@ -1,32 +1,39 @@
 package com.pitstop.app.filter;
 
-import com.pitstop.app.model.CustomUserDetails;
-import com.pitstop.app.service.impl.UserDetailsServiceImpl;
+import com.pitstop.app.model.JwtPrincipal;
+import com.pitstop.app.model.UserType;
+import com.pitstop.app.service.impl.TokenRevocationService;
+import com.pitstop.app.service.impl.TokenVersionService;
 import com.pitstop.app.utils.JwtUtil;
+import io.jsonwebtoken.Claims;
 import jakarta.servlet.FilterChain;
 import jakarta.servlet.ServletException;
 import jakarta.servlet.http.HttpServletRequest;
 import jakarta.servlet.http.HttpServletResponse;
 import lombok.RequiredArgsConstructor;
 import lombok.extern.slf4j.Slf4j;
-import org.springframework.beans.factory.annotation.Autowired;
 import org.springframework.security.authentication.UsernamePasswordAuthenticationToken;
 import org.springframework.security.core.context.SecurityContextHolder;
-import org.springframework.security.core.userdetails.UserDetails;
-import org.springframework.security.core.userdetails.UserDetailsService;
 import org.springframework.security.web.authentication.WebAuthenticationDetailsSource;
 import org.springframework.stereotype.Component;
 import org.springframework.web.filter.OncePerRequestFilter;
 
 import java.io.IOException;
+import java.util.List;
 
+/**
+ * Authenticates requests from the bearer token alone. The token is parsed and verified once and the
+ * principal is built from its claims. The per-request state checks, the revocation denylist and the
+ * user's tokenVersion, are both answered from memory rather than the database.
+ */
 @Component
 @RequiredArgsConstructor
 @Slf4j
 public class JwtFilter extends OncePerRequestFilter {
 
     private final JwtUtil jwtUtil;
-    private final UserDetailsServiceImpl userDetailsService;
+    private final TokenVersionService tokenVersionService;
+    private final TokenRevocationService tokenRevocationService;
 
     @Override
     protected void doFilterInternal(
@@ -45,23 +52,24 @@ public class JwtFilter extends OncePerRequestFilter {
         String token = header.substring(7);
 
         try {
-            String username = jwtUtil.extractUsername(token);
+            if (SecurityContextHolder.getContext().getAuthentication() == null) {
+                // Throws if the signature is wrong or the token has expired
+                Claims claims = jwtUtil.parseClaims(token);
+                JwtPrincipal principal = toPrincipal(claims);
 
-            if (username != null &&
-                    SecurityContextHolder.getContext().getAuthentication() == null) {
-
-                CustomUserDetails userDetails =
-                        (CustomUserDetails) userDetailsService
-                                .loadUserByUsername(username);
-
-                if (jwtUtil.validateToken(token, username)) {
+                if (tokenRevocationService.isRevoked(claims.getId())) {
+                    log.debug("Rejected revoked token for {}", principal.username());
+                } else if (principal.tokenVersion() == tokenVersionService.currentVersion(principal.username())) {
                     UsernamePasswordAuthenticationToken auth =
                             new UsernamePasswordAuthenticationToken(
-                                    userDetails,
+                                    principal,
                                     null,
-                                    userDetails.getAuthorities()
+                                    principal.getAuthorities()
                             );
+                    auth.setDetails(new WebAuthenticationDetailsSource().buildDetails(request));
                     SecurityContextHolder.getContext().setAuthentication(auth);
+                } else {
+                    log.debug("Rejected stale token for {}", principal.username());
                 }
             }
         } catch (Exception e) {
@@ -70,4 +78,16 @@ public class JwtFilter extends OncePerRequestFilter {
 
         filterChain.doFilter(request, response);
     }
-}
\ No newline at end of file
+
+    @SuppressWarnings("unchecked")
+    private JwtPrincipal toPrincipal(Claims claims) {
+        List<String> roles = claims.get("roles", List.class);
+        String userType = claims.get("userType", String.class);
+        return new JwtPrincipal(
+                claims.getSubject(),
+                userType == null ? null : UserType.valueOf(userType),
+                roles == null ? List.of() : roles,
+                jwtUtil.extractTokenVersion(claims)
+        );
+    }
+}
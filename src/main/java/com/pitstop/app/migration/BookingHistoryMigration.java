@@ -0,0 +1,83 @@
+package com.pitstop.app.migration;
+
+import com.mongodb.DBRef;
+import com.pitstop.app.model.AppUser;
+import com.pitstop.app.model.Booking;
+import com.pitstop.app.model.WorkshopUser;
+import lombok.RequiredArgsConstructor;
+import lombok.extern.slf4j.Slf4j;
+import org.bson.Document;
+import org.springframework.boot.ApplicationArguments;
+import org.springframework.boot.ApplicationRunner;
+import org.springframework.data.mongodb.core.BulkOperations;
+import org.springframework.data.mongodb.core.MongoTemplate;
+import org.springframework.data.mongodb.core.query.Criteria;
+import org.springframework.data.mongodb.core.query.Query;
+import org.springframework.data.mongodb.core.query.Update;
+import org.springframework.stereotype.Component;
+
+import java.util.ArrayList;
+import java.util.List;
+
+/**
+ * Drops the legacy {@code bookingHistory} DBRef arrays from workshop and app user documents.
+ * Before unsetting a workshop's array, bookings it references that were never accepted get
+ * their {@code workshopUserId} backfilled so ownership checks keep working.
+ * Safe to run on every startup, it only touches documents that still have the field.
+ */
+@Component
+@RequiredArgsConstructor
+@Slf4j
+public class BookingHistoryMigration implements ApplicationRunner {
+
+    private static final int BATCH_SIZE = 500;
+
+    private final MongoTemplate mongoTemplate;
+
+    @Override
+    public void run(ApplicationArguments args) {
+        Query withHistory = Query.query(Criteria.where("bookingHistory").exists(true));
+
+        backfillWorkshopUserIds(withHistory);
+
+        long workshops = mongoTemplate.updateMulti(withHistory, new Update().unset("bookingHistory"), WorkshopUser.class)
+                .getModifiedCount();
+        long appUsers = mongoTemplate.updateMulti(withHistory, new Update().unset("bookingHistory"), AppUser.class)
+                .getModifiedCount();
+        if (workshops > 0 || appUsers > 0) {
+            log.info("Removed bookingHistory from {} workshop(s) and {} app user(s)", workshops, appUsers);
+        }
+    }
+
+    private void backfillWorkshopUserIds(Query withHistory) {
+        String collection = mongoTemplate.getCollectionName(WorkshopUser.class);
+        Document filter = withHistory.getQueryObject();
+        Document projection = new Document("bookingHistory", 1);
+
+        BulkOperations bulk = mongoTemplate.bulkOps(BulkOperations.BulkMode.UNORDERED, Booking.class);
+        int pending = 0;
+
+        for (Document workshop : mongoTemplate.getCollection(collection).find(filter).projection(projection)) {
+            List<Object> bookingIds = new ArrayList<>();
+            for (Object ref : workshop.getList("bookingHistory", Object.class, List.of())) {
+                if (ref instanceof DBRef dbRef) {
+                    bookingIds.add(dbRef.getId());
+                }
+            }
+            if (bookingIds.isEmpty()) {
+                continue;
+            }
+            bulk.updateMulti(Query.query(Criteria.where("_id").in(bookingIds).and("workshopUserId").is(null)),
+                    new Update().set("workshopUserId", workshop.get("_id").toString()));
+            pending++;
+            if (pending == BATCH_SIZE) {
+                bulk.execute();
+                pending = 0;
+                bulk = mongoTemplate.bulkOps(BulkOperations.BulkMode.UNORDERED, Booking.class);
+            }
+        }
+        if (pending > 0) {
+            bulk.execute();
+        }
+    }
+}
@@ -0,0 +1,42 @@
+package com.pitstop.app.migration;
+
+import com.pitstop.app.model.Booking;
+import lombok.RequiredArgsConstructor;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.boot.ApplicationArguments;
+import org.springframework.boot.ApplicationRunner;
+import org.springframework.data.mongodb.core.MongoTemplate;
+import org.springframework.data.mongodb.core.index.IndexInfo;
+import org.springframework.data.mongodb.core.index.IndexOperations;
+import org.springframework.stereotype.Component;
+
+import java.util.List;
+import java.util.Set;
+
+/**
+ * Drops booking indexes that have been superseded by wider ones declared on {@link Booking}.
+ * Auto index creation only ever adds indexes, so without this every booking write would keep
+ * maintaining the old ones too. Safe to run on every startup.
+ */
+@Component
+@RequiredArgsConstructor
+@Slf4j
+public class BookingIndexMigration implements ApplicationRunner {
+
+    // replaced by appUser_startedTime_id and workshopUser_startedTime_id
+    private static final Set<String> SUPERSEDED = Set.of("appUser_startedTime", "workshopUser_startedTime");
+
+    private final MongoTemplate mongoTemplate;
+
+    @Override
+    public void run(ApplicationArguments args) {
+        IndexOperations indexOps = mongoTemplate.indexOps(Booking.class);
+        List<String> existing = indexOps.getIndexInfo().stream().map(IndexInfo::getName).toList();
+        for (String name : existing) {
+            if (SUPERSEDED.contains(name)) {
+                indexOps.dropIndex(name);
+                log.info("Dropped superseded booking index {}", name);
+            }
+        }
+    }
+}
@@ -0,0 +1,107 @@
+package com.pitstop.app.migration;
+
+import com.pitstop.app.model.AppUser;
+import com.pitstop.app.model.RatingSummary;
+import com.pitstop.app.model.WorkshopUser;
+import lombok.RequiredArgsConstructor;
+import lombok.extern.slf4j.Slf4j;
+import org.bson.Document;
+import org.springframework.boot.ApplicationArguments;
+import org.springframework.boot.ApplicationRunner;
+import org.springframework.data.mongodb.core.BulkOperations;
+import org.springframework.data.mongodb.core.MongoTemplate;
+import org.springframework.data.mongodb.core.query.Criteria;
+import org.springframework.data.mongodb.core.query.Query;
+import org.springframework.data.mongodb.core.query.Update;
+import org.springframework.stereotype.Component;
+
+import java.time.Instant;
+import java.util.List;
+
+/**
+ * Replaces the legacy {@code ratingsList} and stored {@code rating} on app users and workshops with a
+ * {@link RatingSummary} built from the list. The old ratings carry no timestamps, so for the decayed
+ * totals they are treated as given at migration time. Users that were already rated through the new
+ * counters keep them and only get the old ratings added on top.
+ * Safe to run on every startup, it only touches documents that still have {@code ratingsList}.
+ */
+@Component
+@RequiredArgsConstructor
+@Slf4j
+public class RatingSummaryMigration implements ApplicationRunner {
+
+    private static final int BATCH_SIZE = 500;
+
+    private final MongoTemplate mongoTemplate;
+
+    @Override
+    public void run(ApplicationArguments args) {
+        for (Class<?> userClass : List.of(AppUser.class, WorkshopUser.class)) {
+            long migrated = migrate(userClass);
+            if (migrated > 0) {
+                log.info("Moved ratingsList into ratingSummary on {} {} document(s)", migrated, userClass.getSimpleName());
+            }
+        }
+    }
+
+    private long migrate(Class<?> userClass) {
+        String collection = mongoTemplate.getCollectionName(userClass);
+        Document filter = new Document("ratingsList", new Document("$exists", true));
+        Document projection = new Document("ratingsList", 1);
+        double weight = RatingSummary.decayWeight(Instant.now());
+
+        BulkOperations bulk = mongoTemplate.bulkOps(BulkOperations.BulkMode.UNORDERED, userClass);
+        int pending = 0;
+        long migrated = 0;
+
+        for (Document user : mongoTemplate.getCollection(collection).find(filter).projection(projection)) {
+            Update update = foldRatings(user.getList("ratingsList", Object.class, List.of()), weight);
+            bulk.updateOne(Query.query(Criteria.where("_id").is(user.get("_id")).and("ratingsList").exists(true)), update);
+            pending++;
+            migrated++;
+            if (pending == BATCH_SIZE) {
+                bulk.execute();
+                pending = 0;
+                bulk = mongoTemplate.bulkOps(BulkOperations.BulkMode.UNORDERED, userClass);
+            }
+        }
+        if (pending > 0) {
+            bulk.execute();
+        }
+        return migrated;
+    }
+
+    // Adds the valid 1-5 star entries of the legacy list to the summary, anything else is dropped
+    static Update foldRatings(List<Object> ratingsList, double weight) {
+        long count = 0;
+        long sum = 0;
+        long[] histogram = new long[RatingSummary.MAX_STARS + 1];
+        for (Object value : ratingsList) {
+            if (!(value instanceof Number number)) {
+                continue;
+            }
+            int stars = number.intValue();
+            if (stars < RatingSummary.MIN_STARS || stars > RatingSummary.MAX_STARS) {
+                continue;
+            }
+            count++;
+            sum += stars;
+            histogram[stars]++;
+        }
+
+        // unset in the same update, so a rerun after a crash cannot add the list twice
+        Update update = new Update().unset("ratingsList").unset("rating").inc("version", 1);
+        if (count > 0) {
+            update.inc("ratingSummary.count", count)
+                    .inc("ratingSummary.sum", sum)
+                    .inc("ratingSummary.decayedSum", sum * weight)
+                    .inc("ratingSummary.decayedWeight", count * weight);
+            for (int stars = RatingSummary.MIN_STARS; stars <= RatingSummary.MAX_STARS; stars++) {
+                if (histogram[stars] > 0) {
+                    update.inc("ratingSummary.histogram." + stars, histogram[stars]);
+                }
+            }
+        }
+        return update;
+    }
+}
@@ -0,0 +1,42 @@
+package com.pitstop.app.migration;
+
+import com.pitstop.app.model.AppUser;
+import com.pitstop.app.model.Booking;
+import com.pitstop.app.model.WorkshopUser;
+import lombok.RequiredArgsConstructor;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.boot.ApplicationArguments;
+import org.springframework.boot.ApplicationRunner;
+import org.springframework.data.mongodb.core.MongoTemplate;
+import org.springframework.data.mongodb.core.query.Criteria;
+import org.springframework.data.mongodb.core.query.Query;
+import org.springframework.data.mongodb.core.query.Update;
+import org.springframework.stereotype.Component;
+
+import java.util.List;
+
+/**
+ * Seeds {@code version: 0} on documents written before @Version was added. Without it those
+ * documents load with a null version and Spring Data would treat the next save() as an insert.
+ * Safe to run on every startup, it only touches documents that do not have the field.
+ */
+@Component
+@RequiredArgsConstructor
+@Slf4j
+public class VersionFieldMigration implements ApplicationRunner {
+
+    private final MongoTemplate mongoTemplate;
+
+    @Override
+    public void run(ApplicationArguments args) {
+        Query missingVersion = Query.query(Criteria.where("version").exists(false));
+        Update initialVersion = new Update().set("version", 0L);
+
+        for (Class<?> entity : List.of(AppUser.class, WorkshopUser.class, Booking.class)) {
+            long migrated = mongoTemplate.updateMulti(missingVersion, initialVersion, entity).getModifiedCount();
+            if (migrated > 0) {
+                log.info("Initialised version on {} {} document(s)", migrated, entity.getSimpleName());
+            }
+        }
+    }
+}
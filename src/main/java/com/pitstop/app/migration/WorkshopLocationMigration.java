@@ -0,0 +1,66 @@
+package com.pitstop.app.migration;
+
+import com.pitstop.app.config.WorkshopLocationCallback;
+import com.pitstop.app.model.Address;
+import com.pitstop.app.model.WorkshopUser;
+import lombok.RequiredArgsConstructor;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.boot.ApplicationArguments;
+import org.springframework.boot.ApplicationRunner;
+import org.springframework.data.mongodb.core.BulkOperations;
+import org.springframework.data.mongodb.core.MongoTemplate;
+import org.springframework.data.mongodb.core.query.Criteria;
+import org.springframework.data.mongodb.core.query.Query;
+import org.springframework.data.mongodb.core.query.Update;
+import org.springframework.stereotype.Component;
+
+import java.util.stream.Stream;
+
+/**
+ * One-time backfill of the GeoJSON {@code workshopLocation} field from the existing
+ * {@code workshopAddress.latitude/longitude} values. Safe to run on every startup,
+ * it only touches workshops that do not have a location yet.
+ */
+@Component
+@RequiredArgsConstructor
+@Slf4j
+public class WorkshopLocationMigration implements ApplicationRunner {
+
+    private static final int BATCH_SIZE = 500;
+
+    private final MongoTemplate mongoTemplate;
+
+    @Override
+    public void run(ApplicationArguments args) {
+        Query query = Query.query(Criteria.where("workshopLocation").exists(false)
+                .and("workshopAddress.latitude").ne(null)
+                .and("workshopAddress.longitude").ne(null));
+        query.fields().include("workshopAddress");
+
+        int migrated = 0;
+        BulkOperations bulk = mongoTemplate.bulkOps(BulkOperations.BulkMode.UNORDERED, WorkshopUser.class);
+        int pending = 0;
+
+        try (Stream<WorkshopUser> workshops = mongoTemplate.stream(query, WorkshopUser.class)) {
+            for (WorkshopUser workshopUser : (Iterable<WorkshopUser>) workshops::iterator) {
+                Address address = workshopUser.getWorkshopAddress();
+                bulk.updateOne(Query.query(Criteria.where("_id").is(workshopUser.getId())),
+                        new Update().set("workshopLocation", WorkshopLocationCallback.toGeoJsonPoint(address)));
+                pending++;
+                if (pending == BATCH_SIZE) {
+                    bulk.execute();
+                    migrated += pending;
+                    pending = 0;
+                    bulk = mongoTemplate.bulkOps(BulkOperations.BulkMode.UNORDERED, WorkshopUser.class);
+                }
+            }
+        }
+        if (pending > 0) {
+            bulk.execute();
+            migrated += pending;
+        }
+        if (migrated > 0) {
+            log.info("Backfilled workshopLocation for {} workshop(s)", migrated);
+        }
+    }
+}
@@ -1,7 +1,9 @@
 package com.pitstop.app.model;
 
+import com.fasterxml.jackson.annotation.JsonIgnore;
 import lombok.*;
 import org.springframework.data.annotation.Id;
+import org.springframework.data.annotation.Transient;
 import org.springframework.data.mongodb.core.mapping.Document;
 
 import java.time.LocalDateTime;
@@ -20,6 +22,10 @@ public class AdminUser implements BaseUser{
     private String password;
     private UserType userType = UserType.ADMIN;
     private List<String> roles = new ArrayList<>();
+    private long tokenVersion = 0;
+    @Transient
+    @JsonIgnore
+    private CachedAuthUser loadedAuthState;
 
     public AdminUser() {
         this.roles.add("ADMIN");
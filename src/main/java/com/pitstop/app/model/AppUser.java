@@ -1,10 +1,14 @@
 package com.pitstop.app.model;
 
+import com.fasterxml.jackson.annotation.JsonIgnore;
 import lombok.Getter;
 import lombok.NoArgsConstructor;
 import lombok.Setter;
 import org.springframework.data.annotation.Id;
+import org.springframework.data.annotation.Transient;
+import org.springframework.data.annotation.Version;
 import org.springframework.data.mongodb.core.mapping.DBRef;
+import org.springframework.data.mongodb.core.index.Indexed;
 import org.springframework.data.mongodb.core.mapping.Document;
 
 import java.time.LocalDateTime;
@@ -18,12 +22,20 @@ public class AppUser implements BaseUser{
 
     @Id
     private String id;
+
+    @Version
+    private Long version;
     private String name;
+    @Indexed
     private String username;
     private String email;
     private String password;
     private UserType userType = UserType.APP_USER;
     private List<String> roles = new ArrayList<>();
+    private long tokenVersion = 0;
+    @Transient
+    @JsonIgnore
+    private CachedAuthUser loadedAuthState;
 
     public AppUser() {
         this.roles.add("USER");
@@ -34,14 +46,14 @@ public class AppUser implements BaseUser{
 
     private List<Address> userAddress = new ArrayList<>();
     private double currentWalletBalance = 0.0;
-    private double rating = 5.0;
-    private List<Integer> ratingsList = new ArrayList<>();
-
-    @DBRef
-    private List<Booking> bookingHistory = new ArrayList<>();
+    private RatingSummary ratingSummary = new RatingSummary();
 
     private LocalDateTime accountCreationDateTime = LocalDateTime.now();
     private LocalDateTime accountLastModifiedDateTime = LocalDateTime.now();
 
     private boolean enabled = true;
+
+    public double getRating() {
+        return ratingSummary == null ? RatingSummary.DEFAULT_RATING : ratingSummary.getAverage();
+    }
 }
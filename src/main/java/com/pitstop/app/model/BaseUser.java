@@ -7,4 +7,11 @@ public interface BaseUser {
     String getPassword();
     List<String> getRoles();
     void setRoles(List<String> roles);
+    // Carried in every JWT, bumping it invalidates all tokens issued before
+    long getTokenVersion();
+    void setTokenVersion(long tokenVersion);
+    UserType getUserType();
+    // Auth state as it was read from the database, so a save can skip cache invalidation when it is unchanged
+    CachedAuthUser getLoadedAuthState();
+    void setLoadedAuthState(CachedAuthUser loadedAuthState);
 }
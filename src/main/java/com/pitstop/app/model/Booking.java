@@ -6,7 +6,9 @@ import lombok.Getter;
 import lombok.NoArgsConstructor;
 import lombok.Setter;
 import org.springframework.data.annotation.Id;
-import org.springframework.data.mongodb.core.index.Indexed;
+import org.springframework.data.annotation.Version;
+import org.springframework.data.mongodb.core.index.CompoundIndex;
+import org.springframework.data.mongodb.core.index.CompoundIndexes;
 import org.springframework.data.mongodb.core.mapping.Document;
 
 import java.time.LocalDateTime;
@@ -16,12 +18,26 @@ import java.util.List;
 @Getter
 @Setter
 @Document(collection = "bookings")
+@CompoundIndexes({
+        // keyset-paginated booking history, newest first
+        @CompoundIndex(name = "appUser_startedTime_id", def = "{'appUserId': 1, 'bookingStartedTime': -1, '_id': -1}"),
+        @CompoundIndex(name = "workshopUser_startedTime_id", def = "{'workshopUserId': 1, 'bookingStartedTime': -1, '_id': -1}"),
+        // a workshop's pending (STARTED) requests
+        @CompoundIndex(name = "workshopUser_status_startedTime", def = "{'workshopUserId': 1, 'currentStatus': 1, 'bookingStartedTime': 1}"),
+        // pending bookings by age, used by the timeout scheduler
+        @CompoundIndex(name = "status_startedTime", def = "{'currentStatus': 1, 'bookingStartedTime': 1}")
+})
 @NoArgsConstructor
 public class Booking {
 
     @Id
     private String id;
+
+    @Version
+    private Long version;
     private double amount;
+    // pricing version the amount was computed from, see PricingCatalog
+    private Long pricingVersion;
     private Vehicle vehicle;
 
     private String workShopName;
@@ -44,10 +60,8 @@ public class Booking {
 //    @DBRef
 //    private WorkshopUser workshopUser;
 
-    @Indexed
     private String appUserId;
 
-    @Indexed
     private String workshopUserId;
 
     List<BookingStatusWithTimeStamp> bookingStatusHistory;
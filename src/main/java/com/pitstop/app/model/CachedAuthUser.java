@@ -0,0 +1,28 @@
+package com.pitstop.app.model;
+
+import java.util.List;
+
+/**
+ * The part of a user document that authentication needs, kept in the principal cache instead of
+ * the whole AppUser, WorkshopUser or AdminUser. Immutable, so a cached entry can be shared by
+ * concurrent logins, and comparable, so a save can tell whether it changed anything auth depends on.
+ */
+public record CachedAuthUser(String username, String password, List<String> roles, long tokenVersion,
+                             UserType userType) {
+
+    public CachedAuthUser {
+        roles = roles == null ? List.of() : List.copyOf(roles);
+    }
+
+    public static CachedAuthUser of(BaseUser user) {
+        return new CachedAuthUser(user.getUsername(), user.getPassword(), user.getRoles(),
+                user.getTokenVersion(), user.getUserType());
+    }
+
+    // Keeps the password hash out of logs
+    @Override
+    public String toString() {
+        return "CachedAuthUser[username=" + username + ", roles=" + roles + ", tokenVersion=" + tokenVersion
+                + ", userType=" + userType + "]";
+    }
+}
@@ -9,37 +9,40 @@ import java.util.Collection;
 import java.util.List;
 
 public class CustomUserDetails implements UserDetails {
-    private final BaseUser baseUser;
-    private final UserType userType;
+    private final CachedAuthUser authUser;
+
+    public CustomUserDetails(CachedAuthUser authUser) {
+        this.authUser = authUser;
+    }
 
     public CustomUserDetails(BaseUser baseUser, UserType userType) {
-        this.baseUser = baseUser;
-        this.userType = userType;
+        this(new CachedAuthUser(baseUser.getUsername(), baseUser.getPassword(), baseUser.getRoles(),
+                baseUser.getTokenVersion(), userType));
     }
 
-    public BaseUser getBaseUser() {
-        return baseUser;
+    public CachedAuthUser getAuthUser() {
+        return authUser;
     }
 
     public UserType getUserType() {
-        return userType;
+        return authUser.userType();
     }
 
     @Override
     public Collection<? extends GrantedAuthority> getAuthorities() {
-        return baseUser.getRoles().stream()
+        return authUser.roles().stream()
                 .map(r -> new SimpleGrantedAuthority("ROLE_" + r))
                 .toList();
     }
 
     @Override
     public String getPassword() {
-        return baseUser.getPassword();
+        return authUser.password();
     }
 
     @Override
     public String getUsername() {
-        return baseUser.getUsername();
+        return authUser.username();
     }
 
     @Override
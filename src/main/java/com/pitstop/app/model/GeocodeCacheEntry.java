@@ -0,0 +1,30 @@
+package com.pitstop.app.model;
+
+import lombok.AllArgsConstructor;
+import lombok.Getter;
+import lombok.NoArgsConstructor;
+import lombok.Setter;
+import org.springframework.data.annotation.Id;
+import org.springframework.data.mongodb.core.index.Indexed;
+import org.springframework.data.mongodb.core.mapping.Document;
+
+import java.time.Instant;
+
+// A geocoding result shared by all nodes. MongoDB removes it once expiresAt has passed.
+@Getter
+@Setter
+@NoArgsConstructor
+@AllArgsConstructor
+@Document(collection = "geocode_cache")
+public class GeocodeCacheEntry {
+    // "fwd:" + normalized address text, or "rev:" + quantized lat/lon cell
+    @Id
+    private String id;
+
+    private Double latitude;
+    private Double longitude;
+    private String formattedAddress;
+
+    @Indexed(expireAfter = "0s")
+    private Instant expiresAt;
+}
@@ -0,0 +1,25 @@
+package com.pitstop.app.model;
+
+import org.springframework.security.core.GrantedAuthority;
+import org.springframework.security.core.authority.SimpleGrantedAuthority;
+
+import java.security.Principal;
+import java.util.List;
+
+/**
+ * The authenticated user as described by a verified JWT. Built from the token's claims alone,
+ * so authenticating a request does not need the user document.
+ */
+public record JwtPrincipal(String username, UserType userType, List<String> roles, long tokenVersion) implements Principal {
+
+    @Override
+    public String getName() {
+        return username;
+    }
+
+    public List<GrantedAuthority> getAuthorities() {
+        return roles.stream()
+                .<GrantedAuthority>map(r -> new SimpleGrantedAuthority("ROLE_" + r))
+                .toList();
+    }
+}
@@ -0,0 +1,53 @@
+package com.pitstop.app.model;
+
+import com.pitstop.app.constants.VehicleType;
+import com.pitstop.app.constants.WorkshopServiceType;
+
+import java.time.LocalDateTime;
+import java.util.Collection;
+import java.util.List;
+import java.util.Optional;
+
+/**
+ * Immutable view of every pricing rule at one pricing version. Rules sit in a dense array indexed by
+ * the VehicleType and WorkshopServiceType ordinals, so a lookup is one array read.
+ */
+public final class PricingSnapshot {
+
+    private static final int SERVICE_TYPES = WorkshopServiceType.values().length;
+
+    public static final PricingSnapshot EMPTY = new PricingSnapshot(0, List.of());
+
+    public record Entry(String id, VehicleType vehicleType, WorkshopServiceType serviceType,
+                        double amount, double premiumAmount,
+                        LocalDateTime createdDate, LocalDateTime lastModifiedDate) {
+    }
+
+    private final long version;
+    private final Entry[] entries;
+
+    public PricingSnapshot(long version, Collection<PricingRule> rules) {
+        this.version = version;
+        this.entries = new Entry[VehicleType.values().length * SERVICE_TYPES];
+        for (PricingRule rule : rules) {
+            if (rule.getVehicleType() == null || rule.getServiceType() == null) {
+                continue;
+            }
+            entries[slot(rule.getVehicleType(), rule.getServiceType())] = new Entry(rule.getId(),
+                    rule.getVehicleType(), rule.getServiceType(), rule.getAmount(), rule.getPremiumAmount(),
+                    rule.getCreatedDate(), rule.getLastModifiedDate());
+        }
+    }
+
+    public long getVersion() {
+        return version;
+    }
+
+    public Optional<Entry> find(VehicleType vehicleType, WorkshopServiceType serviceType) {
+        return Optional.ofNullable(entries[slot(vehicleType, serviceType)]);
+    }
+
+    private static int slot(VehicleType vehicleType, WorkshopServiceType serviceType) {
+        return vehicleType.ordinal() * SERVICE_TYPES + serviceType.ordinal();
+    }
+}
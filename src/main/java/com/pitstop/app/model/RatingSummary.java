@@ -0,0 +1,62 @@
+package com.pitstop.app.model;
+
+import lombok.Getter;
+import lombok.NoArgsConstructor;
+import lombok.Setter;
+
+import java.time.Duration;
+import java.time.Instant;
+import java.util.HashMap;
+import java.util.Map;
+
+/**
+ * Running totals of the 1-5 star ratings a user has received, embedded in the user document.
+ * Every field is a plain sum, so recording a rating is a single {@code $inc} and never needs
+ * the document to be loaded.
+ * <p>
+ * The decayed totals weigh each rating by {@code 2^(age since DECAY_EPOCH / half-life)}. Newer
+ * ratings get exponentially larger weights, which makes older ones fade in the decayed average
+ * without ever having to rescale what is already stored.
+ */
+@Getter
+@Setter
+@NoArgsConstructor
+public class RatingSummary {
+
+    public static final int MIN_STARS = 1;
+    public static final int MAX_STARS = 5;
+    // Shown until enough ratings have come in for the average to mean something
+    public static final double DEFAULT_RATING = 5.0;
+    public static final int MIN_RATINGS_FOR_AVERAGE = 5;
+
+    // Both are baked into the stored weights, changing them needs the decayed totals rebuilt
+    public static final Instant DECAY_EPOCH = Instant.parse("2025-01-01T00:00:00Z");
+    public static final double DECAY_HALF_LIFE_DAYS = 90.0;
+
+    private long count;
+    private long sum;
+    // star ("1".."5") -> number of ratings with that many stars
+    private Map<String, Long> histogram = new HashMap<>();
+    private double decayedSum;
+    private double decayedWeight;
+
+    public double getAverage() {
+        if (count < MIN_RATINGS_FOR_AVERAGE) {
+            return DEFAULT_RATING;
+        }
+        return (double) sum / count;
+    }
+
+    // Average where a rating from one half-life ago counts half as much as one given today
+    public double getDecayedAverage() {
+        if (count < MIN_RATINGS_FOR_AVERAGE || decayedWeight <= 0) {
+            return DEFAULT_RATING;
+        }
+        return decayedSum / decayedWeight;
+    }
+
+    public static double decayWeight(Instant ratedAt) {
+        double days = Duration.between(DECAY_EPOCH, ratedAt).toMillis() / (double) Duration.ofDays(1).toMillis();
+        return Math.pow(2.0, days / DECAY_HALF_LIFE_DAYS);
+    }
+}
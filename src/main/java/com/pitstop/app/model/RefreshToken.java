@@ -0,0 +1,37 @@
+package com.pitstop.app.model;
+
+import lombok.Getter;
+import lombok.NoArgsConstructor;
+import lombok.Setter;
+import org.springframework.data.annotation.Id;
+import org.springframework.data.mongodb.core.index.Indexed;
+import org.springframework.data.mongodb.core.mapping.Document;
+
+import java.time.Instant;
+
+/*
+One issued refresh token. Only the SHA-256 of the token is stored, as the id, so a leaked
+collection cannot be used to mint access tokens. Every token from one login shares a familyId,
+which is what gets revoked when a rotated token is replayed.
+ */
+@Getter
+@Setter
+@NoArgsConstructor
+@Document(collection = "refresh_tokens")
+public class RefreshToken {
+    @Id
+    private String id;
+
+    @Indexed
+    private String familyId;
+    private String username;
+    // the user's tokenVersion at login, a password or role change ends the family
+    private long tokenVersion;
+    private Instant issuedAt;
+
+    @Indexed(expireAfter = "0s")
+    private Instant expiresAt;
+
+    // set once the token has been exchanged, presenting it again means it was stolen
+    private Instant usedAt;
+}
@@ -0,0 +1,29 @@
+package com.pitstop.app.model;
+
+import lombok.AllArgsConstructor;
+import lombok.Getter;
+import lombok.NoArgsConstructor;
+import lombok.Setter;
+import org.springframework.data.annotation.Id;
+import org.springframework.data.mongodb.core.index.Indexed;
+import org.springframework.data.mongodb.core.mapping.Document;
+
+import java.time.Instant;
+
+// A revoked JWT, keyed by its jti. MongoDB removes it once the token would have expired anyway.
+@Getter
+@Setter
+@NoArgsConstructor
+@AllArgsConstructor
+@Document(collection = "revoked_tokens")
+public class RevokedToken {
+    @Id
+    private String id;
+
+    @Indexed(expireAfter = "0s")
+    private Instant expiresAt;
+
+    // nodes poll on this to pick up revocations made elsewhere
+    @Indexed
+    private Instant revokedAt;
+}
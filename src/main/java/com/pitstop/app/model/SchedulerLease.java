@@ -0,0 +1,21 @@
+package com.pitstop.app.model;
+
+import lombok.Getter;
+import lombok.NoArgsConstructor;
+import lombok.Setter;
+import org.springframework.data.annotation.Id;
+import org.springframework.data.mongodb.core.mapping.Document;
+
+import java.time.Instant;
+
+// One document per singleton job, the node named in owner runs it until expiresAt
+@Getter
+@Setter
+@NoArgsConstructor
+@Document(collection = "scheduler_leases")
+public class SchedulerLease {
+    @Id
+    private String id;
+    private String owner;
+    private Instant expiresAt;
+}
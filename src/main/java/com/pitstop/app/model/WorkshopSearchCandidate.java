@@ -0,0 +1,41 @@
+package com.pitstop.app.model;
+
+import com.pitstop.app.constants.VehicleType;
+import com.pitstop.app.constants.WorkshopServiceType;
+import com.pitstop.app.constants.WorkshopStatus;
+import lombok.AllArgsConstructor;
+import lombok.Getter;
+import org.springframework.data.annotation.Id;
+
+import java.util.List;
+
+/**
+ * Read model of a workshops document holding only what workshop search needs. Repository methods
+ * returning it fetch just these fields, leaving the password hash, wallet, ratings and timestamps
+ * in the database.
+ */
+@Getter
+// a single constructor, its parameters are the fields the projection fetches
+@AllArgsConstructor
+public class WorkshopSearchCandidate {
+    @Id
+    private String id;
+    private String name;
+    private String username;
+    private Address workshopAddress;
+    private WorkshopStatus currentWorkshopStatus;
+    private VehicleType vehicleTypeSupported;
+    private List<WorkshopServiceType> servicesOffered;
+    private boolean isPremiumWorkshop;
+
+    public static WorkshopSearchCandidate of(WorkshopUser workshopUser) {
+        return new WorkshopSearchCandidate(workshopUser.getId(), workshopUser.getName(), workshopUser.getUsername(),
+                workshopUser.getWorkshopAddress(), workshopUser.getCurrentWorkshopStatus(),
+                workshopUser.getVehicleTypeSupported(), workshopUser.getServicesOffered(),
+                workshopUser.isPremiumWorkshop());
+    }
+
+    public String displayName() {
+        return (name != null && !name.isBlank()) ? name : username;
+    }
+}
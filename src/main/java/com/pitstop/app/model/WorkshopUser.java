@@ -1,5 +1,6 @@
 package com.pitstop.app.model;
 
+import com.fasterxml.jackson.annotation.JsonIgnore;
 import com.pitstop.app.constants.VehicleType;
 import com.pitstop.app.constants.WorkshopServiceType;
 import com.pitstop.app.constants.WorkshopStatus;
@@ -7,7 +8,13 @@ import lombok.Getter;
 import lombok.NoArgsConstructor;
 import lombok.Setter;
 import org.springframework.data.annotation.Id;
-import org.springframework.data.mongodb.core.mapping.DBRef;
+import org.springframework.data.annotation.Transient;
+import org.springframework.data.annotation.Version;
+import org.springframework.data.mongodb.core.geo.GeoJsonPoint;
+import org.springframework.data.mongodb.core.index.CompoundIndex;
+import org.springframework.data.mongodb.core.index.GeoSpatialIndexType;
+import org.springframework.data.mongodb.core.index.GeoSpatialIndexed;
+import org.springframework.data.mongodb.core.index.Indexed;
 import org.springframework.data.mongodb.core.mapping.Document;
 
 import java.time.LocalDateTime;
@@ -17,35 +24,50 @@ import java.util.List;
 @Getter
 @Setter
 @Document(collection = "workshops")
+// loading the open workshops into the search index
+@CompoundIndex(name = "status_vehicleType", def = "{'currentWorkshopStatus': 1, 'vehicleTypeSupported': 1}")
 public class WorkshopUser implements BaseUser{
 
     @Id
     private String id;
+
+    @Version
+    private Long version;
     private String name;
+    @Indexed
     private String username;
     private String email;
     private String password;
     private Address workshopAddress = new Address();
+
+    // GeoJSON copy of workshopAddress, kept in sync by WorkshopLocationCallback on every save
+    @GeoSpatialIndexed(type = GeoSpatialIndexType.GEO_2DSPHERE)
+    private GeoJsonPoint workshopLocation;
+
     private UserType userType = UserType.WORKSHOP_USER;
     private List<String> roles = new ArrayList<>();
+    private long tokenVersion = 0;
+    @Transient
+    @JsonIgnore
+    private CachedAuthUser loadedAuthState;
 
     public WorkshopUser(){
         this.roles.add("WORKSHOP");
     }
 
     private double currentWalletBalance = 0.0;
-    private double rating = 5.0;
-    private List<Integer> ratingsList = new ArrayList<>();
+    private RatingSummary ratingSummary = new RatingSummary();
     private List<WorkshopServiceType> servicesOffered = new ArrayList<>();
     private VehicleType vehicleTypeSupported;
     private boolean isPremiumWorkshop = false;
 
-    @DBRef
-    private List<Booking> bookingHistory = new ArrayList<>();
-
     private WorkshopStatus currentWorkshopStatus = WorkshopStatus.CLOSED;
     private LocalDateTime accountCreationDateTime = LocalDateTime.now();
     private LocalDateTime accountLastModifiedDateTime = LocalDateTime.now();
 
     private boolean enabled = true;
+
+    public double getRating() {
+        return ratingSummary == null ? RatingSummary.DEFAULT_RATING : ratingSummary.getAverage();
+    }
 }
@@ -4,6 +4,7 @@ import com.pitstop.app.model.AppUser;
 import org.springframework.data.mongodb.repository.MongoRepository;
 
 import java.util.Optional;
+import java.util.stream.Stream;
 
 
 public interface AppUserRepository extends MongoRepository<AppUser, String> {
@@ -18,4 +19,7 @@ public interface AppUserRepository extends MongoRepository<AppUser, String> {
 
     //added for unit testing
     void deleteByUsername(String username);
+
+    // Every user, read lazily from a cursor for streamed admin listings. The caller must close the stream.
+    Stream<AppUser> streamAllBy();
 }
@@ -1,11 +1,18 @@
 package com.pitstop.app.repository;
 
+import com.pitstop.app.constants.BookingStatus;
 import com.pitstop.app.model.Booking;
 import org.springframework.data.mongodb.repository.MongoRepository;
 
 import java.util.List;
+import java.util.Optional;
+
+public interface BookingRepository extends MongoRepository<Booking, String>, BookingRepositoryCustom {
+    //Ownership-aware lookups, a booking that belongs to someone else is simply not found
+    Optional<Booking> findByIdAndAppUserId(String id, String appUserId);
+    Optional<Booking> findByIdAndWorkshopUserId(String id, String workshopUserId);
 
-public interface BookingRepository extends MongoRepository<Booking, String> {
     List<Booking> findByAppUserIdOrderByBookingStartedTimeDesc(String appUserId);
     List<Booking> findByWorkshopUserIdOrderByBookingStartedTimeDesc(String workshopUserId);
+    List<Booking> findByWorkshopUserIdAndCurrentStatusOrderByBookingStartedTimeAsc(String workshopUserId, BookingStatus currentStatus);
 }
@@ -0,0 +1,58 @@
+package com.pitstop.app.repository;
+
+import com.pitstop.app.constants.BookingStatus;
+import com.pitstop.app.constants.PaymentStatus;
+import com.pitstop.app.model.Booking;
+import com.pitstop.app.utils.BookingHistoryCursor;
+import org.springframework.data.mongodb.core.query.Update;
+
+import java.time.LocalDateTime;
+import java.util.Collection;
+import java.util.List;
+import java.util.Optional;
+import java.util.stream.Stream;
+
+public interface BookingRepositoryCustom {
+    /*
+    Moves the booking from expectedStatus to newStatus in a single findAndModify,
+    appending to bookingStatusHistory and applying any extra field updates.
+    Returns the updated booking, or empty if it was not in expectedStatus anymore.
+     */
+    Optional<Booking> compareAndSetStatus(String bookingId, BookingStatus expectedStatus,
+                                          BookingStatus newStatus, Update update);
+
+    /*
+    Bookings of one app user (or workshop), newest first, strictly after the cursor (null for the first page).
+    statuses narrows the result when not empty, limit 0 returns everything. With historyFieldsOnly only the
+    fields the booking history DTOs map are loaded.
+     */
+    List<Booking> findAppUserHistoryPage(String appUserId, Collection<BookingStatus> statuses,
+                                         BookingHistoryCursor after, int limit, boolean historyFieldsOnly);
+
+    List<Booking> findWorkshopUserHistoryPage(String workshopUserId, Collection<BookingStatus> statuses,
+                                              BookingHistoryCursor after, int limit, boolean historyFieldsOnly);
+
+    // The whole history in the same order, read lazily from a cursor. The caller must close the stream.
+    Stream<Booking> streamAppUserHistory(String appUserId, Collection<BookingStatus> statuses, boolean historyFieldsOnly);
+
+    Stream<Booking> streamWorkshopUserHistory(String workshopUserId, Collection<BookingStatus> statuses,
+                                              boolean historyFieldsOnly);
+
+    /*
+    Records a rating on a COMPLETED booking unless that side has already rated it.
+    Returns false if the booking is not completed or already carries the rating.
+     */
+    boolean setRatingAppUserToWorkshop(String bookingId, int rating);
+
+    boolean setRatingWorkshopToAppUser(String bookingId, int rating);
+
+    // Takes back a rating set above, so it can be given again if counting it failed
+    void clearRatingAppUserToWorkshop(String bookingId, int rating);
+
+    void clearRatingWorkshopToAppUser(String bookingId, int rating);
+
+    void setOtp(String bookingId, String otp, LocalDateTime otpExpiry);
+
+    // Returns the updated booking, or empty if it does not exist
+    Optional<Booking> setPaymentStatus(String bookingId, PaymentStatus paymentStatus);
+}
@@ -0,0 +1,144 @@
+package com.pitstop.app.repository;
+
+import com.pitstop.app.constants.BookingStatus;
+import com.pitstop.app.constants.PaymentStatus;
+import com.pitstop.app.model.Booking;
+import com.pitstop.app.model.BookingStatusWithTimeStamp;
+import com.pitstop.app.utils.BookingHistoryCursor;
+import lombok.RequiredArgsConstructor;
+import org.springframework.data.domain.Sort;
+import org.springframework.data.mongodb.core.FindAndModifyOptions;
+import org.springframework.data.mongodb.core.MongoTemplate;
+import org.springframework.data.mongodb.core.query.Criteria;
+import org.springframework.data.mongodb.core.query.Query;
+import org.springframework.data.mongodb.core.query.Update;
+
+import java.time.LocalDateTime;
+import java.util.Collection;
+import java.util.List;
+import java.util.Optional;
+import java.util.stream.Stream;
+
+@RequiredArgsConstructor
+public class BookingRepositoryImpl implements BookingRepositoryCustom {
+
+    // Everything mapToResponseAppUser and mapToResponseWorkShopUser read
+    private static final String[] HISTORY_FIELDS = {"currentStatus", "appUserId", "workshopUserId", "workShopName",
+            "workShopAddress", "amount", "vehicle", "bookingStartedTime"};
+
+    private final MongoTemplate mongoTemplate;
+
+    @Override
+    public Optional<Booking> compareAndSetStatus(String bookingId, BookingStatus expectedStatus,
+                                                 BookingStatus newStatus, Update update) {
+        Query query = Query.query(Criteria.where("_id").is(bookingId).and("currentStatus").is(expectedStatus));
+        Update transition = update == null ? new Update() : update;
+        transition.set("currentStatus", newStatus)
+                .inc("version", 1)
+                .push("bookingStatusHistory", new BookingStatusWithTimeStamp(newStatus, LocalDateTime.now()));
+
+        return Optional.ofNullable(mongoTemplate.findAndModify(query, transition,
+                FindAndModifyOptions.options().returnNew(true), Booking.class));
+    }
+
+    @Override
+    public List<Booking> findAppUserHistoryPage(String appUserId, Collection<BookingStatus> statuses,
+                                                BookingHistoryCursor after, int limit, boolean historyFieldsOnly) {
+        return findHistoryPage("appUserId", appUserId, statuses, after, limit, historyFieldsOnly);
+    }
+
+    @Override
+    public List<Booking> findWorkshopUserHistoryPage(String workshopUserId, Collection<BookingStatus> statuses,
+                                                     BookingHistoryCursor after, int limit, boolean historyFieldsOnly) {
+        return findHistoryPage("workshopUserId", workshopUserId, statuses, after, limit, historyFieldsOnly);
+    }
+
+    @Override
+    public Stream<Booking> streamAppUserHistory(String appUserId, Collection<BookingStatus> statuses,
+                                                boolean historyFieldsOnly) {
+        return mongoTemplate.stream(historyQuery("appUserId", appUserId, statuses, null, 0, historyFieldsOnly),
+                Booking.class);
+    }
+
+    @Override
+    public Stream<Booking> streamWorkshopUserHistory(String workshopUserId, Collection<BookingStatus> statuses,
+                                                     boolean historyFieldsOnly) {
+        return mongoTemplate.stream(historyQuery("workshopUserId", workshopUserId, statuses, null, 0, historyFieldsOnly),
+                Booking.class);
+    }
+
+    private List<Booking> findHistoryPage(String ownerField, String ownerId, Collection<BookingStatus> statuses,
+                                          BookingHistoryCursor after, int limit, boolean historyFieldsOnly) {
+        return mongoTemplate.find(historyQuery(ownerField, ownerId, statuses, after, limit, historyFieldsOnly),
+                Booking.class);
+    }
+
+    // Walks the {owner: 1, bookingStartedTime: -1, _id: -1} index, so a page costs the same however deep it is
+    private Query historyQuery(String ownerField, String ownerId, Collection<BookingStatus> statuses,
+                               BookingHistoryCursor after, int limit, boolean historyFieldsOnly) {
+        Criteria criteria = Criteria.where(ownerField).is(ownerId);
+        if (statuses != null && !statuses.isEmpty()) {
+            criteria.and("currentStatus").in(statuses);
+        }
+        if (after != null) {
+            criteria.orOperator(
+                    Criteria.where("bookingStartedTime").lt(after.startedTime()),
+                    Criteria.where("bookingStartedTime").is(after.startedTime()).and("_id").lt(after.id()));
+        }
+
+        Query query = Query.query(criteria)
+                .with(Sort.by(Sort.Direction.DESC, "bookingStartedTime", "_id"))
+                .limit(limit);
+        if (historyFieldsOnly) {
+            query.fields().include(HISTORY_FIELDS);
+        }
+        return query;
+    }
+
+    @Override
+    public boolean setRatingAppUserToWorkshop(String bookingId, int rating) {
+        return setRatingIfAbsent(bookingId, "ratingAppUserToWorkshop", rating);
+    }
+
+    @Override
+    public boolean setRatingWorkshopToAppUser(String bookingId, int rating) {
+        return setRatingIfAbsent(bookingId, "ratingWorkshopToAppUser", rating);
+    }
+
+    @Override
+    public void clearRatingAppUserToWorkshop(String bookingId, int rating) {
+        clearRating(bookingId, "ratingAppUserToWorkshop", rating);
+    }
+
+    @Override
+    public void clearRatingWorkshopToAppUser(String bookingId, int rating) {
+        clearRating(bookingId, "ratingWorkshopToAppUser", rating);
+    }
+
+    // 0 means not rated yet, so the filter lets exactly one of two concurrent ratings through
+    private boolean setRatingIfAbsent(String bookingId, String ratingField, int rating) {
+        Query query = Query.query(Criteria.where("_id").is(bookingId)
+                .and("currentStatus").is(BookingStatus.COMPLETED)
+                .and(ratingField).is(0));
+        Update update = new Update().set(ratingField, rating).inc("version", 1);
+        return mongoTemplate.updateFirst(query, update, Booking.class).getModifiedCount() == 1;
+    }
+
+    private void clearRating(String bookingId, String ratingField, int rating) {
+        Query query = Query.query(Criteria.where("_id").is(bookingId).and(ratingField).is(rating));
+        mongoTemplate.updateFirst(query, new Update().set(ratingField, 0).inc("version", 1), Booking.class);
+    }
+
+    @Override
+    public void setOtp(String bookingId, String otp, LocalDateTime otpExpiry) {
+        mongoTemplate.updateFirst(Query.query(Criteria.where("_id").is(bookingId)),
+                new Update().set("otp", otp).set("otpExpiry", otpExpiry).inc("version", 1), Booking.class);
+    }
+
+    @Override
+    public Optional<Booking> setPaymentStatus(String bookingId, PaymentStatus paymentStatus) {
+        return Optional.ofNullable(mongoTemplate.findAndModify(Query.query(Criteria.where("_id").is(bookingId)),
+                new Update().set("currentPaymentStatus", paymentStatus).inc("version", 1),
+                FindAndModifyOptions.options().returnNew(true), Booking.class));
+    }
+}
@@ -0,0 +1,7 @@
+package com.pitstop.app.repository;
+
+import com.pitstop.app.model.GeocodeCacheEntry;
+import org.springframework.data.mongodb.repository.MongoRepository;
+
+public interface GeocodeCacheRepository extends MongoRepository<GeocodeCacheEntry, String> {
+}
@@ -0,0 +1,8 @@
+package com.pitstop.app.repository;
+
+import com.pitstop.app.model.RefreshToken;
+import org.springframework.data.mongodb.repository.MongoRepository;
+
+public interface RefreshTokenRepository extends MongoRepository<RefreshToken, String> {
+    long deleteByFamilyId(String familyId);
+}
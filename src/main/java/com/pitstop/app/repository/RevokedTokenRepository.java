@@ -0,0 +1,12 @@
+package com.pitstop.app.repository;
+
+import com.pitstop.app.model.RevokedToken;
+import org.springframework.data.mongodb.repository.MongoRepository;
+
+import java.time.Instant;
+import java.util.List;
+
+public interface RevokedTokenRepository extends MongoRepository<RevokedToken, String> {
+    List<RevokedToken> findByExpiresAtAfter(Instant now);
+    List<RevokedToken> findByRevokedAtGreaterThanEqual(Instant since);
+}
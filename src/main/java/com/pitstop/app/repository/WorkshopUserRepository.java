@@ -2,11 +2,18 @@ package com.pitstop.app.repository;
 
 import com.pitstop.app.constants.VehicleType;
 import com.pitstop.app.constants.WorkshopServiceType;
+import com.pitstop.app.constants.WorkshopStatus;
+import com.pitstop.app.model.WorkshopSearchCandidate;
 import com.pitstop.app.model.WorkshopUser;
+import org.springframework.data.geo.Distance;
+import org.springframework.data.geo.GeoResults;
+import org.springframework.data.geo.Point;
 import org.springframework.data.mongodb.repository.MongoRepository;
 
+import java.util.Collection;
 import java.util.List;
 import java.util.Optional;
+import java.util.stream.Stream;
 
 public interface WorkshopUserRepository extends MongoRepository<WorkshopUser, String> {
     Optional<WorkshopUser> findByUsername(String username);
@@ -25,4 +32,17 @@ public interface WorkshopUserRepository extends MongoRepository<WorkshopUser, St
     List<WorkshopUser> findByServicesOffered(WorkshopServiceType workshopServiceType);
     //Find all workshops that support a particular vehicle type
     List<WorkshopUser> findByVehicleTypeSupported(VehicleType workshopVehicleType);
+
+    // Workshop search reads projections, only the fields of WorkshopSearchCandidate are fetched
+    List<WorkshopSearchCandidate> findCandidatesByCurrentWorkshopStatus(WorkshopStatus status);
+
+    Optional<WorkshopSearchCandidate> findCandidateById(String id);
+
+    //$geoNear on the 2dsphere index of workshopLocation, results come back sorted by distance
+    GeoResults<WorkshopSearchCandidate> findCandidatesByCurrentWorkshopStatusAndVehicleTypeSupportedInAndServicesOfferedAndWorkshopLocationNear(
+            WorkshopStatus status, Collection<VehicleType> vehicleTypes, WorkshopServiceType serviceType,
+            Point location, Distance maxDistance);
+
+    // Every user, read lazily from a cursor for streamed admin listings. The caller must close the stream.
+    Stream<WorkshopUser> streamAllBy();
 }
@@ -0,0 +1,78 @@
+package com.pitstop.app.security;
+
+import com.github.benmanes.caffeine.cache.Cache;
+import com.github.benmanes.caffeine.cache.Caffeine;
+import com.pitstop.app.exception.TooManyRequestsException;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.stereotype.Component;
+
+import java.time.Duration;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicLong;
+
+/**
+ * Token buckets per username and per client IP for password checks. Each bucket is a single
+ * AtomicLong holding the time at which it will be full again (the GCRA form of a token bucket), so
+ * taking a token is one compare-and-set with no locks. Buckets live in Caffeine's striped concurrent
+ * map and are dropped once idle long enough to have refilled.
+ */
+@Component
+public class LoginThrottle {
+
+    private final Bucket.Limits userLimits;
+    private final Bucket.Limits ipLimits;
+    private final Cache<String, AtomicLong> userBuckets;
+    private final Cache<String, AtomicLong> ipBuckets;
+
+    public LoginThrottle(@Value("${auth.throttle.user.per-minute:10}") int userPerMinute,
+                         @Value("${auth.throttle.user.burst:5}") int userBurst,
+                         @Value("${auth.throttle.ip.per-minute:60}") int ipPerMinute,
+                         @Value("${auth.throttle.ip.burst:20}") int ipBurst,
+                         @Value("${auth.throttle.max-tracked-keys:100000}") long maxKeys) {
+        this.userLimits = new Bucket.Limits(userPerMinute, userBurst);
+        this.ipLimits = new Bucket.Limits(ipPerMinute, ipBurst);
+        this.userBuckets = Caffeine.newBuilder().maximumSize(maxKeys)
+                .expireAfterAccess(userLimits.refillTime()).build();
+        this.ipBuckets = Caffeine.newBuilder().maximumSize(maxKeys)
+                .expireAfterAccess(ipLimits.refillTime()).build();
+    }
+
+    // Throws TooManyRequestsException when either bucket is empty
+    public void acquire(String username, String clientIp) {
+        long now = System.nanoTime();
+        if (clientIp != null && !Bucket.tryTake(ipBuckets.get(clientIp, k -> new AtomicLong(now)), ipLimits, now)) {
+            throw new TooManyRequestsException("Too many sign-in attempts from this address, please retry later");
+        }
+        if (username != null && !Bucket.tryTake(userBuckets.get(username, k -> new AtomicLong(now)), userLimits, now)) {
+            throw new TooManyRequestsException("Too many sign-in attempts for this account, please retry later");
+        }
+    }
+
+    static final class Bucket {
+
+        record Limits(long intervalNanos, long burstNanos) {
+            Limits(int perMinute, int burst) {
+                this(TimeUnit.MINUTES.toNanos(1) / Math.max(1, perMinute),
+                        TimeUnit.MINUTES.toNanos(1) / Math.max(1, perMinute) * Math.max(1, burst));
+            }
+
+            Duration refillTime() {
+                return Duration.ofNanos(burstNanos);
+            }
+        }
+
+        // fullAt: when the bucket would hold burst tokens again, each token taken pushes it one interval out
+        static boolean tryTake(AtomicLong fullAt, Limits limits, long now) {
+            while (true) {
+                long current = fullAt.get();
+                long next = Math.max(current, now) + limits.intervalNanos();
+                if (next - now > limits.burstNanos()) {
+                    return false;
+                }
+                if (fullAt.compareAndSet(current, next)) {
+                    return true;
+                }
+            }
+        }
+    }
+}
@@ -1,24 +1,27 @@
 package com.pitstop.app.security;
 
+import com.pitstop.app.exception.TooManyRequestsException;
 import com.pitstop.app.filter.JwtFilter;
 import com.pitstop.app.service.impl.UserDetailsServiceImpl;
+import jakarta.servlet.DispatcherType;
 import lombok.RequiredArgsConstructor;
 import org.springframework.beans.factory.annotation.Value;
 import org.springframework.context.annotation.Bean;
 import org.springframework.context.annotation.Configuration;
 import org.springframework.http.HttpMethod;
+import org.springframework.http.HttpStatus;
 import org.springframework.security.authentication.AuthenticationManager;
 import org.springframework.security.authentication.AuthenticationProvider;
 import org.springframework.security.authentication.dao.DaoAuthenticationProvider;
-import org.springframework.security.config.Customizer;
 import org.springframework.security.config.annotation.authentication.configuration.AuthenticationConfiguration;
 import org.springframework.security.config.annotation.web.builders.HttpSecurity;
 import org.springframework.security.config.annotation.web.configuration.EnableWebSecurity;
 import org.springframework.security.config.annotation.web.configurers.AbstractHttpConfigurer;
 import org.springframework.security.config.http.SessionCreationPolicy;
-import org.springframework.security.crypto.bcrypt.BCryptPasswordEncoder;
 import org.springframework.security.crypto.password.PasswordEncoder;
+import org.springframework.security.web.AuthenticationEntryPoint;
 import org.springframework.security.web.SecurityFilterChain;
+import org.springframework.security.web.authentication.www.BasicAuthenticationEntryPoint;
 import org.springframework.security.web.authentication.UsernamePasswordAuthenticationFilter;
 import org.springframework.web.cors.CorsConfiguration;
 import org.springframework.web.cors.CorsConfigurationSource;
@@ -33,9 +36,23 @@ public class SecurityConfig {
 
     private final UserDetailsServiceImpl userDetailsService;
     private final JwtFilter jwtFilter;
+    private final LoginThrottle loginThrottle;
     @Value("${cors.allowed-origins}")
     private String allowedOrigins;
 
+    @Value("${auth.bcrypt.strength:10}")
+    private int bcryptStrength;
+
+    // 0 means one thread per available processor
+    @Value("${auth.bcrypt.threads:0}")
+    private int bcryptThreads;
+
+    @Value("${auth.bcrypt.queue-size:64}")
+    private int bcryptQueueSize;
+
+    @Value("${auth.bcrypt.timeout-ms:5000}")
+    private long bcryptTimeoutMs;
+
     @Bean
     public SecurityFilterChain securityFilterChain(HttpSecurity http) throws Exception {
 
@@ -54,14 +71,21 @@ public class SecurityConfig {
                         // Only login + register should be public
                         .requestMatchers("/api/home/**").permitAll()
 
+                        // Refresh tokens stand in for the expired access token
+                        .requestMatchers("/api/auth/refresh").permitAll()
+
                         // Razorpay webhook callback (no JWT)
                         .requestMatchers("/api/payments/verify").permitAll()
 
+                        // The async dispatch that completes an SSE stream was already authorised on the original request
+                        .dispatcherTypeMatchers(DispatcherType.ASYNC).permitAll()
+
                         // Allow preflight (OPTIONS)
                         .requestMatchers(HttpMethod.OPTIONS, "/**").permitAll()
 
                         // ----- Protected Endpoints -----
                         .requestMatchers("/api/workshops/filterWorkshops").hasRole("USER")
+                        .requestMatchers("/api/workshops/filterWorkshops/page").hasRole("USER")
                         .requestMatchers("/api/workshops/available-services").hasRole("USER")
                         .requestMatchers("/api/users/**").hasRole("USER")
                         .requestMatchers("/api/workshops/**").hasRole("WORKSHOP")
@@ -70,12 +94,13 @@ public class SecurityConfig {
                         .anyRequest().authenticated()
                 )
 
-                .authenticationProvider(authenticationProvider())
+                // The provider bean is already in the global AuthenticationManager that the chain falls back to,
+                // registering it here too would run BCrypt and the throttle twice for every failed basic auth attempt
 
                 // Add JWT filter BEFORE username/password auth
                 .addFilterBefore(jwtFilter, UsernamePasswordAuthenticationFilter.class)
 
-                .httpBasic(Customizer.withDefaults())
+                .httpBasic(basic -> basic.authenticationEntryPoint(basicEntryPoint()))
 
                 .build();
     }
@@ -86,7 +111,9 @@ public class SecurityConfig {
         DaoAuthenticationProvider provider = new DaoAuthenticationProvider();
         provider.setUserDetailsService(userDetailsService);
         provider.setPasswordEncoder(passwordEncoder());
-        return provider;
+        // stores a fresh hash when auth.bcrypt.strength is raised
+        provider.setUserDetailsPasswordService(userDetailsService);
+        return new ThrottledAuthenticationProvider(provider, loginThrottle);
     }
 
     // Authentication Manager (needed for login)
@@ -95,10 +122,25 @@ public class SecurityConfig {
         return config.getAuthenticationManager();
     }
 
-    // BCrypt password encoder
+    // BCrypt password encoder, run on a bounded pool so logins cannot take every core
     @Bean
     public PasswordEncoder passwordEncoder() {
-        return new BCryptPasswordEncoder();
+        int threads = bcryptThreads > 0 ? bcryptThreads : Runtime.getRuntime().availableProcessors();
+        return new BoundedPasswordEncoder(bcryptStrength, threads, bcryptQueueSize, bcryptTimeoutMs);
+    }
+
+    // HTTP basic answers 429 instead of a 401 challenge when the login was throttled
+    private AuthenticationEntryPoint basicEntryPoint() {
+        BasicAuthenticationEntryPoint challenge = new BasicAuthenticationEntryPoint();
+        challenge.setRealmName("Realm");
+        challenge.afterPropertiesSet();
+        return (request, response, authException) -> {
+            if (authException instanceof TooManyRequestsException) {
+                response.sendError(HttpStatus.TOO_MANY_REQUESTS.value(), authException.getMessage());
+            } else {
+                challenge.commence(request, response, authException);
+            }
+        };
     }
 
     // CORS Config
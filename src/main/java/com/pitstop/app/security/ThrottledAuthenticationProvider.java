@@ -0,0 +1,39 @@
+package com.pitstop.app.security;
+
+import lombok.RequiredArgsConstructor;
+import org.springframework.security.authentication.AuthenticationProvider;
+import org.springframework.security.core.Authentication;
+import org.springframework.security.core.AuthenticationException;
+import org.springframework.web.context.request.RequestContextHolder;
+import org.springframework.web.context.request.ServletRequestAttributes;
+
+/*
+Puts LoginThrottle in front of the password check, so JSON logins and HTTP basic requests
+share the same per-user and per-IP limits and a rejected attempt never reaches BCrypt.
+ */
+@RequiredArgsConstructor
+public class ThrottledAuthenticationProvider implements AuthenticationProvider {
+
+    private final AuthenticationProvider delegate;
+    private final LoginThrottle loginThrottle;
+
+    @Override
+    public Authentication authenticate(Authentication authentication) throws AuthenticationException {
+        loginThrottle.acquire(authentication.getName(), clientIp());
+        return delegate.authenticate(authentication);
+    }
+
+    @Override
+    public boolean supports(Class<?> authentication) {
+        return delegate.supports(authentication);
+    }
+
+    // Behind a trusted proxy Tomcat has already replaced this with the X-Forwarded-For client
+    // (server.forward-headers-strategy=native), otherwise every login would share the proxy's bucket
+    private static String clientIp() {
+        if (RequestContextHolder.getRequestAttributes() instanceof ServletRequestAttributes attributes) {
+            return attributes.getRequest().getRemoteAddr();
+        }
+        return null;
+    }
+}
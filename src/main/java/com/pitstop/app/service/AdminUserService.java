@@ -1,7 +1,9 @@
 package com.pitstop.app.service;
 
+import com.pitstop.app.constants.BookingStatus;
 import com.pitstop.app.dto.AdminUserRegisterRequest;
 import com.pitstop.app.dto.AdminUserRegisterResponse;
+import com.pitstop.app.dto.BookingHistoryPage;
 import com.pitstop.app.dto.WorkshopUserResponse;
 import com.pitstop.app.model.BaseUser;
 import com.pitstop.app.model.Booking;
@@ -9,12 +11,17 @@ import org.springframework.web.bind.annotation.PathVariable;
 
 import java.util.List;
 import java.util.Optional;
+import java.util.stream.Stream;
 
 public interface AdminUserService {
     AdminUserRegisterResponse createAdmin(AdminUserRegisterRequest request);
     String changeUserRole(String id,String role);
     List<Booking> getBookingHistoryAppUser(String appUserId);
     List<Booking> getBookingHistoryWorkShopUser(String workshopUserId);
+    BookingHistoryPage<Booking> getBookingHistoryPageAppUser(String appUserId, String cursor, Integer size, List<BookingStatus> statuses);
+    BookingHistoryPage<Booking> getBookingHistoryPageWorkShopUser(String workshopUserId, String cursor, Integer size, List<BookingStatus> statuses);
+    Stream<Booking> streamBookingHistoryAppUser(String appUserId);
+    Stream<Booking> streamBookingHistoryWorkShopUser(String workshopUserId);
     Booking getBookingDetailsById(String bookingId);
     WorkshopUserResponse setPremium(String workshopUserId);
 }
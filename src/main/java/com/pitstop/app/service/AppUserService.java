@@ -5,12 +5,14 @@ import com.pitstop.app.model.AppUser;
 import org.springframework.http.ResponseEntity;
 
 import java.util.List;
+import java.util.stream.Stream;
 
 public interface AppUserService {
     AppUserRegisterResponse saveAppUserDetails(AppUserRegisterRequest appUser);
     AppUser getAppUserById(String id);
     AppUser getAppUserByUsername(String username);
     List<AppUser> getAllAppUser();
+    Stream<AppUser> streamAllAppUser();
     AddressResponse addAddress(AddressRequest address);
 
     String changeDefaultAddress(ChangeAddressRequest addressRequest);
@@ -1,14 +1,21 @@
 package com.pitstop.app.service;
 
+import com.pitstop.app.constants.BookingStatus;
 import com.pitstop.app.dto.AppUserBookingHistoryResponse;
+import com.pitstop.app.dto.BookingHistoryPage;
 import com.pitstop.app.dto.WorkShopUserBookingHistoryResponse;
 import com.pitstop.app.model.Booking;
 
 import java.util.List;
+import java.util.stream.Stream;
 
 public interface BookingHistoryService {
     List<AppUserBookingHistoryResponse> getBookingHistoryForAppUser();
     List<WorkShopUserBookingHistoryResponse> getBookingHistoryForWorkShopUser();
+    BookingHistoryPage<AppUserBookingHistoryResponse> getBookingHistoryPageForAppUser(String cursor, Integer size, List<BookingStatus> statuses);
+    BookingHistoryPage<WorkShopUserBookingHistoryResponse> getBookingHistoryPageForWorkShopUser(String cursor, Integer size, List<BookingStatus> statuses);
+    Stream<AppUserBookingHistoryResponse> streamBookingHistoryForAppUser(List<BookingStatus> statuses);
+    Stream<WorkShopUserBookingHistoryResponse> streamBookingHistoryForWorkShopUser(List<BookingStatus> statuses);
     AppUserBookingHistoryResponse mapToResponseAppUser(Booking b);
     WorkShopUserBookingHistoryResponse mapToResponseWorkShopUser(Booking b);
 }
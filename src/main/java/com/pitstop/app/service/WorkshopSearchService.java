@@ -2,13 +2,17 @@ package com.pitstop.app.service;
 
 import com.pitstop.app.constants.VehicleType;
 import com.pitstop.app.constants.WorkshopServiceType;
+import com.pitstop.app.dto.WorkshopSearchPage;
 import com.pitstop.app.dto.WorkshopUserFilterRequest;
 import com.pitstop.app.dto.WorkshopUserFilterResponse;
 import com.pitstop.app.model.WorkshopUser;
 
 import java.util.List;
+import java.util.stream.Stream;
 
 public interface WorkshopSearchService {
     List<WorkshopUserFilterResponse> filterWorkshopUsers(WorkshopUserFilterRequest workshopUserRequest);
+    Stream<WorkshopUserFilterResponse> streamWorkshopUsers(WorkshopUserFilterRequest workshopUserRequest);
+    WorkshopSearchPage filterWorkshopUsersPage(WorkshopUserFilterRequest workshopUserRequest);
     List<WorkshopServiceType> getAvailableServices(VehicleType vehicleType);
 }
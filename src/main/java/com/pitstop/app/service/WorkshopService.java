@@ -7,11 +7,13 @@ import com.pitstop.app.model.WorkshopUser;
 import org.springframework.http.ResponseEntity;
 
 import java.util.List;
+import java.util.stream.Stream;
 
 public interface WorkshopService {
     WorkshopUserRegisterResponse saveWorkshopUserDetails(WorkshopUserRegisterRequest workshopUser);
     WorkshopUser getWorkshopUserById(String id);
     List<WorkshopUser> getAllWorkshopUser();
+    Stream<WorkshopUser> streamAllWorkshopUser();
 
     AddressResponse addAddress(AddressRequest address);
 
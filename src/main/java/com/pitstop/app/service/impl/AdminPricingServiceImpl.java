@@ -7,7 +7,7 @@ import com.pitstop.app.dto.PricingRuleResponse;
 import com.pitstop.app.dto.UpdatePricingRuleRequest;
 import com.pitstop.app.exception.ResourceNotFoundException;
 import com.pitstop.app.model.PricingRule;
-import com.pitstop.app.repository.AdminUserRepository;
+import com.pitstop.app.model.PricingSnapshot;
 import com.pitstop.app.repository.PricingRuleRepository;
 import com.pitstop.app.service.AdminPricingService;
 import lombok.RequiredArgsConstructor;
@@ -25,6 +25,7 @@ import java.util.Optional;
 @Slf4j
 public class AdminPricingServiceImpl implements AdminPricingService {
     private final PricingRuleRepository pricingRuleRepository;
+    private final PricingCatalog pricingCatalog;
     @Override
     public PricingRuleResponse createPricingRule(CreatePricingRuleRequest request) {
         try {
@@ -46,6 +47,7 @@ public class AdminPricingServiceImpl implements AdminPricingService {
                     .lastModifiedDate(LocalDateTime.now())
                     .build();
             pricingRuleRepository.save(pricingRule);
+            pricingCatalog.publishChange();
 
             return PricingRuleResponse.builder()
                     .id(pricingRule.getId())
@@ -89,6 +91,7 @@ public class AdminPricingServiceImpl implements AdminPricingService {
             }
             pricingRule.setLastModifiedDate(LocalDateTime.now());
             pricingRuleRepository.save(pricingRule);
+            pricingCatalog.publishChange();
 
             return PricingRuleResponse.builder()
                     .id(pricingRule.getId())
@@ -113,6 +116,7 @@ public class AdminPricingServiceImpl implements AdminPricingService {
             PricingRule pricingRule = pricingRuleRepository.findById(id)
                     .orElseThrow(() -> new ResourceNotFoundException("Pricing rule id " + id + " not found"));
             pricingRuleRepository.delete(pricingRule);
+            pricingCatalog.publishChange();
         }
         catch (Exception e){
             log.error("Failed to delete pricing rule: {}", e.getMessage(), e);
@@ -147,29 +151,30 @@ public class AdminPricingServiceImpl implements AdminPricingService {
 
     @Override
     public PricingRuleResponse getPricingRuleByVehicleTypeAndServiceType(VehicleType vehicleType, WorkshopServiceType serviceType) {
-        log.info("Getting pricing rule for {} and {}", vehicleType.toString(), serviceType.toString());
-        try {
-            // Scanning for the specific vehicleType & serviceType Combination
-            PricingRule pricingRule = pricingRuleRepository.findByVehicleTypeAndServiceType(vehicleType, serviceType)
-                    .orElseThrow(() -> new RuntimeException("Pricing rule not found"));
+        return getPricingRule(pricingCatalog.current(), vehicleType, serviceType);
+    }
 
-            // Returning the Pricing Rule
-            return PricingRuleResponse.builder()
-                    .id(pricingRule.getId())
-                    .vehicleType(pricingRule.getVehicleType())
-                    .workshopServiceType(pricingRule.getServiceType())
-                    .amount(pricingRule.getAmount())
-                    .premiumAmount(pricingRule.getPremiumAmount())
-                    .createdDate(pricingRule.getCreatedDate())
-                    .updatedDate(pricingRule.getLastModifiedDate())
-                    .build();
-        }
-        catch (Exception e) {
+    // Looks the rule up in the given snapshot, for callers that also record which pricing version they used
+    public PricingRuleResponse getPricingRule(PricingSnapshot pricing, VehicleType vehicleType, WorkshopServiceType serviceType) {
+        log.debug("Getting pricing rule for {} and {} at pricing version {}", vehicleType, serviceType, pricing.getVersion());
+        Optional<PricingSnapshot.Entry> rule = pricing.find(vehicleType, serviceType);
+        if (rule.isEmpty()) {
             // Specific vehicleType & serviceType Combination not found
             log.warn("No Pricing Rule found for requested combination of Vehicle Type :: {} and Service Type :: {}", vehicleType.toString(), serviceType.toString());
             log.warn("Returning default pricing rule values for Vehicle Type :: {} and Service Type :: {}", vehicleType.toString(), serviceType.toString());
 
             return new PricingRuleResponse("default", vehicleType, serviceType, 499.00, 199.00, LocalDateTime.now(), LocalDateTime.now());
         }
+
+        PricingSnapshot.Entry pricingRule = rule.get();
+        return PricingRuleResponse.builder()
+                .id(pricingRule.id())
+                .vehicleType(pricingRule.vehicleType())
+                .workshopServiceType(pricingRule.serviceType())
+                .amount(pricingRule.amount())
+                .premiumAmount(pricingRule.premiumAmount())
+                .createdDate(pricingRule.createdDate())
+                .updatedDate(pricingRule.lastModifiedDate())
+                .build();
     }
 }
@@ -1,15 +1,19 @@
 package com.pitstop.app.service.impl;
 
+import com.pitstop.app.constants.BookingStatus;
 import com.pitstop.app.dto.*;
 import com.pitstop.app.exception.ResourceNotFoundException;
 import com.pitstop.app.exception.UserAlreadyExistException;
+import com.pitstop.app.exception.TooManyRequestsException;
 import com.pitstop.app.model.*;
 import com.pitstop.app.repository.AdminUserRepository;
 import com.pitstop.app.repository.AppUserRepository;
 import com.pitstop.app.repository.BookingRepository;
 import com.pitstop.app.repository.WorkshopUserRepository;
 import com.pitstop.app.service.AdminUserService;
+import com.pitstop.app.utils.BookingHistoryCursor;
 import com.pitstop.app.utils.JwtUtil;
+import com.pitstop.app.utils.OptimisticLockRetry;
 import lombok.RequiredArgsConstructor;
 import lombok.extern.slf4j.Slf4j;
 import org.springframework.http.HttpStatus;
@@ -17,12 +21,13 @@ import org.springframework.http.ResponseEntity;
 import org.springframework.security.authentication.AuthenticationManager;
 import org.springframework.security.authentication.UsernamePasswordAuthenticationToken;
 import org.springframework.security.core.userdetails.UserDetails;
-import org.springframework.security.crypto.bcrypt.BCryptPasswordEncoder;
+import org.springframework.security.crypto.password.PasswordEncoder;
 import org.springframework.stereotype.Service;
 import org.springframework.transaction.annotation.Transactional;
 
 import java.time.LocalDateTime;
 import java.util.List;
+import java.util.stream.Stream;
 
 @Service
 @RequiredArgsConstructor
@@ -31,22 +36,26 @@ public class AdminUserServiceImpl implements AdminUserService {
     private final AppUserRepository appUserRepository;
     private final WorkshopUserRepository workshopUserRepository;
     private final AdminUserRepository adminUserRepository;
-    private static final BCryptPasswordEncoder passwordEncoder = new BCryptPasswordEncoder();
+    private final PasswordEncoder passwordEncoder;
     private final AuthenticationManager manager;
     private final UserDetailsServiceImpl userDetailsService;
     private final JwtUtil jwtUtil;
+    private final RefreshTokenService refreshTokenService;
     private final BookingServiceImpl bookingService;
     private final BookingRepository bookingRepository;
+    private final OptimisticLockRetry optimisticLockRetry;
 
     @Transactional
     public String changeUserRole(String username, String newRole) {
-        BaseUser user = appUserRepository.findByUsername(username)
-                .map(u -> (BaseUser) u)
-                .orElseGet(() -> workshopUserRepository.findByUsername(username)
-                        .map(u -> (BaseUser) u)
-                        .orElseThrow(() -> new ResourceNotFoundException("User not found")));
-
-        return updateUserRole(user, newRole);
+        return optimisticLockRetry.execute("admin.changeUserRole", () -> {
+            BaseUser user = appUserRepository.findByUsername(username)
+                    .map(u -> (BaseUser) u)
+                    .orElseGet(() -> workshopUserRepository.findByUsername(username)
+                            .map(u -> (BaseUser) u)
+                            .orElseThrow(() -> new ResourceNotFoundException("User not found")));
+
+            return updateUserRole(user, newRole);
+        });
     }
 
     @Override
@@ -67,6 +76,34 @@ public class AdminUserServiceImpl implements AdminUserService {
         }
     }
 
+    @Override
+    public BookingHistoryPage<Booking> getBookingHistoryPageAppUser(String appUserId, String cursor, Integer size,
+                                                                    List<BookingStatus> statuses) {
+        int pageSize = BookingHistoryPage.pageSize(size);
+        List<Booking> bookings = bookingRepository.findAppUserHistoryPage(appUserId, statuses,
+                BookingHistoryCursor.decode(cursor), pageSize + 1, false);
+        return BookingHistoryPage.of(bookings, pageSize, booking -> booking);
+    }
+
+    @Override
+    public BookingHistoryPage<Booking> getBookingHistoryPageWorkShopUser(String workshopUserId, String cursor, Integer size,
+                                                                         List<BookingStatus> statuses) {
+        int pageSize = BookingHistoryPage.pageSize(size);
+        List<Booking> bookings = bookingRepository.findWorkshopUserHistoryPage(workshopUserId, statuses,
+                BookingHistoryCursor.decode(cursor), pageSize + 1, false);
+        return BookingHistoryPage.of(bookings, pageSize, booking -> booking);
+    }
+
+    @Override
+    public Stream<Booking> streamBookingHistoryAppUser(String appUserId) {
+        return bookingRepository.streamAppUserHistory(appUserId, null, false);
+    }
+
+    @Override
+    public Stream<Booking> streamBookingHistoryWorkShopUser(String workshopUserId) {
+        return bookingRepository.streamWorkshopUserHistory(workshopUserId, null, false);
+    }
+
     @Override
     public Booking getBookingDetailsById(String bookingId) {
         try {
@@ -79,14 +116,16 @@ public class AdminUserServiceImpl implements AdminUserService {
     @Override
     public WorkshopUserResponse setPremium(String workshopUserId) {
         log.info("Setting premium for workshop with id {}", workshopUserId);
-        WorkshopUser workshopUser = workshopUserRepository.findById(workshopUserId)
-                .orElseThrow(() -> {
-                    log.error("Workshop user not found with id {}", workshopUserId);
-                    return new ResourceNotFoundException("Workshop user not found with id" + workshopUserId);
-                });
-        workshopUser.setPremiumWorkshop(true);
-        workshopUser.setAccountLastModifiedDateTime(LocalDateTime.now());
-        workshopUserRepository.save(workshopUser);
+        WorkshopUser workshopUser = optimisticLockRetry.execute("admin.setPremium", () -> {
+            WorkshopUser current = workshopUserRepository.findById(workshopUserId)
+                    .orElseThrow(() -> {
+                        log.error("Workshop user not found with id {}", workshopUserId);
+                        return new ResourceNotFoundException("Workshop user not found with id" + workshopUserId);
+                    });
+            current.setPremiumWorkshop(true);
+            current.setAccountLastModifiedDateTime(LocalDateTime.now());
+            return workshopUserRepository.save(current);
+        });
         WorkshopUserResponse response = new WorkshopUserResponse();
         response.setIsPremium(workshopUser.isPremiumWorkshop());
         return response;
@@ -94,6 +133,8 @@ public class AdminUserServiceImpl implements AdminUserService {
 
     private String updateUserRole(BaseUser user, String newRole) {
         user.setRoles(List.of(newRole.toUpperCase()));
+        // Tokens carry the roles, so the ones issued before the change must stop working
+        user.setTokenVersion(user.getTokenVersion() + 1);
 
         if (user instanceof AppUser appUser) {
             appUserRepository.save(appUser);
@@ -146,6 +187,8 @@ public class AdminUserServiceImpl implements AdminUserService {
             manager.authenticate(
                     new UsernamePasswordAuthenticationToken(req.getUsername(), req.getPassword())
             );
+        } catch (TooManyRequestsException ex) {
+            throw ex;
         } catch (Exception ex) {
             log.warn("Invalid Admin credentials for {}", req.getUsername());
             throw new RuntimeException("Incorrect username or password");
@@ -170,6 +213,7 @@ public class AdminUserServiceImpl implements AdminUserService {
         return new AdminUserLoginResponse(
                 user.getUsername().substring(user.getUsername().indexOf('_') + 1),
                 token,
+                refreshTokenService.issue(user),
                 "Login successful"
         );
     }
@@ -6,17 +6,15 @@ import com.pitstop.app.dto.*;
 import com.pitstop.app.exception.BusinessException;
 import com.pitstop.app.exception.UserAlreadyExistException;
 import com.pitstop.app.exception.ResourceNotFoundException;
+import com.pitstop.app.exception.TooManyRequestsException;
 import com.pitstop.app.model.*;
 import com.pitstop.app.repository.AppUserRepository;
-import com.pitstop.app.repository.PricingRuleRepository;
 import com.pitstop.app.repository.WorkshopUserRepository;
 import com.pitstop.app.service.AppUserService;
 import com.pitstop.app.utils.JwtUtil;
+import com.pitstop.app.utils.OptimisticLockRetry;
 import lombok.RequiredArgsConstructor;
 import lombok.extern.slf4j.Slf4j;
-import org.json.JSONArray;
-import org.json.JSONObject;
-import org.springframework.beans.factory.annotation.Value;
 import org.springframework.http.*;
 import org.springframework.security.authentication.AuthenticationManager;
 import org.springframework.security.authentication.UsernamePasswordAuthenticationToken;
@@ -26,15 +24,10 @@ import org.springframework.security.core.userdetails.UserDetails;
 import org.springframework.security.crypto.password.PasswordEncoder;
 import org.springframework.stereotype.Service;
 import org.springframework.transaction.annotation.Transactional;
-import org.springframework.web.client.RestTemplate;
-import java.net.URI;
-import java.net.URLEncoder;
-import java.net.http.HttpClient;
-import java.net.http.HttpRequest;
-import java.net.http.HttpResponse;
-import java.nio.charset.StandardCharsets;
 import java.time.LocalDateTime;
 import java.util.*;
+import java.util.function.Consumer;
+import java.util.stream.Stream;
 
 @Service
 @RequiredArgsConstructor
@@ -45,23 +38,11 @@ public class AppUserServiceImpl implements AppUserService {
     private final AuthenticationManager manager;
     private final UserDetailsServiceImpl userDetailsService;
     private final JwtUtil jwtUtil;
-    private final PricingRuleRepository pricingRuleRepository;
+    private final RefreshTokenService refreshTokenService;
+    private final PricingCatalog pricingCatalog;
     private final WorkshopUserRepository workshopUserRepository;
-
-    @Value("${trueway.api.url}")
-    private String truewayApiUrl;
-
-    @Value("${trueway.api.key}")
-    private String truewayApiKey;
-
-    @Value("${trueway.api.host}")
-    private String truewayApiHost;
-
-    @Value("${nominatim.api.url}")
-    private String nominatimApiUrl;
-
-    @Value("${nominatim.user.agent}")
-    private String nominatimUserAgent;
+    private final GeocodingService geocodingService;
+    private final OptimisticLockRetry optimisticLockRetry;
 
     @Override
     public AppUserRegisterResponse saveAppUserDetails(AppUserRegisterRequest appUserRequest) {
@@ -90,14 +71,16 @@ public class AppUserServiceImpl implements AppUserService {
         response.setMessage("AppUser account created successfully");
         return response;
     }
-    public void updateAppUserDetails(AppUser appUser){
-        if(appUser.getId() != null && appUserRepository.existsById(appUser.getId())){
-            appUserRepository.save(appUser);
-        }
-        else {
-            appUser.setPassword(passwordEncoder.encode(appUser.getPassword()));
-            appUserRepository.save(appUser);
-        }
+
+    // Ratings bump the version with a targeted update, so a copy loaded earlier in the request cannot
+    // simply be saved: the change is re-applied to a fresh read until the save wins
+    public AppUser modifyAppUser(String operation, String username, Consumer<AppUser> change) {
+        return optimisticLockRetry.execute(operation, () -> {
+            AppUser current = appUserRepository.findByUsername(username)
+                    .orElseThrow(() -> new ResourceNotFoundException("User not found"));
+            change.accept(current);
+            return appUserRepository.save(current);
+        });
     }
 
     @Override
@@ -117,6 +100,11 @@ public class AppUserServiceImpl implements AppUserService {
         return new ArrayList<>(appUserRepository.findAll());
     }
 
+    @Override
+    public Stream<AppUser> streamAllAppUser() {
+        return appUserRepository.streamAllBy();
+    }
+
     @Override
     @Transactional
     public AddressResponse addAddress(AddressRequest request) {
@@ -124,13 +112,10 @@ public class AppUserServiceImpl implements AppUserService {
         String username = SecurityContextHolder
                 .getContext().getAuthentication().getName();
 
-        AppUser user = appUserRepository.findByUsername(username)
-                .orElseThrow(() -> new ResourceNotFoundException("User not found"));
-
         Address finalAddress;
 
         if (request.getLatitude() != null && request.getLongitude() != null) {
-            AddressResponse geo = findAddressFromCoordinates(
+            AddressResponse geo = geocodingService.findAddressFromCoordinates(
                     request.getLatitude(), request.getLongitude());
 
             finalAddress = Address.builder()
@@ -140,7 +125,7 @@ public class AppUserServiceImpl implements AppUserService {
                     .formattedAddress(geo.getFormattedAddress())
                     .build();
         } else if (request.getFormattedAddress() != null) {
-            AddressResponse geo = findCoordinatesFromAddress(request.getFormattedAddress());
+            AddressResponse geo = geocodingService.findCoordinatesFromAddress(request.getFormattedAddress());
 
             finalAddress = Address.builder()
                     .id(UUID.randomUUID().toString())
@@ -152,19 +137,19 @@ public class AppUserServiceImpl implements AppUserService {
             throw new BusinessException("Invalid address data");
         }
 
-        boolean exists = user.getUserAddress().stream()
-                .anyMatch(a -> a.getFormattedAddress()
-                        .equalsIgnoreCase(finalAddress.getFormattedAddress()));
+        modifyAppUser("appUser.addAddress", username, user -> {
+            boolean exists = user.getUserAddress().stream()
+                    .anyMatch(a -> a.getFormattedAddress()
+                            .equalsIgnoreCase(finalAddress.getFormattedAddress()));
 
-        if (exists) {
-            throw new BusinessException("Address already exists");
-        }
-
-        finalAddress.setDefault(user.getUserAddress().isEmpty());
-        user.getUserAddress().add(finalAddress);
-        user.setAccountLastModifiedDateTime(LocalDateTime.now());
+            if (exists) {
+                throw new BusinessException("Address already exists");
+            }
 
-        appUserRepository.save(user);
+            finalAddress.setDefault(user.getUserAddress().isEmpty());
+            user.getUserAddress().add(finalAddress);
+            user.setAccountLastModifiedDateTime(LocalDateTime.now());
+        });
 
         return new AddressResponse(
                 finalAddress.getId(),
@@ -180,33 +165,30 @@ public class AppUserServiceImpl implements AppUserService {
         Authentication authentication = SecurityContextHolder.getContext().getAuthentication();
         String username = authentication.getName();
 
-        AppUser appUser = appUserRepository.findByUsername(username)
-                .orElseThrow(() -> new ResourceNotFoundException("User not found"));
+        modifyAppUser("appUser.changeDefaultAddress", username, appUser -> {
+            List<Address> addresses = appUser.getUserAddress();
 
+            if (addresses == null || addresses.isEmpty()) {
+                throw new BusinessException("No addresses found");
+            }
 
-        List<Address> addresses = appUser.getUserAddress();
-
-        if (addresses == null || addresses.isEmpty()) {
-            throw new BusinessException("No addresses found");
-        }
-
-        boolean found = false;
+            boolean found = false;
 
-        for (Address a : addresses) {
-            if (a.getId().equals(addressRequest.getId())) {
-                a.setDefault(true);
-                found = true;
-            } else {
-                a.setDefault(false);
+            for (Address a : addresses) {
+                if (a.getId().equals(addressRequest.getId())) {
+                    a.setDefault(true);
+                    found = true;
+                } else {
+                    a.setDefault(false);
+                }
             }
-        }
 
-        if (!found) {
-            throw new BusinessException("Address not found");
-        }
+            if (!found) {
+                throw new BusinessException("Address not found");
+            }
 
-        appUser.setAccountLastModifiedDateTime(LocalDateTime.now());
-        appUserRepository.save(appUser);
+            appUser.setAccountLastModifiedDateTime(LocalDateTime.now());
+        });
 
         return "Default address updated successfully";
     }
@@ -217,6 +199,8 @@ public class AppUserServiceImpl implements AppUserService {
             manager.authenticate(
                     new UsernamePasswordAuthenticationToken(req.getUsername(), req.getPassword())
             );
+        } catch (TooManyRequestsException ex) {
+            throw ex;
         } catch (Exception ex) {
             log.warn("Invalid credentials for AppUser: {}", req.getUsername());
             throw new RuntimeException("Incorrect username or password");
@@ -238,100 +222,26 @@ public class AppUserServiceImpl implements AppUserService {
         return new AppUserLoginResponse(
                 user.getUsername().substring(user.getUsername().indexOf('_') + 1),
                 token,
+                refreshTokenService.issue(user),
                 "Login successful"
         );
     }
-    private AddressResponse findAddressFromCoordinates(double latitude, double longitude) {
-        try {
-            String url = String.format(
-                    "%s?lat=%f&lon=%f&format=json&addressdetails=1",
-                    nominatimApiUrl, latitude, longitude
-            );
-
-            RestTemplate restTemplate = new RestTemplate();
-            HttpHeaders headers = new HttpHeaders();
-            headers.set("User-Agent", nominatimUserAgent);
-
-            HttpEntity<String> entity = new HttpEntity<>(headers);
-            ResponseEntity<String> response = restTemplate.exchange(url, HttpMethod.GET, entity, String.class);
-
-            JSONObject json = new JSONObject(response.getBody());
-            JSONObject address = json.optJSONObject("address");
-            String formattedAddress = json.optString("display_name", "Address not found");
-
-            if (json.has("display_name") && address != null) {
-                return AddressResponse.builder()
-                        .formattedAddress(formattedAddress)
-                        .build();
-            } else {
-                return AddressResponse.builder()
-                        .formattedAddress("Address not found")
-                        .build();
-            }
-        } catch (Exception e) {
-            log.error("Invalid coordinates {}", e.getMessage());
-            return AddressResponse.builder()
-                    .formattedAddress("Error fetching address: " + e.getMessage())
-                    .build();
-        }
-    }
-    public AddressResponse findCoordinatesFromAddress(String addressPlainText) {
-        try {
-            String encodedAddress = URLEncoder.encode(addressPlainText, StandardCharsets.UTF_8);
-            String url = truewayApiUrl + "?address=" + encodedAddress;
-
-            HttpRequest request = HttpRequest.newBuilder()
-                    .uri(URI.create(url))
-                    .header("x-rapidapi-key", truewayApiKey)
-                    .header("x-rapidapi-host", truewayApiHost)
-                    .GET()
-                    .build();
-
-            HttpClient client = HttpClient.newHttpClient();
-            HttpResponse<String> response = client.send(request, HttpResponse.BodyHandlers.ofString());
-
-            if (response.statusCode() == 200) {
-                JSONObject json = new JSONObject(response.body());
-                JSONArray results = json.optJSONArray("results");
-                if (results == null || results.isEmpty()) {
-                    throw new RuntimeException("No results found for: " + addressPlainText);
-                }
-
-                JSONObject first = results.getJSONObject(0);
-                JSONObject location = first.getJSONObject("location");
-
-                return AddressResponse.builder()
-                        .latitude(location.getDouble("lat"))
-                        .longitude(location.getDouble("lng"))
-                        .formattedAddress(first.optString("address", addressPlainText))
-                        .build();
-            } else {
-                throw new RuntimeException("API Error: " + response.statusCode() + " - " + response.body());
-            }
-
-        } catch (Exception e) {
-            throw new RuntimeException("Error fetching coordinates for: " + addressPlainText + " | " + e.getMessage(), e);
-        }
-    }
     @Override
     public String updateAppUser(AppUserRequest appUserRequest) {
         Authentication authentication = SecurityContextHolder.getContext().getAuthentication();
         String username = authentication.getName();
 
-        AppUser currentAppUser = appUserRepository.findByUsername(username)
-                .orElseThrow(() -> new ResourceNotFoundException("User not found"));
-
-        if(appUserRequest.getName() != null) {
-            currentAppUser.setName(appUserRequest.getName());
-        }
-        if(appUserRequest.getEmail() != null) {
-            currentAppUser.setEmail(appUserRequest.getEmail());
-        }
-        if(appUserRequest.getUsername() != null) {
-            currentAppUser.setUsername(appUserRequest.getUsername());
-        }
-
-        updateAppUserDetails(currentAppUser);
+        modifyAppUser("appUser.update", username, currentAppUser -> {
+            if(appUserRequest.getName() != null) {
+                currentAppUser.setName(appUserRequest.getName());
+            }
+            if(appUserRequest.getEmail() != null) {
+                currentAppUser.setEmail(appUserRequest.getEmail());
+            }
+            if(appUserRequest.getUsername() != null) {
+                currentAppUser.setUsername(appUserRequest.getUsername());
+            }
+        });
 
         return "AppUser Details updated successfully";
     }
@@ -355,17 +265,17 @@ public class AppUserServiceImpl implements AppUserService {
         Authentication authentication = SecurityContextHolder.getContext().getAuthentication();
         String username = authentication.getName();
 
-        AppUser currentAppUser = appUserRepository.findByUsername(username)
-                .orElseThrow(() -> new ResourceNotFoundException("User not found"));
-
-        if(!passwordEncoder.matches(changePasswordRequest.getCurrentPassword(),currentAppUser.getPassword())) {
-            throw new IllegalArgumentException("Current password is incorrect");
-        }
-        if(passwordEncoder.matches(changePasswordRequest.getNewPassword(),currentAppUser.getPassword())){
-            throw new IllegalArgumentException("New password must be different");
-        }
-        currentAppUser.setPassword(passwordEncoder.encode(changePasswordRequest.getNewPassword()));
-        appUserRepository.save(currentAppUser);
+        modifyAppUser("appUser.changePassword", username, currentAppUser -> {
+            if(!passwordEncoder.matches(changePasswordRequest.getCurrentPassword(),currentAppUser.getPassword())) {
+                throw new IllegalArgumentException("Current password is incorrect");
+            }
+            if(passwordEncoder.matches(changePasswordRequest.getNewPassword(),currentAppUser.getPassword())){
+                throw new IllegalArgumentException("New password must be different");
+            }
+            currentAppUser.setPassword(passwordEncoder.encode(changePasswordRequest.getNewPassword()));
+            // Signs out every session that still holds a token for the old password
+            currentAppUser.setTokenVersion(currentAppUser.getTokenVersion() + 1);
+        });
     }
 
     @Override
@@ -403,17 +313,17 @@ public class AppUserServiceImpl implements AppUserService {
             validateRequest(request);
             VehicleType vt = parseWorkshopVehicleType(request.getVehicleType());
             WorkshopServiceType st = parseWorkshopServiceType(request.getServiceType());
-            PricingRule pricingRule = pricingRuleRepository.findByVehicleTypeAndServiceType(vt, st)
+            PricingSnapshot.Entry pricingRule = pricingCatalog.current().find(vt, st)
                     .orElseThrow(() -> {
                         log.error("Pricing rule not defined for vehicle type {} and service type {}", vt, st);
                         return new ResourceNotFoundException("Pricing rule not defined for vehicle type " + vt + " and service type " + st);
                     });
-            double baseAmount = pricingRule.getAmount();
+            double baseAmount = pricingRule.amount();
             if (request.getWorkshopId() == null) {
                 log.info("Returning Estimated Price");
                 return GetPriceResponse.builder()
                         .baseAmount(baseAmount)
-                        .premiumAmount(pricingRule.getPremiumAmount())
+                        .premiumAmount(pricingRule.premiumAmount())
                         .finalAmount(baseAmount)
                         .premiumApplied(false)
                         .message("Estimated Base Price")
@@ -429,7 +339,7 @@ public class AppUserServiceImpl implements AppUserService {
             double premiumAmount = 0;
             boolean premiumApplied = false;
             if (workshopUser.isPremiumWorkshop()) {
-                premiumAmount = pricingRule.getPremiumAmount();
+                premiumAmount = pricingRule.premiumAmount();
                 premiumApplied = true;
             }
             double finalAmount = baseAmount + premiumAmount;
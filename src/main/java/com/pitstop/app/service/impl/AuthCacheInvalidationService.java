@@ -0,0 +1,47 @@
+package com.pitstop.app.service.impl;
+
+import lombok.RequiredArgsConstructor;
+import org.springframework.boot.context.event.ApplicationReadyEvent;
+import org.springframework.context.event.EventListener;
+import org.springframework.stereotype.Service;
+
+/**
+ * Evicts a user from every auth cache (principals and token versions), here and on all other
+ * nodes through {@link ClusterEventService}.
+ */
+@Service
+@RequiredArgsConstructor
+public class AuthCacheInvalidationService {
+
+    public static final String CLUSTER_TOPIC = "auth-invalidate";
+    private static final String ALL_USERS = "*";
+
+    private final ClusterEventService clusterEventService;
+    private final UserDetailsServiceImpl userDetailsService;
+    private final TokenVersionService tokenVersionService;
+
+    @EventListener(ApplicationReadyEvent.class)
+    public void subscribeToCluster() {
+        clusterEventService.subscribe(CLUSTER_TOPIC, this::evictLocally);
+    }
+
+    public void invalidate(String username) {
+        evictLocally(username);
+        clusterEventService.publish(CLUSTER_TOPIC, username);
+    }
+
+    public void invalidateAll() {
+        evictLocally(ALL_USERS);
+        clusterEventService.publish(CLUSTER_TOPIC, ALL_USERS);
+    }
+
+    private void evictLocally(String username) {
+        if (ALL_USERS.equals(username)) {
+            userDetailsService.evictAll();
+            tokenVersionService.evictAll();
+        } else {
+            userDetailsService.evict(username);
+            tokenVersionService.evict(username);
+        }
+    }
+}
@@ -0,0 +1,258 @@
+package com.pitstop.app.service.impl;
+
+import com.fasterxml.jackson.core.JsonProcessingException;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.pitstop.app.dto.BookingStatusEvent;
+import jakarta.annotation.PreDestroy;
+import lombok.RequiredArgsConstructor;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.boot.context.event.ApplicationReadyEvent;
+import org.springframework.context.event.EventListener;
+import org.springframework.http.MediaType;
+import org.springframework.scheduling.annotation.Scheduled;
+import org.springframework.stereotype.Service;
+import org.springframework.web.servlet.mvc.method.annotation.SseEmitter;
+
+import java.util.ArrayDeque;
+import java.util.ArrayList;
+import java.util.Deque;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Queue;
+import java.util.Set;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ConcurrentLinkedQueue;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.atomic.AtomicBoolean;
+import java.util.concurrent.atomic.AtomicInteger;
+
+/**
+ * Server-Sent Events feed of booking status changes for app users and workshops.
+ * Booking changes are published as {@link BookingStatusEvent}s on the application event bus,
+ * forwarded to the other nodes through {@link ClusterEventService}, and pushed to every
+ * stream open for either party of the booking. Each subscriber is written to from its own
+ * virtual thread, so a slow client never holds up the others. A short per-user replay buffer
+ * lets a reconnecting client resume from its Last-Event-ID.
+ */
+@Service
+@RequiredArgsConstructor
+@Slf4j
+public class BookingEventStreamService {
+
+    public static final String CLUSTER_TOPIC = "booking-status";
+    private static final String APP_USER_PREFIX = "user:";
+    private static final String WORKSHOP_PREFIX = "workshop:";
+
+    private final ClusterEventService clusterEventService;
+    private final ObjectMapper objectMapper;
+
+    @Value("${booking.events.emitter-timeout-ms:1800000}")
+    private long emitterTimeoutMs;
+
+    @Value("${booking.events.replay-size:32}")
+    private int replaySize;
+
+    @Value("${booking.events.replay-users:10000}")
+    private int replayUsers;
+
+    @Value("${booking.events.max-pending:256}")
+    private int maxPending;
+
+    private final Map<String, Set<Subscription>> subscriptions = new ConcurrentHashMap<>();
+    private final ExecutorService deliveryExecutor = Executors.newVirtualThreadPerTaskExecutor();
+
+    // Recent events per stream key, least recently updated keys are dropped first
+    private final Map<String, Deque<BookingStatusEvent>> replay = new LinkedHashMap<>(256, 0.75f, true) {
+        @Override
+        protected boolean removeEldestEntry(Map.Entry<String, Deque<BookingStatusEvent>> eldest) {
+            return size() > replayUsers;
+        }
+    };
+
+    @EventListener(ApplicationReadyEvent.class)
+    public void subscribeToCluster() {
+        clusterEventService.subscribe(CLUSTER_TOPIC, payload -> {
+            try {
+                deliver(objectMapper.readValue(payload, BookingStatusEvent.class));
+            } catch (JsonProcessingException e) {
+                log.warn("Dropping malformed booking event: {}", e.getMessage());
+            }
+        });
+    }
+
+    @EventListener
+    public void onBookingStatusEvent(BookingStatusEvent event) {
+        deliver(event);
+        try {
+            clusterEventService.publish(CLUSTER_TOPIC, objectMapper.writeValueAsString(event));
+        } catch (JsonProcessingException e) {
+            log.warn("Could not serialise booking event {}: {}", event.getEventId(), e.getMessage());
+        }
+    }
+
+    public SseEmitter subscribeAppUser(String appUserId, String lastEventId) {
+        return subscribe(APP_USER_PREFIX + appUserId, lastEventId);
+    }
+
+    public SseEmitter subscribeWorkshop(String workshopUserId, String lastEventId) {
+        return subscribe(WORKSHOP_PREFIX + workshopUserId, lastEventId);
+    }
+
+    @Scheduled(fixedRateString = "${booking.events.heartbeat-ms:15000}")
+    public void sendHeartbeats() {
+        subscriptions.values().forEach(set -> set.forEach(s -> s.enqueue(SseEmitter.event().comment("heartbeat"))));
+    }
+
+    @PreDestroy
+    public void shutdown() {
+        subscriptions.values().forEach(set -> set.forEach(s -> s.emitter.complete()));
+        deliveryExecutor.shutdownNow();
+    }
+
+    private SseEmitter subscribe(String key, String lastEventId) {
+        SseEmitter emitter = newEmitter();
+        Subscription subscription = new Subscription(key, emitter);
+        emitter.onCompletion(subscription::close);
+        emitter.onTimeout(subscription::close);
+        emitter.onError(e -> subscription.close());
+        subscriptions.compute(key, (k, open) -> {
+            Set<Subscription> set = open == null ? ConcurrentHashMap.newKeySet() : open;
+            set.add(subscription);
+            return set;
+        });
+
+        if (lastEventId != null && !lastEventId.isBlank()) {
+            missedSince(key, lastEventId).forEach(event -> subscription.enqueue(toSse(event)));
+        }
+        log.debug("Opened booking event stream {}", key);
+        return emitter;
+    }
+
+    // Overridden by the tests to see what reaches a client
+    SseEmitter newEmitter() {
+        return new SseEmitter(emitterTimeoutMs);
+    }
+
+    private void deliver(BookingStatusEvent event) {
+        for (String key : keysOf(event)) {
+            remember(key, event);
+            Set<Subscription> open = subscriptions.get(key);
+            if (open != null) {
+                open.forEach(s -> s.enqueue(toSse(event)));
+            }
+        }
+    }
+
+    private List<String> keysOf(BookingStatusEvent event) {
+        List<String> keys = new ArrayList<>(2);
+        if (event.getAppUserId() != null) {
+            keys.add(APP_USER_PREFIX + event.getAppUserId());
+        }
+        if (event.getWorkshopUserId() != null) {
+            keys.add(WORKSHOP_PREFIX + event.getWorkshopUserId());
+        }
+        return keys;
+    }
+
+    private void remember(String key, BookingStatusEvent event) {
+        synchronized (replay) {
+            Deque<BookingStatusEvent> events = replay.computeIfAbsent(key, k -> new ArrayDeque<>());
+            events.addLast(event);
+            if (events.size() > replaySize) {
+                events.removeFirst();
+            }
+        }
+    }
+
+    private List<BookingStatusEvent> missedSince(String key, String lastEventId) {
+        long lastSeenAt = occurredAtOf(lastEventId);
+        List<BookingStatusEvent> missed = new ArrayList<>();
+        synchronized (replay) {
+            Deque<BookingStatusEvent> events = replay.get(key);
+            if (events != null) {
+                for (BookingStatusEvent event : events) {
+                    if (event.getOccurredAt() >= lastSeenAt && !event.getEventId().equals(lastEventId)) {
+                        missed.add(event);
+                    }
+                }
+            }
+        }
+        return missed;
+    }
+
+    private long occurredAtOf(String eventId) {
+        try {
+            int dash = eventId.indexOf('-');
+            return Long.parseLong(dash < 0 ? eventId : eventId.substring(0, dash));
+        } catch (NumberFormatException e) {
+            return Long.MAX_VALUE;
+        }
+    }
+
+    private SseEmitter.SseEventBuilder toSse(BookingStatusEvent event) {
+        return SseEmitter.event()
+                .id(event.getEventId())
+                .name("booking-status")
+                .data(event, MediaType.APPLICATION_JSON);
+    }
+
+    private final class Subscription {
+        private final String key;
+        private final SseEmitter emitter;
+        private final Queue<SseEmitter.SseEventBuilder> pending = new ConcurrentLinkedQueue<>();
+        private final AtomicInteger pendingCount = new AtomicInteger();
+        private final AtomicBoolean draining = new AtomicBoolean();
+        private volatile boolean closed;
+
+        private Subscription(String key, SseEmitter emitter) {
+            this.key = key;
+            this.emitter = emitter;
+        }
+
+        void enqueue(SseEmitter.SseEventBuilder event) {
+            if (closed) {
+                return;
+            }
+            if (pendingCount.incrementAndGet() > maxPending) {
+                // the client stopped reading, let it reconnect and resume instead of buffering forever
+                log.debug("Closing slow booking event stream {}", key);
+                emitter.complete();
+                close();
+                return;
+            }
+            pending.add(event);
+            if (draining.compareAndSet(false, true)) {
+                deliveryExecutor.execute(this::drain);
+            }
+        }
+
+        // Only one drain runs per subscription at a time, which keeps events in order
+        private void drain() {
+            try {
+                do {
+                    SseEmitter.SseEventBuilder next;
+                    while ((next = pending.poll()) != null) {
+                        pendingCount.decrementAndGet();
+                        emitter.send(next);
+                    }
+                    draining.set(false);
+                } while (!pending.isEmpty() && draining.compareAndSet(false, true));
+            } catch (Exception e) {
+                log.debug("Booking event stream {} closed: {}", key, e.getMessage());
+                draining.set(false);
+                close();
+            }
+        }
+
+        void close() {
+            closed = true;
+            subscriptions.computeIfPresent(key, (k, open) -> {
+                open.remove(this);
+                return open.isEmpty() ? null : open;
+            });
+        }
+    }
+}
@@ -1,6 +1,8 @@
 package com.pitstop.app.service.impl;
 
+import com.pitstop.app.constants.BookingStatus;
 import com.pitstop.app.dto.AppUserBookingHistoryResponse;
+import com.pitstop.app.dto.BookingHistoryPage;
 import com.pitstop.app.dto.VehicleDetailsResponse;
 import com.pitstop.app.dto.WorkShopUserBookingHistoryResponse;
 import com.pitstop.app.model.AppUser;
@@ -8,6 +10,7 @@ import com.pitstop.app.model.Booking;
 import com.pitstop.app.model.WorkshopUser;
 import com.pitstop.app.repository.BookingRepository;
 import com.pitstop.app.service.BookingHistoryService;
+import com.pitstop.app.utils.BookingHistoryCursor;
 import lombok.RequiredArgsConstructor;
 import org.springframework.security.core.Authentication;
 import org.springframework.security.core.context.SecurityContextHolder;
@@ -15,6 +18,7 @@ import org.springframework.stereotype.Service;
 
 import java.util.List;
 import java.util.stream.Collectors;
+import java.util.stream.Stream;
 
 @Service
 @RequiredArgsConstructor
@@ -33,7 +37,7 @@ public class BookingHistoryServiceImpl implements BookingHistoryService {
         String appUserId = appUser.getId();
 
         // Fetch bookings sorted by start time (descending)
-        List<Booking> bookings = bookingRepository.findByAppUserIdOrderByBookingStartedTimeDesc(appUserId);
+        List<Booking> bookings = bookingRepository.findAppUserHistoryPage(appUserId, null, null, 0, true);
 
         // Map to DTO
         return bookings.stream()
@@ -49,7 +53,7 @@ public class BookingHistoryServiceImpl implements BookingHistoryService {
         String workshopUserId = workShopUser.getId();
 
         // Fetch bookings sorted by start time (descending)
-        List<Booking> bookings = bookingRepository.findByWorkshopUserIdOrderByBookingStartedTimeDesc(workshopUserId);
+        List<Booking> bookings = bookingRepository.findWorkshopUserHistoryPage(workshopUserId, null, null, 0, true);
 
         // Map to DTO
         return bookings.stream()
@@ -57,6 +61,47 @@ public class BookingHistoryServiceImpl implements BookingHistoryService {
                 .collect(Collectors.toList());
     }
 
+    @Override
+    public BookingHistoryPage<AppUserBookingHistoryResponse> getBookingHistoryPageForAppUser(String cursor, Integer size,
+                                                                                            List<BookingStatus> statuses) {
+        Authentication authentication = SecurityContextHolder.getContext().getAuthentication();
+        String appUserId = appUserService.getAppUserByUsername(authentication.getName()).getId();
+
+        int pageSize = BookingHistoryPage.pageSize(size);
+        // one extra booking tells whether there is a next page
+        List<Booking> bookings = bookingRepository.findAppUserHistoryPage(appUserId, statuses,
+                BookingHistoryCursor.decode(cursor), pageSize + 1, true);
+        return BookingHistoryPage.of(bookings, pageSize, this::mapToResponseAppUser);
+    }
+
+    @Override
+    public BookingHistoryPage<WorkShopUserBookingHistoryResponse> getBookingHistoryPageForWorkShopUser(String cursor, Integer size,
+                                                                                                      List<BookingStatus> statuses) {
+        Authentication authentication = SecurityContextHolder.getContext().getAuthentication();
+        String workshopUserId = workshopUserService.getWorkshopUserByUsername(authentication.getName()).getId();
+
+        int pageSize = BookingHistoryPage.pageSize(size);
+        List<Booking> bookings = bookingRepository.findWorkshopUserHistoryPage(workshopUserId, statuses,
+                BookingHistoryCursor.decode(cursor), pageSize + 1, true);
+        return BookingHistoryPage.of(bookings, pageSize, this::mapToResponseWorkShopUser);
+    }
+
+    // The user is resolved here, the bookings are only read while the returned stream is consumed
+    @Override
+    public Stream<AppUserBookingHistoryResponse> streamBookingHistoryForAppUser(List<BookingStatus> statuses) {
+        Authentication authentication = SecurityContextHolder.getContext().getAuthentication();
+        String appUserId = appUserService.getAppUserByUsername(authentication.getName()).getId();
+        return bookingRepository.streamAppUserHistory(appUserId, statuses, true).map(this::mapToResponseAppUser);
+    }
+
+    @Override
+    public Stream<WorkShopUserBookingHistoryResponse> streamBookingHistoryForWorkShopUser(List<BookingStatus> statuses) {
+        Authentication authentication = SecurityContextHolder.getContext().getAuthentication();
+        String workshopUserId = workshopUserService.getWorkshopUserByUsername(authentication.getName()).getId();
+        return bookingRepository.streamWorkshopUserHistory(workshopUserId, statuses, true)
+                .map(this::mapToResponseWorkShopUser);
+    }
+
     @Override
     public AppUserBookingHistoryResponse mapToResponseAppUser(Booking b) {
         return AppUserBookingHistoryResponse.builder()
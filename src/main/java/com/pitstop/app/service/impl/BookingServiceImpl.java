@@ -5,6 +5,7 @@ import com.pitstop.app.constants.PaymentStatus;
 import com.pitstop.app.constants.WorkshopServiceType;
 import com.pitstop.app.constants.WorkshopStatus;
 import com.pitstop.app.dto.*;
+import com.pitstop.app.exception.BookingConflictException;
 import com.pitstop.app.model.*;
 import com.pitstop.app.repository.BookingRepository;
 import com.pitstop.app.repository.VehicleRepository;
@@ -12,6 +13,8 @@ import com.pitstop.app.repository.WorkshopUserRepository;
 import com.pitstop.app.service.BookingService;
 import lombok.RequiredArgsConstructor;
 import lombok.extern.slf4j.Slf4j;
+import org.springframework.context.ApplicationEventPublisher;
+import org.springframework.data.mongodb.core.query.Update;
 import org.springframework.security.core.Authentication;
 import org.springframework.security.core.context.SecurityContextHolder;
 import org.springframework.stereotype.Service;
@@ -33,6 +36,9 @@ public class BookingServiceImpl implements BookingService {
     private final OTPService otpService;
     private final VehicleRepository vehicleRepository;
     private final AdminPricingServiceImpl adminPricingService;
+    private final PricingCatalog pricingCatalog;
+    private final UserRatingService userRatingService;
+    private final ApplicationEventPublisher eventPublisher;
 
     @Override
     public Booking saveBookingDetails(Booking booking) {
@@ -58,6 +64,27 @@ public class BookingServiceImpl implements BookingService {
         bookingRepository.deleteById(id);
     }
 
+    private Booking getAppUserBooking(String appUserId, String bookingId) {
+        return bookingRepository.findByIdAndAppUserId(bookingId, appUserId)
+                .orElseThrow(() -> new RuntimeException("Booking id provided is not current user's booking, id = "+bookingId));
+    }
+
+    private Booking getWorkshopUserBooking(String workshopUserId, String bookingId) {
+        return bookingRepository.findByIdAndWorkshopUserId(bookingId, workshopUserId)
+                .orElseThrow(() -> new RuntimeException("Booking id provided is not current user's booking, id = "+bookingId));
+    }
+
+    // Applies the transition only if the booking is still in the status it was read with,
+    // so two concurrent requests cannot both move it out of the same state.
+    private Booking transitionStatus(Booking booking, BookingStatus newStatus, Update update) {
+        BookingStatus expectedStatus = booking.getCurrentStatus();
+        Booking updated = bookingRepository.compareAndSetStatus(booking.getId(), expectedStatus, newStatus, update)
+                .orElseThrow(() -> new BookingConflictException(String.format(
+                        "Booking %s is no longer %s, it was updated by another request", booking.getId(), expectedStatus)));
+        eventPublisher.publishEvent(BookingStatusEvent.of(updated));
+        return updated;
+    }
+
     public List<WorkshopStatusResponse> getAllOpenWorkshops() {
         List<WorkshopUser> allWorkShops = workshopUserService.getAllWorkshopUser();
         List<WorkshopStatusResponse> openWorkShops = new ArrayList<>();
@@ -100,19 +127,18 @@ public class BookingServiceImpl implements BookingService {
             throw new RuntimeException("Requested Vehicle ID not found.");
         }
 
-        PricingRuleResponse priceRule = adminPricingService.getPricingRuleByVehicleTypeAndServiceType(v.get().getVehicleType(), serviceType);
+        PricingSnapshot pricing = pricingCatalog.current();
+        PricingRuleResponse priceRule = adminPricingService.getPricingRule(pricing, v.get().getVehicleType(), serviceType);
 
         double amount = priceRule.getAmount();
         if(workshopUser.isPremiumWorkshop())
             amount += priceRule.getPremiumAmount();
 
-        Booking booking = bookingRepository.save(new Booking(amount, v.get(), currentAppUser.getId()));
-
-        currentAppUser.getBookingHistory().add(booking);
-        workshopUser.getBookingHistory().add(booking);
-
-        appUserService.updateAppUserDetails(currentAppUser);
-        workshopUserService.updateWorkshopUserDetails(workshopUser);
+        Booking newBooking = new Booking(amount, v.get(), currentAppUser.getId());
+        newBooking.setWorkshopUserId(workshopUser.getId());
+        newBooking.setPricingVersion(pricing.getVersion());
+        Booking booking = bookingRepository.save(newBooking);
+        eventPublisher.publishEvent(BookingStatusEvent.of(booking));
 
         return booking.getId();
     }
@@ -122,16 +148,7 @@ public class BookingServiceImpl implements BookingService {
         String username = authentication.getName();
         AppUser currentAppUser = appUserService.getAppUserByUsername(username);
 
-        if(!currentAppUser.getBookingHistory()
-                .stream()
-                .anyMatch(b -> b.getId().equals(id))) {
-            throw new RuntimeException("Booking id provided is not current user's booking, id = "+id);
-        }
-
-        Booking currentBooking = getBookingById(id);
-        if(currentBooking == null) {
-            throw new RuntimeException("Booking id not found, id = "+id);
-        }
+        Booking currentBooking = getAppUserBooking(currentAppUser.getId(), id);
 
         if(currentBooking.getCurrentStatus() == BookingStatus.STARTED)
             return new BookingResponse(currentBooking.getId(), currentBooking.getAmount(),
@@ -153,16 +170,15 @@ public class BookingServiceImpl implements BookingService {
         WorkshopUser currentWorkShopUser = workshopUserRepository.findByUsername(username)
                 .orElseThrow(()-> new RuntimeException("User not found"));
 
-        List<Booking> allBookings = currentWorkShopUser.getBookingHistory();
+        List<Booking> allBookings = bookingRepository.findByWorkshopUserIdAndCurrentStatusOrderByBookingStartedTimeAsc(
+                currentWorkShopUser.getId(), BookingStatus.STARTED);
         List<BookingResponse> startedBookings = new ArrayList<>();
         for(Booking currentBooking : allBookings) {
-            if(currentBooking.getCurrentStatus() == BookingStatus.STARTED) {
-                startedBookings.add(new BookingResponse(currentBooking.getId(), currentBooking.getAmount(), new VehicleDetailsResponse(currentBooking.getVehicle().getId(),
-                        currentBooking.getVehicle().getVehicleType(),
-                        currentBooking.getVehicle().getBrand(), currentBooking.getVehicle().getModel(), currentBooking.getVehicle().getEngineCapacity()),
-                        currentBooking.getCurrentStatus(), currentBooking.getBookingStartedTime(), currentBooking.getBookingCompletedTime(),
-                        null, null, null,currentBooking.getCurrentPaymentStatus()));
-            }
+            startedBookings.add(new BookingResponse(currentBooking.getId(), currentBooking.getAmount(), new VehicleDetailsResponse(currentBooking.getVehicle().getId(),
+                    currentBooking.getVehicle().getVehicleType(),
+                    currentBooking.getVehicle().getBrand(), currentBooking.getVehicle().getModel(), currentBooking.getVehicle().getEngineCapacity()),
+                    currentBooking.getCurrentStatus(), currentBooking.getBookingStartedTime(), currentBooking.getBookingCompletedTime(),
+                    null, null, null,currentBooking.getCurrentPaymentStatus()));
         }
         return startedBookings;
     }
@@ -173,25 +189,16 @@ public class BookingServiceImpl implements BookingService {
         WorkshopUser currentWorkShopUser = workshopUserRepository.findByUsername(username)
                 .orElseThrow(()-> new RuntimeException("User not found"));
 
-        if(!currentWorkShopUser.getBookingHistory()
-                .stream()
-                .anyMatch(b -> b.getId().equals(bookingId))) {
-            throw new RuntimeException("Booking id provided is not current user's booking, id = "+bookingId);
-        }
-
-        Booking currentBooking = getBookingById(bookingId);
+        Booking currentBooking = getWorkshopUserBooking(currentWorkShopUser.getId(), bookingId);
         if (!currentBooking.getCurrentStatus().canTransitionTo(BookingStatus.BOOKED)) {
             throw new IllegalArgumentException(
                     String.format("Invalid booking status transition: %s -> %s", currentBooking.getCurrentStatus(), BookingStatus.BOOKED)
             );
         }
-        currentBooking.setCurrentStatus(BookingStatus.BOOKED);
-        currentBooking.getBookingStatusHistory().add(new BookingStatusWithTimeStamp(BookingStatus.BOOKED, LocalDateTime.now()));
-        currentBooking.setWorkshopUserId(currentWorkShopUser.getId());
-        currentBooking.setWorkShopName(currentWorkShopUser.getName());
-        currentBooking.setWorkShopAddress(currentWorkShopUser.getWorkshopAddress());
-
-        saveBookingDetails(currentBooking);
+        currentBooking = transitionStatus(currentBooking, BookingStatus.BOOKED, new Update()
+                .set("workshopUserId", currentWorkShopUser.getId())
+                .set("workShopName", currentWorkShopUser.getName())
+                .set("workShopAddress", currentWorkShopUser.getWorkshopAddress()));
 
         return new BookingResponse(currentBooking.getId(), currentBooking.getAmount(), new VehicleDetailsResponse(currentBooking.getVehicle().getId(),
                 currentBooking.getVehicle().getVehicleType(),
@@ -206,22 +213,14 @@ public class BookingServiceImpl implements BookingService {
         WorkshopUser currentWorkShopUser = workshopUserRepository.findByUsername(username)
                 .orElseThrow(()-> new RuntimeException("User not found"));
 
-        if(!currentWorkShopUser.getBookingHistory()
-                .stream()
-                .anyMatch(b -> b.getId().equals(bookingId))) {
-            throw new RuntimeException("Booking id provided is not current user's booking, id = "+bookingId);
-        }
-
-        Booking currentBooking = getBookingById(bookingId);
+        Booking currentBooking = getWorkshopUserBooking(currentWorkShopUser.getId(), bookingId);
         // Temporary Logic implemented for now
         // In reality after booking is rejected, user should get prompt to request booking in another workshop
         if(currentBooking.getCurrentStatus() != BookingStatus.BOOKED)
             throw new RuntimeException("Booking id provided cannot be set REJECTED, id = "+bookingId);
 
-        currentBooking.setCurrentStatus(BookingStatus.REJECTED);
-        currentBooking.setWorkshopUserId(currentWorkShopUser.getId());
-
-        saveBookingDetails(currentBooking);
+        currentBooking = transitionStatus(currentBooking, BookingStatus.REJECTED, new Update()
+                .set("workshopUserId", currentWorkShopUser.getId()));
 
         return new BookingResponse(currentBooking.getId(), currentBooking.getAmount(), new VehicleDetailsResponse(currentBooking.getVehicle().getId(),
                 currentBooking.getVehicle().getVehicleType(),
@@ -235,23 +234,14 @@ public class BookingServiceImpl implements BookingService {
         String username = authentication.getName();
         AppUser currentAppUser = appUserService.getAppUserByUsername(username);
 
-        if(!currentAppUser.getBookingHistory()
-                .stream()
-                .anyMatch(b -> b.getId().equals(bookingId))) {
-            throw new RuntimeException("Booking id provided is not current user's booking, id = "+bookingId);
-        }
-
-        Booking currentBooking = getBookingById(bookingId);
+        Booking currentBooking = getAppUserBooking(currentAppUser.getId(), bookingId);
 
         if (!currentBooking.getCurrentStatus().canTransitionTo(BookingStatus.ON_THE_WAY)) {
             throw new IllegalArgumentException(
                     String.format("Invalid booking status transition: %s -> %s", currentBooking.getCurrentStatus(), BookingStatus.ON_THE_WAY)
             );
         }
-        currentBooking.setCurrentStatus(BookingStatus.ON_THE_WAY);
-        currentBooking.getBookingStatusHistory().add(new BookingStatusWithTimeStamp(BookingStatus.ON_THE_WAY, LocalDateTime.now()));
-
-        saveBookingDetails(currentBooking);
+        currentBooking = transitionStatus(currentBooking, BookingStatus.ON_THE_WAY, new Update());
 
         return new BookingResponse(currentBooking.getId(), currentBooking.getAmount(), new VehicleDetailsResponse(currentBooking.getVehicle().getId(),
                 currentBooking.getVehicle().getVehicleType(),
@@ -265,23 +255,13 @@ public class BookingServiceImpl implements BookingService {
         String username = authentication.getName();
         AppUser currentAppUser = appUserService.getAppUserByUsername(username);
 
-        if(!currentAppUser.getBookingHistory()
-                .stream()
-                .anyMatch(b -> b.getId().equals(bookingId))) {
-            throw new RuntimeException("Booking id provided is not current user's booking, id = "+bookingId);
-        }
-
-        Booking booking = bookingRepository.findById(bookingId)
-                .orElseThrow(() -> new RuntimeException("Booking not found"));
+        Booking booking = getAppUserBooking(currentAppUser.getId(), bookingId);
 
 
         String otp = otpService.generateOtp();
         LocalDateTime expiry = otpService.getExpiryTime();
 
-        booking.setOtp(otp);
-        booking.setOtpExpiry(expiry);
-
-        bookingRepository.save(booking);
+        bookingRepository.setOtp(bookingId, otp, expiry);
         return new BookingStatusResponse(bookingId, booking.getCurrentStatus(), otp);
     }
 
@@ -291,14 +271,7 @@ public class BookingServiceImpl implements BookingService {
         WorkshopUser currentWorkShopUser = workshopUserRepository.findByUsername(username)
                 .orElseThrow(()-> new RuntimeException("User not found"));
 
-        if(!currentWorkShopUser.getBookingHistory()
-                .stream()
-                .anyMatch(b -> b.getId().equals(bookingRequestOtp.getId()))) {
-            throw new RuntimeException("Booking id provided is not current user's booking, id = "+bookingRequestOtp.getId());
-        }
-
-        Booking booking = bookingRepository.findById(bookingRequestOtp.getId())
-                .orElseThrow(() -> new RuntimeException("Booking not found"));
+        Booking booking = getWorkshopUserBooking(currentWorkShopUser.getId(), bookingRequestOtp.getId());
 
         if(bookingStatus == BookingStatus.WAITING ||  bookingStatus == BookingStatus.REPAIRING || bookingStatus == BookingStatus.COMPLETED) {
             if(booking.getCurrentPaymentStatus() != PaymentStatus.PAID) {
@@ -320,14 +293,11 @@ public class BookingServiceImpl implements BookingService {
             throw new RuntimeException("Invalid OTP.");
         }
 
-        booking.setCurrentStatus(bookingStatus);
-        booking.getBookingStatusHistory().add(new BookingStatusWithTimeStamp(bookingStatus, LocalDateTime.now()));
-        booking.setOtp(null);
-
+        Update update = new Update().set("otp", null);
         if(bookingStatus == BookingStatus.COMPLETED)
-            booking.setBookingCompletedTime(LocalDateTime.now());
+            update.set("bookingCompletedTime", LocalDateTime.now());
 
-        bookingRepository.save(booking);
+        transitionStatus(booking, bookingStatus, update);
     }
 
     public void cancelBookingByAppUser(String bookingId) {
@@ -335,14 +305,7 @@ public class BookingServiceImpl implements BookingService {
         String username = authentication.getName();
         AppUser currentAppUser = appUserService.getAppUserByUsername(username);
 
-        if(!currentAppUser.getBookingHistory()
-                .stream()
-                .anyMatch(b -> b.getId().equals(bookingId))) {
-            throw new RuntimeException("Booking id provided is not current user's booking, id = "+bookingId);
-        }
-
-        Booking booking = bookingRepository.findById(bookingId)
-                .orElseThrow(() -> new RuntimeException("Booking not found"));
+        Booking booking = getAppUserBooking(currentAppUser.getId(), bookingId);
 
 
         if (!booking.getCurrentStatus().canTransitionTo(BookingStatus.CANCELLED_BY_APPUSER)) {
@@ -351,11 +314,8 @@ public class BookingServiceImpl implements BookingService {
             );
         }
 
-        booking.setAppUserEligibleForRefund(booking.getCurrentStatus() == BookingStatus.STARTED);
-        booking.setCurrentStatus(BookingStatus.CANCELLED_BY_APPUSER);
-        booking.getBookingStatusHistory().add(new BookingStatusWithTimeStamp(BookingStatus.CANCELLED_BY_APPUSER, LocalDateTime.now()));
-
-        bookingRepository.save(booking);
+        transitionStatus(booking, BookingStatus.CANCELLED_BY_APPUSER, new Update()
+                .set("appUserEligibleForRefund", booking.getCurrentStatus() == BookingStatus.STARTED));
     }
 
     public void cancelBookingByWorkshopUser(BookingRequestOtp bookingRequestOtp) {
@@ -364,14 +324,7 @@ public class BookingServiceImpl implements BookingService {
         WorkshopUser currentWorkShopUser = workshopUserRepository.findByUsername(username)
                 .orElseThrow(() -> new RuntimeException("User not found"));
 
-        if (!currentWorkShopUser.getBookingHistory()
-                .stream()
-                .anyMatch(b -> b.getId().equals(bookingRequestOtp.getId()))) {
-            throw new RuntimeException("Booking id provided is not current user's booking, id = " + bookingRequestOtp.getId());
-        }
-
-        Booking booking = bookingRepository.findById(bookingRequestOtp.getId())
-                .orElseThrow(() -> new RuntimeException("Booking not found"));
+        Booking booking = getWorkshopUserBooking(currentWorkShopUser.getId(), bookingRequestOtp.getId());
 
         if (otpService.isOtpExpired(booking.getOtpExpiry())) {
             throw new RuntimeException("OTP expired. Please regenerate.");
@@ -387,22 +340,21 @@ public class BookingServiceImpl implements BookingService {
             );
         }
 
+        Update update = new Update()
+                .set("appUserEligibleForRefund", true)
+                .set("otp", null);
+        BookingStatus newStatus;
         if(booking.getCurrentStatus() == BookingStatus.STARTED) {
-            booking.setCurrentStatus(BookingStatus.REJECTED);
-            booking.setWorkshopUserId(currentWorkShopUser.getId());
-            booking.setWorkShopName(currentWorkShopUser.getName());
-            booking.setWorkShopAddress(currentWorkShopUser.getWorkshopAddress());
-            booking.getBookingStatusHistory().add(new BookingStatusWithTimeStamp(BookingStatus.REJECTED, LocalDateTime.now()));
+            newStatus = BookingStatus.REJECTED;
+            update.set("workshopUserId", currentWorkShopUser.getId())
+                    .set("workShopName", currentWorkShopUser.getName())
+                    .set("workShopAddress", currentWorkShopUser.getWorkshopAddress());
         } else if(booking.getCurrentStatus() == BookingStatus.REPAIRING) {
-            booking.setCurrentStatus(BookingStatus.INCOMPLETE);
-            booking.getBookingStatusHistory().add(new BookingStatusWithTimeStamp(BookingStatus.INCOMPLETE, LocalDateTime.now()));
+            newStatus = BookingStatus.INCOMPLETE;
         } else {
-            booking.setCurrentStatus(BookingStatus.CANCELLED_BY_WORKSHOPUSER);
-            booking.getBookingStatusHistory().add(new BookingStatusWithTimeStamp(BookingStatus.CANCELLED_BY_WORKSHOPUSER, LocalDateTime.now()));
+            newStatus = BookingStatus.CANCELLED_BY_WORKSHOPUSER;
         }
-        booking.setAppUserEligibleForRefund(true);
-        booking.setOtp(null);
-        bookingRepository.save(booking);
+        transitionStatus(booking, newStatus, update);
     }
 
     public void giveRatingToAppUser(AppUserRatingRequest appUserRatingRequest) {
@@ -411,43 +363,23 @@ public class BookingServiceImpl implements BookingService {
         WorkshopUser currentWorkShopUser = workshopUserRepository.findByUsername(username)
                 .orElseThrow(() -> new RuntimeException("User not found"));
 
-        if (!currentWorkShopUser.getBookingHistory()
-                .stream()
-                .anyMatch(b -> b.getId().equals(appUserRatingRequest.getBookingId()))) {
-            throw new RuntimeException("Booking id provided is not current user's booking, id = " + appUserRatingRequest.getBookingId());
-        }
-
-        Booking booking = bookingRepository.findById(appUserRatingRequest.getBookingId())
-                .orElseThrow(() -> new RuntimeException("Booking not found"));
+        Booking booking = getWorkshopUserBooking(currentWorkShopUser.getId(), appUserRatingRequest.getBookingId());
+        UserRatingService.validateStars(appUserRatingRequest.getRating());
 
         if(booking.getCurrentStatus() != BookingStatus.COMPLETED)
             throw new RuntimeException("Ratings cannot be set unless the booking is in COMPLETED state.");
 
-        if(booking.getRatingWorkshopToAppUser() > 0) {
+        // Only one request can move the booking's rating off 0, so the user's summary is counted once
+        if(!bookingRepository.setRatingWorkshopToAppUser(booking.getId(), appUserRatingRequest.getRating())) {
             throw new RuntimeException("Rating already added to AppUser for bookingId = "+booking.getId());
         }
-
-        booking.setRatingWorkshopToAppUser(appUserRatingRequest.getRating());
-        AppUser appUser = appUserService.getAppUserById(booking.getAppUserId());
-
-        if(appUser.getRatingsList().size() < 5) {
-            appUser.getRatingsList().add(appUserRatingRequest.getRating());
-        } else if(appUser.getRatingsList().size() == 5){
-            double total  = appUser.getRating();
-            appUser.getRatingsList().add(appUserRatingRequest.getRating());
-            for(int n : appUser.getRatingsList()) {
-                total += n;
-            }
-            appUser.setRating((double) total / 7);
-        } else  {
-            double total = appUser.getRating() * appUser.getRatingsList().size();
-            total += appUserRatingRequest.getRating();
-            appUser.getRatingsList().add(appUserRatingRequest.getRating());
-            double newRating = (double) total /  appUser.getRatingsList().size();
-            appUser.setRating(newRating);
+        try {
+            userRatingService.addAppUserRating(booking.getAppUserId(), appUserRatingRequest.getRating());
+        } catch (RuntimeException e) {
+            // not counted in the summary, so the booking must not stay marked as rated
+            bookingRepository.clearRatingWorkshopToAppUser(booking.getId(), appUserRatingRequest.getRating());
+            throw e;
         }
-        bookingRepository.save(booking);
-        appUserService.updateAppUserDetails(appUser);
     }
 
     public void giveRatingToWorkShopUser(WorkShopUserRatingRequest workShopUserRatingRequest) {
@@ -455,42 +387,20 @@ public class BookingServiceImpl implements BookingService {
         String username = authentication.getName();
         AppUser currentAppUser = appUserService.getAppUserByUsername(username);
 
-        if(!currentAppUser.getBookingHistory()
-                .stream()
-                .anyMatch(b -> b.getId().equals(workShopUserRatingRequest.getBookingId()))) {
-            throw new RuntimeException("Booking id provided is not current user's booking, id = "+workShopUserRatingRequest.getBookingId());
-        }
-
-        Booking booking = bookingRepository.findById(workShopUserRatingRequest.getBookingId())
-                .orElseThrow(() -> new RuntimeException("Booking not found"));
+        Booking booking = getAppUserBooking(currentAppUser.getId(), workShopUserRatingRequest.getBookingId());
+        UserRatingService.validateStars(workShopUserRatingRequest.getRating());
 
         if(booking.getCurrentStatus() != BookingStatus.COMPLETED)
             throw new RuntimeException("Ratings cannot be set unless the booking is in COMPLETED state.");
 
-        if(booking.getRatingAppUserToWorkshop() > 0) {
+        if(!bookingRepository.setRatingAppUserToWorkshop(booking.getId(), workShopUserRatingRequest.getRating())) {
             throw new RuntimeException("Rating already added to WorkShopUser for bookingId = "+booking.getId());
         }
-
-        booking.setRatingAppUserToWorkshop(workShopUserRatingRequest.getRating());
-        WorkshopUser workShopUser = workshopUserService.getWorkshopUserById(booking.getWorkshopUserId());
-
-        if(workShopUser.getRatingsList().size() < 5) {
-            workShopUser.getRatingsList().add(workShopUserRatingRequest.getRating());
-        } else if(workShopUser.getRatingsList().size() == 5){
-            double total  = workShopUser.getRating();
-            workShopUser.getRatingsList().add(workShopUserRatingRequest.getRating());
-            for(int n : workShopUser.getRatingsList()) {
-                total += n;
-            }
-            workShopUser.setRating((double) total / 7);
-        } else  {
-            double total = workShopUser.getRating() * workShopUser.getRatingsList().size();
-            total += workShopUserRatingRequest.getRating();
-            workShopUser.getRatingsList().add(workShopUserRatingRequest.getRating());
-            double newRating = (double) total /  workShopUser.getRatingsList().size();
-            workShopUser.setRating(newRating);
+        try {
+            userRatingService.addWorkshopUserRating(booking.getWorkshopUserId(), workShopUserRatingRequest.getRating());
+        } catch (RuntimeException e) {
+            bookingRepository.clearRatingAppUserToWorkshop(booking.getId(), workShopUserRatingRequest.getRating());
+            throw e;
         }
-        bookingRepository.save(booking);
-        workshopUserService.updateWorkshopUserDetails(workShopUser);
     }
 }
@@ -0,0 +1,210 @@
+package com.pitstop.app.service.impl;
+
+import com.pitstop.app.constants.BookingStatus;
+import com.pitstop.app.dto.BookingStatusEvent;
+import com.pitstop.app.model.Booking;
+import com.pitstop.app.repository.BookingRepository;
+import com.pitstop.app.utils.HierarchicalTimingWheel;
+import io.micrometer.core.instrument.MeterRegistry;
+import jakarta.annotation.PreDestroy;
+import lombok.RequiredArgsConstructor;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.context.ApplicationEventPublisher;
+import org.springframework.data.mongodb.core.MongoTemplate;
+import org.springframework.data.mongodb.core.query.Criteria;
+import org.springframework.data.mongodb.core.query.Query;
+import org.springframework.data.mongodb.core.query.Update;
+import org.springframework.scheduling.annotation.Scheduled;
+import org.springframework.stereotype.Service;
+
+import java.time.Duration;
+import java.time.LocalDateTime;
+import java.time.ZoneId;
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Optional;
+import java.util.stream.Stream;
+
+/**
+ * Moves STARTED and BOOKED bookings to TIMED_OUT once they have been pending for too long.
+ * Only the node holding the "booking-timeouts" lease runs it. On taking the lease it loads all
+ * pending bookings into a timing wheel through the (currentStatus, bookingStartedTime) index, and
+ * after that only polls for bookings created since the last poll. Each tick therefore costs the
+ * same no matter how many bookings are pending. The final transition is a compare-and-set, so a
+ * booking accepted or cancelled in the meantime is left alone.
+ */
+@Service
+@RequiredArgsConstructor
+@Slf4j
+public class BookingTimeoutService {
+
+    private static final String LEASE_NAME = "booking-timeouts";
+    private static final int WHEEL_SIZE = 512;
+    private static final List<BookingStatus> PENDING = List.of(BookingStatus.STARTED, BookingStatus.BOOKED);
+
+    private final MongoTemplate mongoTemplate;
+    private final BookingRepository bookingRepository;
+    private final LeaderLeaseService leaderLeaseService;
+    private final MeterRegistry meterRegistry;
+    private final ApplicationEventPublisher eventPublisher;
+
+    @Value("${booking.timeout.started-minutes:15}")
+    private long startedTimeoutMinutes;
+
+    @Value("${booking.timeout.booked-minutes:120}")
+    private long bookedTimeoutMinutes;
+
+    @Value("${booking.timeout.tick-ms:1000}")
+    private long tickMs;
+
+    @Value("${booking.timeout.lease-ttl-ms:30000}")
+    private long leaseTtlMs;
+
+    // Bookings are stamped with the creating node's clock and inserted a little later,
+    // so each poll looks back this far and skips the ids it has already seen
+    @Value("${booking.timeout.poll-overlap-ms:5000}")
+    private long pollOverlapMs;
+
+    // Everything below is only touched from the scheduler thread
+    private HierarchicalTimingWheel<String> wheel;
+    private boolean leader;
+    private long renewLeaseAtMs;
+    private LocalDateTime highWaterMark;
+    private final Map<String, LocalDateTime> recentlySeen = new HashMap<>();
+
+    @Scheduled(fixedDelayString = "${booking.timeout.tick-ms:1000}")
+    public void tick() {
+        try {
+            long now = System.currentTimeMillis();
+            if (!holdLease(now)) {
+                return;
+            }
+            if (wheel == null) {
+                rebuild(now);
+            }
+            pollNewBookings();
+            wheel.advance(now, this::onDeadline);
+        } catch (Exception e) {
+            log.error("Booking timeout tick failed: {}", e.getMessage(), e);
+        }
+    }
+
+    @PreDestroy
+    public void shutdown() {
+        if (leader) {
+            try {
+                leaderLeaseService.release(LEASE_NAME);
+            } catch (Exception e) {
+                log.warn("Could not release lease {}: {}", LEASE_NAME, e.getMessage());
+            }
+        }
+    }
+
+    private boolean holdLease(long now) {
+        if (leader && now < renewLeaseAtMs) {
+            return true;
+        }
+        boolean acquired = leaderLeaseService.tryAcquire(LEASE_NAME, Duration.ofMillis(leaseTtlMs));
+        if (acquired) {
+            if (!leader) {
+                log.info("Node {} is now running booking timeouts", leaderLeaseService.getNodeId());
+            }
+            leader = true;
+            renewLeaseAtMs = now + leaseTtlMs / 3;
+        } else if (leader) {
+            log.info("Node {} lost the booking timeout lease", leaderLeaseService.getNodeId());
+            leader = false;
+            wheel = null;
+            recentlySeen.clear();
+        }
+        return acquired;
+    }
+
+    private void rebuild(long now) {
+        wheel = new HierarchicalTimingWheel<>(tickMs, WHEEL_SIZE, now);
+        recentlySeen.clear();
+        highWaterMark = LocalDateTime.now().minus(Duration.ofMillis(pollOverlapMs));
+
+        Query query = Query.query(Criteria.where("currentStatus").in(PENDING));
+        query.fields().include("currentStatus").include("bookingStartedTime");
+
+        // Bookings that expired while no node held the lease are timed out one by one, like any other,
+        // so each of them still reaches the parties' event streams
+        List<Booking> overdue = new ArrayList<>();
+        try (Stream<Booking> pending = mongoTemplate.stream(query, Booking.class)) {
+            pending.forEach(booking -> {
+                remember(booking);
+                if (!wheel.add(deadlineOf(booking), booking.getId())) {
+                    overdue.add(booking);
+                }
+            });
+        }
+        log.info("Loaded {} pending booking(s) into the timeout wheel, {} already overdue", wheel.size(), overdue.size());
+        overdue.forEach(this::timeOut);
+    }
+
+    private void pollNewBookings() {
+        LocalDateTime since = highWaterMark.minus(Duration.ofMillis(pollOverlapMs));
+        Query query = Query.query(Criteria.where("currentStatus").in(PENDING).and("bookingStartedTime").gte(since));
+        query.fields().include("currentStatus").include("bookingStartedTime");
+
+        for (Booking booking : mongoTemplate.find(query, Booking.class)) {
+            if (remember(booking) && !wheel.add(deadlineOf(booking), booking.getId())) {
+                onDeadline(booking.getId());
+            }
+        }
+        recentlySeen.values().removeIf(startedTime -> startedTime.isBefore(since));
+    }
+
+    // Returns false if the booking was already scheduled by an earlier poll
+    private boolean remember(Booking booking) {
+        LocalDateTime startedTime = booking.getBookingStartedTime();
+        if (startedTime.isAfter(highWaterMark)) {
+            highWaterMark = startedTime;
+        }
+        return recentlySeen.put(booking.getId(), startedTime) == null;
+    }
+
+    private void onDeadline(String bookingId) {
+        Query query = Query.query(Criteria.where("_id").is(bookingId));
+        query.fields().include("currentStatus").include("bookingStartedTime");
+        Booking booking = mongoTemplate.findOne(query, Booking.class);
+        if (booking == null || !PENDING.contains(booking.getCurrentStatus())) {
+            return;
+        }
+
+        long deadline = deadlineOf(booking);
+        if (deadline > System.currentTimeMillis()) {
+            // accepted since it was scheduled, so it now runs on the BOOKED timeout
+            wheel.add(deadline, bookingId);
+            return;
+        }
+        timeOut(booking);
+    }
+
+    private void timeOut(Booking booking) {
+        String bookingId = booking.getId();
+        Optional<Booking> timedOut = bookingRepository.compareAndSetStatus(bookingId, booking.getCurrentStatus(),
+                BookingStatus.TIMED_OUT, new Update().set("appUserEligibleForRefund", true));
+        if (timedOut.isPresent()) {
+            eventPublisher.publishEvent(BookingStatusEvent.of(timedOut.get()));
+            meterRegistry.counter("pitstop.booking.timeouts", "from", booking.getCurrentStatus().name()).increment();
+            log.info("Booking {} timed out in status {}", bookingId, booking.getCurrentStatus());
+        } else {
+            // changed status between the read and the update, look at it again on the next tick
+            wheel.add(wheel.currentTimeMs() + tickMs, bookingId);
+        }
+    }
+
+    private long deadlineOf(Booking booking) {
+        return booking.getBookingStartedTime().plusMinutes(timeoutMinutes(booking.getCurrentStatus()))
+                .atZone(ZoneId.systemDefault()).toInstant().toEpochMilli();
+    }
+
+    private long timeoutMinutes(BookingStatus status) {
+        return status == BookingStatus.STARTED ? startedTimeoutMinutes : bookedTimeoutMinutes;
+    }
+}
@@ -0,0 +1,148 @@
+package com.pitstop.app.service.impl;
+
+import com.mongodb.CursorType;
+import com.mongodb.client.MongoCollection;
+import com.mongodb.client.MongoCursor;
+import com.mongodb.client.model.Filters;
+import lombok.RequiredArgsConstructor;
+import lombok.extern.slf4j.Slf4j;
+import org.bson.Document;
+import org.bson.types.ObjectId;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.context.SmartLifecycle;
+import org.springframework.data.mongodb.core.CollectionOptions;
+import org.springframework.data.mongodb.core.MongoTemplate;
+import org.springframework.stereotype.Service;
+
+import java.util.Date;
+import java.util.List;
+import java.util.Map;
+import java.util.UUID;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.CopyOnWriteArrayList;
+import java.util.concurrent.TimeUnit;
+import java.util.function.Consumer;
+
+/**
+ * Broadcasts small invalidation events to every node through a capped collection.
+ * Each node tails the collection and hands events published by other nodes to the
+ * handlers subscribed for that topic. Events are fire-and-forget: a node that is
+ * down while an event is published simply reloads its state on the next startup.
+ */
+@Service
+@RequiredArgsConstructor
+@Slf4j
+public class ClusterEventService implements SmartLifecycle {
+
+    private static final String COLLECTION = "cluster_events";
+
+    private final MongoTemplate mongoTemplate;
+
+    @Value("${cluster.events.capped-size-bytes:16777216}")
+    private long cappedSizeBytes;
+
+    private final String nodeId = UUID.randomUUID().toString();
+    private final Map<String, List<Consumer<String>>> subscribers = new ConcurrentHashMap<>();
+    private volatile boolean running;
+    private Thread tailer;
+
+    public void subscribe(String topic, Consumer<String> handler) {
+        subscribers.computeIfAbsent(topic, t -> new CopyOnWriteArrayList<>()).add(handler);
+    }
+
+    public void publish(String topic, String key) {
+        try {
+            mongoTemplate.getCollection(COLLECTION).insertOne(new Document("topic", topic)
+                    .append("key", key)
+                    .append("origin", nodeId)
+                    .append("createdAt", new Date()));
+        } catch (Exception e) {
+            log.warn("Failed to publish cluster event {} for key {}: {}", topic, key, e.getMessage());
+        }
+    }
+
+    @Override
+    public void start() {
+        if (!mongoTemplate.collectionExists(COLLECTION)) {
+            try {
+                mongoTemplate.createCollection(COLLECTION, CollectionOptions.empty().capped().size(cappedSizeBytes));
+            } catch (Exception e) {
+                // another node created it first
+                log.debug("Cluster event collection already created: {}", e.getMessage());
+            }
+        }
+        Document latest = mongoTemplate.getCollection(COLLECTION).find()
+                .sort(new Document("$natural", -1)).limit(1).first();
+        ObjectId startAfter = latest == null ? null : latest.getObjectId("_id");
+
+        running = true;
+        tailer = Thread.ofPlatform().daemon().name("cluster-event-tailer").start(() -> tail(startAfter));
+    }
+
+    @Override
+    public void stop() {
+        running = false;
+        if (tailer != null) {
+            tailer.interrupt();
+        }
+    }
+
+    @Override
+    public boolean isRunning() {
+        return running;
+    }
+
+    private void tail(ObjectId startAfter) {
+        ObjectId lastSeen = startAfter;
+        MongoCollection<Document> collection = mongoTemplate.getCollection(COLLECTION);
+        while (running) {
+            try (MongoCursor<Document> cursor = collection
+                    .find(lastSeen == null ? new Document() : Filters.gt("_id", lastSeen))
+                    .cursorType(CursorType.TailableAwait)
+                    .maxAwaitTime(1, TimeUnit.SECONDS)
+                    .iterator()) {
+                while (running) {
+                    Document event = cursor.tryNext();
+                    if (event == null) {
+                        if (cursor.getServerCursor() == null) {
+                            break; // cursor died (e.g. empty collection), reopen it
+                        }
+                        continue;
+                    }
+                    lastSeen = event.getObjectId("_id");
+                    dispatch(event);
+                }
+            } catch (Exception e) {
+                if (running) {
+                    log.warn("Cluster event tailing interrupted: {}", e.getMessage());
+                }
+            }
+            sleepQuietly();
+        }
+    }
+
+    private void dispatch(Document event) {
+        if (nodeId.equals(event.getString("origin"))) {
+            return;
+        }
+        List<Consumer<String>> handlers = subscribers.get(event.getString("topic"));
+        if (handlers == null) {
+            return;
+        }
+        for (Consumer<String> handler : handlers) {
+            try {
+                handler.accept(event.getString("key"));
+            } catch (Exception e) {
+                log.warn("Cluster event handler for {} failed: {}", event.getString("topic"), e.getMessage());
+            }
+        }
+    }
+
+    private void sleepQuietly() {
+        try {
+            Thread.sleep(1000);
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+        }
+    }
+}
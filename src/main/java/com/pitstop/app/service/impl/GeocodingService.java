@@ -0,0 +1,285 @@
+package com.pitstop.app.service.impl;
+
+import com.github.benmanes.caffeine.cache.AsyncCache;
+import com.github.benmanes.caffeine.cache.Caffeine;
+import com.pitstop.app.config.ExternalHttpClient;
+import com.pitstop.app.dto.AddressResponse;
+import com.pitstop.app.model.GeocodeCacheEntry;
+import com.pitstop.app.repository.GeocodeCacheRepository;
+import io.micrometer.core.instrument.MeterRegistry;
+import io.micrometer.core.instrument.binder.cache.CaffeineCacheMetrics;
+import jakarta.annotation.PreDestroy;
+import lombok.extern.slf4j.Slf4j;
+import org.json.JSONArray;
+import org.json.JSONObject;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.dao.DataAccessException;
+import org.springframework.stereotype.Service;
+
+import java.net.URI;
+import java.net.URLEncoder;
+import java.net.http.HttpResponse;
+import java.nio.charset.StandardCharsets;
+import java.text.Normalizer;
+import java.time.Duration;
+import java.time.Instant;
+import java.util.Locale;
+import java.util.Map;
+import java.util.Optional;
+import java.util.concurrent.CompletionException;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.function.Supplier;
+
+/**
+ * Forward (TrueWay) and reverse (Nominatim) geocoding for user and workshop addresses, behind two
+ * cache levels: a bounded in-memory cache on each node and the shared {@code geocode_cache}
+ * collection with a TTL. Forward lookups are keyed by the normalized address text, reverse lookups
+ * by the coordinates rounded to a small cell, so points a few metres apart share one entry.
+ * <p>
+ * Concurrent lookups of the same key on a node wait for a single load instead of each calling the
+ * external API. Failures and "not found" answers are never cached. When an {@link OfflineGazetteer}
+ * is configured it is asked first, and only its misses reach the caches and the APIs.
+ */
+@Service
+@Slf4j
+public class GeocodingService {
+
+    private static final String FORWARD_PREFIX = "fwd:";
+    private static final String REVERSE_PREFIX = "rev:";
+
+    private final GeocodeCacheRepository geocodeCacheRepository;
+    private final ExternalHttpClient externalHttpClient;
+    private final OfflineGazetteer offlineGazetteer;
+    private final MeterRegistry meterRegistry;
+    private final Duration storedTtl;
+    private final double cellScale;
+    private final ExecutorService lookupExecutor = Executors.newVirtualThreadPerTaskExecutor();
+    private final AsyncCache<String, AddressResponse> memory;
+
+    @Value("${trueway.api.url}")
+    private String truewayApiUrl;
+
+    @Value("${trueway.api.key}")
+    private String truewayApiKey;
+
+    @Value("${trueway.api.host}")
+    private String truewayApiHost;
+
+    @Value("${nominatim.api.url}")
+    private String nominatimApiUrl;
+
+    @Value("${nominatim.user.agent}")
+    private String nominatimUserAgent;
+
+    public GeocodingService(GeocodeCacheRepository geocodeCacheRepository,
+                            ExternalHttpClient externalHttpClient,
+                            OfflineGazetteer offlineGazetteer,
+                            MeterRegistry meterRegistry,
+                            @Value("${geocoding.memory-cache.size:10000}") long memorySize,
+                            @Value("${geocoding.memory-cache.ttl-minutes:360}") long memoryTtlMinutes,
+                            @Value("${geocoding.stored-ttl-days:30}") long storedTtlDays,
+                            // 4 decimals is a cell of roughly 11 m
+                            @Value("${geocoding.reverse-cell-decimals:4}") int cellDecimals) {
+        this.geocodeCacheRepository = geocodeCacheRepository;
+        this.externalHttpClient = externalHttpClient;
+        this.offlineGazetteer = offlineGazetteer;
+        this.meterRegistry = meterRegistry;
+        this.storedTtl = Duration.ofDays(storedTtlDays);
+        this.cellScale = Math.pow(10, cellDecimals);
+        this.memory = Caffeine.newBuilder()
+                .maximumSize(memorySize)
+                .expireAfterWrite(Duration.ofMinutes(memoryTtlMinutes))
+                .executor(lookupExecutor)
+                .recordStats()
+                .buildAsync();
+        CaffeineCacheMetrics.monitor(meterRegistry, memory, "geocoding");
+    }
+
+    public AddressResponse findCoordinatesFromAddress(String addressPlainText) {
+        Optional<AddressResponse> offline = offlineGazetteer.findCoordinatesFromAddress(addressPlainText);
+        if (offline.isPresent()) {
+            meterRegistry.counter("pitstop.geocoding.loads", "kind", "forward", "source", "offline").increment();
+            return offline.get();
+        }
+        AddressResponse found = lookup(forwardKey(addressPlainText), "forward",
+                () -> fetchCoordinates(addressPlainText));
+        return copyOf(found);
+    }
+
+    public AddressResponse findAddressFromCoordinates(double latitude, double longitude) {
+        Optional<AddressResponse> offline = offlineGazetteer.findAddressFromCoordinates(latitude, longitude);
+        if (offline.isPresent()) {
+            meterRegistry.counter("pitstop.geocoding.loads", "kind", "reverse", "source", "offline").increment();
+            return offline.get();
+        }
+        try {
+            AddressResponse found = lookup(reverseKey(latitude, longitude, cellScale), "reverse",
+                    () -> fetchAddress(latitude, longitude));
+            return copyOf(found);
+        } catch (UncachedAnswer answer) {
+            return answer.response;
+        }
+    }
+
+    @PreDestroy
+    public void shutdown() {
+        lookupExecutor.shutdownNow();
+    }
+
+    static String forwardKey(String addressPlainText) {
+        return FORWARD_PREFIX + normalizeAddress(addressPlainText);
+    }
+
+    static String normalizeAddress(String addressPlainText) {
+        return Normalizer.normalize(addressPlainText, Normalizer.Form.NFKC)
+                .toLowerCase(Locale.ROOT)
+                .replaceAll("\\s*,\\s*", ", ")
+                .replaceAll("\\s+", " ")
+                .replaceAll("^[\\s,.]+|[\\s,.]+$", "");
+    }
+
+    static String reverseKey(double latitude, double longitude, double cellScale) {
+        return REVERSE_PREFIX + Math.round(latitude * cellScale) + ":" + Math.round(longitude * cellScale);
+    }
+
+    private AddressResponse lookup(String key, String kind, Supplier<AddressResponse> remote) {
+        try {
+            return memory.get(key, k -> loadShared(k, kind, remote)).join();
+        } catch (CompletionException e) {
+            if (e.getCause() instanceof RuntimeException cause) {
+                throw cause;
+            }
+            throw e;
+        }
+    }
+
+    // Runs once per key at a time, every other caller for the key waits on the same future
+    private AddressResponse loadShared(String key, String kind, Supplier<AddressResponse> remote) {
+        Optional<GeocodeCacheEntry> stored = readStored(key);
+        if (stored.isPresent()) {
+            meterRegistry.counter("pitstop.geocoding.loads", "kind", kind, "source", "mongo").increment();
+            GeocodeCacheEntry entry = stored.get();
+            return AddressResponse.builder()
+                    .latitude(entry.getLatitude())
+                    .longitude(entry.getLongitude())
+                    .formattedAddress(entry.getFormattedAddress())
+                    .build();
+        }
+
+        meterRegistry.counter("pitstop.geocoding.loads", "kind", kind, "source", "remote").increment();
+        AddressResponse fetched = remote.get();
+        writeStored(key, fetched);
+        return fetched;
+    }
+
+    // A cache outage only costs the external call, it never fails the lookup
+    private Optional<GeocodeCacheEntry> readStored(String key) {
+        try {
+            // the TTL monitor only runs once a minute
+            return geocodeCacheRepository.findById(key)
+                    .filter(entry -> entry.getExpiresAt().isAfter(Instant.now()));
+        } catch (DataAccessException e) {
+            log.warn("Could not read geocode cache entry {}: {}", key, e.getMessage());
+            return Optional.empty();
+        }
+    }
+
+    private void writeStored(String key, AddressResponse response) {
+        try {
+            geocodeCacheRepository.save(new GeocodeCacheEntry(key, response.getLatitude(), response.getLongitude(),
+                    response.getFormattedAddress(), Instant.now().plus(storedTtl)));
+        } catch (DataAccessException e) {
+            log.warn("Could not store geocode cache entry {}: {}", key, e.getMessage());
+        }
+    }
+
+    private AddressResponse fetchAddress(double latitude, double longitude) {
+        try {
+            String url = String.format(
+                    "%s?lat=%f&lon=%f&format=json&addressdetails=1",
+                    nominatimApiUrl, latitude, longitude
+            );
+
+            HttpResponse<String> response = externalHttpClient.get("nominatim", URI.create(url),
+                    Map.of("User-Agent", nominatimUserAgent));
+            if (response.statusCode() != 200) {
+                throw new RuntimeException("API Error: " + response.statusCode());
+            }
+
+            JSONObject json = new JSONObject(response.body());
+            JSONObject address = json.optJSONObject("address");
+            String formattedAddress = json.optString("display_name", "Address not found");
+
+            if (json.has("display_name") && address != null) {
+                return AddressResponse.builder()
+                        .formattedAddress(formattedAddress)
+                        .build();
+            }
+            throw new UncachedAnswer(AddressResponse.builder()
+                    .formattedAddress("Address not found")
+                    .build());
+        } catch (UncachedAnswer e) {
+            throw e;
+        } catch (Exception e) {
+            log.error("Invalid coordinates {}", e.getMessage());
+            throw new UncachedAnswer(AddressResponse.builder()
+                    .formattedAddress("Error fetching address: " + e.getMessage())
+                    .build());
+        }
+    }
+
+    private AddressResponse fetchCoordinates(String addressPlainText) {
+        try {
+            String encodedAddress = URLEncoder.encode(addressPlainText, StandardCharsets.UTF_8);
+            String url = truewayApiUrl + "?address=" + encodedAddress;
+
+            HttpResponse<String> response = externalHttpClient.get("trueway", URI.create(url),
+                    Map.of("x-rapidapi-key", truewayApiKey, "x-rapidapi-host", truewayApiHost));
+
+            if (response.statusCode() == 200) {
+                JSONObject json = new JSONObject(response.body());
+                JSONArray results = json.optJSONArray("results");
+                if (results == null || results.isEmpty()) {
+                    throw new RuntimeException("No results found for: " + addressPlainText);
+                }
+
+                JSONObject first = results.getJSONObject(0);
+                JSONObject location = first.getJSONObject("location");
+
+                return AddressResponse.builder()
+                        .latitude(location.getDouble("lat"))
+                        .longitude(location.getDouble("lng"))
+                        .formattedAddress(first.optString("address", addressPlainText))
+                        .build();
+            } else {
+                throw new RuntimeException("API Error: " + response.statusCode() + " - " + response.body());
+            }
+
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+            throw new RuntimeException("Error fetching coordinates for: " + addressPlainText + " | " + e.getMessage(), e);
+        } catch (Exception e) {
+            throw new RuntimeException("Error fetching coordinates for: " + addressPlainText + " | " + e.getMessage(), e);
+        }
+    }
+
+    // Cached responses are shared, callers get their own copy
+    private static AddressResponse copyOf(AddressResponse response) {
+        return AddressResponse.builder()
+                .latitude(response.getLatitude())
+                .longitude(response.getLongitude())
+                .formattedAddress(response.getFormattedAddress())
+                .build();
+    }
+
+    // Carries a reverse lookup answer that must reach the caller without being cached
+    private static final class UncachedAnswer extends RuntimeException {
+        private final transient AddressResponse response;
+
+        private UncachedAnswer(AddressResponse response) {
+            super(response.getFormattedAddress(), null, false, false);
+            this.response = response;
+        }
+    }
+}
@@ -0,0 +1,57 @@
+package com.pitstop.app.service.impl;
+
+import com.pitstop.app.model.SchedulerLease;
+import lombok.RequiredArgsConstructor;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.dao.DuplicateKeyException;
+import org.springframework.data.mongodb.core.FindAndModifyOptions;
+import org.springframework.data.mongodb.core.MongoTemplate;
+import org.springframework.data.mongodb.core.query.Criteria;
+import org.springframework.data.mongodb.core.query.Query;
+import org.springframework.data.mongodb.core.query.Update;
+import org.springframework.stereotype.Service;
+
+import java.time.Duration;
+import java.time.Instant;
+import java.util.UUID;
+
+/**
+ * Picks a single node to run a job through a lease document in MongoDB. A node holds the
+ * lease until it stops renewing it, after which any other node can take it over. Jobs guarded
+ * by a lease should still be idempotent, since two nodes can briefly overlap around a takeover.
+ */
+@Service
+@RequiredArgsConstructor
+@Slf4j
+public class LeaderLeaseService {
+
+    private final MongoTemplate mongoTemplate;
+
+    private final String nodeId = UUID.randomUUID().toString();
+
+    // Acquires the lease if it is free or expired, or extends it if this node already holds it
+    public boolean tryAcquire(String leaseName, Duration ttl) {
+        Instant now = Instant.now();
+        Query query = Query.query(Criteria.where("_id").is(leaseName)
+                .orOperator(Criteria.where("owner").is(nodeId), Criteria.where("expiresAt").lt(now)));
+        Update update = new Update().set("owner", nodeId).set("expiresAt", now.plus(ttl));
+        try {
+            SchedulerLease lease = mongoTemplate.findAndModify(query, update,
+                    FindAndModifyOptions.options().upsert(true).returnNew(true), SchedulerLease.class);
+            return lease != null && nodeId.equals(lease.getOwner());
+        } catch (DuplicateKeyException e) {
+            // the lease exists and is held by another node, so the upsert tried to insert a second copy
+            return false;
+        }
+    }
+
+    public void release(String leaseName) {
+        mongoTemplate.updateFirst(Query.query(Criteria.where("_id").is(leaseName).and("owner").is(nodeId)),
+                new Update().set("expiresAt", Instant.EPOCH), SchedulerLease.class);
+        log.info("Released lease {}", leaseName);
+    }
+
+    public String getNodeId() {
+        return nodeId;
+    }
+}
@@ -0,0 +1,209 @@
+package com.pitstop.app.service.impl;
+
+import com.pitstop.app.dto.AddressResponse;
+import com.pitstop.app.utils.SphericalKdTree;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.boot.context.event.ApplicationReadyEvent;
+import org.springframework.context.event.EventListener;
+import org.springframework.stereotype.Service;
+
+import java.io.BufferedReader;
+import java.io.IOException;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.Arrays;
+import java.util.Optional;
+
+/**
+ * Optional offline geocoder answering common lookups from a local gazetteer, so they need neither
+ * the network nor the cache. Enabled by pointing {@code geocoding.offline.path} at a UTF-8 file of
+ * tab-separated lines {@code name, latitude, longitude[, formatted address]}; blank lines and lines
+ * starting with '#' are skipped. The places are held in primitive arrays, only the names and
+ * formatted addresses are objects.
+ * <p>
+ * Reverse lookups return the nearest place within {@code geocoding.offline.max-distance-km} from a
+ * {@link SphericalKdTree}. Forward lookups match the normalized address against the sorted place
+ * names, first exactly and then as a prefix. Only a name shared by no other place, or a prefix of
+ * exactly one name, is answered offline; ambiguous queries are a miss and go to the external APIs.
+ */
+@Service
+@Slf4j
+public class OfflineGazetteer {
+
+    @Value("${geocoding.offline.path:}")
+    private String path;
+
+    @Value("${geocoding.offline.max-distance-km:1.0}")
+    private double maxDistanceKm;
+
+    // shorter queries match too many places to pick one
+    @Value("${geocoding.offline.min-prefix-length:4}")
+    private int minPrefixLength;
+
+    private volatile Index index;
+
+    @EventListener(ApplicationReadyEvent.class)
+    public void load() {
+        if (path == null || path.isBlank()) {
+            return;
+        }
+        try {
+            index = Index.read(Path.of(path));
+            log.info("Loaded {} place(s) from gazetteer {}", index.size(), path);
+        } catch (IOException | RuntimeException e) {
+            log.error("Could not load gazetteer {}, geocoding stays online only: {}", path, e.getMessage());
+        }
+    }
+
+    public Optional<AddressResponse> findAddressFromCoordinates(double latitude, double longitude) {
+        Index current = index;
+        if (current == null) {
+            return Optional.empty();
+        }
+        int place = current.tree.nearest(latitude, longitude, maxDistanceKm);
+        return place < 0 ? Optional.empty() : Optional.of(AddressResponse.builder()
+                .formattedAddress(current.formatted[place])
+                .build());
+    }
+
+    public Optional<AddressResponse> findCoordinatesFromAddress(String addressPlainText) {
+        Index current = index;
+        if (current == null) {
+            return Optional.empty();
+        }
+        int place = current.match(GeocodingService.normalizeAddress(addressPlainText), minPrefixLength);
+        return place < 0 ? Optional.empty() : Optional.of(AddressResponse.builder()
+                .latitude(current.latitudes[place])
+                .longitude(current.longitudes[place])
+                .formattedAddress(current.formatted[place])
+                .build());
+    }
+
+    static final class Index {
+        private final double[] latitudes;
+        private final double[] longitudes;
+        private final String[] formatted;
+        private final SphericalKdTree tree;
+        // normalized names in sorted order, and the place each one belongs to
+        private final String[] sortedNames;
+        private final int[] sortedPlaces;
+
+        private Index(double[] latitudes, double[] longitudes, String[] names, String[] formatted) {
+            this.latitudes = latitudes;
+            this.longitudes = longitudes;
+            this.formatted = formatted;
+            this.tree = new SphericalKdTree(latitudes, longitudes);
+
+            int[] order = new int[names.length];
+            for (int i = 0; i < order.length; i++) {
+                order[i] = i;
+            }
+            sortByName(order, names);
+            this.sortedNames = new String[names.length];
+            this.sortedPlaces = order;
+            for (int i = 0; i < order.length; i++) {
+                sortedNames[i] = names[order[i]];
+            }
+        }
+
+        int size() {
+            return formatted.length;
+        }
+
+        int match(String normalized, int minPrefixLength) {
+            if (normalized.isEmpty()) {
+                return -1;
+            }
+            int position = Arrays.binarySearch(sortedNames, normalized);
+            if (position >= 0) {
+                // the same name listed for several places cannot tell them apart
+                boolean shared = position > 0 && sortedNames[position - 1].equals(normalized)
+                        || position + 1 < sortedNames.length && sortedNames[position + 1].equals(normalized);
+                return shared ? -1 : sortedPlaces[position];
+            }
+            if (normalized.length() < minPrefixLength) {
+                return -1;
+            }
+            int first = -position - 1;
+            if (first >= sortedNames.length || !sortedNames[first].startsWith(normalized)) {
+                return -1;
+            }
+            // names sharing the prefix are adjacent, so a second one right after means it is ambiguous
+            if (first + 1 < sortedNames.length && sortedNames[first + 1].startsWith(normalized)) {
+                return -1;
+            }
+            return sortedPlaces[first];
+        }
+
+        static Index read(Path file) throws IOException {
+            int n = 0;
+            double[] latitudes = new double[256];
+            double[] longitudes = new double[256];
+            String[] names = new String[256];
+            String[] formatted = new String[256];
+            try (BufferedReader reader = Files.newBufferedReader(file, StandardCharsets.UTF_8)) {
+                String line;
+                while ((line = reader.readLine()) != null) {
+                    String trimmed = line.strip();
+                    if (trimmed.isEmpty() || trimmed.startsWith("#")) {
+                        continue;
+                    }
+                    String[] columns = trimmed.split("\t");
+                    if (columns.length < 3) {
+                        log.warn("Skipping gazetteer line without coordinates: {}", trimmed);
+                        continue;
+                    }
+                    double latitude;
+                    double longitude;
+                    try {
+                        latitude = Double.parseDouble(columns[1].trim());
+                        longitude = Double.parseDouble(columns[2].trim());
+                    } catch (NumberFormatException e) {
+                        latitude = Double.NaN;
+                        longitude = Double.NaN;
+                    }
+                    // NaN fails both checks as well
+                    if (!(Math.abs(latitude) <= 90) || !(Math.abs(longitude) <= 180)) {
+                        log.warn("Skipping gazetteer line with bad coordinates: {}", trimmed);
+                        continue;
+                    }
+
+                    if (n == latitudes.length) {
+                        latitudes = Arrays.copyOf(latitudes, n * 2);
+                        longitudes = Arrays.copyOf(longitudes, n * 2);
+                        names = Arrays.copyOf(names, n * 2);
+                        formatted = Arrays.copyOf(formatted, n * 2);
+                    }
+                    latitudes[n] = latitude;
+                    longitudes[n] = longitude;
+                    names[n] = GeocodingService.normalizeAddress(columns[0]);
+                    formatted[n] = columns.length > 3 && !columns[3].isBlank() ? columns[3].trim() : columns[0].trim();
+                    n++;
+                }
+            }
+            return new Index(Arrays.copyOf(latitudes, n), Arrays.copyOf(longitudes, n),
+                    Arrays.copyOf(names, n), Arrays.copyOf(formatted, n));
+        }
+
+        // Merge sort of place indexes by their name, so the order never needs boxing
+        private static void sortByName(int[] order, String[] names) {
+            int[] buffer = new int[order.length];
+            for (int width = 1; width < order.length; width *= 2) {
+                for (int from = 0; from < order.length - width; from += 2 * width) {
+                    int middle = from + width;
+                    int to = Math.min(from + 2 * width, order.length);
+                    int left = from;
+                    int right = middle;
+                    for (int i = from; i < to; i++) {
+                        buffer[i] = right >= to || left < middle && names[order[left]].compareTo(names[order[right]]) <= 0
+                                ? order[left++]
+                                : order[right++];
+                    }
+                    System.arraycopy(buffer, from, order, from, to - from);
+                }
+            }
+        }
+    }
+}
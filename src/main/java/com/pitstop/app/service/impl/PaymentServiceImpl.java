@@ -5,6 +5,7 @@ import com.pitstop.app.config.RazorpaySignatureVerifier;
 import com.pitstop.app.constants.BookingStatus;
 import com.pitstop.app.constants.PaymentStatus;
 import com.pitstop.app.constants.PaymentType;
+import com.pitstop.app.dto.BookingStatusEvent;
 import com.pitstop.app.dto.InitiatePaymentResponse;
 import com.pitstop.app.dto.PaymentVerifyRequest;
 import com.pitstop.app.exception.BusinessException;
@@ -22,6 +23,7 @@ import lombok.RequiredArgsConstructor;
 import lombok.extern.slf4j.Slf4j;
 import org.json.JSONObject;
 import org.springframework.beans.factory.annotation.Value;
+import org.springframework.context.ApplicationEventPublisher;
 import org.springframework.stereotype.Service;
 import org.springframework.transaction.annotation.Transactional;
 
@@ -40,6 +42,7 @@ public class PaymentServiceImpl implements PaymentService {
     private final BookingRepository bookingRepository;
     private final RazorpayClientProvider razorpayClientProvider;
     private final RazorpaySignatureVerifier razorpaySignatureVerifier;
+    private final ApplicationEventPublisher eventPublisher;
 
     @Value("${razorpay.key-id}")
     private String razorpayKey;
@@ -155,10 +158,10 @@ public class PaymentServiceImpl implements PaymentService {
         payment.setGatewaySignature(paymentVerifyRequest.getGatewaySignature());
         payment.setStatusUpdatedAt(Instant.now());
 
-        Booking booking = bookingRepository.findById(payment.getBookingId())
-                        .orElseThrow(() -> new ResourceNotFoundException("Booking not found for id: " + payment.getBookingId()));
-        booking.setCurrentPaymentStatus(PaymentStatus.PAID);
-        bookingRepository.save(booking);
+        // Only touch the payment field so a concurrent status transition is not overwritten
+        Booking booking = bookingRepository.setPaymentStatus(payment.getBookingId(), PaymentStatus.PAID)
+                .orElseThrow(() -> new ResourceNotFoundException("Booking not found for id: " + payment.getBookingId()));
+        eventPublisher.publishEvent(BookingStatusEvent.of(booking));
 
         paymentRepository.save(payment);
     }
@@ -0,0 +1,111 @@
+package com.pitstop.app.service.impl;
+
+import com.pitstop.app.model.PricingSnapshot;
+import com.pitstop.app.repository.PricingRuleRepository;
+import lombok.RequiredArgsConstructor;
+import lombok.extern.slf4j.Slf4j;
+import org.bson.Document;
+import org.springframework.boot.context.event.ApplicationReadyEvent;
+import org.springframework.context.event.EventListener;
+import org.springframework.data.mongodb.core.FindAndModifyOptions;
+import org.springframework.data.mongodb.core.MongoTemplate;
+import org.springframework.data.mongodb.core.query.Criteria;
+import org.springframework.data.mongodb.core.query.Query;
+import org.springframework.data.mongodb.core.query.Update;
+import org.springframework.scheduling.annotation.Scheduled;
+import org.springframework.stereotype.Service;
+
+import java.util.concurrent.atomic.AtomicReference;
+
+/**
+ * Holds the current {@link PricingSnapshot}, so price lookups never query MongoDB. A global version
+ * counter in {@code pricing_meta} is bumped on every rule change. The changing node swaps in a fresh
+ * snapshot right away and tells the other nodes through {@link ClusterEventService}; a slow poll of
+ * the counter picks up any event that was missed. Snapshots only ever move forward in version.
+ */
+@Service
+@RequiredArgsConstructor
+@Slf4j
+public class PricingCatalog {
+
+    public static final String CLUSTER_TOPIC = "pricing";
+    private static final String META_COLLECTION = "pricing_meta";
+    private static final String VERSION_ID = "pricing";
+
+    private final PricingRuleRepository pricingRuleRepository;
+    private final MongoTemplate mongoTemplate;
+    private final ClusterEventService clusterEventService;
+
+    private final AtomicReference<PricingSnapshot> snapshot = new AtomicReference<>();
+    private final Object reloadLock = new Object();
+
+    @EventListener(ApplicationReadyEvent.class)
+    public void start() {
+        clusterEventService.subscribe(CLUSTER_TOPIC, key -> {
+            try {
+                reloadIfNewer(Long.parseLong(key));
+            } catch (NumberFormatException e) {
+                log.warn("Ignoring malformed pricing event {}", key);
+            }
+        });
+        PricingSnapshot loaded = reload();
+        log.info("Loaded pricing version {}", loaded.getVersion());
+    }
+
+    public PricingSnapshot current() {
+        PricingSnapshot current = snapshot.get();
+        return current != null ? current : reload();
+    }
+
+    // Call after a pricing rule was created, updated or deleted
+    public PricingSnapshot publishChange() {
+        long version = bumpVersion();
+        PricingSnapshot updated = reload();
+        clusterEventService.publish(CLUSTER_TOPIC, Long.toString(version));
+        log.info("Pricing is now at version {}", updated.getVersion());
+        return updated;
+    }
+
+    @Scheduled(fixedDelayString = "${pricing.catalog.poll-ms:60000}")
+    public void poll() {
+        if (snapshot.get() == null) {
+            return;
+        }
+        try {
+            reloadIfNewer(readVersion());
+        } catch (Exception e) {
+            log.warn("Pricing version poll failed: {}", e.getMessage());
+        }
+    }
+
+    private void reloadIfNewer(long version) {
+        PricingSnapshot current = snapshot.get();
+        if (current == null || version > current.getVersion()) {
+            reload();
+        }
+    }
+
+    private PricingSnapshot reload() {
+        synchronized (reloadLock) {
+            // version first, so the rules read are at least as new as the version they are tagged with
+            long version = readVersion();
+            PricingSnapshot loaded = new PricingSnapshot(version, pricingRuleRepository.findAll());
+            return snapshot.accumulateAndGet(loaded,
+                    (old, fresh) -> old != null && old.getVersion() > fresh.getVersion() ? old : fresh);
+        }
+    }
+
+    private long readVersion() {
+        Document meta = mongoTemplate.findById(VERSION_ID, Document.class, META_COLLECTION);
+        return meta == null || meta.get("version") == null ? 0 : ((Number) meta.get("version")).longValue();
+    }
+
+    private long bumpVersion() {
+        Document meta = mongoTemplate.findAndModify(
+                Query.query(Criteria.where("_id").is(VERSION_ID)),
+                new Update().inc("version", 1L),
+                FindAndModifyOptions.options().upsert(true).returnNew(true),
+                Document.class, META_COLLECTION);
+        return ((Number) meta.get("version")).longValue();
+    }
+}
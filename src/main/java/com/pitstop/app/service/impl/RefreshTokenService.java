@@ -0,0 +1,122 @@
+package com.pitstop.app.service.impl;
+
+import com.pitstop.app.dto.RefreshTokenResponse;
+import com.pitstop.app.exception.InvalidRefreshTokenException;
+import com.pitstop.app.model.CustomUserDetails;
+import com.pitstop.app.model.RefreshToken;
+import com.pitstop.app.repository.RefreshTokenRepository;
+import com.pitstop.app.utils.JwtUtil;
+import lombok.RequiredArgsConstructor;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.data.mongodb.core.FindAndModifyOptions;
+import org.springframework.data.mongodb.core.MongoTemplate;
+import org.springframework.data.mongodb.core.query.Criteria;
+import org.springframework.data.mongodb.core.query.Query;
+import org.springframework.data.mongodb.core.query.Update;
+import org.springframework.security.core.userdetails.UsernameNotFoundException;
+import org.springframework.stereotype.Service;
+
+import java.nio.charset.StandardCharsets;
+import java.security.MessageDigest;
+import java.security.NoSuchAlgorithmException;
+import java.security.SecureRandom;
+import java.time.Duration;
+import java.time.Instant;
+import java.util.Base64;
+import java.util.HexFormat;
+import java.util.UUID;
+
+/**
+ * Rotating refresh tokens. Login hands out one next to the short-lived access token, and
+ * /api/auth/refresh swaps it for a new pair without checking the password again. Each token can
+ * be exchanged once. Replaying an already exchanged token revokes its whole family, so a stolen
+ * refresh token stops working as soon as either party uses it a second time.
+ */
+@Service
+@RequiredArgsConstructor
+@Slf4j
+public class RefreshTokenService {
+
+    private static final SecureRandom RANDOM = new SecureRandom();
+
+    private final RefreshTokenRepository refreshTokenRepository;
+    private final MongoTemplate mongoTemplate;
+    private final UserDetailsServiceImpl userDetailsService;
+    private final JwtUtil jwtUtil;
+
+    @Value("${jwt.refresh-expiration-ms:1209600000}") // default 14 days
+    private long refreshExpirationMs;
+
+    public String issue(CustomUserDetails user) {
+        return issue(UUID.randomUUID().toString(), user.getUsername(), user.getAuthUser().tokenVersion());
+    }
+
+    public RefreshTokenResponse refresh(String rawToken) {
+        Instant now = Instant.now();
+        String hash = hash(rawToken);
+
+        // Marks the token used and returns it in one step, so two concurrent refreshes cannot both win
+        Query unused = Query.query(Criteria.where("_id").is(hash).and("usedAt").is(null).and("expiresAt").gt(now));
+        RefreshToken current = mongoTemplate.findAndModify(unused, new Update().set("usedAt", now),
+                FindAndModifyOptions.options().returnNew(true), RefreshToken.class);
+
+        if (current == null) {
+            refreshTokenRepository.findById(hash).ifPresent(replayed -> {
+                if (replayed.getUsedAt() != null) {
+                    long revoked = refreshTokenRepository.deleteByFamilyId(replayed.getFamilyId());
+                    log.warn("Refresh token reuse for {}, revoked {} token(s) of its family",
+                            replayed.getUsername(), revoked);
+                }
+            });
+            throw new InvalidRefreshTokenException("Refresh token is invalid or expired, please login again");
+        }
+
+        CustomUserDetails user;
+        try {
+            user = (CustomUserDetails) userDetailsService.loadUserByUsername(current.getUsername());
+        } catch (UsernameNotFoundException e) {
+            refreshTokenRepository.deleteByFamilyId(current.getFamilyId());
+            throw new InvalidRefreshTokenException("Refresh token is invalid or expired, please login again");
+        }
+        if (user.getAuthUser().tokenVersion() != current.getTokenVersion()) {
+            refreshTokenRepository.deleteByFamilyId(current.getFamilyId());
+            throw new InvalidRefreshTokenException("Credentials changed since login, please login again");
+        }
+
+        String refreshToken = issue(current.getFamilyId(), current.getUsername(), current.getTokenVersion());
+        return new RefreshTokenResponse(jwtUtil.generateToken(user), refreshToken);
+    }
+
+    // Ends the login the token belongs to, used by logout
+    public void revokeFamily(String rawToken) {
+        refreshTokenRepository.findById(hash(rawToken))
+                .ifPresent(token -> refreshTokenRepository.deleteByFamilyId(token.getFamilyId()));
+    }
+
+    private String issue(String familyId, String username, long tokenVersion) {
+        byte[] bytes = new byte[32];
+        RANDOM.nextBytes(bytes);
+        String rawToken = Base64.getUrlEncoder().withoutPadding().encodeToString(bytes);
+
+        Instant now = Instant.now();
+        RefreshToken token = new RefreshToken();
+        token.setId(hash(rawToken));
+        token.setFamilyId(familyId);
+        token.setUsername(username);
+        token.setTokenVersion(tokenVersion);
+        token.setIssuedAt(now);
+        token.setExpiresAt(now.plus(Duration.ofMillis(refreshExpirationMs)));
+        refreshTokenRepository.insert(token);
+        return rawToken;
+    }
+
+    private static String hash(String rawToken) {
+        try {
+            byte[] digest = MessageDigest.getInstance("SHA-256").digest(rawToken.getBytes(StandardCharsets.UTF_8));
+            return HexFormat.of().formatHex(digest);
+        } catch (NoSuchAlgorithmException e) {
+            throw new IllegalStateException("SHA-256 is not available", e);
+        }
+    }
+}
@@ -0,0 +1,136 @@
+package com.pitstop.app.service.impl;
+
+import com.pitstop.app.model.RevokedToken;
+import com.pitstop.app.repository.RevokedTokenRepository;
+import com.pitstop.app.utils.BloomFilter;
+import lombok.RequiredArgsConstructor;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.boot.context.event.ApplicationReadyEvent;
+import org.springframework.context.event.EventListener;
+import org.springframework.scheduling.annotation.Scheduled;
+import org.springframework.stereotype.Service;
+
+import java.time.Duration;
+import java.time.Instant;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+
+/**
+ * Denylist of revoked JWTs (by jti). The revoked_tokens collection is the source of truth, and each
+ * node mirrors the live entries as a Bloom filter in front of an exact map. Almost every request
+ * carries a token that was never revoked, and for those the Bloom filter answers without touching
+ * the map or the database. Revocations made on other nodes are picked up by polling revokedAt.
+ */
+@Service
+@RequiredArgsConstructor
+@Slf4j
+public class TokenRevocationService {
+
+    private final RevokedTokenRepository revokedTokenRepository;
+
+    @Value("${auth.revocation.expected-tokens:100000}")
+    private long expectedTokens;
+
+    @Value("${auth.revocation.false-positive-rate:0.001}")
+    private double falsePositiveRate;
+
+    // Revocations are stamped with the revoking node's clock, so each poll looks back this far
+    @Value("${auth.revocation.poll-overlap-ms:5000}")
+    private long pollOverlapMs;
+
+    // jti -> token expiry, for every revoked token that has not expired yet
+    private final Map<String, Instant> revoked = new ConcurrentHashMap<>();
+    private final Object filterLock = new Object();
+    private volatile BloomFilter filter;
+    // How many entries the current filter was sized for
+    private long filterCapacity;
+    private volatile boolean ready;
+    private Instant highWaterMark = Instant.EPOCH;
+    // Entries dropped from the map since the filter was built, they still set bits in it
+    private long expiredSinceRebuild;
+
+    @EventListener(ApplicationReadyEvent.class)
+    public void load() {
+        Instant now = Instant.now();
+        for (RevokedToken token : revokedTokenRepository.findByExpiresAtAfter(now)) {
+            remember(token);
+        }
+        rebuildFilter();
+        ready = true;
+        log.info("Loaded {} revoked token(s)", revoked.size());
+    }
+
+    public boolean isRevoked(String jti) {
+        if (jti == null) {
+            return false;
+        }
+        if (!ready) {
+            return revokedTokenRepository.existsById(jti);
+        }
+        if (!filter.mightContain(jti)) {
+            return false;
+        }
+        Instant expiresAt = revoked.get(jti);
+        return expiresAt != null && expiresAt.isAfter(Instant.now());
+    }
+
+    public void revoke(String jti, Instant expiresAt) {
+        if (jti == null || !expiresAt.isAfter(Instant.now())) {
+            return;
+        }
+        RevokedToken token = revokedTokenRepository.save(new RevokedToken(jti, expiresAt, Instant.now()));
+        remember(token);
+    }
+
+    @Scheduled(fixedDelayString = "${auth.revocation.poll-ms:2000}")
+    public void poll() {
+        if (!ready) {
+            return;
+        }
+        try {
+            Instant since = highWaterMark.minus(Duration.ofMillis(pollOverlapMs));
+            for (RevokedToken token : revokedTokenRepository.findByRevokedAtGreaterThanEqual(since)) {
+                remember(token);
+            }
+            dropExpired();
+        } catch (Exception e) {
+            log.warn("Polling revoked tokens failed: {}", e.getMessage());
+        }
+    }
+
+    private void remember(RevokedToken token) {
+        synchronized (filterLock) {
+            if (token.getRevokedAt() != null && token.getRevokedAt().isAfter(highWaterMark)) {
+                highWaterMark = token.getRevokedAt();
+            }
+            if (revoked.put(token.getId(), token.getExpiresAt()) == null && filter != null) {
+                filter.put(token.getId());
+            }
+        }
+    }
+
+    // Bloom filters cannot forget, so the filter is rebuilt once too many of its entries have expired
+    private void dropExpired() {
+        Instant now = Instant.now();
+        synchronized (filterLock) {
+            int before = revoked.size();
+            revoked.values().removeIf(expiresAt -> !expiresAt.isAfter(now));
+            expiredSinceRebuild += before - revoked.size();
+            if (expiredSinceRebuild > Math.max(revoked.size(), 1_000) || revoked.size() > filterCapacity) {
+                rebuildFilter();
+            }
+        }
+    }
+
+    private void rebuildFilter() {
+        synchronized (filterLock) {
+            long capacity = Math.max(expectedTokens, revoked.size() * 2L);
+            BloomFilter rebuilt = new BloomFilter(capacity, falsePositiveRate);
+            revoked.keySet().forEach(rebuilt::put);
+            filter = rebuilt;
+            filterCapacity = capacity;
+            expiredSinceRebuild = 0;
+        }
+    }
+}
@@ -0,0 +1,80 @@
+package com.pitstop.app.service.impl;
+
+import com.github.benmanes.caffeine.cache.Cache;
+import com.github.benmanes.caffeine.cache.Caffeine;
+import com.pitstop.app.model.AdminUser;
+import com.pitstop.app.model.AppUser;
+import com.pitstop.app.model.WorkshopUser;
+import org.bson.Document;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.data.mongodb.core.MongoTemplate;
+import org.springframework.data.mongodb.core.query.Criteria;
+import org.springframework.data.mongodb.core.query.Query;
+import org.springframework.stereotype.Service;
+
+import java.time.Duration;
+
+/**
+ * Current tokenVersion per username, so JwtFilter can reject tokens issued before a password or
+ * role change without loading the user on every request. Entries expire after a short TTL, which
+ * bounds how long another node can keep accepting a stale token, and are evicted right away on the
+ * node that made the change.
+ */
+@Service
+public class TokenVersionService {
+
+    // Cached for usernames that no longer exist, never matches a token
+    public static final long NO_USER = -1L;
+
+    private final MongoTemplate mongoTemplate;
+    private final Cache<String, Long> versions;
+
+    public TokenVersionService(MongoTemplate mongoTemplate,
+                               @Value("${auth.token-version.cache-ttl-ms:30000}") long ttlMs,
+                               @Value("${auth.token-version.cache-size:10000}") long maxSize) {
+        this.mongoTemplate = mongoTemplate;
+        this.versions = Caffeine.newBuilder()
+                .expireAfterWrite(Duration.ofMillis(ttlMs))
+                .maximumSize(maxSize)
+                .build();
+    }
+
+    public long currentVersion(String username) {
+        return versions.get(username, this::loadVersion);
+    }
+
+    public void evict(String username) {
+        versions.invalidate(username);
+    }
+
+    public void evictAll() {
+        versions.invalidateAll();
+    }
+
+    private long loadVersion(String username) {
+        Class<?> userClass = userClassFor(username);
+        if (userClass == null) {
+            return NO_USER;
+        }
+        Query query = Query.query(Criteria.where("username").is(username));
+        query.fields().include("tokenVersion");
+        Document user = mongoTemplate.findOne(query, Document.class, mongoTemplate.getCollectionName(userClass));
+        if (user == null) {
+            return NO_USER;
+        }
+        Number version = user.get("tokenVersion", Number.class);
+        return version == null ? 0L : version.longValue();
+    }
+
+    // Same username prefixes UserDetailsServiceImpl uses to pick the collection
+    private Class<?> userClassFor(String username) {
+        if (username.startsWith("user_")) {
+            return AppUser.class;
+        } else if (username.startsWith("workshop_")) {
+            return WorkshopUser.class;
+        } else if (username.startsWith("admin_")) {
+            return AdminUser.class;
+        }
+        return null;
+    }
+}
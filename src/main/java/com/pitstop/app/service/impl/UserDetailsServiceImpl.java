@@ -1,28 +1,98 @@
 package com.pitstop.app.service.impl;
 
+import com.github.benmanes.caffeine.cache.Cache;
+import com.github.benmanes.caffeine.cache.Caffeine;
 import com.pitstop.app.model.*;
 import com.pitstop.app.repository.AdminUserRepository;
 import com.pitstop.app.repository.AppUserRepository;
 import com.pitstop.app.repository.WorkshopUserRepository;
-import lombok.RequiredArgsConstructor;
+import io.micrometer.core.instrument.MeterRegistry;
+import io.micrometer.core.instrument.binder.cache.CaffeineCacheMetrics;
 import lombok.extern.slf4j.Slf4j;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.dao.OptimisticLockingFailureException;
 import org.springframework.security.core.userdetails.UserDetails;
+import org.springframework.security.core.userdetails.UserDetailsPasswordService;
 import org.springframework.security.core.userdetails.UserDetailsService;
 import org.springframework.security.core.userdetails.UsernameNotFoundException;
 import org.springframework.stereotype.Service;
 
+import java.time.Duration;
+
+/**
+ * Loads users for login and HTTP basic auth. Results are kept in a bounded TTL cache that only holds
+ * what authentication needs (see {@link CachedAuthUser}). Entries are evicted whenever a save changes
+ * the user's auth state or the user is deleted on any node, the TTL only bounds how long a missed
+ * eviction can linger.
+ * <p>
+ * Also stores rehashed passwords when the configured BCrypt cost goes up, so existing hashes are
+ * upgraded on the user's next successful login.
+ */
 @Slf4j
 @Service
-@RequiredArgsConstructor
-public class UserDetailsServiceImpl implements UserDetailsService {
+public class UserDetailsServiceImpl implements UserDetailsService, UserDetailsPasswordService {
 
     private final AppUserRepository appUserRepository;
     private final WorkshopUserRepository workshopUserRepository;
     private final AdminUserRepository adminUserRepository;
+    private final Cache<String, CachedAuthUser> principals;
+
+    public UserDetailsServiceImpl(AppUserRepository appUserRepository,
+                                  WorkshopUserRepository workshopUserRepository,
+                                  AdminUserRepository adminUserRepository,
+                                  MeterRegistry meterRegistry,
+                                  @Value("${auth.principal-cache.ttl-ms:300000}") long ttlMs,
+                                  @Value("${auth.principal-cache.size:10000}") long maxSize) {
+        this.appUserRepository = appUserRepository;
+        this.workshopUserRepository = workshopUserRepository;
+        this.adminUserRepository = adminUserRepository;
+        this.principals = Caffeine.newBuilder()
+                .expireAfterWrite(Duration.ofMillis(ttlMs))
+                .maximumSize(maxSize)
+                .recordStats()
+                .build();
+        // cache_gets_total{cache="auth.principals", result="hit"|"miss"} and friends
+        CaffeineCacheMetrics.monitor(meterRegistry, principals, "auth.principals");
+    }
 
     @Override
     public UserDetails loadUserByUsername(String username) throws UsernameNotFoundException {
-        log.info("Attempting login for username: {}", username);
+        // Misses are not cached, so a user registering right after a failed login is found
+        CachedAuthUser user = principals.get(username, this::loadFromDatabase);
+        if (user == null) {
+            log.warn("Username {} not found in any user collection", username);
+            throw new UsernameNotFoundException("User not found: " + username);
+        }
+        return new CustomUserDetails(user);
+    }
+
+    @Override
+    public UserDetails updatePassword(UserDetails user, String newPassword) {
+        String username = user.getUsername();
+        try {
+            if (!storePassword(username, newPassword)) {
+                return user;
+            }
+            evict(username);
+            log.info("Upgraded password hash for {}", username);
+            return loadUserByUsername(username);
+        } catch (OptimisticLockingFailureException e) {
+            // changed concurrently, the next login will try again
+            log.debug("Skipped password rehash for {}: {}", username, e.getMessage());
+            return user;
+        }
+    }
+
+    public void evict(String username) {
+        principals.invalidate(username);
+    }
+
+    public void evictAll() {
+        principals.invalidateAll();
+    }
+
+    private CachedAuthUser loadFromDatabase(String username) {
+        log.debug("Loading auth state for username: {}", username);
 
         int indexOfFirstUnderScore = username.indexOf('_');
         String role = username.substring(0, indexOfFirstUnderScore + 1);
@@ -31,25 +101,45 @@ public class UserDetailsServiceImpl implements UserDetailsService {
             // Try WorkshopUser
             WorkshopUser workshopUser = workshopUserRepository.findByUsername(username).orElse(null);
             if (workshopUser != null) {
-                log.info("Found WorkshopUser: {} with roles={}", workshopUser.getUsername(), workshopUser.getRoles());
-                return new CustomUserDetails(workshopUser, workshopUser.getUserType());
+                return CachedAuthUser.of(workshopUser);
             }
         } else if(role.equals("user_")) {
             // Try AppUser
             AppUser appUser = appUserRepository.findByUsername(username).orElse(null);
             if (appUser != null) {
-                log.info("Found AppUser: {} with roles={}", appUser.getUsername(), appUser.getRoles());
-                return new CustomUserDetails(appUser, appUser.getUserType());
+                return CachedAuthUser.of(appUser);
             }
         } else if(role.equals("admin_")){
             // Try AdminUser
             AdminUser adminUser = adminUserRepository.findByUsername(username).orElse(null);
             if (adminUser != null) {
-                log.info("Found AdminUser: {} with roles={}", adminUser.getUsername(), adminUser.getRoles());
-                return new CustomUserDetails(adminUser, adminUser.getUserType());
+                return CachedAuthUser.of(adminUser);
             }
         }
-        log.warn("Username {} not found in any user collection", username);
-        throw new UsernameNotFoundException("User not found: " + username);
+        return null;
+    }
+
+    // Returns false if no user has this username
+    private boolean storePassword(String username, String encodedPassword) {
+        int indexOfFirstUnderScore = username.indexOf('_');
+        String role = username.substring(0, indexOfFirstUnderScore + 1);
+
+        if(role.equals("workshop_")) {
+            return workshopUserRepository.findByUsername(username).map(workshopUser -> {
+                workshopUser.setPassword(encodedPassword);
+                return workshopUserRepository.save(workshopUser);
+            }).isPresent();
+        } else if(role.equals("user_")) {
+            return appUserRepository.findByUsername(username).map(appUser -> {
+                appUser.setPassword(encodedPassword);
+                return appUserRepository.save(appUser);
+            }).isPresent();
+        } else if(role.equals("admin_")){
+            return adminUserRepository.findByUsername(username).map(adminUser -> {
+                adminUser.setPassword(encodedPassword);
+                return adminUserRepository.save(adminUser);
+            }).isPresent();
+        }
+        return false;
     }
 }
@@ -0,0 +1,60 @@
+package com.pitstop.app.service.impl;
+
+import com.pitstop.app.exception.ResourceNotFoundException;
+import com.pitstop.app.model.AppUser;
+import com.pitstop.app.model.RatingSummary;
+import com.pitstop.app.model.WorkshopUser;
+import lombok.RequiredArgsConstructor;
+import org.springframework.data.mongodb.core.MongoTemplate;
+import org.springframework.data.mongodb.core.query.Criteria;
+import org.springframework.data.mongodb.core.query.Query;
+import org.springframework.data.mongodb.core.query.Update;
+import org.springframework.stereotype.Service;
+
+import java.time.Instant;
+
+/**
+ * Adds a rating to a user's {@link RatingSummary} with one {@code $inc}. Nothing is read first, so
+ * concurrent ratings of the same user never conflict. The version is bumped as well, so a save() of
+ * a user that was loaded before the rating fails instead of overwriting it; user writes go through
+ * {@link com.pitstop.app.utils.OptimisticLockRetry} and re-apply their change to the fresh document.
+ */
+@Service
+@RequiredArgsConstructor
+public class UserRatingService {
+
+    private final MongoTemplate mongoTemplate;
+
+    public void addAppUserRating(String appUserId, int stars) {
+        addRating(appUserId, stars, AppUser.class);
+    }
+
+    public void addWorkshopUserRating(String workshopUserId, int stars) {
+        addRating(workshopUserId, stars, WorkshopUser.class);
+    }
+
+    public static void validateStars(int stars) {
+        if (stars < RatingSummary.MIN_STARS || stars > RatingSummary.MAX_STARS) {
+            throw new IllegalArgumentException(String.format("Rating must be between %d and %d",
+                    RatingSummary.MIN_STARS, RatingSummary.MAX_STARS));
+        }
+    }
+
+    private void addRating(String userId, int stars, Class<?> userClass) {
+        validateStars(stars);
+        double weight = RatingSummary.decayWeight(Instant.now());
+        Update update = new Update()
+                .inc("ratingSummary.count", 1)
+                .inc("ratingSummary.sum", stars)
+                .inc("ratingSummary.histogram." + stars, 1)
+                .inc("ratingSummary.decayedSum", stars * weight)
+                .inc("ratingSummary.decayedWeight", weight)
+                .inc("version", 1);
+
+        long matched = mongoTemplate.updateFirst(Query.query(Criteria.where("_id").is(userId)), update, userClass)
+                .getMatchedCount();
+        if (matched == 0) {
+            throw new ResourceNotFoundException(userClass.getSimpleName() + " not found for id: " + userId);
+        }
+    }
+}
@@ -10,6 +10,7 @@ import com.pitstop.app.repository.VehicleRepository;
 import com.pitstop.app.service.VehicleService;
 import lombok.RequiredArgsConstructor;
 import lombok.extern.slf4j.Slf4j;
+import org.springframework.dao.OptimisticLockingFailureException;
 import org.springframework.security.core.Authentication;
 import org.springframework.security.core.context.SecurityContextHolder;
 import org.springframework.stereotype.Service;
@@ -68,16 +69,17 @@ public class VehicleServiceImpl implements VehicleService {
         try {
             Authentication authentication = SecurityContextHolder.getContext().getAuthentication();
             String username = authentication.getName();
-            AppUser currentAppUser = appUserService.getAppUserByUsername(username);
-
-            Vehicle newVehicle = new Vehicle(VehicleType.TWO_WHEELER, addVehicleRequest.getBrand(),
-                    addVehicleRequest.getModel(), addVehicleRequest.getEngineCapacity());
+            // Fails before the vehicle is stored when the user is gone
+            appUserService.getAppUserByUsername(username);
 
-            newVehicle = saveVehicle(newVehicle);
-            currentAppUser.getVehicleList().add(newVehicle);
-            appUserService.updateAppUserDetails(currentAppUser);
+            Vehicle newVehicle = saveVehicle(new Vehicle(VehicleType.TWO_WHEELER, addVehicleRequest.getBrand(),
+                    addVehicleRequest.getModel(), addVehicleRequest.getEngineCapacity()));
+            appUserService.modifyAppUser("appUser.addVehicle", username,
+                    appUser -> appUser.getVehicleList().add(newVehicle));
 
             return new AddVehicleResponse(newVehicle.getId(), "OK");
+        } catch (OptimisticLockingFailureException e) {
+            throw e;
         } catch (Exception e) {
             log.error("Error occurred while trying to add Two Wheeler");
             throw new RuntimeException("Exception occurred while trying to add vehicle. "+e.getMessage());
@@ -89,16 +91,17 @@ public class VehicleServiceImpl implements VehicleService {
         try {
             Authentication authentication = SecurityContextHolder.getContext().getAuthentication();
             String username = authentication.getName();
-            AppUser currentAppUser = appUserService.getAppUserByUsername(username);
-
-            Vehicle newVehicle = new Vehicle(VehicleType.FOUR_WHEELER, addVehicleRequest.getBrand(),
-                    addVehicleRequest.getModel(), addVehicleRequest.getEngineCapacity());
+            // Fails before the vehicle is stored when the user is gone
+            appUserService.getAppUserByUsername(username);
 
-            newVehicle = saveVehicle(newVehicle);
-            currentAppUser.getVehicleList().add(newVehicle);
-            appUserService.updateAppUserDetails(currentAppUser);
+            Vehicle newVehicle = saveVehicle(new Vehicle(VehicleType.FOUR_WHEELER, addVehicleRequest.getBrand(),
+                    addVehicleRequest.getModel(), addVehicleRequest.getEngineCapacity()));
+            appUserService.modifyAppUser("appUser.addVehicle", username,
+                    appUser -> appUser.getVehicleList().add(newVehicle));
 
             return new AddVehicleResponse(newVehicle.getId(), "OK");
+        } catch (OptimisticLockingFailureException e) {
+            throw e;
         } catch (Exception e) {
             log.error("Error occurred while trying to add Four Wheeler");
             throw new RuntimeException("Exception occurred while trying to add vehicle. "+e.getMessage());
@@ -0,0 +1,97 @@
+package com.pitstop.app.service.impl;
+
+import com.github.benmanes.caffeine.cache.Cache;
+import com.github.benmanes.caffeine.cache.Caffeine;
+import com.pitstop.app.constants.VehicleType;
+import com.pitstop.app.constants.WorkshopServiceType;
+import io.micrometer.core.instrument.Counter;
+import io.micrometer.core.instrument.MeterRegistry;
+import io.micrometer.core.instrument.binder.cache.CaffeineCacheMetrics;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.stereotype.Component;
+
+import java.time.Duration;
+import java.util.function.Function;
+import java.util.function.Predicate;
+
+/**
+ * Short-lived cache of workshop search candidates, shared by users searching from the same small
+ * cell with the same filters and a radius in the same bucket. An entry holds every matching workshop
+ * that any search from the cell within the bucket radius could return, so each user only pays for
+ * the exact distances from their own address.
+ * <p>
+ * The spatial index decides whether an entry is still current from the versions of the index cells
+ * it was read from, so a workshop opening, closing or changing its services nearby reloads the
+ * entry on the next search instead of waiting for the TTL. Hit and miss counts are exported as
+ * {@code cache_gets{cache="workshop.search"}}; reloads of outdated entries count as misses there
+ * and are also counted in {@code pitstop.search.cache.stale}.
+ */
+@Component
+public class WorkshopSearchCache {
+
+    private final boolean enabled;
+    private final double cellSizeDeg;
+    private final double radiusBucketKm;
+    private final Cache<Key, WorkshopSpatialIndex.Candidates> entries;
+    private final Counter stale;
+
+    public WorkshopSearchCache(MeterRegistry meterRegistry,
+                               @Value("${search.cache.enabled:true}") boolean enabled,
+                               // 0.01 degrees is a cell of roughly 1.1 km
+                               @Value("${search.cache.cell-size-deg:0.01}") double cellSizeDeg,
+                               @Value("${search.cache.radius-bucket-km:5}") double radiusBucketKm,
+                               @Value("${search.cache.ttl-ms:30000}") long ttlMs,
+                               @Value("${search.cache.size:10000}") long maxSize) {
+        this.enabled = enabled;
+        this.cellSizeDeg = cellSizeDeg;
+        this.radiusBucketKm = radiusBucketKm;
+        this.entries = Caffeine.newBuilder()
+                .expireAfterWrite(Duration.ofMillis(ttlMs))
+                .maximumSize(maxSize)
+                .recordStats()
+                .build();
+        CaffeineCacheMetrics.monitor(meterRegistry, entries, "workshop.search");
+        this.stale = meterRegistry.counter("pitstop.search.cache.stale");
+    }
+
+    public record Key(int latCell, int lonCell, VehicleType vehicleType, WorkshopServiceType serviceType,
+                      int radiusBucket) {
+    }
+
+    /**
+     * The cell a key's searches start from, and the radius they can reach.
+     */
+    public record Region(double minLatitude, double maxLatitude, double minLongitude, double maxLongitude,
+                         double radiusKm) {
+    }
+
+    public Key keyFor(double latitude, double longitude, double maxDistanceKm,
+                      VehicleType vehicleType, WorkshopServiceType serviceType) {
+        int latCell = (int) Math.floor((latitude + 90) / cellSizeDeg);
+        int lonCell = (int) Math.floor((longitude + 180) / cellSizeDeg);
+        int radiusBucket = Math.max(1, (int) Math.ceil(maxDistanceKm / radiusBucketKm));
+        return new Key(latCell, lonCell, vehicleType, serviceType, radiusBucket);
+    }
+
+    public Region regionOf(Key key) {
+        double minLatitude = key.latCell() * cellSizeDeg - 90;
+        double minLongitude = key.lonCell() * cellSizeDeg - 180;
+        return new Region(minLatitude, Math.min(minLatitude + cellSizeDeg, 90),
+                minLongitude, minLongitude + cellSizeDeg, key.radiusBucket() * radiusBucketKm);
+    }
+
+    WorkshopSpatialIndex.Candidates get(Key key, Function<Key, WorkshopSpatialIndex.Candidates> loader,
+                                        Predicate<WorkshopSpatialIndex.Candidates> isCurrent) {
+        if (!enabled) {
+            return loader.apply(key);
+        }
+        // read without touching the stats, so an outdated entry is not recorded as a hit
+        WorkshopSpatialIndex.Candidates cached = entries.policy().getIfPresentQuietly(key);
+        if (cached != null && !isCurrent.test(cached)) {
+            stale.increment();
+            entries.asMap().remove(key, cached);
+        }
+        // searches missing together wait for one load instead of each reading the index
+        return entries.get(key, loader);
+    }
+}
@@ -4,6 +4,7 @@ import com.pitstop.app.constants.VehicleType;
 import com.pitstop.app.constants.WorkshopServiceType;
 import com.pitstop.app.constants.WorkshopStatus;
 import com.pitstop.app.dto.PricingRuleResponse;
+import com.pitstop.app.dto.WorkshopSearchPage;
 import com.pitstop.app.dto.WorkshopUserFilterRequest;
 import com.pitstop.app.dto.WorkshopUserFilterResponse;
 import com.pitstop.app.exception.ResourceNotFoundException;
@@ -12,15 +13,24 @@ import com.pitstop.app.repository.AppUserRepository;
 import com.pitstop.app.repository.PricingRuleRepository;
 import com.pitstop.app.repository.WorkshopUserRepository;
 import com.pitstop.app.service.WorkshopSearchService;
+import com.pitstop.app.utils.DistanceTopK;
+import com.pitstop.app.utils.WorkshopSearchCursor;
 import lombok.RequiredArgsConstructor;
 import lombok.extern.slf4j.Slf4j;
+import org.springframework.data.geo.Distance;
+import org.springframework.data.geo.GeoResult;
+import org.springframework.data.geo.GeoResults;
+import org.springframework.data.geo.Metrics;
+import org.springframework.data.geo.Point;
 import org.springframework.security.core.Authentication;
 import org.springframework.security.core.context.SecurityContextHolder;
 import org.springframework.stereotype.Service;
 
 import java.util.ArrayList;
 import java.util.Collections;
+import java.util.EnumSet;
 import java.util.List;
+import java.util.stream.Stream;
 
 @Service
 @Slf4j
@@ -31,96 +41,19 @@ public class WorkshopSearchServiceImpl implements WorkshopSearchService {
     private final WorkshopUserRepository workshopUserRepository;
     private final AdminPricingServiceImpl adminPricingService;
     private final PricingRuleRepository pricingRuleRepository;
+    private final WorkshopSpatialIndex workshopSpatialIndex;
 
     @Override
     public List<WorkshopUserFilterResponse> filterWorkshopUsers(WorkshopUserFilterRequest workshopUserRequest) {
         try {
-            Authentication authentication = SecurityContextHolder.getContext().getAuthentication();
-            String username = authentication.getName();
-
-            AppUser currentAppUser = appUserRepository.findByUsername(username)
-                    .orElseThrow(() -> new ResourceNotFoundException("User not found"));
-
-            Address defaultAddress = getAppUserDefaultAddress(currentAppUser);
-            log.info("Using user default address: {}", defaultAddress.getFormattedAddress());
-
-            VehicleType requestedVehicleType =
-                    parseWorkshopVehicleType(workshopUserRequest.getVehicleType());
-            WorkshopServiceType requestedServiceType =
-                    parseWorkshopServiceType(workshopUserRequest.getServiceType());
-
-            log.info("Filtering workshops for vehicleType={} and serviceType={}",
-                    requestedVehicleType, requestedServiceType);
-
-            List<WorkshopUser> shops = workshopUserRepository.findAll();
-            log.info("Total workshops found: {}", shops.size());
-
-            List<WorkshopUserFilterResponse> result = new ArrayList<>();
-
-            for (WorkshopUser workshopUser : shops) {
-
-                if (workshopUser.getCurrentWorkshopStatus() != WorkshopStatus.OPEN) {
-                    log.info("Workshop {} skipped : status = {}",
-                            workshopUser.getUsername(), workshopUser.getCurrentWorkshopStatus());
-                    continue;
-                }
-
-                if (workshopUser.getWorkshopAddress() == null) {
-                    log.warn("Workshop {} skipped: no address set", workshopUser.getUsername());
-                    continue;
-                }
-
-                VehicleType supported = workshopUser.getVehicleTypeSupported();
-                boolean vehicleMatches =
-                        supported == VehicleType.BOTH ||
-                                supported == requestedVehicleType;
-
-                if (!vehicleMatches) {
-                    log.debug("Workshop {} skipped: vehicleTypeSupported={} does not match requested={}",
-                            workshopUser.getUsername(), supported, requestedVehicleType);
-                    continue;
-                }
-
-                if (workshopUser.getServicesOffered() == null ||
-                        !workshopUser.getServicesOffered().contains(requestedServiceType)) {
-                    continue;
-                }
-
-                double distance = haversine(
-                        defaultAddress.getLatitude(),
-                        defaultAddress.getLongitude(),
-                        workshopUser.getWorkshopAddress().getLatitude(),
-                        workshopUser.getWorkshopAddress().getLongitude()
-                );
-
-                if (distance > workshopUserRequest.getMaxDistanceKm()) {
-                    continue;
-                }
-
-                WorkshopUserFilterResponse response = new WorkshopUserFilterResponse();
-                response.setWorkshopId(workshopUser.getId());
-
-                String displayName = (workshopUser.getName() != null && !workshopUser.getName().isBlank())
-                        ? workshopUser.getName()
-                        : workshopUser.getUsername();
-
-                response.setWorkshopName(displayName);
-                response.setDistanceKm(distance);
-                response.setVehicleType(supported);
-                response.setServiceType(requestedServiceType);
-                response.setFormattedAddress(workshopUser.getWorkshopAddress().getFormattedAddress());
-                response.setLatitude(workshopUser.getWorkshopAddress().getLatitude());
-                response.setLongitude(workshopUser.getWorkshopAddress().getLongitude());
-                PricingRuleResponse pricingRuleByVehicleTypeAndServiceType = adminPricingService.getPricingRuleByVehicleTypeAndServiceType(requestedVehicleType, requestedServiceType);
-                if(workshopUser.isPremiumWorkshop())
-                    response.setPrice(pricingRuleByVehicleTypeAndServiceType.getAmount() + pricingRuleByVehicleTypeAndServiceType.getPremiumAmount());
-                else
-                    response.setPrice(pricingRuleByVehicleTypeAndServiceType.getAmount());
-
-                result.add(response);
-            }
+            SearchContext context = searchContext(workshopUserRequest);
+
+            List<WorkshopUserFilterResponse> result = workshopSpatialIndex.isReady()
+                    ? searchInMemory(context.origin(), workshopUserRequest.getMaxDistanceKm(),
+                            context.vehicleType(), context.serviceType(), context.pricingRule())
+                    : searchWithGeoNear(context.origin(), workshopUserRequest.getMaxDistanceKm(),
+                            context.vehicleType(), context.serviceType(), context.pricingRule());
 
-            sortByDistance(result);
             log.info("Workshop search completed, {} results found", result.size());
 
             return result;
@@ -131,6 +64,64 @@ public class WorkshopSearchServiceImpl implements WorkshopSearchService {
         }
     }
 
+    // Same search as filterWorkshopUsers, the responses are built while the stream is consumed
+    @Override
+    public Stream<WorkshopUserFilterResponse> streamWorkshopUsers(WorkshopUserFilterRequest workshopUserRequest) {
+        try {
+            SearchContext context = searchContext(workshopUserRequest);
+            if (!workshopSpatialIndex.isReady()) {
+                return searchWithGeoNear(context.origin(), workshopUserRequest.getMaxDistanceKm(),
+                        context.vehicleType(), context.serviceType(), context.pricingRule()).stream();
+            }
+            List<WorkshopSpatialIndex.Match> matches = workshopSpatialIndex.search(
+                    context.origin().getLatitude(), context.origin().getLongitude(),
+                    workshopUserRequest.getMaxDistanceKm(), context.vehicleType(), context.serviceType());
+            log.info("Streaming {} matching workshop(s) from the spatial index", matches.size());
+            return matches.stream().map(match -> toFilterResponse(match, context.serviceType(), context.pricingRule()));
+
+        } catch (Exception e) {
+            log.error("Error while searching workshops: {}", e.getMessage(), e);
+            throw new RuntimeException("Failed to search workshops.");
+        }
+    }
+
+    @Override
+    public WorkshopSearchPage filterWorkshopUsersPage(WorkshopUserFilterRequest workshopUserRequest) {
+        int pageSize = WorkshopSearchPage.pageSize(workshopUserRequest.getLimit());
+        WorkshopSearchCursor after = WorkshopSearchCursor.decode(workshopUserRequest.getCursor());
+        try {
+            SearchContext context = searchContext(workshopUserRequest);
+
+            // one extra workshop tells whether there is a next page
+            List<WorkshopSpatialIndex.Match> matches = workshopSpatialIndex.isReady()
+                    ? workshopSpatialIndex.searchPage(context.origin().getLatitude(), context.origin().getLongitude(),
+                            workshopUserRequest.getMaxDistanceKm(), context.vehicleType(), context.serviceType(),
+                            after, pageSize + 1)
+                    : pageWithGeoNear(context.origin(), workshopUserRequest.getMaxDistanceKm(),
+                            context.vehicleType(), context.serviceType(), after, pageSize + 1);
+
+            boolean hasMore = matches.size() > pageSize;
+            List<WorkshopSpatialIndex.Match> page = hasMore ? matches.subList(0, pageSize) : matches;
+            List<WorkshopUserFilterResponse> items = new ArrayList<>(page.size());
+            for (WorkshopSpatialIndex.Match match : page) {
+                items.add(toFilterResponse(match, context.serviceType(), context.pricingRule()));
+            }
+            String nextCursor = null;
+            if (hasMore) {
+                WorkshopSpatialIndex.Match last = page.get(page.size() - 1);
+                nextCursor = new WorkshopSearchCursor(last.distanceKm(), last.workshop().id()).encode();
+            }
+
+            log.info("Workshop search page completed, {} results returned, more: {}", items.size(), hasMore);
+
+            return new WorkshopSearchPage(items, nextCursor, hasMore);
+
+        } catch (Exception e) {
+            log.error("Error while searching workshops: {}", e.getMessage(), e);
+            throw new RuntimeException("Failed to search workshops.");
+        }
+    }
+
     @Override
     public List<WorkshopServiceType> getAvailableServices(VehicleType vehicleType) {
        log.info("Fetching available services for vehicle type : {}",vehicleType);
@@ -177,6 +168,126 @@ public class WorkshopSearchServiceImpl implements WorkshopSearchService {
         return services;
     }
 
+    private List<WorkshopUserFilterResponse> searchInMemory(Address origin, double maxDistanceKm,
+                                                            VehicleType vehicleType, WorkshopServiceType serviceType,
+                                                            PricingRuleResponse pricingRule) {
+        List<WorkshopSpatialIndex.Match> matches = workshopSpatialIndex.search(
+                origin.getLatitude(), origin.getLongitude(), maxDistanceKm, vehicleType, serviceType);
+        log.info("Total matching workshops found in spatial index: {}", matches.size());
+
+        List<WorkshopUserFilterResponse> result = new ArrayList<>(matches.size());
+        for (WorkshopSpatialIndex.Match match : matches) {
+            result.add(toFilterResponse(match, serviceType, pricingRule));
+        }
+        return result;
+    }
+
+    // Used until the spatial index has finished loading at startup
+    private List<WorkshopUserFilterResponse> searchWithGeoNear(Address origin, double maxDistanceKm,
+                                                               VehicleType vehicleType, WorkshopServiceType serviceType,
+                                                               PricingRuleResponse pricingRule) {
+        GeoResults<WorkshopSearchCandidate> shops = geoNearCandidates(origin, maxDistanceKm, vehicleType, serviceType);
+        log.info("Total matching workshops found: {}", shops.getContent().size());
+
+        List<WorkshopUserFilterResponse> result = new ArrayList<>();
+        for (GeoResult<WorkshopSearchCandidate> geoResult : shops) {
+            WorkshopSearchCandidate workshop = geoResult.getContent();
+            result.add(toFilterResponse(workshop.getId(), workshop.displayName(), geoResult.getDistance().getValue(),
+                    workshop.getVehicleTypeSupported(), serviceType,
+                    workshop.getWorkshopAddress().getFormattedAddress(),
+                    workshop.getWorkshopAddress().getLatitude(),
+                    workshop.getWorkshopAddress().getLongitude(),
+                    workshop.isPremiumWorkshop(), pricingRule));
+        }
+        return result;
+    }
+
+    // Used until the spatial index has finished loading at startup
+    private List<WorkshopSpatialIndex.Match> pageWithGeoNear(Address origin, double maxDistanceKm,
+                                                             VehicleType vehicleType, WorkshopServiceType serviceType,
+                                                             WorkshopSearchCursor after, int limit) {
+        GeoResults<WorkshopSearchCandidate> shops = geoNearCandidates(origin, maxDistanceKm, vehicleType, serviceType);
+
+        // $geoNear does not break distance ties by id, so the page is picked here
+        DistanceTopK<WorkshopSearchCandidate> nearest = new DistanceTopK<>(limit);
+        for (GeoResult<WorkshopSearchCandidate> geoResult : shops) {
+            double distance = geoResult.getDistance().getValue();
+            WorkshopSearchCandidate workshop = geoResult.getContent();
+            if (after == null || after.precedes(distance, workshop.getId())) {
+                nearest.offer(distance, workshop.getId(), workshop);
+            }
+        }
+        return nearest.drainSorted((workshop, distance) -> {
+            Address address = workshop.getWorkshopAddress();
+            return new WorkshopSpatialIndex.Match(new WorkshopSpatialIndex.IndexedWorkshop(workshop.getId(),
+                    workshop.getUsername(), workshop.displayName(), address.getFormattedAddress(),
+                    address.getLatitude(), address.getLongitude(), workshop.getVehicleTypeSupported(),
+                    0, 0, workshop.isPremiumWorkshop()), distance);
+        });
+    }
+
+    private GeoResults<WorkshopSearchCandidate> geoNearCandidates(Address origin, double maxDistanceKm,
+                                                                  VehicleType vehicleType, WorkshopServiceType serviceType) {
+        return workshopUserRepository
+                .findCandidatesByCurrentWorkshopStatusAndVehicleTypeSupportedInAndServicesOfferedAndWorkshopLocationNear(
+                        WorkshopStatus.OPEN,
+                        EnumSet.of(VehicleType.BOTH, vehicleType),
+                        serviceType,
+                        new Point(origin.getLongitude(), origin.getLatitude()),
+                        new Distance(maxDistanceKm, Metrics.KILOMETERS));
+    }
+
+    private SearchContext searchContext(WorkshopUserFilterRequest workshopUserRequest) {
+        Authentication authentication = SecurityContextHolder.getContext().getAuthentication();
+        String username = authentication.getName();
+
+        AppUser currentAppUser = appUserRepository.findByUsername(username)
+                .orElseThrow(() -> new ResourceNotFoundException("User not found"));
+
+        Address defaultAddress = getAppUserDefaultAddress(currentAppUser);
+        log.info("Using user default address: {}", defaultAddress.getFormattedAddress());
+
+        VehicleType requestedVehicleType =
+                parseWorkshopVehicleType(workshopUserRequest.getVehicleType());
+        WorkshopServiceType requestedServiceType =
+                parseWorkshopServiceType(workshopUserRequest.getServiceType());
+
+        log.info("Filtering workshops for vehicleType={} and serviceType={}",
+                requestedVehicleType, requestedServiceType);
+
+        PricingRuleResponse pricingRule =
+                adminPricingService.getPricingRuleByVehicleTypeAndServiceType(requestedVehicleType, requestedServiceType);
+        return new SearchContext(defaultAddress, requestedVehicleType, requestedServiceType, pricingRule);
+    }
+
+    private WorkshopUserFilterResponse toFilterResponse(WorkshopSpatialIndex.Match match, WorkshopServiceType serviceType,
+                                                        PricingRuleResponse pricingRule) {
+        WorkshopSpatialIndex.IndexedWorkshop workshop = match.workshop();
+        return toFilterResponse(workshop.id(), workshop.displayName(), match.distanceKm(),
+                workshop.vehicleType(), serviceType, workshop.formattedAddress(),
+                workshop.latitude(), workshop.longitude(), workshop.premium(), pricingRule);
+    }
+
+    private WorkshopUserFilterResponse toFilterResponse(String workshopId, String displayName, double distance,
+                                                        VehicleType supported, WorkshopServiceType serviceType,
+                                                        String formattedAddress, Double latitude, Double longitude,
+                                                        boolean premium, PricingRuleResponse pricingRule) {
+        WorkshopUserFilterResponse response = new WorkshopUserFilterResponse();
+        response.setWorkshopId(workshopId);
+        response.setWorkshopName(displayName);
+        response.setDistanceKm(distance);
+        response.setVehicleType(supported);
+        response.setServiceType(serviceType);
+        response.setFormattedAddress(formattedAddress);
+        response.setLatitude(latitude);
+        response.setLongitude(longitude);
+        if(premium)
+            response.setPrice(pricingRule.getAmount() + pricingRule.getPremiumAmount());
+        else
+            response.setPrice(pricingRule.getAmount());
+        return response;
+    }
+
     private VehicleType parseWorkshopVehicleType(String workshopVehicleType) {
         try{
             return VehicleType.valueOf(workshopVehicleType.toUpperCase());
@@ -196,6 +307,10 @@ public class WorkshopSearchServiceImpl implements WorkshopSearchService {
             throw new RuntimeException("Invalid service type: " + workshopServiceType);
         }
     }
+    private record SearchContext(Address origin, VehicleType vehicleType, WorkshopServiceType serviceType,
+                                 PricingRuleResponse pricingRule) {
+    }
+
     public Address getAppUserDefaultAddress(AppUser appUser) {
         if(appUser.getUserAddress() == null || appUser.getUserAddress().isEmpty()) {
             log.error("Address required before searching workshops");
@@ -210,30 +325,4 @@ public class WorkshopSearchServiceImpl implements WorkshopSearchService {
         //no default found return first
         return appUser.getUserAddress().get(0);
     }
-    private double haversine(double lat1, double lon1, double lat2, double lon2) {
-        double R = 6371;
-        double dLat = Math.toRadians(lat2 - lat1);
-        double dLon = Math.toRadians(lon2 - lon1);
-        lat1 = Math.toRadians(lat1);
-        lat2 = Math.toRadians(lat2);
-
-        double a = Math.sin(dLat / 2) * Math.sin(dLat / 2)
-                + Math.cos(lat1) * Math.cos(lat2)
-                * Math.sin(dLon / 2) * Math.sin(dLon / 2);
-
-        double c = 2 * Math.atan2(Math.sqrt(a), Math.sqrt(1 - a));
-        return R * c;
-    }
-
-    private void sortByDistance(List<WorkshopUserFilterResponse> list) {
-        for (int i = 0; i < list.size() - 1; i++) {
-            for (int j = i + 1; j < list.size(); j++) {
-                if (list.get(i).getDistanceKm() > list.get(j).getDistanceKm()) {
-                    WorkshopUserFilterResponse temp = list.get(i);
-                    list.set(i, list.get(j));
-                    list.set(j, temp);
-                }
-            }
-        }
-    }
 }
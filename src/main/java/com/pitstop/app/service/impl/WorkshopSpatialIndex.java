@@ -0,0 +1,503 @@
+package com.pitstop.app.service.impl;
+
+import com.pitstop.app.constants.VehicleType;
+import com.pitstop.app.constants.WorkshopServiceType;
+import com.pitstop.app.constants.WorkshopStatus;
+import com.pitstop.app.model.Address;
+import com.pitstop.app.model.WorkshopSearchCandidate;
+import com.pitstop.app.model.WorkshopUser;
+import com.pitstop.app.repository.WorkshopUserRepository;
+import com.pitstop.app.utils.DistanceTopK;
+import com.pitstop.app.utils.GeoDistance;
+import com.pitstop.app.utils.WorkshopSearchCursor;
+import lombok.RequiredArgsConstructor;
+import lombok.extern.slf4j.Slf4j;
+import org.bson.Document;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.boot.context.event.ApplicationReadyEvent;
+import org.springframework.context.event.EventListener;
+import org.springframework.data.mongodb.core.FindAndModifyOptions;
+import org.springframework.data.mongodb.core.MongoTemplate;
+import org.springframework.data.mongodb.core.query.Criteria;
+import org.springframework.data.mongodb.core.query.Query;
+import org.springframework.data.mongodb.core.query.Update;
+import org.springframework.scheduling.annotation.Scheduled;
+import org.springframework.stereotype.Component;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Comparator;
+import java.util.HashSet;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.atomic.AtomicLong;
+
+/**
+ * In-memory fixed-cell grid of OPEN workshops used to answer workshop search without
+ * a database round trip. Each cell holds its workshops with their service/vehicle
+ * bitmasks and is replaced copy-on-write, so reads never lock. The grid is loaded once
+ * at startup and then kept up to date from WorkshopUser saves on this node and from
+ * cluster events for saves on other nodes.
+ * <p>
+ * Like {@link PricingCatalog}, every change also bumps a counter in {@code workshop_index_meta}.
+ * A poll compares it with the version this node has caught up with and, when events were missed,
+ * re-reads the open workshops and re-applies them, which only touches the cells that differ. Writes
+ * that bypass the repository (mongoTemplate updates) fire no event at all, so the same re-read also
+ * runs every {@code search.index.resync-ms} regardless of the counter.
+ * <p>
+ * Searches read their candidates through {@link WorkshopSearchCache}, packed for the
+ * batch haversine, and every cell change bumps a version that outdates them.
+ */
+@Component
+@RequiredArgsConstructor
+@Slf4j
+public class WorkshopSpatialIndex {
+
+    static final String CLUSTER_TOPIC = "workshop-index";
+    private static final String META_COLLECTION = "workshop_index_meta";
+    private static final String VERSION_ID = "workshop-index";
+
+    // wider searches check one version for the whole index instead of one per cell
+    private static final int MAX_VERSIONED_CELLS = 4096;
+
+    private final WorkshopUserRepository workshopUserRepository;
+    private final ClusterEventService clusterEventService;
+    private final WorkshopSearchCache searchCache;
+    private final MongoTemplate mongoTemplate;
+
+    @Value("${search.index.cell-size-deg:0.05}")
+    private double cellSizeDeg = 0.05;
+
+    @Value("${search.index.resync-ms:600000}")
+    private long resyncMs = 600_000;
+
+    private final Map<Long, Cell> cells = new ConcurrentHashMap<>();
+    private final Map<String, IndexedWorkshop> workshopsById = new ConcurrentHashMap<>();
+    // bumped after every change to a cell, cached search candidates check the cells they were read from
+    private final Map<Long, Long> cellVersions = new ConcurrentHashMap<>();
+    private final AtomicLong globalVersion = new AtomicLong();
+    // persisted change counter this node is known to be caught up with
+    private final AtomicLong syncedVersion = new AtomicLong();
+    private final Object resyncLock = new Object();
+    private volatile long lastResyncMillis;
+    private volatile boolean ready;
+
+    public record IndexedWorkshop(String id, String username, String displayName, String formattedAddress,
+                                  double latitude, double longitude, VehicleType vehicleType,
+                                  int vehicleMask, int serviceMask, boolean premium) {
+    }
+
+    public record Match(IndexedWorkshop workshop, double distanceKm) {
+    }
+
+    @EventListener(ApplicationReadyEvent.class)
+    public void load() {
+        clusterEventService.subscribe(CLUSTER_TOPIC, this::onClusterEvent);
+
+        resync();
+        ready = true;
+        log.info("Workshop spatial index loaded with {} open workshop(s) in {} cell(s)",
+                workshopsById.size(), cells.size());
+    }
+
+    public boolean isReady() {
+        return ready;
+    }
+
+    public int size() {
+        return workshopsById.size();
+    }
+
+    /**
+     * Re-evaluates a saved workshop on this node and tells the other nodes to do the same.
+     */
+    public void onWorkshopSaved(WorkshopUser workshopUser) {
+        IndexedWorkshop updated = toIndexedWorkshop(WorkshopSearchCandidate.of(workshopUser));
+        if (apply(workshopUser.getId(), updated)) {
+            publishChange(workshopUser.getId());
+        }
+    }
+
+    public void onWorkshopDeleted(String workshopId) {
+        if (apply(workshopId, null)) {
+            publishChange(workshopId);
+        }
+    }
+
+    public void onWorkshopDeletedByUsername(String username) {
+        workshopsById.values().stream()
+                .filter(w -> w.username() != null && w.username().equals(username))
+                .findFirst()
+                .ifPresent(w -> onWorkshopDeleted(w.id()));
+    }
+
+    /**
+     * Returns OPEN workshops supporting the vehicle/service combination within maxDistanceKm,
+     * sorted by distance.
+     */
+    public List<Match> search(double latitude, double longitude, double maxDistanceKm,
+                              VehicleType vehicleType, WorkshopServiceType serviceType) {
+        List<Match> matches = new ArrayList<>();
+        scan(latitude, longitude, maxDistanceKm, vehicleType, serviceType,
+                (workshop, distance) -> matches.add(new Match(workshop, distance)));
+        matches.sort(Comparator.comparingDouble(Match::distanceKm));
+        return matches;
+    }
+
+    /**
+     * Returns at most limit of the same workshops that come after the cursor in (distance, id) order,
+     * nearest first. Only the returned workshops are materialized, the rest never leave the heap.
+     */
+    public List<Match> searchPage(double latitude, double longitude, double maxDistanceKm,
+                                  VehicleType vehicleType, WorkshopServiceType serviceType,
+                                  WorkshopSearchCursor after, int limit) {
+        DistanceTopK<IndexedWorkshop> nearest = new DistanceTopK<>(limit);
+        scan(latitude, longitude, maxDistanceKm, vehicleType, serviceType, (workshop, distance) -> {
+            if (after == null || after.precedes(distance, workshop.id())) {
+                nearest.offer(distance, workshop.id(), workshop);
+            }
+        });
+
+        return nearest.drainSorted(Match::new);
+    }
+
+    private void scan(double latitude, double longitude, double maxDistanceKm,
+                      VehicleType vehicleType, WorkshopServiceType serviceType, CandidateSink sink) {
+        Candidates candidates = searchCache.get(
+                searchCache.keyFor(latitude, longitude, maxDistanceKm, vehicleType, serviceType),
+                this::collectCandidates, this::isCurrent);
+
+        int count = candidates.workshops.length;
+        double[] distances = new double[count];
+        GeoDistance.haversineWithin(latitude, longitude, maxDistanceKm,
+                candidates.latitudesRad, candidates.longitudesRad, candidates.cosLatitudes, count, distances);
+        for (int j = 0; j < count; j++) {
+            if (distances[j] <= maxDistanceKm) {
+                sink.accept(candidates.workshops[j], distances[j]);
+            }
+        }
+    }
+
+    /**
+     * Gathers the workshops matching the key's filters that lie within its radius of any point of its
+     * cell, and the versions of the index cells they were read from.
+     */
+    private Candidates collectCandidates(WorkshopSearchCache.Key key) {
+        WorkshopSearchCache.Region region = searchCache.regionOf(key);
+        int vehicleBit = 1 << key.vehicleType().ordinal();
+        int serviceBit = 1 << key.serviceType().ordinal();
+
+        double angle = Math.min(Math.PI, region.radiusKm() / GeoDistance.EARTH_RADIUS_KM);
+        double latDelta = Math.toDegrees(angle);
+        double minLat = Math.max(region.minLatitude() - latDelta, -90);
+        double maxLat = Math.min(region.maxLatitude() + latDelta, 90);
+        // the longitude span is widest on the poleward edge of the cell
+        double poleward = Math.max(Math.abs(region.minLatitude()), Math.abs(region.maxLatitude()));
+        double sinSpan = Math.sin(angle) / Math.cos(Math.toRadians(poleward));
+        double lonDelta = angle < Math.PI / 2 && sinSpan < 1 ? Math.toDegrees(Math.asin(sinSpan)) : 180;
+        double centerLon = (region.minLongitude() + region.maxLongitude()) / 2;
+        double maxLonOffset = lonDelta + (region.maxLongitude() - region.minLongitude()) / 2;
+
+        int minLatCell = latCell(minLat);
+        int maxLatCell = latCell(maxLat);
+        int lonCells = lonCellCount();
+        int firstLonCell = (int) Math.floor((region.minLongitude() - lonDelta + 180) / cellSizeDeg);
+        int lastLonCell = (int) Math.floor((region.maxLongitude() + lonDelta + 180) / cellSizeDeg);
+        if (lastLonCell - firstLonCell + 1 >= lonCells) {
+            firstLonCell = 0;
+            lastLonCell = lonCells - 1;
+        }
+
+        long cellCount = (long) (maxLatCell - minLatCell + 1) * (lastLonCell - firstLonCell + 1);
+        boolean perCell = cellCount <= MAX_VERSIONED_CELLS;
+        long[] cellKeys = perCell ? new long[(int) cellCount] : null;
+        long[] cellVersionsSeen = perCell ? new long[(int) cellCount] : null;
+        // read before the cells, so a change racing with this load makes the entry stale, never wrong
+        long globalVersionSeen = globalVersion.get();
+
+        List<IndexedWorkshop> found = new ArrayList<>();
+        int visited = 0;
+        for (int latIdx = minLatCell; latIdx <= maxLatCell; latIdx++) {
+            for (int i = firstLonCell; i <= lastLonCell; i++) {
+                long cellKey = cellKey(latIdx, Math.floorMod(i, lonCells));
+                if (perCell) {
+                    cellKeys[visited] = cellKey;
+                    cellVersionsSeen[visited++] = cellVersions.getOrDefault(cellKey, 0L);
+                }
+                Cell cell = cells.get(cellKey);
+                if (cell == null) {
+                    continue;
+                }
+                for (int j = 0; j < cell.workshops.length; j++) {
+                    IndexedWorkshop workshop = cell.workshops[j];
+                    if ((cell.vehicleMasks[j] & vehicleBit) == 0 || (cell.serviceMasks[j] & serviceBit) == 0
+                            || workshop.latitude() < minLat || workshop.latitude() > maxLat) {
+                        continue;
+                    }
+                    double lonOffset = Math.abs(workshop.longitude() - centerLon) % 360;
+                    if (lonDelta < 180 && Math.min(lonOffset, 360 - lonOffset) > maxLonOffset) {
+                        continue;
+                    }
+                    found.add(workshop);
+                }
+            }
+        }
+        return new Candidates(found.toArray(new IndexedWorkshop[0]), cellKeys, cellVersionsSeen, globalVersionSeen);
+    }
+
+    private boolean isCurrent(Candidates candidates) {
+        if (candidates.cellKeys == null) {
+            return candidates.globalVersion == globalVersion.get();
+        }
+        for (int i = 0; i < candidates.cellKeys.length; i++) {
+            if (cellVersions.getOrDefault(candidates.cellKeys[i], 0L) != candidates.cellVersions[i]) {
+                return false;
+            }
+        }
+        return true;
+    }
+
+    @Scheduled(fixedDelayString = "${search.index.poll-ms:30000}")
+    public void poll() {
+        if (!ready) {
+            return;
+        }
+        try {
+            boolean missedChanges = readVersion() > syncedVersion.get();
+            if (missedChanges || System.currentTimeMillis() - lastResyncMillis >= resyncMs) {
+                int changed = resync();
+                if (changed > 0) {
+                    log.info("Workshop spatial index caught up on {} workshop(s)", changed);
+                }
+            }
+        } catch (Exception e) {
+            log.warn("Workshop spatial index poll failed: {}", e.getMessage());
+        }
+    }
+
+    /**
+     * Re-reads every open workshop and applies the differences. Returns how many workshops changed.
+     */
+    int resync() {
+        synchronized (resyncLock) {
+            // version first, so the workshops read are at least as new as the version recorded for them
+            long version = readVersion();
+            Set<String> open = new HashSet<>();
+            int changed = 0;
+            for (WorkshopSearchCandidate workshop :
+                    workshopUserRepository.findCandidatesByCurrentWorkshopStatus(WorkshopStatus.OPEN)) {
+                IndexedWorkshop indexed = toIndexedWorkshop(workshop);
+                if (indexed != null) {
+                    open.add(workshop.getId());
+                }
+                if (apply(workshop.getId(), indexed)) {
+                    changed++;
+                }
+            }
+            for (String workshopId : List.copyOf(workshopsById.keySet())) {
+                if (!open.contains(workshopId) && apply(workshopId, null)) {
+                    changed++;
+                }
+            }
+            syncedVersion.accumulateAndGet(version, Math::max);
+            lastResyncMillis = System.currentTimeMillis();
+            return changed;
+        }
+    }
+
+    // Events carry "<workshopId>@<version>"
+    private void onClusterEvent(String key) {
+        int separator = key.lastIndexOf('@');
+        String workshopId = separator < 0 ? key : key.substring(0, separator);
+        apply(workshopId, workshopUserRepository.findCandidateById(workshopId)
+                .map(this::toIndexedWorkshop)
+                .orElse(null));
+        if (separator >= 0) {
+            try {
+                advanceSyncedVersion(Long.parseLong(key.substring(separator + 1)));
+            } catch (NumberFormatException e) {
+                log.warn("Ignoring malformed workshop index version in {}", key);
+            }
+        }
+    }
+
+    private void publishChange(String workshopId) {
+        long version = bumpVersion();
+        if (version > 0) {
+            advanceSyncedVersion(version);
+        }
+        clusterEventService.publish(CLUSTER_TOPIC, workshopId + "@" + version);
+    }
+
+    // Only moves forward without a gap, anything else is left for the poll to notice
+    private void advanceSyncedVersion(long version) {
+        syncedVersion.compareAndSet(version - 1, version);
+    }
+
+    private long readVersion() {
+        Document meta = mongoTemplate.findById(VERSION_ID, Document.class, META_COLLECTION);
+        return meta == null || meta.get("version") == null ? 0 : ((Number) meta.get("version")).longValue();
+    }
+
+    private long bumpVersion() {
+        try {
+            Document meta = mongoTemplate.findAndModify(
+                    Query.query(Criteria.where("_id").is(VERSION_ID)),
+                    new Update().inc("version", 1L),
+                    FindAndModifyOptions.options().upsert(true).returnNew(true),
+                    Document.class, META_COLLECTION);
+            return meta == null ? 0 : ((Number) meta.get("version")).longValue();
+        } catch (Exception e) {
+            // the periodic resync still picks the change up on the other nodes
+            log.warn("Failed to bump workshop index version: {}", e.getMessage());
+            return 0;
+        }
+    }
+
+    /**
+     * Moves a workshop to its new cell (or drops it when updated is null).
+     * Returns false when nothing changed.
+     */
+    private synchronized boolean apply(String workshopId, IndexedWorkshop updated) {
+        IndexedWorkshop previous = updated == null
+                ? workshopsById.remove(workshopId)
+                : workshopsById.put(workshopId, updated);
+        if (previous == null && updated == null) {
+            return false;
+        }
+        if (previous != null && previous.equals(updated)) {
+            return false;
+        }
+        if (previous != null) {
+            cells.computeIfPresent(cellKey(previous), (key, cell) -> cell.without(workshopId));
+            cellVersions.merge(cellKey(previous), 1L, Long::sum);
+        }
+        if (updated != null) {
+            cells.compute(cellKey(updated), (key, cell) -> (cell == null ? Cell.EMPTY : cell).with(updated));
+            cellVersions.merge(cellKey(updated), 1L, Long::sum);
+        }
+        globalVersion.incrementAndGet();
+        return true;
+    }
+
+    private IndexedWorkshop toIndexedWorkshop(WorkshopSearchCandidate workshop) {
+        Address address = workshop.getWorkshopAddress();
+        if (workshop.getCurrentWorkshopStatus() != WorkshopStatus.OPEN
+                || address == null || address.getLatitude() == null || address.getLongitude() == null
+                || workshop.getVehicleTypeSupported() == null) {
+            return null;
+        }
+
+        VehicleType vehicleType = workshop.getVehicleTypeSupported();
+        int vehicleMask = vehicleType == VehicleType.BOTH
+                ? (1 << VehicleType.values().length) - 1
+                : 1 << vehicleType.ordinal();
+        int serviceMask = 0;
+        if (workshop.getServicesOffered() != null) {
+            for (WorkshopServiceType serviceType : workshop.getServicesOffered()) {
+                serviceMask |= 1 << serviceType.ordinal();
+            }
+        }
+
+        return new IndexedWorkshop(workshop.getId(), workshop.getUsername(), workshop.displayName(),
+                address.getFormattedAddress(), address.getLatitude(), address.getLongitude(),
+                vehicleType, vehicleMask, serviceMask, workshop.isPremiumWorkshop());
+    }
+
+    private int latCell(double latitude) {
+        return (int) Math.floor((latitude + 90) / cellSizeDeg);
+    }
+
+    private int lonCellCount() {
+        return (int) Math.ceil(360 / cellSizeDeg);
+    }
+
+    private long cellKey(IndexedWorkshop workshop) {
+        int lonIdx = Math.floorMod((int) Math.floor((workshop.longitude() + 180) / cellSizeDeg), lonCellCount());
+        return cellKey(latCell(workshop.latitude()), lonIdx);
+    }
+
+    private static long cellKey(int latIdx, int lonIdx) {
+        return ((long) latIdx << 32) | (lonIdx & 0xffffffffL);
+    }
+
+    /**
+     * Search candidates packed for the batch haversine, with the cell versions they were read at.
+     */
+    static final class Candidates {
+        final IndexedWorkshop[] workshops;
+        final double[] latitudesRad;
+        final double[] longitudesRad;
+        final double[] cosLatitudes;
+        // null when the search covered too many cells to track one by one
+        final long[] cellKeys;
+        final long[] cellVersions;
+        final long globalVersion;
+
+        Candidates(IndexedWorkshop[] workshops, long[] cellKeys, long[] cellVersions, long globalVersion) {
+            this.workshops = workshops;
+            this.latitudesRad = new double[workshops.length];
+            this.longitudesRad = new double[workshops.length];
+            this.cosLatitudes = new double[workshops.length];
+            for (int i = 0; i < workshops.length; i++) {
+                latitudesRad[i] = Math.toRadians(workshops[i].latitude());
+                longitudesRad[i] = Math.toRadians(workshops[i].longitude());
+                cosLatitudes[i] = Math.cos(latitudesRad[i]);
+            }
+            this.cellKeys = cellKeys;
+            this.cellVersions = cellVersions;
+            this.globalVersion = globalVersion;
+        }
+    }
+
+    @FunctionalInterface
+    private interface CandidateSink {
+        void accept(IndexedWorkshop workshop, double distanceKm);
+    }
+
+    /**
+     * Immutable structure-of-arrays bucket, replaced as a whole on every change.
+     */
+    private static final class Cell {
+        static final Cell EMPTY = new Cell(new IndexedWorkshop[0]);
+
+        final IndexedWorkshop[] workshops;
+        final int[] vehicleMasks;
+        final int[] serviceMasks;
+
+        Cell(IndexedWorkshop[] workshops) {
+            this.workshops = workshops;
+            this.vehicleMasks = new int[workshops.length];
+            this.serviceMasks = new int[workshops.length];
+            for (int i = 0; i < workshops.length; i++) {
+                vehicleMasks[i] = workshops[i].vehicleMask();
+                serviceMasks[i] = workshops[i].serviceMask();
+            }
+        }
+
+        Cell with(IndexedWorkshop workshop) {
+            Cell base = without(workshop.id());
+            IndexedWorkshop[] current = base == null ? EMPTY.workshops : base.workshops;
+            IndexedWorkshop[] copy = Arrays.copyOf(current, current.length + 1);
+            copy[current.length] = workshop;
+            return new Cell(copy);
+        }
+
+        Cell without(String workshopId) {
+            for (int i = 0; i < workshops.length; i++) {
+                if (workshops[i].id().equals(workshopId)) {
+                    if (workshops.length == 1) {
+                        return null;
+                    }
+                    IndexedWorkshop[] copy = new IndexedWorkshop[workshops.length - 1];
+                    System.arraycopy(workshops, 0, copy, 0, i);
+                    System.arraycopy(workshops, i + 1, copy, i, workshops.length - i - 1);
+                    return new Cell(copy);
+                }
+            }
+            return this;
+        }
+    }
+}
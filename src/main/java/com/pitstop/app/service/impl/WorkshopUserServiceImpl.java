@@ -7,58 +7,42 @@ import com.pitstop.app.dto.*;
 import com.pitstop.app.exception.BusinessException;
 import com.pitstop.app.exception.UserAlreadyExistException;
 import com.pitstop.app.exception.ResourceNotFoundException;
+import com.pitstop.app.exception.TooManyRequestsException;
 import com.pitstop.app.model.*;
 import com.pitstop.app.repository.WorkshopUserRepository;
 import com.pitstop.app.service.WorkshopService;
 import com.pitstop.app.utils.JwtUtil;
+import com.pitstop.app.utils.OptimisticLockRetry;
 import lombok.RequiredArgsConstructor;
 import lombok.extern.slf4j.Slf4j;
-import org.json.JSONArray;
-import org.json.JSONObject;
-import org.springframework.beans.factory.annotation.Value;
+import org.springframework.dao.OptimisticLockingFailureException;
 import org.springframework.http.*;
 import org.springframework.security.authentication.AuthenticationManager;
 import org.springframework.security.authentication.UsernamePasswordAuthenticationToken;
 import org.springframework.security.core.Authentication;
 import org.springframework.security.core.context.SecurityContextHolder;
-import org.springframework.security.crypto.bcrypt.BCryptPasswordEncoder;
+import org.springframework.security.crypto.password.PasswordEncoder;
 import org.springframework.stereotype.Service;
-import org.springframework.web.client.RestTemplate;
 
-import java.net.URI;
-import java.net.URLEncoder;
-import java.net.http.HttpClient;
-import java.net.http.HttpResponse;
-import java.nio.charset.StandardCharsets;
 import java.time.LocalDateTime;
 import java.util.Collections;
 import java.util.List;
 import java.util.UUID;
+import java.util.function.Consumer;
+import java.util.stream.Stream;
 
 @Service
 @RequiredArgsConstructor
 @Slf4j
 public class WorkshopUserServiceImpl implements WorkshopService {
     private final WorkshopUserRepository workshopUserRepository;
-    private static final BCryptPasswordEncoder passwordEncoder = new BCryptPasswordEncoder();
+    private final PasswordEncoder passwordEncoder;
     private final AuthenticationManager manager;
     private final UserDetailsServiceImpl userDetailsService;
     private final JwtUtil jwtUtil;
-
-    @Value("${trueway.api.url}")
-    private String truewayApiUrl;
-
-    @Value("${trueway.api.key}")
-    private String truewayApiKey;
-
-    @Value("${trueway.api.host}")
-    private String truewayApiHost;
-
-    @Value("${nominatim.api.url}")
-    private String nominatimApiUrl;
-
-    @Value("${nominatim.user.agent}")
-    private String nominatimUserAgent;
+    private final RefreshTokenService refreshTokenService;
+    private final GeocodingService geocodingService;
+    private final OptimisticLockRetry optimisticLockRetry;
 
     @Override
     public WorkshopUserRegisterResponse saveWorkshopUserDetails(WorkshopUserRegisterRequest workshopUserRequest) {
@@ -87,14 +71,16 @@ public class WorkshopUserServiceImpl implements WorkshopService {
         response.setMessage("Workshop user created successfully");
         return response;
     }
-    public void updateWorkshopUserDetails(WorkshopUser workshopUser){
-        if(workshopUser.getId() != null && workshopUserRepository.existsById(workshopUser.getId())){
-            workshopUserRepository.save(workshopUser);
-        }
-        else {
-            workshopUser.setPassword(passwordEncoder.encode(workshopUser.getPassword()));
-            workshopUserRepository.save(workshopUser);
-        }
+
+    // Ratings bump the version with a targeted update, so a copy loaded earlier in the request cannot
+    // simply be saved: the change is re-applied to a fresh read until the save wins
+    public WorkshopUser modifyWorkshopUser(String operation, String username, Consumer<WorkshopUser> change) {
+        return optimisticLockRetry.execute(operation, () -> {
+            WorkshopUser current = workshopUserRepository.findByUsername(username)
+                    .orElseThrow(() -> new ResourceNotFoundException("User not found"));
+            change.accept(current);
+            return workshopUserRepository.save(current);
+        });
     }
 
     @Override
@@ -108,19 +94,21 @@ public class WorkshopUserServiceImpl implements WorkshopService {
         return workshopUserRepository.findAll();
     }
 
+    @Override
+    public Stream<WorkshopUser> streamAllWorkshopUser() {
+        return workshopUserRepository.streamAllBy();
+    }
+
     @Override
     public AddressResponse addAddress(AddressRequest request) {
         String username = SecurityContextHolder
                 .getContext().getAuthentication().getName();
 
-        WorkshopUser user = workshopUserRepository.findByUsername(username)
-                .orElseThrow(() -> new ResourceNotFoundException("User not found"));
-
         Address finalAddress;
 
         if (request.getLatitude() != null && request.getLongitude() != null) {
 
-            AddressResponse geo = findAddressFromCoordinates(
+            AddressResponse geo = geocodingService.findAddressFromCoordinates(
                     request.getLatitude(), request.getLongitude());
 
             finalAddress = Address.builder()
@@ -132,7 +120,7 @@ public class WorkshopUserServiceImpl implements WorkshopService {
 
         } else if (request.getFormattedAddress() != null) {
 
-            AddressResponse geo = findCoordinatesFromAddress(
+            AddressResponse geo = geocodingService.findCoordinatesFromAddress(
                     request.getFormattedAddress());
 
             finalAddress = Address.builder()
@@ -146,10 +134,10 @@ public class WorkshopUserServiceImpl implements WorkshopService {
             throw new BusinessException("Invalid address data");
         }
 
-        user.setWorkshopAddress(finalAddress);
-        user.setAccountLastModifiedDateTime(LocalDateTime.now());
-
-        workshopUserRepository.save(user);
+        modifyWorkshopUser("workshop.addAddress", username, user -> {
+            user.setWorkshopAddress(finalAddress);
+            user.setAccountLastModifiedDateTime(LocalDateTime.now());
+        });
 
         return new AddressResponse(
                 finalAddress.getId(),
@@ -166,12 +154,9 @@ public class WorkshopUserServiceImpl implements WorkshopService {
     }
 
     public WorkshopStatusResponse openWorkshop(String username) {
-        WorkshopUser workshopUser = workshopUserRepository.findByUsername(username)
-                .orElseThrow(()-> new ResourceNotFoundException("Workshop not found with username : "+username));
-
         log.info("Attempting to open workshop : {}",username);
-        workshopUser.setCurrentWorkshopStatus(WorkshopStatus.OPEN);
-        updateWorkshopUserDetails(workshopUser);
+        WorkshopUser workshopUser = modifyWorkshopUser("workshop.open", username,
+                current -> current.setCurrentWorkshopStatus(WorkshopStatus.OPEN));
 
         log.info("Workshop : {} , opened successfully",username);
         return new WorkshopStatusResponse(workshopUser.getId(), workshopUser.getName(),
@@ -184,6 +169,8 @@ public class WorkshopUserServiceImpl implements WorkshopService {
             manager.authenticate(
                     new UsernamePasswordAuthenticationToken(req.getUsername(), req.getPassword())
             );
+        } catch (TooManyRequestsException ex) {
+            throw ex;
         } catch (Exception ex) {
             log.warn("Invalid WorkshopUser credentials for {}", req.getUsername());
             throw new RuntimeException("Incorrect username or password");
@@ -205,81 +192,10 @@ public class WorkshopUserServiceImpl implements WorkshopService {
         return new WorkshopLoginResponse(
                 user.getUsername().substring(user.getUsername().indexOf('_') + 1),
                 token,
+                refreshTokenService.issue(user),
                 "Login successful"
         );
     }
-    private AddressResponse findAddressFromCoordinates(double latitude, double longitude) {
-        try {
-            String url = String.format(
-                    "%s?lat=%f&lon=%f&format=json&addressdetails=1",
-                    nominatimApiUrl, latitude, longitude
-            );
-
-            RestTemplate restTemplate = new RestTemplate();
-            HttpHeaders headers = new HttpHeaders();
-            headers.set("User-Agent", nominatimUserAgent);
-
-            HttpEntity<String> entity = new HttpEntity<>(headers);
-            ResponseEntity<String> response = restTemplate.exchange(url, HttpMethod.GET, entity, String.class);
-
-            JSONObject json = new JSONObject(response.getBody());
-            JSONObject address = json.optJSONObject("address");
-            String formattedAddress = json.optString("display_name", "Address not found");
-
-            if (json.has("display_name") && address != null) {
-                return AddressResponse.builder()
-                        .formattedAddress(formattedAddress)
-                        .build();
-            } else {
-                return AddressResponse.builder()
-                        .formattedAddress("Address not found")
-                        .build();
-            }
-        } catch (Exception e) {
-            log.error("Invalid coordinates {}", e.getMessage());
-            return AddressResponse.builder()
-                    .formattedAddress("Error fetching address: " + e.getMessage())
-                    .build();
-        }
-    }
-    public AddressResponse findCoordinatesFromAddress(String addressPlainText) {
-        try {
-            String encodedAddress = URLEncoder.encode(addressPlainText, StandardCharsets.UTF_8);
-            String url = truewayApiUrl + "?address=" + encodedAddress;
-
-            java.net.http.HttpRequest request = java.net.http.HttpRequest.newBuilder()
-                    .uri(URI.create(url))
-                    .header("x-rapidapi-key", truewayApiKey)
-                    .header("x-rapidapi-host", truewayApiHost)
-                    .GET()
-                    .build();
-
-            HttpClient client = HttpClient.newHttpClient();
-            HttpResponse<String> response = client.send(request, HttpResponse.BodyHandlers.ofString());
-
-            if (response.statusCode() == 200) {
-                JSONObject json = new JSONObject(response.body());
-                JSONArray results = json.optJSONArray("results");
-                if (results == null || results.isEmpty()) {
-                    throw new RuntimeException("No results found for: " + addressPlainText);
-                }
-
-                JSONObject first = results.getJSONObject(0);
-                JSONObject location = first.getJSONObject("location");
-
-                return AddressResponse.builder()
-                        .latitude(location.getDouble("lat"))
-                        .longitude(location.getDouble("lng"))
-                        .formattedAddress(first.optString("address", addressPlainText))
-                        .build();
-            } else {
-                throw new RuntimeException("API Error: " + response.statusCode() + " - " + response.body());
-            }
-
-        } catch (Exception e) {
-            throw new RuntimeException("Error fetching coordinates for: " + addressPlainText + " | " + e.getMessage(), e);
-        }
-    }
     @Override
     public WorkshopUserResponse getWorkshopUserDetails() {
         Authentication authentication = SecurityContextHolder.getContext().getAuthentication();
@@ -299,20 +215,17 @@ public class WorkshopUserServiceImpl implements WorkshopService {
     public String updateWorkshopUser(WorkshopUserRequest workshopUserRequest) {
         Authentication authentication = SecurityContextHolder.getContext().getAuthentication();
         String username = authentication.getName();
-        WorkshopUser currentWorkshopUser = workshopUserRepository.findByUsername(username)
-                .orElseThrow(()-> new ResourceNotFoundException("Workshop not found"));
-
-        if(workshopUserRequest.getName() != null) {
-            currentWorkshopUser.setName(workshopUserRequest.getName());
-        }
-        if(workshopUserRequest.getEmail() != null) {
-            currentWorkshopUser.setEmail(workshopUserRequest.getEmail());
-        }
-        if(workshopUserRequest.getUsername() != null) {
-            currentWorkshopUser.setUsername(workshopUserRequest.getUsername());
-        }
-
-        updateWorkshopUserDetails(currentWorkshopUser);
+        modifyWorkshopUser("workshop.update", username, currentWorkshopUser -> {
+            if(workshopUserRequest.getName() != null) {
+                currentWorkshopUser.setName(workshopUserRequest.getName());
+            }
+            if(workshopUserRequest.getEmail() != null) {
+                currentWorkshopUser.setEmail(workshopUserRequest.getEmail());
+            }
+            if(workshopUserRequest.getUsername() != null) {
+                currentWorkshopUser.setUsername(workshopUserRequest.getUsername());
+            }
+        });
 
         return "Workshop Details updated successfully";
     }
@@ -321,17 +234,17 @@ public class WorkshopUserServiceImpl implements WorkshopService {
     public void changePassword(ChangePasswordRequest workshopUserRequest) {
         Authentication authentication = SecurityContextHolder.getContext().getAuthentication();
         String username = authentication.getName();
-        WorkshopUser currentWorkshopUser = workshopUserRepository.findByUsername(username)
-                .orElseThrow(()-> new ResourceNotFoundException("Workshop not found"));
-
-        if(!passwordEncoder.matches(workshopUserRequest.getCurrentPassword(),currentWorkshopUser.getPassword())) {
-            throw new IllegalArgumentException("Current password does not match");
-        }
-        if(passwordEncoder.matches(workshopUserRequest.getNewPassword(),currentWorkshopUser.getPassword())) {
-            throw new IllegalArgumentException("New password and current password cannot be same");
-        }
-        currentWorkshopUser.setPassword(workshopUserRequest.getNewPassword());
-        workshopUserRepository.save(currentWorkshopUser);
+        modifyWorkshopUser("workshop.changePassword", username, currentWorkshopUser -> {
+            if(!passwordEncoder.matches(workshopUserRequest.getCurrentPassword(),currentWorkshopUser.getPassword())) {
+                throw new IllegalArgumentException("Current password does not match");
+            }
+            if(passwordEncoder.matches(workshopUserRequest.getNewPassword(),currentWorkshopUser.getPassword())) {
+                throw new IllegalArgumentException("New password and current password cannot be same");
+            }
+            currentWorkshopUser.setPassword(passwordEncoder.encode(workshopUserRequest.getNewPassword()));
+            // Signs out every session that still holds a token for the old password
+            currentWorkshopUser.setTokenVersion(currentWorkshopUser.getTokenVersion() + 1);
+        });
     }
 
     @Override
@@ -365,19 +278,20 @@ public class WorkshopUserServiceImpl implements WorkshopService {
             Authentication authentication = SecurityContextHolder.getContext().getAuthentication();
             String username = authentication.getName();
 
-            WorkshopUser currentWorkShopUser = workshopUserRepository.findByUsername(username)
-                    .orElseThrow(() -> new ResourceNotFoundException("User not found"));
-
             WorkshopServiceType serviceType = parseWorkshopServiceType(workshopServiceType);
-            if(currentWorkShopUser.getServicesOffered().contains(serviceType)) {
-                log.warn("Workshop Service Type {} already exists for workshop {} ", serviceType.toString(),username);
-                throw new RuntimeException("Workshop Service Type already exists");
-            }
-            currentWorkShopUser.getServicesOffered().add(serviceType);
-            currentWorkShopUser.setAccountLastModifiedDateTime(LocalDateTime.now());
-            updateWorkshopUserDetails(currentWorkShopUser);
+            modifyWorkshopUser("workshop.addServiceType", username, currentWorkShopUser -> {
+                if(currentWorkShopUser.getServicesOffered().contains(serviceType)) {
+                    log.warn("Workshop Service Type {} already exists for workshop {} ", serviceType.toString(),username);
+                    throw new RuntimeException("Workshop Service Type already exists");
+                }
+                currentWorkShopUser.getServicesOffered().add(serviceType);
+                currentWorkShopUser.setAccountLastModifiedDateTime(LocalDateTime.now());
+            });
             log.info("Added Workshop Service Type {}", serviceType.toString());
         }
+        catch (OptimisticLockingFailureException e) {
+            throw e;
+        }
         catch (Exception e) {
             log.error("Workshop Service cannot be added : {}", e.getMessage());
             throw new RuntimeException("Error occurred trying to save Workshop Service Details.");
@@ -390,20 +304,21 @@ public class WorkshopUserServiceImpl implements WorkshopService {
             Authentication authentication = SecurityContextHolder.getContext().getAuthentication();
             String username = authentication.getName();
 
-            WorkshopUser currentWorkShopUser = workshopUserRepository.findByUsername(username)
-                    .orElseThrow(() -> new ResourceNotFoundException("User not found"));
-
             VehicleType vehicleType = parseWorkshopVehicleType(workshopVehicleType);
 
-            if (currentWorkShopUser.getVehicleTypeSupported() != null && currentWorkShopUser.getVehicleTypeSupported().equals(vehicleType)) {
-                log.warn("Vehicle type {} already exists for workshop {}", vehicleType, username);
-                throw new RuntimeException("Vehicle Type already exists");
-            }
-            currentWorkShopUser.setVehicleTypeSupported(vehicleType);
-            currentWorkShopUser.setAccountLastModifiedDateTime(LocalDateTime.now());
-            updateWorkshopUserDetails(currentWorkShopUser);
+            modifyWorkshopUser("workshop.addVehicleType", username, currentWorkShopUser -> {
+                if (currentWorkShopUser.getVehicleTypeSupported() != null && currentWorkShopUser.getVehicleTypeSupported().equals(vehicleType)) {
+                    log.warn("Vehicle type {} already exists for workshop {}", vehicleType, username);
+                    throw new RuntimeException("Vehicle Type already exists");
+                }
+                currentWorkShopUser.setVehicleTypeSupported(vehicleType);
+                currentWorkShopUser.setAccountLastModifiedDateTime(LocalDateTime.now());
+            });
             log.info("Added Workshop Vehicle Type {}", vehicleType.toString());
         }
+        catch (OptimisticLockingFailureException e) {
+            throw e;
+        }
         catch (Exception e) {
             log.error("Workshop Vehicle Type cannot be added : {}", e.getMessage());
             throw new RuntimeException("Error occurred trying to save Workshop Vehicle Type.");
@@ -436,27 +351,23 @@ public class WorkshopUserServiceImpl implements WorkshopService {
             Authentication authentication = SecurityContextHolder.getContext().getAuthentication();
             String username = authentication.getName();
 
-            WorkshopUser currentWorkShopUser = workshopUserRepository.findByUsername(username)
-                    .orElseThrow(() -> new ResourceNotFoundException("User not found"));
-
             WorkshopServiceType serviceType = parseWorkshopServiceType(workshopServiceTypeRequest);
 
-            if(currentWorkShopUser.getServicesOffered() == null || username.isEmpty()) {
-                log.warn("Workshop {} has no services added yet",username);
-                throw new RuntimeException("No services added to remove from workshop");
-            }
-            if(!currentWorkShopUser.getServicesOffered().contains(serviceType)) {
-                log.warn("Workshop {} does not currently offer service {}",username,serviceType.toString());
-                throw new RuntimeException("Workshop does not offer this service");
-            }
-            currentWorkShopUser.getServicesOffered().remove(serviceType);
-            currentWorkShopUser.setAccountLastModifiedDateTime(LocalDateTime.now());
-            updateWorkshopUserDetails(currentWorkShopUser);
+            modifyWorkshopUser("workshop.deleteServiceType", username, currentWorkShopUser -> {
+                if(currentWorkShopUser.getServicesOffered() == null || username.isEmpty()) {
+                    log.warn("Workshop {} has no services added yet",username);
+                    throw new RuntimeException("No services added to remove from workshop");
+                }
+                if(!currentWorkShopUser.getServicesOffered().contains(serviceType)) {
+                    log.warn("Workshop {} does not currently offer service {}",username,serviceType.toString());
+                    throw new RuntimeException("Workshop does not offer this service");
+                }
+                currentWorkShopUser.getServicesOffered().remove(serviceType);
+                currentWorkShopUser.setAccountLastModifiedDateTime(LocalDateTime.now());
+            });
             log.info("Removed service {} from workshop {}", serviceType, username);
-
-            currentWorkShopUser.getServicesOffered().remove(serviceType);
-            updateWorkshopUserDetails(currentWorkShopUser);
-            log.info("Deleted Workshop Service Type {}", serviceType.toString());
+        } catch (OptimisticLockingFailureException e) {
+            throw e;
         } catch (Exception e) {
             log.error("Unexpected error while deleting workshop service: {}", e.getMessage(), e);
             throw new RuntimeException("Failed to delete workshop service");
@@ -471,17 +382,15 @@ public class WorkshopUserServiceImpl implements WorkshopService {
 
         log.info("Vehicle type removal requested by workshop [{}]", username);
 
-        WorkshopUser currentWorkShopUser = workshopUserRepository.findByUsername(username)
-                .orElseThrow(() -> new ResourceNotFoundException("User not found"));
-
-        if (currentWorkShopUser.getVehicleTypeSupported() == null) {
-            log.warn("Workshop [{}] has no vehicle type configured", username);
-            throw new RuntimeException("No vehicle type configured");
-        }
+        modifyWorkshopUser("workshop.deleteVehicleType", username, currentWorkShopUser -> {
+            if (currentWorkShopUser.getVehicleTypeSupported() == null) {
+                log.warn("Workshop [{}] has no vehicle type configured", username);
+                throw new RuntimeException("No vehicle type configured");
+            }
 
-        currentWorkShopUser.setVehicleTypeSupported(null);
-        currentWorkShopUser.setAccountLastModifiedDateTime(LocalDateTime.now());
-        workshopUserRepository.save(currentWorkShopUser);
+            currentWorkShopUser.setVehicleTypeSupported(null);
+            currentWorkShopUser.setAccountLastModifiedDateTime(LocalDateTime.now());
+        });
 
         log.info("All vehicle types removed for workshop [{}]", username);
     }
@@ -553,12 +462,9 @@ public class WorkshopUserServiceImpl implements WorkshopService {
         Authentication authentication = SecurityContextHolder.getContext().getAuthentication();
         String username = authentication.getName();
 
-        WorkshopUser currentWorkShopUser = workshopUserRepository.findByUsername(username)
-                .orElseThrow(() -> new ResourceNotFoundException("User not found"));
-
         log.info("Attempting to close workshop : {}",username);
-        currentWorkShopUser.setCurrentWorkshopStatus(WorkshopStatus.CLOSED);
-        workshopUserRepository.save(currentWorkShopUser);
+        WorkshopUser currentWorkShopUser = modifyWorkshopUser("workshop.close", username,
+                current -> current.setCurrentWorkshopStatus(WorkshopStatus.CLOSED));
 
         log.info("Workshop : {} , closed successfully",username);
         return new WorkshopStatusResponse(currentWorkShopUser.getId(), currentWorkShopUser.getName(),
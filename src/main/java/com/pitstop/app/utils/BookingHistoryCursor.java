@@ -0,0 +1,38 @@
+package com.pitstop.app.utils;
+
+import java.nio.charset.StandardCharsets;
+import java.time.LocalDateTime;
+import java.time.format.DateTimeParseException;
+import java.util.Base64;
+
+/**
+ * Position in a booking history listing, the (bookingStartedTime, _id) of the last booking on a page.
+ * Sent to clients as an opaque base64url token. Using the id as a tie breaker keeps the order total,
+ * so bookings created in the same millisecond are neither skipped nor repeated between pages.
+ */
+public record BookingHistoryCursor(LocalDateTime startedTime, String id) {
+
+    private static final char SEPARATOR = '|';
+
+    public String encode() {
+        String raw = startedTime.toString() + SEPARATOR + id;
+        return Base64.getUrlEncoder().withoutPadding().encodeToString(raw.getBytes(StandardCharsets.UTF_8));
+    }
+
+    // Returns null for a missing cursor, which means the first page
+    public static BookingHistoryCursor decode(String token) {
+        if (token == null || token.isBlank()) {
+            return null;
+        }
+        try {
+            String raw = new String(Base64.getUrlDecoder().decode(token), StandardCharsets.UTF_8);
+            int separator = raw.indexOf(SEPARATOR);
+            if (separator <= 0 || separator == raw.length() - 1) {
+                throw new IllegalArgumentException("Invalid booking history cursor");
+            }
+            return new BookingHistoryCursor(LocalDateTime.parse(raw.substring(0, separator)), raw.substring(separator + 1));
+        } catch (IllegalArgumentException | DateTimeParseException e) {
+            throw new IllegalArgumentException("Invalid booking history cursor");
+        }
+    }
+}
@@ -0,0 +1,114 @@
+package com.pitstop.app.utils;
+
+import java.util.ArrayList;
+import java.util.List;
+
+/**
+ * Keeps the K nearest items offered to it, ordered by (distance, id). The heap is a max-heap over
+ * parallel primitive arrays, so the farthest kept item is at the root. Each offer costs O(log K) and
+ * nothing is allocated after construction. The id breaks ties, which keeps the order total and lets
+ * a (distance, id) cursor resume exactly where a page ended. Not thread-safe.
+ */
+public class DistanceTopK<T> {
+
+    private final double[] distances;
+    private final String[] ids;
+    private final Object[] items;
+    private int size;
+
+    public DistanceTopK(int capacity) {
+        if (capacity <= 0) {
+            throw new IllegalArgumentException("capacity must be positive");
+        }
+        this.distances = new double[capacity];
+        this.ids = new String[capacity];
+        this.items = new Object[capacity];
+    }
+
+    public static int compare(double distance1, String id1, double distance2, String id2) {
+        int byDistance = Double.compare(distance1, distance2);
+        return byDistance != 0 ? byDistance : id1.compareTo(id2);
+    }
+
+    public void offer(double distance, String id, T item) {
+        if (size < distances.length) {
+            set(size, distance, id, item);
+            siftUp(size++);
+        } else if (compare(distance, id, distances[0], ids[0]) < 0) {
+            set(0, distance, id, item);
+            siftDown(0);
+        }
+    }
+
+    public int size() {
+        return size;
+    }
+
+    // Empties the heap and maps its items nearest first, passing each one's distance along
+    @SuppressWarnings("unchecked")
+    public <R> List<R> drainSorted(Mapper<? super T, R> mapper) {
+        double[] sortedDistances = new double[size];
+        Object[] sortedItems = new Object[size];
+        while (size > 0) {
+            sortedDistances[size - 1] = distances[0];
+            sortedItems[size - 1] = items[0];
+            size--;
+            set(0, distances[size], ids[size], items[size]);
+            ids[size] = null;
+            items[size] = null;
+            siftDown(0);
+        }
+        List<R> result = new ArrayList<>(sortedItems.length);
+        for (int i = 0; i < sortedItems.length; i++) {
+            result.add(mapper.map((T) sortedItems[i], sortedDistances[i]));
+        }
+        return result;
+    }
+
+    @FunctionalInterface
+    public interface Mapper<T, R> {
+        R map(T item, double distance);
+    }
+
+    private void siftUp(int index) {
+        while (index > 0) {
+            int parent = (index - 1) >>> 1;
+            if (compare(distances[index], ids[index], distances[parent], ids[parent]) <= 0) {
+                return;
+            }
+            swap(index, parent);
+            index = parent;
+        }
+    }
+
+    private void siftDown(int index) {
+        while (true) {
+            int largest = index;
+            int left = 2 * index + 1;
+            int right = left + 1;
+            if (left < size && compare(distances[left], ids[left], distances[largest], ids[largest]) > 0) {
+                largest = left;
+            }
+            if (right < size && compare(distances[right], ids[right], distances[largest], ids[largest]) > 0) {
+                largest = right;
+            }
+            if (largest == index) {
+                return;
+            }
+            swap(index, largest);
+            index = largest;
+        }
+    }
+
+    private void set(int index, double distance, String id, Object item) {
+        distances[index] = distance;
+        ids[index] = id;
+        items[index] = item;
+    }
+
+    private void swap(int a, int b) {
+        double distance = distances[a]; distances[a] = distances[b]; distances[b] = distance;
+        String id = ids[a]; ids[a] = ids[b]; ids[b] = id;
+        Object item = items[a]; items[a] = items[b]; items[b] = item;
+    }
+}
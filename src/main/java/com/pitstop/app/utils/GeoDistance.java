@@ -0,0 +1,88 @@
+package com.pitstop.app.utils;
+
+public class GeoDistance {
+    public static final double EARTH_RADIUS_KM = 6371;
+
+    public static double haversine(double lat1, double lon1, double lat2, double lon2) {
+        double dLat = Math.toRadians(lat2 - lat1);
+        double dLon = Math.toRadians(lon2 - lon1);
+        lat1 = Math.toRadians(lat1);
+        lat2 = Math.toRadians(lat2);
+
+        double a = Math.sin(dLat / 2) * Math.sin(dLat / 2)
+                + Math.cos(lat1) * Math.cos(lat2)
+                * Math.sin(dLon / 2) * Math.sin(dLon / 2);
+
+        double c = 2 * Math.atan2(Math.sqrt(a), Math.sqrt(1 - a));
+        return EARTH_RADIUS_KM * c;
+    }
+
+    /** True when jdk.incubator.vector was resolved at startup (--add-modules jdk.incubator.vector). */
+    public static final boolean VECTOR_API_AVAILABLE =
+            ModuleLayer.boot().findModule("jdk.incubator.vector").isPresent();
+
+    // Chosen once at startup; with two lanes or fewer the polynomial sine does not pay for itself
+    private static final boolean VECTORIZED = VECTOR_API_AVAILABLE && GeoDistanceVectorKernel.lanes() >= 4;
+
+    /**
+     * Batch haversine from one origin to the first count points of packed arrays, in radians, with the
+     * cosine of each latitude precomputed. Writes the distance in km to out, or positive infinity for
+     * points farther than maxDistanceKm.
+     * <p>
+     * Points outside the latitude band or the longitude span of the search circle are rejected by
+     * subtraction alone. The rest are compared against the haversine of the radius, so only the points
+     * that are actually inside pay for the inverse sine. Runs on the Vector API when it is available,
+     * otherwise on a plain loop.
+     */
+    public static void haversineWithin(double latitude, double longitude, double maxDistanceKm,
+                                       double[] latitudesRad, double[] longitudesRad, double[] cosLatitudes,
+                                       int count, double[] out) {
+        haversineWithin(VECTORIZED, latitude, longitude, maxDistanceKm,
+                latitudesRad, longitudesRad, cosLatitudes, count, out);
+    }
+
+    /** Same as above with the kernel picked by the caller, for tests and benchmarks. */
+    public static void haversineWithin(boolean vectorized, double latitude, double longitude, double maxDistanceKm,
+                                       double[] latitudesRad, double[] longitudesRad, double[] cosLatitudes,
+                                       int count, double[] out) {
+        double lat0 = Math.toRadians(latitude);
+        double lon0 = Math.toRadians(longitude);
+        double cosLat0 = Math.cos(lat0);
+        double maxAngle = Math.min(Math.PI, maxDistanceKm / EARTH_RADIUS_KM);
+        double halfChord = Math.sin(maxAngle / 2);
+        double maxHaversine = halfChord * halfChord;
+
+        // widest longitude difference on the circle, unbounded when it reaches a pole
+        double sinSpan = Math.sin(maxAngle) / cosLat0;
+        double maxLonDelta = maxAngle < Math.PI / 2 && sinSpan < 1 ? Math.asin(sinSpan) : Math.PI;
+
+        int done = 0;
+        if (vectorized && VECTOR_API_AVAILABLE) {
+            done = GeoDistanceVectorKernel.haversinesWithin(lat0, lon0, cosLat0, maxAngle, maxLonDelta,
+                    maxHaversine, latitudesRad, longitudesRad, cosLatitudes, count, out);
+            for (int i = 0; i < done; i++) {
+                if (out[i] != Double.POSITIVE_INFINITY) {
+                    out[i] = 2 * EARTH_RADIUS_KM * Math.asin(Math.sqrt(Math.min(out[i], 1)));
+                }
+            }
+        }
+
+        for (int i = done; i < count; i++) {
+            double dLat = latitudesRad[i] - lat0;
+            double dLon = Math.abs(longitudesRad[i] - lon0);
+            if (dLon > Math.PI) {
+                dLon = 2 * Math.PI - dLon;
+            }
+            if (Math.abs(dLat) > maxAngle || dLon > maxLonDelta) {
+                out[i] = Double.POSITIVE_INFINITY;
+                continue;
+            }
+            double sinLat = Math.sin(dLat / 2);
+            double sinLon = Math.sin(dLon / 2);
+            double a = sinLat * sinLat + cosLat0 * cosLatitudes[i] * sinLon * sinLon;
+            out[i] = a > maxHaversine
+                    ? Double.POSITIVE_INFINITY
+                    : 2 * EARTH_RADIUS_KM * Math.asin(Math.sqrt(Math.min(a, 1)));
+        }
+    }
+}
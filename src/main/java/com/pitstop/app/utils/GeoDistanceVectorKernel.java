@@ -0,0 +1,69 @@
+package com.pitstop.app.utils;
+
+import jdk.incubator.vector.DoubleVector;
+import jdk.incubator.vector.VectorMask;
+import jdk.incubator.vector.VectorOperators;
+import jdk.incubator.vector.VectorSpecies;
+
+/**
+ * SIMD body of {@link GeoDistance#haversineWithin}. This class links against jdk.incubator.vector, so it
+ * is only touched after {@link GeoDistance} has found the module in the boot layer.
+ * <p>
+ * Lane-wise SIN is not intrinsified on every platform and falls back to one call per lane, so the half
+ * angle sines come from a polynomial instead. Past the band and span tests both half angles are within
+ * [-pi/2, pi/2], where the odd Taylor series up to x^21 is below double rounding.
+ */
+final class GeoDistanceVectorKernel {
+    private static final VectorSpecies<Double> SPECIES = DoubleVector.SPECIES_PREFERRED;
+
+    // (-1)^k / (2k+1)!
+    private static final double[] SIN_COEFFICIENTS = {
+            1.0, -1.0 / 6, 1.0 / 120, -1.0 / 5040, 1.0 / 362880, -1.0 / 39916800, 1.0 / 6227020800.0,
+            -1.0 / 1307674368000.0, 1.0 / 355687428096000.0, -1.0 / 121645100408832000.0,
+            1.0 / 51090942171709440000.0
+    };
+
+    private GeoDistanceVectorKernel() {
+    }
+
+    static int lanes() {
+        return SPECIES.length();
+    }
+
+    // Same band, span and threshold tests as the scalar loop, lane by lane. Leaves the haversine of each
+    // point inside the circle in out for the caller to turn into km, infinity for the rest, and returns
+    // how many points it covered so the caller finishes the tail.
+    static int haversinesWithin(double lat0, double lon0, double cosLat0, double maxAngle, double maxLonDelta,
+                                double maxHaversine, double[] latitudesRad, double[] longitudesRad,
+                                double[] cosLatitudes, int count, double[] out) {
+        DoubleVector outside = DoubleVector.broadcast(SPECIES, Double.POSITIVE_INFINITY);
+        int bound = SPECIES.loopBound(count);
+        for (int i = 0; i < bound; i += SPECIES.length()) {
+            DoubleVector dLat = DoubleVector.fromArray(SPECIES, latitudesRad, i).sub(lat0);
+            DoubleVector dLon = DoubleVector.fromArray(SPECIES, longitudesRad, i).sub(lon0).abs();
+            dLon = dLon.blend(dLon.neg().add(2 * Math.PI), dLon.compare(VectorOperators.GT, Math.PI));
+            VectorMask<Double> inside = dLat.abs().compare(VectorOperators.LE, maxAngle)
+                    .and(dLon.compare(VectorOperators.LE, maxLonDelta));
+            if (!inside.anyTrue()) {
+                outside.intoArray(out, i);
+                continue;
+            }
+            DoubleVector sinLat = sin(dLat.mul(0.5));
+            DoubleVector sinLon = sin(dLon.mul(0.5));
+            DoubleVector a = DoubleVector.fromArray(SPECIES, cosLatitudes, i).mul(cosLat0).mul(sinLon).mul(sinLon)
+                    .add(sinLat.mul(sinLat));
+            inside = inside.and(a.compare(VectorOperators.LE, maxHaversine));
+            outside.blend(a, inside).intoArray(out, i);
+        }
+        return bound;
+    }
+
+    private static DoubleVector sin(DoubleVector x) {
+        DoubleVector x2 = x.mul(x);
+        DoubleVector p = DoubleVector.broadcast(SPECIES, SIN_COEFFICIENTS[SIN_COEFFICIENTS.length - 1]);
+        for (int k = SIN_COEFFICIENTS.length - 2; k >= 0; k--) {
+            p = p.fma(x2, DoubleVector.broadcast(SPECIES, SIN_COEFFICIENTS[k]));
+        }
+        return p.mul(x);
+    }
+}
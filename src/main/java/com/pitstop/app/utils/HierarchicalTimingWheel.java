@@ -0,0 +1,137 @@
+package com.pitstop.app.utils;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.function.Consumer;
+
+/**
+ * Hierarchical timing wheel for a large number of deadlines. Level 0 has {@code wheelSize} slots of
+ * {@code tickMs} each, every further level covers {@code wheelSize} times the span of the one below and
+ * is created on demand. Adding is O(1), and advancing by one tick only touches one slot per level, so the
+ * per-tick cost does not depend on how many entries are pending.
+ * <p>
+ * Entries never fire before their deadline and at most one tick after it. Entries cannot be cancelled,
+ * callers are expected to re-check the item when it fires. Not thread-safe, use from a single thread.
+ */
+public class HierarchicalTimingWheel<T> {
+
+    private record Entry<T>(long deadlineMs, T item) {}
+
+    private final long tickMs;
+    private final int wheelSize;
+    private final List<List<Entry<T>>[]> levels = new ArrayList<>();
+    private final List<Long> levelTickMs = new ArrayList<>();
+    private long currentTimeMs;
+    private int size;
+
+    public HierarchicalTimingWheel(long tickMs, int wheelSize, long startMs) {
+        if (tickMs <= 0 || wheelSize < 2) {
+            throw new IllegalArgumentException("tickMs must be positive and wheelSize at least 2");
+        }
+        this.tickMs = tickMs;
+        this.wheelSize = wheelSize;
+        this.currentTimeMs = startMs - Math.floorMod(startMs, tickMs);
+        addLevel();
+    }
+
+    /**
+     * Schedules the item. Returns false without scheduling it if the deadline has already passed,
+     * in which case the caller should handle it right away.
+     */
+    public boolean add(long deadlineMs, T item) {
+        if (deadlineMs <= currentTimeMs) {
+            return false;
+        }
+        insert(new Entry<>(deadlineMs, item));
+        size++;
+        return true;
+    }
+
+    /**
+     * Moves the wheel forward to {@code nowMs}, handing every item whose deadline is now due to
+     * {@code expired}. Time never moves backwards.
+     */
+    public void advance(long nowMs, Consumer<T> expired) {
+        long target = nowMs - Math.floorMod(nowMs, tickMs);
+        while (currentTimeMs < target) {
+            currentTimeMs += tickMs;
+
+            // level 0 slots fire once their whole span has passed
+            long finished = currentTimeMs / tickMs - 1;
+            List<Entry<T>>[] level0 = levels.get(0);
+            int index = (int) Math.floorMod(finished, (long) wheelSize);
+            List<Entry<T>> due = level0[index];
+            if (due != null) {
+                level0[index] = null;
+                for (Entry<T> entry : due) {
+                    size--;
+                    expired.accept(entry.item());
+                }
+            }
+
+            // higher level slots cascade down when their span starts
+            for (int level = levels.size() - 1; level >= 1; level--) {
+                long levelTick = levelTickMs.get(level);
+                if (currentTimeMs % levelTick != 0) {
+                    continue;
+                }
+                List<Entry<T>>[] slots = levels.get(level);
+                int slot = (int) Math.floorMod(currentTimeMs / levelTick, (long) wheelSize);
+                List<Entry<T>> cascading = slots[slot];
+                if (cascading == null) {
+                    continue;
+                }
+                slots[slot] = null;
+                for (Entry<T> entry : cascading) {
+                    if (entry.deadlineMs() <= currentTimeMs) {
+                        size--;
+                        expired.accept(entry.item());
+                    } else {
+                        insert(entry);
+                    }
+                }
+            }
+        }
+    }
+
+    public int size() {
+        return size;
+    }
+
+    public long currentTimeMs() {
+        return currentTimeMs;
+    }
+
+    private void insert(Entry<T> entry) {
+        for (int level = 0; ; level++) {
+            if (level == levels.size()) {
+                addLevel();
+            }
+            long levelTick = levelTickMs.get(level);
+            long virtualSlot = Math.floorDiv(entry.deadlineMs(), levelTick);
+            long currentSlot = Math.floorDiv(currentTimeMs, levelTick);
+            // the current slot of an upper level has already cascaded, so it only takes later ones
+            boolean fits = level == 0
+                    ? virtualSlot < currentSlot + wheelSize
+                    : virtualSlot > currentSlot && virtualSlot < currentSlot + wheelSize;
+            if (fits) {
+                List<Entry<T>>[] slots = levels.get(level);
+                int index = (int) Math.floorMod(virtualSlot, (long) wheelSize);
+                if (slots[index] == null) {
+                    slots[index] = new ArrayList<>();
+                }
+                slots[index].add(entry);
+                return;
+            }
+        }
+    }
+
+    @SuppressWarnings("unchecked")
+    private void addLevel() {
+        long levelTick = levelTickMs.isEmpty()
+                ? tickMs
+                : Math.multiplyExact(levelTickMs.get(levelTickMs.size() - 1), (long) wheelSize);
+        levelTickMs.add(levelTick);
+        levels.add(new List[wheelSize]);
+    }
+}
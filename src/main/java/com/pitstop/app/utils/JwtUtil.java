@@ -1,60 +1,92 @@
 package com.pitstop.app.utils;
 
+import com.github.benmanes.caffeine.cache.Cache;
+import com.github.benmanes.caffeine.cache.Caffeine;
+import com.github.benmanes.caffeine.cache.Expiry;
 import com.pitstop.app.model.CustomUserDetails;
 import io.jsonwebtoken.*;
 import io.jsonwebtoken.security.Keys;
-import lombok.extern.slf4j.Slf4j;
 import org.springframework.beans.factory.annotation.Value;
 import org.springframework.stereotype.Component;
 
 import javax.crypto.SecretKey;
+import java.nio.charset.StandardCharsets;
+import java.security.MessageDigest;
+import java.security.NoSuchAlgorithmException;
+import java.time.Duration;
+import java.util.Base64;
 import java.util.Date;
-import java.util.List;
 import java.util.Map;
+import java.util.UUID;
 
-@Slf4j
 @Component
 public class JwtUtil {
 
+    public static final String TOKEN_VERSION_CLAIM = "tokenVersion";
+
     private final SecretKey secretKey;
     private final long expirationMs;
+    // Thread-safe and immutable, building one per call was most of the parse cost
+    private final JwtParser parser;
+    // SHA-256 of the token -> its verified claims, each entry expires together with its token
+    private final Cache<String, Claims> verifiedTokens;
 
     public JwtUtil(
             @Value("${jwt.secretKey}") String secret,
-            @Value("${jwt.expiration-ms:86400000}") long expirationMs // default 1 day
+            @Value("${jwt.expiration-ms:900000}") long expirationMs, // default 15 minutes, refresh tokens cover longer sessions
+            @Value("${jwt.verified-cache-size:10000}") long verifiedCacheSize
     ) {
         this.secretKey = Keys.hmacShaKeyFor(secret.getBytes());
         this.expirationMs = expirationMs;
+        this.parser = Jwts.parser().verifyWith(secretKey).build();
+        this.verifiedTokens = Caffeine.newBuilder()
+                .maximumSize(verifiedCacheSize)
+                .expireAfter(Expiry.creating((String digest, Claims claims) -> timeToExpiry(claims)))
+                .build();
     }
 
     // --------------------- Extract Data ------------------------- //
 
-    public String extractUsername(String token) {
-        return extractAllClaims(token).getSubject();
-    }
-
-    public List<String> extractRoles(String token) {
-        return extractAllClaims(token).get("roles", List.class);
+    // Verifies the signature and expiry once, callers read everything they need from the result
+    public Claims parseClaims(String token) {
+        return extractAllClaims(token);
     }
 
-    public String extractUserType(String token) {
-        return extractAllClaims(token).get("userType", String.class);
+    // Tokens issued before the claim existed count as version 0
+    public long extractTokenVersion(Claims claims) {
+        Number version = claims.get(TOKEN_VERSION_CLAIM, Number.class);
+        return version == null ? 0L : version.longValue();
     }
 
-    public Date extractExpiration(String token) {
-        return extractAllClaims(token).getExpiration();
+    /*
+    A token seen before skips the HMAC check. Keying on a digest means the cache never holds
+    usable tokens, and a forged token can only hit if it is byte-for-byte a token we signed.
+     */
+    private Claims extractAllClaims(String token) {
+        String digest = digest(token);
+        Claims cached = verifiedTokens.getIfPresent(digest);
+        if (cached != null) {
+            return cached;
+        }
+        Claims claims = parser.parseSignedClaims(token).getPayload();
+        if (claims.getExpiration() != null) {
+            verifiedTokens.put(digest, claims);
+        }
+        return claims;
     }
 
-    private Claims extractAllClaims(String token) {
-        return Jwts.parser()
-                .verifyWith(secretKey)
-                .build()
-                .parseSignedClaims(token)
-                .getPayload();
+    private static Duration timeToExpiry(Claims claims) {
+        long millisLeft = claims.getExpiration().getTime() - System.currentTimeMillis();
+        return Duration.ofMillis(Math.max(0, millisLeft));
     }
 
-    private boolean isTokenExpired(String token) {
-        return extractExpiration(token).before(new Date());
+    private static String digest(String token) {
+        try {
+            byte[] hash = MessageDigest.getInstance("SHA-256").digest(token.getBytes(StandardCharsets.UTF_8));
+            return Base64.getEncoder().encodeToString(hash);
+        } catch (NoSuchAlgorithmException e) {
+            throw new IllegalStateException("SHA-256 is not available", e);
+        }
     }
 
     // --------------------- Token Generation ------------------------- //
@@ -62,8 +94,9 @@ public class JwtUtil {
     public String generateToken(CustomUserDetails userDetails) {
 
         Map<String, Object> claims = Map.of(
-                "roles", userDetails.getBaseUser().getRoles(),
-                "userType", userDetails.getUserType().name()
+                "roles", userDetails.getAuthUser().roles(),
+                "userType", userDetails.getUserType().name(),
+                TOKEN_VERSION_CLAIM, userDetails.getAuthUser().tokenVersion()
         );
 
         Date now = new Date();
@@ -72,22 +105,11 @@ public class JwtUtil {
         return Jwts.builder()
                 .header().type("JWT").and()
                 .claims(claims)
+                .id(UUID.randomUUID().toString())
                 .subject(userDetails.getUsername())
                 .issuedAt(now)
                 .expiration(expiry)
                 .signWith(secretKey, Jwts.SIG.HS256)
                 .compact();
     }
-
-    // --------------------- Validation ------------------------- //
-
-    public boolean validateToken(String token, String username) {
-        try {
-            String extracted = extractUsername(token);
-            return extracted.equals(username) && !isTokenExpired(token);
-        } catch (Exception e) {
-            log.warn("JWT validation failed: {}", e.getMessage());
-            return false;
-        }
-    }
 }
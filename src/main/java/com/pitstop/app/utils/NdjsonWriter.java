@@ -0,0 +1,60 @@
+package com.pitstop.app.utils;
+
+import com.fasterxml.jackson.core.JsonGenerator;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import lombok.RequiredArgsConstructor;
+import org.springframework.http.HttpStatus;
+import org.springframework.http.MediaType;
+import org.springframework.http.ResponseEntity;
+import org.springframework.stereotype.Component;
+import org.springframework.web.servlet.mvc.method.annotation.StreamingResponseBody;
+
+import java.util.Iterator;
+import java.util.Map;
+import java.util.stream.Stream;
+
+/**
+ * Writes a stream of results as newline-delimited JSON, one object per line, for endpoints that
+ * offer an {@code Accept: application/x-ndjson} mode. Items are pulled and serialized one at a time
+ * on the async request thread, so memory stays flat however many there are, and the first line is
+ * flushed as soon as it is written. The stream is always closed, which releases a MongoDB cursor
+ * behind it. A failure after the first line can only cut the response short.
+ */
+@Component
+@RequiredArgsConstructor
+public class NdjsonWriter {
+
+    public static final String MEDIA_TYPE = "application/x-ndjson";
+
+    private final ObjectMapper objectMapper;
+
+    public <T> ResponseEntity<StreamingResponseBody> stream(Stream<T> items) {
+        StreamingResponseBody body = out -> {
+            try (items; JsonGenerator generator = objectMapper.createGenerator(out)) {
+                // the servlet container closes the response stream
+                generator.disable(JsonGenerator.Feature.AUTO_CLOSE_TARGET);
+                generator.setRootValueSeparator(null);
+                boolean first = true;
+                Iterator<T> iterator = items.iterator();
+                while (iterator.hasNext()) {
+                    generator.writeObject(iterator.next());
+                    generator.writeRaw('\n');
+                    if (first) {
+                        generator.flush();
+                        first = false;
+                    }
+                }
+            }
+        };
+        return ResponseEntity.ok().contentType(MediaType.parseMediaType(MEDIA_TYPE)).body(body);
+    }
+
+    // A single {"message": ...} line, for failures found before anything was streamed
+    public ResponseEntity<StreamingResponseBody> error(HttpStatus status, String message) {
+        StreamingResponseBody body = out -> {
+            objectMapper.writeValue(out, Map.of("message", message == null ? status.getReasonPhrase() : message));
+            out.write('\n');
+        };
+        return ResponseEntity.status(status).contentType(MediaType.parseMediaType(MEDIA_TYPE)).body(body);
+    }
+}
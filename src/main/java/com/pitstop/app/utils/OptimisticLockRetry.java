@@ -0,0 +1,72 @@
+package com.pitstop.app.utils;
+
+import io.micrometer.core.instrument.MeterRegistry;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.dao.OptimisticLockingFailureException;
+import org.springframework.stereotype.Component;
+
+import java.util.concurrent.ThreadLocalRandom;
+import java.util.function.Supplier;
+
+/**
+ * Re-runs a read-modify-write block when its save loses an @Version race. The block must
+ * re-read the document itself so each attempt applies the change on top of the latest state.
+ * Conflicts are counted per operation in {@code pitstop.optimistic_lock.conflicts}.
+ */
+@Slf4j
+@Component
+public class OptimisticLockRetry {
+
+    private final MeterRegistry meterRegistry;
+    private final int maxAttempts;
+    private final long baseBackoffMs;
+    private final long maxBackoffMs;
+
+    public OptimisticLockRetry(
+            MeterRegistry meterRegistry,
+            @Value("${retry.optimistic-lock.max-attempts:5}") int maxAttempts,
+            @Value("${retry.optimistic-lock.base-backoff-ms:10}") long baseBackoffMs,
+            @Value("${retry.optimistic-lock.max-backoff-ms:200}") long maxBackoffMs
+    ) {
+        this.meterRegistry = meterRegistry;
+        this.maxAttempts = maxAttempts;
+        this.baseBackoffMs = baseBackoffMs;
+        this.maxBackoffMs = maxBackoffMs;
+    }
+
+    public <T> T execute(String operation, Supplier<T> action) {
+        for (int attempt = 1; ; attempt++) {
+            try {
+                return action.get();
+            } catch (OptimisticLockingFailureException e) {
+                meterRegistry.counter("pitstop.optimistic_lock.conflicts", "operation", operation).increment();
+                if (attempt >= maxAttempts) {
+                    meterRegistry.counter("pitstop.optimistic_lock.exhausted", "operation", operation).increment();
+                    log.warn("Giving up on {} after {} conflicting attempts", operation, attempt);
+                    throw e;
+                }
+                log.debug("Version conflict on {}, attempt {}", operation, attempt);
+                backoff(attempt);
+            }
+        }
+    }
+
+    public void run(String operation, Runnable action) {
+        execute(operation, () -> {
+            action.run();
+            return null;
+        });
+    }
+
+    // Full jitter: a random wait up to an exponentially growing cap, so colliding writers spread out
+    private void backoff(int attempt) {
+        long cap = Math.min(maxBackoffMs, baseBackoffMs << Math.min(attempt - 1, 20));
+        try {
+            Thread.sleep(ThreadLocalRandom.current().nextLong(cap + 1));
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+            throw new IllegalStateException("Interrupted while retrying after a version conflict", e);
+        }
+    }
+}
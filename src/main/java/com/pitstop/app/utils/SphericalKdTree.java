@@ -0,0 +1,140 @@
+package com.pitstop.app.utils;
+
+/**
+ * Static k-d tree for nearest-point lookups on the globe. Points are stored as unit vectors in three
+ * primitive arrays laid out as an implicit balanced tree (each range's median is its root), so there
+ * are no node objects and a lookup touches O(log n) entries on average. Straight-line distance
+ * between unit vectors grows with great-circle distance, so the nearest vector is the nearest place,
+ * including across the antimeridian. Immutable once built and safe for concurrent lookups.
+ */
+public class SphericalKdTree {
+
+    private final double[] xs;
+    private final double[] ys;
+    private final double[] zs;
+    // position in the arrays the tree was built from
+    private final int[] ids;
+
+    public SphericalKdTree(double[] latitudes, double[] longitudes) {
+        if (latitudes.length != longitudes.length) {
+            throw new IllegalArgumentException("latitudes and longitudes must have the same length");
+        }
+        int n = latitudes.length;
+        xs = new double[n];
+        ys = new double[n];
+        zs = new double[n];
+        ids = new int[n];
+        for (int i = 0; i < n; i++) {
+            double lat = Math.toRadians(latitudes[i]);
+            double lon = Math.toRadians(longitudes[i]);
+            xs[i] = Math.cos(lat) * Math.cos(lon);
+            ys[i] = Math.cos(lat) * Math.sin(lon);
+            zs[i] = Math.sin(lat);
+            ids[i] = i;
+        }
+        build(0, n, 0);
+    }
+
+    public int size() {
+        return ids.length;
+    }
+
+    /**
+     * Returns the index of the point nearest to the given coordinates, or -1 if there is none within
+     * {@code maxDistanceKm}.
+     */
+    public int nearest(double latitude, double longitude, double maxDistanceKm) {
+        double lat = Math.toRadians(latitude);
+        double lon = Math.toRadians(longitude);
+        double[] query = {Math.cos(lat) * Math.cos(lon), Math.cos(lat) * Math.sin(lon), Math.sin(lat)};
+
+        // chord length of the great-circle distance, squared
+        double maxAngle = Math.min(Math.PI, maxDistanceKm / GeoDistance.EARTH_RADIUS_KM);
+        double maxChord = 2 * Math.sin(maxAngle / 2);
+        Best best = new Best(maxChord * maxChord);
+        search(0, ids.length, 0, query, best);
+        return best.position < 0 ? -1 : ids[best.position];
+    }
+
+    private void search(int lo, int hi, int depth, double[] query, Best best) {
+        if (lo >= hi) {
+            return;
+        }
+        int mid = (lo + hi) >>> 1;
+        double dx = xs[mid] - query[0];
+        double dy = ys[mid] - query[1];
+        double dz = zs[mid] - query[2];
+        double distance = dx * dx + dy * dy + dz * dz;
+        if (distance <= best.distance) {
+            best.distance = distance;
+            best.position = mid;
+        }
+
+        int axis = depth % 3;
+        double diff = query[axis] - coordinate(mid, axis);
+        if (diff < 0) {
+            search(lo, mid, depth + 1, query, best);
+            if (diff * diff <= best.distance) {
+                search(mid + 1, hi, depth + 1, query, best);
+            }
+        } else {
+            search(mid + 1, hi, depth + 1, query, best);
+            if (diff * diff <= best.distance) {
+                search(lo, mid, depth + 1, query, best);
+            }
+        }
+    }
+
+    private void build(int lo, int hi, int depth) {
+        if (hi - lo <= 1) {
+            return;
+        }
+        int mid = (lo + hi) >>> 1;
+        select(lo, hi - 1, mid, depth % 3);
+        build(lo, mid, depth + 1);
+        build(mid + 1, hi, depth + 1);
+    }
+
+    // Quickselect: leaves the k-th smallest point on the axis at k, smaller ones before it, larger after
+    private void select(int left, int right, int k, int axis) {
+        while (left < right) {
+            int pivotIndex = (left + right) >>> 1;
+            double pivot = coordinate(pivotIndex, axis);
+            swap(pivotIndex, right);
+            int store = left;
+            for (int i = left; i < right; i++) {
+                if (coordinate(i, axis) < pivot) {
+                    swap(i, store++);
+                }
+            }
+            swap(store, right);
+            if (store == k) {
+                return;
+            } else if (store < k) {
+                left = store + 1;
+            } else {
+                right = store - 1;
+            }
+        }
+    }
+
+    private double coordinate(int position, int axis) {
+        return axis == 0 ? xs[position] : axis == 1 ? ys[position] : zs[position];
+    }
+
+    private void swap(int a, int b) {
+        double x = xs[a]; xs[a] = xs[b]; xs[b] = x;
+        double y = ys[a]; ys[a] = ys[b]; ys[b] = y;
+        double z = zs[a]; zs[a] = zs[b]; zs[b] = z;
+        int id = ids[a]; ids[a] = ids[b]; ids[b] = id;
+    }
+
+    private static final class Best {
+        private double distance;
+        private int position = -1;
+
+        private Best(double distance) {
+            this.distance = distance;
+        }
+    }
+}
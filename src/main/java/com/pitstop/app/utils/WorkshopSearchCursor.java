@@ -0,0 +1,45 @@
+package com.pitstop.app.utils;
+
+import java.nio.charset.StandardCharsets;
+import java.util.Base64;
+
+/**
+ * Position in a workshop search listing, the (distance, workshop id) of the last workshop on a page.
+ * Sent to clients as an opaque base64url token. The distance is kept bit for bit, so the next page
+ * compares against exactly the value that was computed for the previous one.
+ */
+public record WorkshopSearchCursor(double distanceKm, String workshopId) {
+
+    private static final char SEPARATOR = '|';
+
+    public String encode() {
+        String raw = Long.toHexString(Double.doubleToLongBits(distanceKm)) + SEPARATOR + workshopId;
+        return Base64.getUrlEncoder().withoutPadding().encodeToString(raw.getBytes(StandardCharsets.UTF_8));
+    }
+
+    // True if the workshop comes after this cursor in (distance, id) order
+    public boolean precedes(double distance, String id) {
+        return DistanceTopK.compare(distanceKm, workshopId, distance, id) < 0;
+    }
+
+    // Returns null for a missing cursor, which means the first page
+    public static WorkshopSearchCursor decode(String token) {
+        if (token == null || token.isBlank()) {
+            return null;
+        }
+        try {
+            String raw = new String(Base64.getUrlDecoder().decode(token), StandardCharsets.UTF_8);
+            int separator = raw.indexOf(SEPARATOR);
+            if (separator <= 0 || separator == raw.length() - 1) {
+                throw new IllegalArgumentException("Invalid workshop search cursor");
+            }
+            double distance = Double.longBitsToDouble(Long.parseUnsignedLong(raw.substring(0, separator), 16));
+            if (Double.isNaN(distance) || distance < 0) {
+                throw new IllegalArgumentException("Invalid workshop search cursor");
+            }
+            return new WorkshopSearchCursor(distance, raw.substring(separator + 1));
+        } catch (IllegalArgumentException e) {
+            throw new IllegalArgumentException("Invalid workshop search cursor");
+        }
+    }
+}
@@ -0,0 +1,54 @@
+package com.pitstop.app.Utilities;
+
+import com.pitstop.app.utils.BloomFilter;
+import org.junit.jupiter.api.DisplayName;
+import org.junit.jupiter.api.Test;
+
+import java.util.UUID;
+
+import static org.junit.jupiter.api.Assertions.assertThrows;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+public class BloomFilterTest {
+
+    @Test
+    @DisplayName("Should always report values that were added")
+    void shouldHaveNoFalseNegatives() {
+        BloomFilter filter = new BloomFilter(10_000, 0.01);
+        String[] added = new String[10_000];
+        for (int i = 0; i < added.length; i++) {
+            added[i] = UUID.randomUUID().toString();
+            filter.put(added[i]);
+        }
+
+        for (String value : added) {
+            assertTrue(filter.mightContain(value), value);
+        }
+    }
+
+    @Test
+    @DisplayName("Should keep the false positive rate near the configured one when full")
+    void shouldKeepFalsePositiveRate() {
+        BloomFilter filter = new BloomFilter(10_000, 0.01);
+        for (int i = 0; i < 10_000; i++) {
+            filter.put("revoked-" + i);
+        }
+
+        int falsePositives = 0;
+        int probes = 100_000;
+        for (int i = 0; i < probes; i++) {
+            if (filter.mightContain("valid-" + i)) {
+                falsePositives++;
+            }
+        }
+        // configured for 1%, allow some slack for the hash
+        assertTrue(falsePositives < probes * 0.02, "false positives: " + falsePositives);
+    }
+
+    @Test
+    @DisplayName("Should reject impossible sizing")
+    void shouldRejectBadArguments() {
+        assertThrows(IllegalArgumentException.class, () -> new BloomFilter(0, 0.01));
+        assertThrows(IllegalArgumentException.class, () -> new BloomFilter(100, 1.0));
+    }
+}
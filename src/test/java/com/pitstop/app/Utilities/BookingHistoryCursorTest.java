@@ -0,0 +1,37 @@
+package com.pitstop.app.Utilities;
+
+import com.pitstop.app.utils.BookingHistoryCursor;
+import org.junit.jupiter.api.DisplayName;
+import org.junit.jupiter.api.Test;
+
+import java.time.LocalDateTime;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertNull;
+import static org.junit.jupiter.api.Assertions.assertThrows;
+
+public class BookingHistoryCursorTest {
+
+    @Test
+    @DisplayName("Should decode an encoded cursor back to the same position")
+    void shouldRoundTrip() {
+        BookingHistoryCursor cursor = new BookingHistoryCursor(LocalDateTime.of(2025, 3, 14, 9, 26, 53, 589_000_000),
+                "65f2c0a1b2c3d4e5f6a7b8c9");
+
+        assertEquals(cursor, BookingHistoryCursor.decode(cursor.encode()));
+    }
+
+    @Test
+    @DisplayName("Should treat a missing cursor as the first page")
+    void shouldReturnNullForMissingCursor() {
+        assertNull(BookingHistoryCursor.decode(null));
+        assertNull(BookingHistoryCursor.decode(" "));
+    }
+
+    @Test
+    @DisplayName("Should reject a tampered cursor")
+    void shouldRejectGarbage() {
+        assertThrows(IllegalArgumentException.class, () -> BookingHistoryCursor.decode("not-a-cursor"));
+        assertThrows(IllegalArgumentException.class, () -> BookingHistoryCursor.decode("!!!"));
+    }
+}
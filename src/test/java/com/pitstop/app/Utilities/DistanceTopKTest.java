@@ -0,0 +1,83 @@
+package com.pitstop.app.Utilities;
+
+import com.pitstop.app.utils.DistanceTopK;
+import com.pitstop.app.utils.WorkshopSearchCursor;
+import org.junit.jupiter.api.DisplayName;
+import org.junit.jupiter.api.Test;
+
+import java.util.ArrayList;
+import java.util.Comparator;
+import java.util.List;
+import java.util.Random;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertThrows;
+
+public class DistanceTopKTest {
+
+    private record Point(String id, double distance) {
+    }
+
+    private static final Comparator<Point> ORDER = (a, b) -> DistanceTopK.compare(a.distance(), a.id(), b.distance(), b.id());
+
+    @Test
+    @DisplayName("Should keep the K nearest items in (distance, id) order")
+    void shouldMatchSortedPrefix() {
+        List<Point> points = randomPoints(2000, 42);
+        DistanceTopK<Point> topK = new DistanceTopK<>(25);
+        points.forEach(p -> topK.offer(p.distance(), p.id(), p));
+
+        List<Point> expected = points.stream().sorted(ORDER).limit(25).toList();
+        assertEquals(expected, topK.drainSorted((point, distance) -> point));
+        assertEquals(0, topK.size());
+    }
+
+    @Test
+    @DisplayName("Should visit every item exactly once when paging with a cursor")
+    void shouldResumeFromCursor() {
+        // few distinct distances, so pages end in the middle of ties
+        List<Point> points = new ArrayList<>();
+        Random random = new Random(7);
+        for (int i = 0; i < 500; i++) {
+            points.add(new Point("w" + i, random.nextInt(20) / 4.0));
+        }
+
+        List<Point> visited = new ArrayList<>();
+        WorkshopSearchCursor cursor = null;
+        while (true) {
+            DistanceTopK<Point> topK = new DistanceTopK<>(30);
+            for (Point p : points) {
+                if (cursor == null || cursor.precedes(p.distance(), p.id())) {
+                    topK.offer(p.distance(), p.id(), p);
+                }
+            }
+            List<Point> page = topK.drainSorted((point, distance) -> point);
+            if (page.isEmpty()) {
+                break;
+            }
+            visited.addAll(page);
+            Point last = page.get(page.size() - 1);
+            cursor = WorkshopSearchCursor.decode(new WorkshopSearchCursor(last.distance(), last.id()).encode());
+        }
+
+        assertEquals(points.stream().sorted(ORDER).toList(), visited);
+    }
+
+    @Test
+    @DisplayName("Should round trip the exact distance through a cursor")
+    void shouldRoundTripCursor() {
+        WorkshopSearchCursor cursor = new WorkshopSearchCursor(0.1 + 0.2, "65f2c0a1b2c3d4e5f6a7b8c9");
+
+        assertEquals(cursor, WorkshopSearchCursor.decode(cursor.encode()));
+        assertThrows(IllegalArgumentException.class, () -> WorkshopSearchCursor.decode("not-a-cursor"));
+    }
+
+    private static List<Point> randomPoints(int count, long seed) {
+        Random random = new Random(seed);
+        List<Point> points = new ArrayList<>(count);
+        for (int i = 0; i < count; i++) {
+            points.add(new Point("w" + i, random.nextDouble() * 10));
+        }
+        return points;
+    }
+}
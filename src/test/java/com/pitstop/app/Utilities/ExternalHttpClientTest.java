@@ -0,0 +1,161 @@
+package com.pitstop.app.Utilities;
+
+import com.pitstop.app.config.ExternalHttpClient;
+import com.pitstop.app.exception.ExternalServiceUnavailableException;
+import com.sun.net.httpserver.HttpServer;
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.DisplayName;
+import org.junit.jupiter.api.Test;
+import org.springframework.mock.env.MockEnvironment;
+
+import java.io.IOException;
+import java.io.OutputStream;
+import java.net.InetSocketAddress;
+import java.net.URI;
+import java.net.http.HttpResponse;
+import java.net.http.HttpTimeoutException;
+import java.nio.charset.StandardCharsets;
+import java.util.Map;
+import java.util.concurrent.atomic.AtomicInteger;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertThrows;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+public class ExternalHttpClientTest {
+
+    private HttpServer stub;
+    private final AtomicInteger hits = new AtomicInteger();
+    private SimpleMeterRegistry meterRegistry;
+    private ExternalHttpClient client;
+
+    @BeforeEach
+    void startStub() throws IOException {
+        stub = HttpServer.create(new InetSocketAddress("127.0.0.1", 0), 0);
+        stub.createContext("/ok", exchange -> {
+            hits.incrementAndGet();
+            byte[] body = ("{\"agent\":\"" + exchange.getRequestHeaders().getFirst("User-Agent") + "\"}")
+                    .getBytes(StandardCharsets.UTF_8);
+            exchange.sendResponseHeaders(200, body.length);
+            try (OutputStream out = exchange.getResponseBody()) {
+                out.write(body);
+            }
+        });
+        stub.createContext("/fail", exchange -> {
+            hits.incrementAndGet();
+            exchange.sendResponseHeaders(503, -1);
+            exchange.close();
+        });
+        stub.createContext("/slow", exchange -> {
+            hits.incrementAndGet();
+            try {
+                Thread.sleep(1_000);
+            } catch (InterruptedException ignored) {
+                Thread.currentThread().interrupt();
+            }
+            exchange.sendResponseHeaders(200, -1);
+            exchange.close();
+        });
+        stub.start();
+
+        MockEnvironment environment = new MockEnvironment()
+                .withProperty("external.http.stub.timeout-ms", "200")
+                .withProperty("external.http.stub.failure-threshold", "3")
+                .withProperty("external.http.stub.open-ms", "60000");
+        meterRegistry = new SimpleMeterRegistry();
+        client = new ExternalHttpClient(meterRegistry, environment);
+    }
+
+    @AfterEach
+    void stopStub() {
+        client.shutdown();
+        stub.stop(0);
+    }
+
+    private URI uri(String path) {
+        return URI.create("http://127.0.0.1:" + stub.getAddress().getPort() + path);
+    }
+
+    @Test
+    @DisplayName("Should return the response and record its latency")
+    void shouldReturnResponse() throws Exception {
+        HttpResponse<String> response = client.get("stub", uri("/ok"), Map.of("User-Agent", "pitstop-test"));
+
+        assertEquals(200, response.statusCode());
+        assertEquals("{\"agent\":\"pitstop-test\"}", response.body());
+        assertEquals(1, meterRegistry.get("pitstop.external.http")
+                .tags("provider", "stub", "outcome", "success").timer().count());
+    }
+
+    @Test
+    @DisplayName("Should open the circuit after consecutive failures and stop calling out")
+    void shouldOpenCircuit() throws Exception {
+        for (int i = 0; i < 3; i++) {
+            assertEquals(503, client.get("stub", uri("/fail"), Map.of()).statusCode());
+        }
+
+        assertThrows(ExternalServiceUnavailableException.class, () -> client.get("stub", uri("/ok"), Map.of()));
+        assertEquals(3, hits.get());
+        assertEquals(1.0, meterRegistry.get("pitstop.external.http.circuit.open").tag("provider", "stub").gauge().value());
+    }
+
+    @Test
+    @DisplayName("Should let a single probe through once the circuit half-opens")
+    void shouldSendOneProbe() throws Exception {
+        ExternalHttpClient probing = new ExternalHttpClient(meterRegistry, new MockEnvironment()
+                .withProperty("external.http.probe.timeout-ms", "500")
+                .withProperty("external.http.probe.failure-threshold", "1")
+                .withProperty("external.http.probe.open-ms", "300"));
+        try {
+            assertEquals(503, probing.get("probe", uri("/fail"), Map.of()).statusCode());
+            Thread.sleep(350);
+
+            Thread probe = Thread.ofVirtual().start(() -> {
+                try {
+                    probing.get("probe", uri("/slow"), Map.of());
+                } catch (Exception ignored) {
+                    // times out, which reopens the circuit
+                }
+            });
+            Thread.sleep(100);
+            assertThrows(ExternalServiceUnavailableException.class, () -> probing.get("probe", uri("/ok"), Map.of()));
+            probe.join();
+
+            assertThrows(ExternalServiceUnavailableException.class, () -> probing.get("probe", uri("/ok"), Map.of()));
+            assertEquals(2, hits.get());
+        } finally {
+            probing.shutdown();
+        }
+    }
+
+    @Test
+    @DisplayName("Should hand back the probe when it fails before reaching the provider")
+    void shouldReleaseProbeOnUncheckedFailure() throws Exception {
+        ExternalHttpClient probing = new ExternalHttpClient(meterRegistry, new MockEnvironment()
+                .withProperty("external.http.probe.failure-threshold", "1")
+                .withProperty("external.http.probe.open-ms", "100"));
+        try {
+            assertEquals(503, probing.get("probe", uri("/fail"), Map.of()).statusCode());
+            Thread.sleep(150);
+
+            // the JDK client refuses to let callers set Host
+            assertThrows(IllegalArgumentException.class, () -> probing.get("probe", uri("/ok"), Map.of("Host", "example.com")));
+
+            assertEquals(200, probing.get("probe", uri("/ok"), Map.of()).statusCode());
+            assertEquals(0.0, meterRegistry.get("pitstop.external.http.circuit.open").tag("provider", "probe").gauge().value());
+        } finally {
+            probing.shutdown();
+        }
+    }
+
+    @Test
+    @DisplayName("Should give up on a slow provider after its timeout")
+    void shouldTimeOut() {
+        long start = System.nanoTime();
+
+        assertThrows(HttpTimeoutException.class, () -> client.get("stub", uri("/slow"), Map.of()));
+        assertTrue(System.nanoTime() - start < 900_000_000L);
+    }
+}
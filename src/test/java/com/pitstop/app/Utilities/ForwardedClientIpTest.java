@@ -0,0 +1,75 @@
+package com.pitstop.app.Utilities;
+
+import jakarta.servlet.ServletException;
+import org.apache.catalina.Valve;
+import org.apache.catalina.connector.Connector;
+import org.apache.catalina.connector.Request;
+import org.apache.catalina.connector.Response;
+import org.apache.catalina.valves.RemoteIpValve;
+import org.apache.catalina.valves.ValveBase;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.DisplayName;
+import org.junit.jupiter.api.Test;
+import org.springframework.boot.autoconfigure.web.ServerProperties;
+import org.springframework.boot.autoconfigure.web.embedded.TomcatWebServerFactoryCustomizer;
+import org.springframework.boot.context.properties.bind.Binder;
+import org.springframework.boot.context.properties.source.ConfigurationPropertySources;
+import org.springframework.boot.web.embedded.tomcat.TomcatServletWebServerFactory;
+import org.springframework.core.env.StandardEnvironment;
+import org.springframework.core.io.support.ResourcePropertySource;
+
+import java.io.IOException;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+
+// The login throttle keys its per-IP bucket on getRemoteAddr(), which must be the client and not the proxy
+public class ForwardedClientIpTest {
+
+    private RemoteIpValve valve;
+
+    @BeforeEach
+    void setUp() throws IOException {
+        StandardEnvironment environment = new StandardEnvironment();
+        environment.getPropertySources().addFirst(new ResourcePropertySource("classpath:application.properties"));
+        ServerProperties serverProperties = new Binder(ConfigurationPropertySources.get(environment))
+                .bindOrCreate("server", ServerProperties.class);
+
+        TomcatServletWebServerFactory factory = new TomcatServletWebServerFactory();
+        new TomcatWebServerFactoryCustomizer(environment, serverProperties).customize(factory);
+        valve = factory.getEngineValves().stream()
+                .filter(RemoteIpValve.class::isInstance)
+                .map(RemoteIpValve.class::cast)
+                .findFirst()
+                .orElseThrow();
+    }
+
+    @Test
+    @DisplayName("Should take the client address from X-Forwarded-For when the request comes through a proxy")
+    void shouldResolveClientBehindProxy() throws Exception {
+        assertEquals("203.0.113.7", remoteAddrSeen("10.0.0.5", "203.0.113.7"));
+    }
+
+    @Test
+    @DisplayName("Should ignore X-Forwarded-For sent directly by a client")
+    void shouldIgnoreSpoofedHeader() throws Exception {
+        assertEquals("198.51.100.1", remoteAddrSeen("198.51.100.1", "203.0.113.7"));
+    }
+
+    private String remoteAddrSeen(String peer, String forwardedFor) throws IOException, ServletException {
+        Request request = new Request(new Connector());
+        request.setCoyoteRequest(new org.apache.coyote.Request());
+        request.setRemoteAddr(peer);
+        request.getCoyoteRequest().getMimeHeaders().addValue("X-Forwarded-For").setString(forwardedFor);
+
+        String[] seen = new String[1];
+        Valve next = new ValveBase() {
+            @Override
+            public void invoke(Request r, Response response) {
+                seen[0] = r.getRemoteAddr();
+            }
+        };
+        valve.setNext(next);
+        valve.invoke(request, new Response());
+        return seen[0];
+    }
+}
@@ -0,0 +1,74 @@
+package com.pitstop.app.Utilities;
+
+import com.pitstop.app.utils.GeoDistance;
+import org.junit.jupiter.api.DisplayName;
+import org.junit.jupiter.api.Test;
+
+import java.util.Random;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+import static org.junit.jupiter.api.Assumptions.assumeTrue;
+
+public class GeoDistanceTest {
+
+    @Test
+    @DisplayName("Should agree with the scalar haversine on which points are in range and how far they are")
+    void shouldMatchScalarHaversine() {
+        assertKernelMatchesHaversine(false);
+    }
+
+    @Test
+    @DisplayName("Should give the same answers on the Vector API kernel")
+    void shouldMatchScalarHaversineWhenVectorized() {
+        assumeTrue(GeoDistance.VECTOR_API_AVAILABLE, "jdk.incubator.vector is not resolved");
+        assertKernelMatchesHaversine(true);
+    }
+
+    private void assertKernelMatchesHaversine(boolean vectorized) {
+        Random random = new Random(11);
+        // a city, the antimeridian and close to a pole
+        double[][] origins = {{12.97, 77.59}, {-16.5, 179.9}, {88.5, 10.0}};
+        double[] radii = {0.5, 5, 50, 500, 5000};
+
+        for (double[] origin : origins) {
+            for (double radius : radii) {
+                int n = 1000;
+                double[] latitudes = new double[n];
+                double[] longitudes = new double[n];
+                double[] latitudesRad = new double[n];
+                double[] longitudesRad = new double[n];
+                double[] cosLatitudes = new double[n];
+                double spread = Math.min(90, radius / 50);
+                for (int i = 0; i < n; i++) {
+                    latitudes[i] = Math.max(-90, Math.min(90, origin[0] + (random.nextDouble() * 2 - 1) * spread));
+                    longitudes[i] = wrap(origin[1] + (random.nextDouble() * 2 - 1) * spread * 2);
+                    latitudesRad[i] = Math.toRadians(latitudes[i]);
+                    longitudesRad[i] = Math.toRadians(longitudes[i]);
+                    cosLatitudes[i] = Math.cos(latitudesRad[i]);
+                }
+
+                double[] distances = new double[n];
+                GeoDistance.haversineWithin(vectorized, origin[0], origin[1], radius,
+                        latitudesRad, longitudesRad, cosLatitudes, n, distances);
+
+                for (int i = 0; i < n; i++) {
+                    double expected = GeoDistance.haversine(origin[0], origin[1], latitudes[i], longitudes[i]);
+                    // the boundary itself may fall either way by a rounding error
+                    if (Math.abs(expected - radius) < 1e-6) {
+                        continue;
+                    }
+                    if (expected <= radius) {
+                        assertEquals(expected, distances[i], 1e-6, "point " + i + " around " + origin[0] + "," + origin[1]);
+                    } else {
+                        assertTrue(Double.isInfinite(distances[i]), "point " + i + " should be out of range");
+                    }
+                }
+            }
+        }
+    }
+
+    private static double wrap(double longitude) {
+        return ((longitude + 540) % 360) - 180;
+    }
+}
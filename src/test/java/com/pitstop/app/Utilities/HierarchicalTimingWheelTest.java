@@ -0,0 +1,93 @@
+package com.pitstop.app.Utilities;
+
+import com.pitstop.app.utils.HierarchicalTimingWheel;
+import org.junit.jupiter.api.DisplayName;
+import org.junit.jupiter.api.Test;
+
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Random;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertFalse;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+public class HierarchicalTimingWheelTest {
+
+    @Test
+    @DisplayName("Should fire an entry within one tick after its deadline")
+    void shouldFireWithinOneTick() {
+        HierarchicalTimingWheel<String> wheel = new HierarchicalTimingWheel<>(100, 8, 0);
+        List<String> fired = new ArrayList<>();
+
+        assertTrue(wheel.add(250, "booking"));
+
+        wheel.advance(200, fired::add);
+        assertTrue(fired.isEmpty());
+
+        wheel.advance(300, fired::add);
+        assertEquals(List.of("booking"), fired);
+        assertEquals(0, wheel.size());
+    }
+
+    @Test
+    @DisplayName("Should reject deadlines that already passed")
+    void shouldRejectPastDeadlines() {
+        HierarchicalTimingWheel<String> wheel = new HierarchicalTimingWheel<>(100, 8, 1_000);
+
+        assertFalse(wheel.add(1_000, "due"));
+        assertFalse(wheel.add(500, "overdue"));
+        assertEquals(0, wheel.size());
+    }
+
+    @Test
+    @DisplayName("Should cascade far deadlines through the upper levels without firing early")
+    void shouldCascadeFarDeadlines() {
+        long tick = 10;
+        HierarchicalTimingWheel<Integer> wheel = new HierarchicalTimingWheel<>(tick, 4, 0);
+        Random random = new Random(42);
+        Map<Integer, Long> deadlines = new HashMap<>();
+        for (int i = 0; i < 5_000; i++) {
+            long deadline = 1 + random.nextInt(100_000);
+            deadlines.put(i, deadline);
+            assertTrue(wheel.add(deadline, i));
+        }
+
+        Map<Integer, Long> firedAt = new HashMap<>();
+        for (long now = 0; now <= 100_000 + tick; now += 7) {
+            long time = now;
+            wheel.advance(now, item -> firedAt.put(item, time));
+        }
+
+        assertEquals(deadlines.size(), firedAt.size());
+        assertEquals(0, wheel.size());
+        deadlines.forEach((item, deadline) -> {
+            long fired = firedAt.get(item);
+            assertTrue(fired >= deadline, "fired early: " + item);
+            // one tick of wheel resolution plus the 7ms stride of the loop above
+            assertTrue(fired < deadline + tick + 7, "fired late: " + item);
+        });
+    }
+
+    @Test
+    @DisplayName("Should accept entries added while the wheel is running")
+    void shouldAcceptEntriesWhileRunning() {
+        HierarchicalTimingWheel<String> wheel = new HierarchicalTimingWheel<>(100, 8, 0);
+        List<String> fired = new ArrayList<>();
+
+        wheel.advance(5_000, fired::add);
+        assertTrue(wheel.add(5_050, "soon"));
+        assertTrue(wheel.add(60_000, "later"));
+
+        wheel.advance(5_100, fired::add);
+        assertEquals(List.of("soon"), fired);
+
+        wheel.advance(59_900, fired::add);
+        assertEquals(1, fired.size());
+
+        wheel.advance(60_100, fired::add);
+        assertEquals(List.of("soon", "later"), fired);
+    }
+}
@@ -0,0 +1,69 @@
+package com.pitstop.app.Utilities;
+
+import com.pitstop.app.model.AppUser;
+import com.pitstop.app.model.CustomUserDetails;
+import com.pitstop.app.utils.JwtUtil;
+import io.jsonwebtoken.Claims;
+import io.jsonwebtoken.ExpiredJwtException;
+import io.jsonwebtoken.JwtException;
+import org.junit.jupiter.api.DisplayName;
+import org.junit.jupiter.api.Test;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertSame;
+import static org.junit.jupiter.api.Assertions.assertThrows;
+
+public class JwtUtilTest {
+
+    private static final String SECRET = "test-secret-that-is-long-enough-for-hs256-signing";
+
+    private static CustomUserDetails user() {
+        AppUser appUser = new AppUser();
+        appUser.setUsername("user_jwt");
+        appUser.setPassword("hash");
+        appUser.setTokenVersion(3);
+        return new CustomUserDetails(appUser, appUser.getUserType());
+    }
+
+    @Test
+    @DisplayName("Should verify a token once and serve repeats from the cache")
+    void shouldCacheVerifiedClaims() {
+        JwtUtil jwtUtil = new JwtUtil(SECRET, 60_000, 100);
+        String token = jwtUtil.generateToken(user());
+
+        Claims first = jwtUtil.parseClaims(token);
+        Claims second = jwtUtil.parseClaims(token);
+
+        assertSame(first, second);
+        assertEquals("user_jwt", first.getSubject());
+        assertEquals(3L, jwtUtil.extractTokenVersion(first));
+    }
+
+    @Test
+    @DisplayName("Should reject a token whose signature does not match")
+    void shouldRejectTamperedToken() {
+        JwtUtil jwtUtil = new JwtUtil(SECRET, 60_000, 100);
+        String token = jwtUtil.generateToken(user());
+        jwtUtil.parseClaims(token);
+
+        // flip a character in the middle of the signature, the last one partly encodes padding bits
+        int index = token.lastIndexOf('.') + 10;
+        char original = token.charAt(index);
+        String tampered = token.substring(0, index) + (original == 'A' ? 'B' : 'A') + token.substring(index + 1);
+
+        assertThrows(JwtException.class, () -> jwtUtil.parseClaims(tampered));
+    }
+
+    @Test
+    @DisplayName("Should stop serving a cached token once it has expired")
+    void shouldExpireWithToken() throws InterruptedException {
+        JwtUtil jwtUtil = new JwtUtil(SECRET, 1_000, 100);
+        String token = jwtUtil.generateToken(user());
+        jwtUtil.parseClaims(token);
+
+        // exp has second precision, so the token is gone at most one second from now
+        Thread.sleep(1_100);
+
+        assertThrows(ExpiredJwtException.class, () -> jwtUtil.parseClaims(token));
+    }
+}
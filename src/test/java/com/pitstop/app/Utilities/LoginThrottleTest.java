@@ -0,0 +1,47 @@
+package com.pitstop.app.Utilities;
+
+import com.pitstop.app.exception.TooManyRequestsException;
+import com.pitstop.app.security.LoginThrottle;
+import org.junit.jupiter.api.DisplayName;
+import org.junit.jupiter.api.Test;
+
+import static org.junit.jupiter.api.Assertions.assertDoesNotThrow;
+import static org.junit.jupiter.api.Assertions.assertThrows;
+
+public class LoginThrottleTest {
+
+    @Test
+    @DisplayName("Should allow a burst per account and then reject further attempts")
+    void shouldLimitPerAccount() {
+        LoginThrottle throttle = new LoginThrottle(1, 3, 1_000, 1_000, 100);
+
+        for (int i = 0; i < 3; i++) {
+            assertDoesNotThrow(() -> throttle.acquire("user_alice", "10.0.0.1"));
+        }
+        assertThrows(TooManyRequestsException.class, () -> throttle.acquire("user_alice", "10.0.0.2"));
+        // other accounts keep their own bucket
+        assertDoesNotThrow(() -> throttle.acquire("user_bob", "10.0.0.1"));
+    }
+
+    @Test
+    @DisplayName("Should limit one address across many accounts")
+    void shouldLimitPerAddress() {
+        LoginThrottle throttle = new LoginThrottle(1_000, 1_000, 1, 2, 100);
+
+        assertDoesNotThrow(() -> throttle.acquire("user_a", "10.0.0.1"));
+        assertDoesNotThrow(() -> throttle.acquire("user_b", "10.0.0.1"));
+        assertThrows(TooManyRequestsException.class, () -> throttle.acquire("user_c", "10.0.0.1"));
+        assertDoesNotThrow(() -> throttle.acquire("user_c", "10.0.0.2"));
+    }
+
+    @Test
+    @DisplayName("Should let attempts through again once the bucket refills")
+    void shouldRefill() throws InterruptedException {
+        // one token every millisecond
+        LoginThrottle throttle = new LoginThrottle(60_000, 1, 60_000, 1, 100);
+
+        throttle.acquire("user_alice", "10.0.0.1");
+        Thread.sleep(5);
+        assertDoesNotThrow(() -> throttle.acquire("user_alice", "10.0.0.1"));
+    }
+}
@@ -0,0 +1,70 @@
+package com.pitstop.app.Utilities;
+
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.pitstop.app.utils.NdjsonWriter;
+import org.junit.jupiter.api.DisplayName;
+import org.junit.jupiter.api.Test;
+import org.springframework.http.HttpStatus;
+import org.springframework.http.ResponseEntity;
+import org.springframework.web.servlet.mvc.method.annotation.StreamingResponseBody;
+
+import java.io.ByteArrayOutputStream;
+import java.nio.charset.StandardCharsets;
+import java.util.Map;
+import java.util.concurrent.atomic.AtomicBoolean;
+import java.util.stream.Stream;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertThrows;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+public class NdjsonWriterTest {
+
+    private final NdjsonWriter ndjsonWriter = new NdjsonWriter(new ObjectMapper());
+
+    @Test
+    @DisplayName("Should write one JSON object per line and close the source stream")
+    void shouldWriteOneObjectPerLine() throws Exception {
+        AtomicBoolean closed = new AtomicBoolean();
+        Stream<Map<String, Object>> items = Stream.<Map<String, Object>>of(Map.of("id", "a"), Map.of("id", "b"))
+                .onClose(() -> closed.set(true));
+
+        ResponseEntity<StreamingResponseBody> response = ndjsonWriter.stream(items);
+        ByteArrayOutputStream out = new ByteArrayOutputStream();
+        response.getBody().writeTo(out);
+
+        assertEquals(NdjsonWriter.MEDIA_TYPE, response.getHeaders().getContentType().toString());
+        assertEquals("{\"id\":\"a\"}\n{\"id\":\"b\"}\n", out.toString(StandardCharsets.UTF_8));
+        assertTrue(closed.get());
+    }
+
+    @Test
+    @DisplayName("Should close the source stream when reading it fails")
+    void shouldCloseOnFailure() {
+        AtomicBoolean closed = new AtomicBoolean();
+        Stream<Object> items = Stream.<Object>of("ok", "boom")
+                .map(item -> {
+                    if (item.equals("boom")) {
+                        throw new IllegalStateException("cursor lost");
+                    }
+                    return item;
+                })
+                .onClose(() -> closed.set(true));
+
+        StreamingResponseBody body = ndjsonWriter.stream(items).getBody();
+
+        assertThrows(IllegalStateException.class, () -> body.writeTo(new ByteArrayOutputStream()));
+        assertTrue(closed.get());
+    }
+
+    @Test
+    @DisplayName("Should write an error as a single message line")
+    void shouldWriteError() throws Exception {
+        ResponseEntity<StreamingResponseBody> response = ndjsonWriter.error(HttpStatus.BAD_REQUEST, "Failed to search workshops.");
+        ByteArrayOutputStream out = new ByteArrayOutputStream();
+        response.getBody().writeTo(out);
+
+        assertEquals(HttpStatus.BAD_REQUEST, response.getStatusCode());
+        assertEquals("{\"message\":\"Failed to search workshops.\"}\n", out.toString(StandardCharsets.UTF_8));
+    }
+}
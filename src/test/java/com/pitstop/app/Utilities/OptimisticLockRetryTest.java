@@ -0,0 +1,62 @@
+package com.pitstop.app.Utilities;
+
+import com.pitstop.app.utils.OptimisticLockRetry;
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+import org.junit.jupiter.api.DisplayName;
+import org.junit.jupiter.api.Test;
+import org.springframework.dao.OptimisticLockingFailureException;
+
+import java.util.concurrent.atomic.AtomicInteger;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertThrows;
+
+public class OptimisticLockRetryTest {
+
+    private final SimpleMeterRegistry meterRegistry = new SimpleMeterRegistry();
+    private final OptimisticLockRetry retry = new OptimisticLockRetry(meterRegistry, 3, 1, 2);
+
+    @Test
+    @DisplayName("Should re-run the action until it stops conflicting")
+    void shouldRetryUntilSuccess() {
+        AtomicInteger attempts = new AtomicInteger();
+
+        String result = retry.execute("test", () -> {
+            if (attempts.incrementAndGet() < 3) {
+                throw new OptimisticLockingFailureException("conflict");
+            }
+            return "saved";
+        });
+
+        assertEquals("saved", result);
+        assertEquals(3, attempts.get());
+        assertEquals(2.0, meterRegistry.counter("pitstop.optimistic_lock.conflicts", "operation", "test").count());
+    }
+
+    @Test
+    @DisplayName("Should rethrow once the attempts are exhausted")
+    void shouldGiveUpAfterMaxAttempts() {
+        AtomicInteger attempts = new AtomicInteger();
+
+        assertThrows(OptimisticLockingFailureException.class, () -> retry.run("test", () -> {
+            attempts.incrementAndGet();
+            throw new OptimisticLockingFailureException("conflict");
+        }));
+
+        assertEquals(3, attempts.get());
+        assertEquals(1.0, meterRegistry.counter("pitstop.optimistic_lock.exhausted", "operation", "test").count());
+    }
+
+    @Test
+    @DisplayName("Should not retry other failures")
+    void shouldNotRetryOtherExceptions() {
+        AtomicInteger attempts = new AtomicInteger();
+
+        assertThrows(IllegalStateException.class, () -> retry.run("test", () -> {
+            attempts.incrementAndGet();
+            throw new IllegalStateException("boom");
+        }));
+
+        assertEquals(1, attempts.get());
+    }
+}
@@ -0,0 +1,61 @@
+package com.pitstop.app.Utilities;
+
+import com.pitstop.app.utils.GeoDistance;
+import com.pitstop.app.utils.SphericalKdTree;
+import org.junit.jupiter.api.DisplayName;
+import org.junit.jupiter.api.Test;
+
+import java.util.Random;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+
+public class SphericalKdTreeTest {
+
+    @Test
+    @DisplayName("Should find the same nearest point as a linear scan")
+    void shouldMatchLinearScan() {
+        Random random = new Random(7);
+        int n = 5_000;
+        double[] latitudes = new double[n];
+        double[] longitudes = new double[n];
+        for (int i = 0; i < n; i++) {
+            latitudes[i] = random.nextDouble() * 180 - 90;
+            longitudes[i] = random.nextDouble() * 360 - 180;
+        }
+        SphericalKdTree tree = new SphericalKdTree(latitudes, longitudes);
+
+        for (int q = 0; q < 500; q++) {
+            double lat = random.nextDouble() * 180 - 90;
+            double lon = random.nextDouble() * 360 - 180;
+            int expected = -1;
+            double expectedKm = Double.MAX_VALUE;
+            for (int i = 0; i < n; i++) {
+                double km = GeoDistance.haversine(lat, lon, latitudes[i], longitudes[i]);
+                if (km < expectedKm) {
+                    expectedKm = km;
+                    expected = i;
+                }
+            }
+            int found = tree.nearest(lat, lon, 20_000);
+            assertEquals(expectedKm, GeoDistance.haversine(lat, lon, latitudes[found], longitudes[found]), 1e-6,
+                    "query " + q + " expected place " + expected);
+        }
+    }
+
+    @Test
+    @DisplayName("Should return -1 when nothing is within the distance limit")
+    void shouldRespectMaxDistance() {
+        SphericalKdTree tree = new SphericalKdTree(new double[]{12.9716, 19.0760}, new double[]{77.5946, 72.8777});
+
+        assertEquals(0, tree.nearest(12.9720, 77.5950, 1));
+        assertEquals(-1, tree.nearest(13.0500, 77.5946, 1));
+    }
+
+    @Test
+    @DisplayName("Should find neighbours across the antimeridian")
+    void shouldWrapAroundAntimeridian() {
+        SphericalKdTree tree = new SphericalKdTree(new double[]{0, 0}, new double[]{179.99, 170});
+
+        assertEquals(0, tree.nearest(0, -179.99, 5));
+    }
+}
@@ -0,0 +1,82 @@
+package com.pitstop.app.Utilities;
+
+import com.pitstop.app.config.UserAuthStateListener;
+import com.pitstop.app.model.AppUser;
+import com.pitstop.app.service.impl.AuthCacheInvalidationService;
+import org.bson.Document;
+import org.junit.jupiter.api.DisplayName;
+import org.junit.jupiter.api.Test;
+import org.springframework.data.mongodb.core.mapping.event.AfterConvertEvent;
+import org.springframework.data.mongodb.core.mapping.event.AfterSaveEvent;
+
+import java.util.List;
+
+import static org.mockito.Mockito.mock;
+import static org.mockito.Mockito.never;
+import static org.mockito.Mockito.times;
+import static org.mockito.Mockito.verify;
+import static org.mockito.Mockito.verifyNoInteractions;
+
+public class UserAuthStateListenerTest {
+
+    private final AuthCacheInvalidationService invalidation = mock(AuthCacheInvalidationService.class);
+    private final UserAuthStateListener listener = new UserAuthStateListener(invalidation);
+
+    @Test
+    @DisplayName("Should not invalidate when a save leaves the auth state as it was loaded")
+    void shouldSkipProfileOnlySaves() {
+        AppUser user = loaded();
+        user.setName("Alice B");
+        user.getUserAddress().clear();
+
+        save(user);
+
+        verifyNoInteractions(invalidation);
+    }
+
+    @Test
+    @DisplayName("Should invalidate once when password, roles or token version change")
+    void shouldInvalidateAuthChanges() {
+        AppUser user = loaded();
+        user.setPassword("new-hash");
+        user.setTokenVersion(user.getTokenVersion() + 1);
+        save(user);
+        // the same instance saved again has nothing new to publish
+        save(user);
+        verify(invalidation).invalidate("user_alice");
+
+        AppUser promoted = loaded();
+        promoted.setRoles(List.of("ADMIN"));
+        save(promoted);
+        verify(invalidation, times(2)).invalidate("user_alice");
+    }
+
+    @Test
+    @DisplayName("Should invalidate both names on a rename and new users on their first save")
+    void shouldInvalidateRenamesAndNewUsers() {
+        AppUser renamed = loaded();
+        renamed.setUsername("user_alicia");
+        save(renamed);
+        verify(invalidation).invalidate("user_alice");
+        verify(invalidation).invalidate("user_alicia");
+
+        AppUser created = new AppUser();
+        created.setUsername("user_bob");
+        save(created);
+        verify(invalidation).invalidate("user_bob");
+        verify(invalidation, never()).invalidateAll();
+    }
+
+    private AppUser loaded() {
+        AppUser user = new AppUser();
+        user.setUsername("user_alice");
+        user.setPassword("hash");
+        user.setTokenVersion(2);
+        listener.onAfterConvert(new AfterConvertEvent<>(new Document(), user, "users"));
+        return user;
+    }
+
+    private void save(AppUser user) {
+        listener.onAfterSave(new AfterSaveEvent<>(user, new Document(), "users"));
+    }
+}
@@ -0,0 +1,25 @@
+package com.pitstop.app.Utilities;
+
+import com.pitstop.app.model.WorkshopSearchCandidate;
+import com.pitstop.app.model.WorkshopUser;
+import org.junit.jupiter.api.DisplayName;
+import org.junit.jupiter.api.Test;
+import org.springframework.data.projection.SpelAwareProxyProjectionFactory;
+import org.springframework.data.repository.query.ReturnedType;
+
+import java.util.List;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+
+public class WorkshopSearchCandidateTest {
+
+    @Test
+    @DisplayName("Should fetch only the search fields when used as a repository projection")
+    void shouldRestrictProjectedFields() {
+        ReturnedType returnedType = ReturnedType.of(WorkshopSearchCandidate.class, WorkshopUser.class,
+                new SpelAwareProxyProjectionFactory());
+
+        assertEquals(List.of("id", "name", "username", "workshopAddress", "currentWorkshopStatus",
+                "vehicleTypeSupported", "servicesOffered", "isPremiumWorkshop"), returnedType.getInputProperties());
+    }
+}
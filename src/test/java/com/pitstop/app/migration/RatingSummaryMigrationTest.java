@@ -0,0 +1,62 @@
+package com.pitstop.app.migration;
+
+import org.bson.Document;
+import org.junit.jupiter.api.DisplayName;
+import org.junit.jupiter.api.Test;
+import org.springframework.data.mongodb.core.query.Update;
+
+import java.util.Arrays;
+import java.util.List;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertFalse;
+import static org.junit.jupiter.api.Assertions.assertNull;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+public class RatingSummaryMigrationTest {
+
+    @Test
+    @DisplayName("Should fold the valid legacy ratings into the summary counters")
+    void shouldFoldRatings() {
+        Update update = RatingSummaryMigration.foldRatings(List.of(5, 4, 4, 1), 2.0);
+
+        Document inc = (Document) update.getUpdateObject().get("$inc");
+        assertEquals(4L, inc.get("ratingSummary.count"));
+        assertEquals(14L, inc.get("ratingSummary.sum"));
+        assertEquals(28.0, inc.get("ratingSummary.decayedSum"));
+        assertEquals(8.0, inc.get("ratingSummary.decayedWeight"));
+        assertEquals(1L, inc.get("ratingSummary.histogram.5"));
+        assertEquals(2L, inc.get("ratingSummary.histogram.4"));
+        assertEquals(1L, inc.get("ratingSummary.histogram.1"));
+        assertNull(inc.get("ratingSummary.histogram.3"));
+        assertEquals(1, inc.get("version"));
+
+        Document unset = (Document) update.getUpdateObject().get("$unset");
+        assertTrue(unset.containsKey("ratingsList"));
+        assertTrue(unset.containsKey("rating"));
+    }
+
+    @Test
+    @DisplayName("Should drop out-of-range and non-numeric legacy ratings")
+    void shouldDropInvalidRatings() {
+        Update update = RatingSummaryMigration.foldRatings(Arrays.asList(0, 6, -3, 3.7, "5", null, 2L), 1.0);
+
+        Document inc = (Document) update.getUpdateObject().get("$inc");
+        // a fractional rating is truncated to whole stars
+        assertEquals(2L, inc.get("ratingSummary.count"));
+        assertEquals(5L, inc.get("ratingSummary.sum"));
+        assertEquals(1L, inc.get("ratingSummary.histogram.3"));
+        assertEquals(1L, inc.get("ratingSummary.histogram.2"));
+    }
+
+    @Test
+    @DisplayName("Should only drop the legacy fields when no rating is valid")
+    void shouldOnlyUnsetWhenNothingIsValid() {
+        Update update = RatingSummaryMigration.foldRatings(List.of(0, 9), 1.0);
+
+        Document inc = (Document) update.getUpdateObject().get("$inc");
+        assertFalse(inc.containsKey("ratingSummary.count"));
+        assertEquals(1, inc.get("version"));
+        assertTrue(((Document) update.getUpdateObject().get("$unset")).containsKey("ratingsList"));
+    }
+}
@@ -9,12 +9,15 @@ import com.pitstop.app.model.Address;
 import com.pitstop.app.model.AppUser;
 import com.pitstop.app.repository.AppUserRepository;
 import com.pitstop.app.service.AppUserService;
+import com.pitstop.app.utils.OptimisticLockRetry;
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
 import org.junit.jupiter.api.Assertions;
 import org.junit.jupiter.api.Test;
 import org.junit.jupiter.api.extension.ExtendWith;
 import org.mockito.InjectMocks;
 import org.mockito.Mock;
 import org.mockito.Mockito;
+import org.mockito.Spy;
 import org.mockito.junit.jupiter.MockitoExtension;
 import org.springframework.security.core.Authentication;
 import org.springframework.security.core.context.SecurityContext;
@@ -31,6 +34,8 @@ public class AppUserImplUnitTest {
     private AppUserRepository appUserRepository;
     @Mock
     private PasswordEncoder passwordEncoder;
+    @Spy
+    private OptimisticLockRetry optimisticLockRetry = new OptimisticLockRetry(new SimpleMeterRegistry(), 3, 0, 0);
 
     @InjectMocks
     private AppUserServiceImpl appUserService;
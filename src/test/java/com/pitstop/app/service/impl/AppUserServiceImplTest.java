@@ -52,6 +52,8 @@ public class AppUserServiceImplTest {
     @Autowired
     private PricingRuleRepository pricingRuleRepository;
     @Autowired
+    private PricingCatalog pricingCatalog;
+    @Autowired
     private WorkshopUserRepository workshopUserRepository;
     private WorkshopUser normalWorkshop;
     private WorkshopUser premiumWorkshop;
@@ -74,6 +76,8 @@ public class AppUserServiceImplTest {
         rule.setAmount(300);
         rule.setPremiumAmount(100);
         pricingRuleRepository.save(rule);
+        // the rule was written behind the catalog's back
+        pricingCatalog.publishChange();
 
         normalWorkshop = new WorkshopUser();
         normalWorkshop.setUsername("normal_ws");
@@ -0,0 +1,153 @@
+package com.pitstop.app.service.impl;
+
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.pitstop.app.constants.BookingStatus;
+import com.pitstop.app.dto.BookingStatusEvent;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.DisplayName;
+import org.junit.jupiter.api.Test;
+import org.springframework.test.util.ReflectionTestUtils;
+import org.springframework.web.servlet.mvc.method.annotation.SseEmitter;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.CopyOnWriteArrayList;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.TimeUnit;
+import java.util.regex.Matcher;
+import java.util.regex.Pattern;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+import static org.mockito.Mockito.mock;
+
+public class BookingEventStreamServiceTest {
+
+    private static final Pattern EVENT_ID = Pattern.compile("^id:(\\S+)", Pattern.MULTILINE);
+
+    private final List<RecordingEmitter> emitters = new CopyOnWriteArrayList<>();
+    private volatile CountDownLatch sendGate;
+    private BookingEventStreamService service;
+
+    @BeforeEach
+    void setUp() {
+        service = new BookingEventStreamService(mock(ClusterEventService.class), new ObjectMapper()) {
+            @Override
+            SseEmitter newEmitter() {
+                RecordingEmitter emitter = new RecordingEmitter();
+                emitters.add(emitter);
+                return emitter;
+            }
+        };
+        ReflectionTestUtils.setField(service, "replaySize", 32);
+        ReflectionTestUtils.setField(service, "replayUsers", 100);
+        ReflectionTestUtils.setField(service, "maxPending", 4);
+    }
+
+    @AfterEach
+    void tearDown() {
+        if (sendGate != null) {
+            sendGate.countDown();
+        }
+        service.shutdown();
+    }
+
+    @Test
+    @DisplayName("Should replay the events after Last-Event-ID to a reconnecting client")
+    void shouldReplayFromLastEventId() throws InterruptedException {
+        service.onBookingStatusEvent(event("1000-a", 1000, BookingStatus.STARTED));
+        service.onBookingStatusEvent(event("2000-b", 2000, BookingStatus.BOOKED));
+        service.onBookingStatusEvent(event("3000-c", 3000, BookingStatus.ON_THE_WAY));
+
+        service.subscribeAppUser("u1", "1000-a");
+        assertEquals(List.of("2000-b", "3000-c"), emitters.get(0).awaitIds(2));
+
+        // the workshop side keeps its own buffer, and an unknown id replays nothing
+        service.subscribeWorkshop("w1", "not-an-id");
+        service.onBookingStatusEvent(event("4000-d", 4000, BookingStatus.COMPLETED));
+        assertEquals(List.of("4000-d"), emitters.get(1).awaitIds(1));
+    }
+
+    @Test
+    @DisplayName("Should deliver events to each subscriber in the order they were published")
+    void shouldKeepOrderPerSubscriber() throws InterruptedException {
+        ReflectionTestUtils.setField(service, "maxPending", 1000);
+        service.subscribeAppUser("u1", null);
+        service.subscribeAppUser("u1", null);
+
+        List<String> published = new ArrayList<>();
+        for (int i = 0; i < 200; i++) {
+            BookingStatusEvent event = event((1000 + i) + "-x", 1000 + i, BookingStatus.BOOKED);
+            published.add(event.getEventId());
+            service.onBookingStatusEvent(event);
+        }
+
+        assertEquals(published, emitters.get(0).awaitIds(200));
+        assertEquals(published, emitters.get(1).awaitIds(200));
+    }
+
+    @Test
+    @DisplayName("Should disconnect a client once more than max-pending events wait for it")
+    void shouldDisconnectSlowClients() throws InterruptedException {
+        sendGate = new CountDownLatch(1);
+        service.subscribeAppUser("u1", null);
+        RecordingEmitter slow = emitters.get(0);
+
+        for (int i = 0; i < 10; i++) {
+            service.onBookingStatusEvent(event((1000 + i) + "-x", 1000 + i, BookingStatus.BOOKED));
+        }
+        assertTrue(slow.completed);
+
+        sendGate.countDown();
+        Thread.sleep(200);
+        // the one being written when the queue filled, plus the ones queued behind it
+        assertTrue(slow.ids.size() <= 1 + 4);
+
+        // once closed the stream receives nothing more, a new one does
+        int before = slow.ids.size();
+        service.subscribeAppUser("u1", null);
+        service.onBookingStatusEvent(event("5000-y", 5000, BookingStatus.COMPLETED));
+        assertEquals(List.of("5000-y"), emitters.get(1).awaitIds(1));
+        assertEquals(before, slow.ids.size());
+    }
+
+    private static BookingStatusEvent event(String id, long occurredAt, BookingStatus status) {
+        return new BookingStatusEvent(id, "b1", "u1", "w1", status, null, occurredAt);
+    }
+
+    private final class RecordingEmitter extends SseEmitter {
+        private final List<String> ids = new CopyOnWriteArrayList<>();
+        private volatile boolean completed;
+
+        @Override
+        public void send(SseEventBuilder builder) throws java.io.IOException {
+            CountDownLatch gate = sendGate;
+            if (gate != null) {
+                try {
+                    gate.await(5, TimeUnit.SECONDS);
+                } catch (InterruptedException e) {
+                    Thread.currentThread().interrupt();
+                    throw new java.io.IOException(e);
+                }
+            }
+            Matcher matcher = EVENT_ID.matcher(builder.build().iterator().next().getData().toString());
+            if (matcher.find()) {
+                ids.add(matcher.group(1));
+            }
+        }
+
+        @Override
+        public void complete() {
+            completed = true;
+        }
+
+        List<String> awaitIds(int count) throws InterruptedException {
+            long deadline = System.currentTimeMillis() + 5000;
+            while (ids.size() < count && System.currentTimeMillis() < deadline) {
+                Thread.sleep(10);
+            }
+            return List.copyOf(ids);
+        }
+    }
+}
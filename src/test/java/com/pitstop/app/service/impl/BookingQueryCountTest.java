@@ -0,0 +1,164 @@
+package com.pitstop.app.service.impl;
+
+import com.mongodb.event.CommandListener;
+import com.mongodb.event.CommandStartedEvent;
+import com.pitstop.app.constants.BookingStatus;
+import com.pitstop.app.constants.VehicleType;
+import com.pitstop.app.model.AppUser;
+import com.pitstop.app.model.Booking;
+import com.pitstop.app.model.Vehicle;
+import com.pitstop.app.model.WorkshopUser;
+import com.pitstop.app.repository.AppUserRepository;
+import com.pitstop.app.repository.BookingRepository;
+import com.pitstop.app.repository.WorkshopUserRepository;
+import org.bson.BsonValue;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.DisplayName;
+import org.junit.jupiter.params.ParameterizedTest;
+import org.junit.jupiter.params.provider.ValueSource;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.autoconfigure.mongo.MongoClientSettingsBuilderCustomizer;
+import org.springframework.boot.test.context.SpringBootTest;
+import org.springframework.boot.test.context.TestConfiguration;
+import org.springframework.context.annotation.Bean;
+import org.springframework.context.annotation.Import;
+import org.springframework.security.authentication.UsernamePasswordAuthenticationToken;
+import org.springframework.security.core.context.SecurityContextHolder;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.CopyOnWriteArrayList;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+
+/*
+Counts the MongoDB commands a request issues for a user with N bookings. Since bookings are linked
+by their owner id alone, loading a user or checking that a booking belongs to them costs the same
+whatever N is. Only commands from the test thread are counted, the schedulers keep running meanwhile.
+ */
+@SpringBootTest
+@Import(BookingQueryCountTest.CommandCounterConfig.class)
+public class BookingQueryCountTest {
+
+    @Autowired
+    private CommandCounter commandCounter;
+
+    @Autowired
+    private UserDetailsServiceImpl userDetailsService;
+
+    @Autowired
+    private BookingServiceImpl bookingService;
+
+    @Autowired
+    private AppUserRepository appUserRepository;
+
+    @Autowired
+    private WorkshopUserRepository workshopUserRepository;
+
+    @Autowired
+    private BookingRepository bookingRepository;
+
+    private AppUser appUser;
+    private WorkshopUser workshopUser;
+
+    @AfterEach
+    void cleanUp() {
+        SecurityContextHolder.clearContext();
+        bookingRepository.deleteAll(bookingRepository.findByAppUserIdOrderByBookingStartedTimeDesc(appUser.getId()));
+        appUserRepository.delete(appUser);
+        workshopUserRepository.delete(workshopUser);
+    }
+
+    @ParameterizedTest
+    @ValueSource(ints = {1, 200})
+    @DisplayName("Should load a user for authentication with one find, whatever their booking count")
+    void shouldLoadUserWithoutBookings(int bookings) {
+        seed(bookings);
+        userDetailsService.evict(appUser.getUsername());
+
+        commandCounter.start();
+        userDetailsService.loadUserByUsername(appUser.getUsername());
+        assertEquals(List.of("find users"), commandCounter.stop());
+    }
+
+    @ParameterizedTest
+    @ValueSource(ints = {1, 200})
+    @DisplayName("Should check booking ownership with one booking find, whatever the booking count")
+    void shouldCheckOwnershipWithOneFind(int bookings) {
+        List<String> bookingIds = seed(bookings);
+        SecurityContextHolder.getContext().setAuthentication(
+                new UsernamePasswordAuthenticationToken(workshopUser.getUsername(), null));
+
+        commandCounter.start();
+        bookingService.acceptBooking(bookingIds.get(0));
+        List<String> commands = commandCounter.stop();
+
+        assertEquals(List.of("find workshops"), ofCollection(commands, "workshops"));
+        // the ownership check, then the compare-and-set to BOOKED
+        assertEquals(List.of("find bookings", "findAndModify bookings"), ofCollection(commands, "bookings"));
+    }
+
+    private List<String> seed(int bookings) {
+        String suffix = Long.toString(System.nanoTime());
+        appUser = new AppUser();
+        appUser.setName("Query Count User");
+        appUser.setUsername("user_query_count_" + suffix);
+        appUserRepository.save(appUser);
+
+        workshopUser = new WorkshopUser();
+        workshopUser.setName("Query Count Workshop");
+        workshopUser.setUsername("workshop_query_count_" + suffix);
+        workshopUserRepository.save(workshopUser);
+
+        List<Booking> seeded = new ArrayList<>();
+        for (int i = 0; i < bookings; i++) {
+            Booking booking = new Booking(100, new Vehicle(VehicleType.TWO_WHEELER, "Brand", "Model", 150), appUser.getId());
+            booking.setWorkshopUserId(workshopUser.getId());
+            booking.setCurrentStatus(BookingStatus.STARTED);
+            seeded.add(booking);
+        }
+        return bookingRepository.saveAll(seeded).stream().map(Booking::getId).toList();
+    }
+
+    private static List<String> ofCollection(List<String> commands, String collection) {
+        return commands.stream().filter(command -> command.endsWith(" " + collection)).toList();
+    }
+
+    @TestConfiguration
+    static class CommandCounterConfig {
+        @Bean
+        CommandCounter commandCounter() {
+            return new CommandCounter();
+        }
+
+        @Bean
+        MongoClientSettingsBuilderCustomizer countCommands(CommandCounter commandCounter) {
+            return settings -> settings.addCommandListener(commandCounter);
+        }
+    }
+
+    // The sync driver notifies listeners on the thread that runs the command
+    static class CommandCounter implements CommandListener {
+        private final List<String> commands = new CopyOnWriteArrayList<>();
+        private volatile Thread counting;
+
+        void start() {
+            commands.clear();
+            counting = Thread.currentThread();
+        }
+
+        List<String> stop() {
+            counting = null;
+            return List.copyOf(commands);
+        }
+
+        @Override
+        public void commandStarted(CommandStartedEvent event) {
+            if (Thread.currentThread() != counting) {
+                return;
+            }
+            BsonValue target = event.getCommand().get(event.getCommandName());
+            commands.add(event.getCommandName() + " " + (target != null && target.isString() ? target.asString().getValue() : ""));
+        }
+    }
+}
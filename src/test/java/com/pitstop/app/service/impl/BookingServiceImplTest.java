@@ -337,8 +337,9 @@ public class BookingServiceImplTest {
         Booking booking = bookingService.getBookingById(bookingId);
         assertEquals(ratingToAppUser, booking.getRatingWorkshopToAppUser());
         appUser = appUserService.getAppUserById(appUser.getId());
-        assertEquals(1, appUser.getRatingsList().size());
-        assertEquals(ratingToAppUser, appUser.getRatingsList().getFirst());
+        assertEquals(1, appUser.getRatingSummary().getCount());
+        assertEquals(ratingToAppUser, appUser.getRatingSummary().getSum());
+        assertEquals(1L, appUser.getRatingSummary().getHistogram().get(String.valueOf(ratingToAppUser)));
 
         SecurityContextHolder.clearContext();
     }
@@ -362,8 +363,9 @@ public class BookingServiceImplTest {
         Booking booking = bookingService.getBookingById(bookingId);
         assertEquals(ratingToWorkShopUser, booking.getRatingAppUserToWorkshop());
         workshopUser = workshopUserService.getWorkshopUserById(booking.getWorkshopUserId());
-        assertEquals(1, workshopUser.getRatingsList().size());
-        assertEquals(ratingToWorkShopUser, workshopUser.getRatingsList().getFirst());
+        assertEquals(1, workshopUser.getRatingSummary().getCount());
+        assertEquals(ratingToWorkShopUser, workshopUser.getRatingSummary().getSum());
+        assertEquals(1L, workshopUser.getRatingSummary().getHistogram().get(String.valueOf(ratingToWorkShopUser)));
 
         SecurityContextHolder.clearContext();
     }
@@ -0,0 +1,117 @@
+package com.pitstop.app.service.impl;
+
+import com.pitstop.app.constants.BookingStatus;
+import com.pitstop.app.dto.AppUserRatingRequest;
+import com.pitstop.app.dto.WorkShopUserRatingRequest;
+import com.pitstop.app.exception.ResourceNotFoundException;
+import com.pitstop.app.model.AppUser;
+import com.pitstop.app.model.Booking;
+import com.pitstop.app.model.WorkshopUser;
+import com.pitstop.app.repository.BookingRepository;
+import com.pitstop.app.repository.WorkshopUserRepository;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.DisplayName;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.extension.ExtendWith;
+import org.mockito.InjectMocks;
+import org.mockito.Mock;
+import org.mockito.junit.jupiter.MockitoExtension;
+import org.springframework.security.authentication.UsernamePasswordAuthenticationToken;
+import org.springframework.security.core.context.SecurityContextHolder;
+
+import java.util.Optional;
+
+import static org.junit.jupiter.api.Assertions.assertThrows;
+import static org.mockito.ArgumentMatchers.anyInt;
+import static org.mockito.ArgumentMatchers.anyString;
+import static org.mockito.Mockito.doThrow;
+import static org.mockito.Mockito.never;
+import static org.mockito.Mockito.verify;
+import static org.mockito.Mockito.when;
+
+@ExtendWith(MockitoExtension.class)
+public class BookingServiceRatingTest {
+
+    @Mock
+    private BookingRepository bookingRepository;
+    @Mock
+    private WorkshopUserRepository workshopUserRepository;
+    @Mock
+    private AppUserServiceImpl appUserService;
+    @Mock
+    private UserRatingService userRatingService;
+
+    @InjectMocks
+    private BookingServiceImpl bookingService;
+
+    private Booking booking;
+
+    @BeforeEach
+    void setUp() {
+        booking = new Booking();
+        booking.setId("b1");
+        booking.setAppUserId("u1");
+        booking.setWorkshopUserId("w1");
+        booking.setCurrentStatus(BookingStatus.COMPLETED);
+    }
+
+    @AfterEach
+    void clearContext() {
+        SecurityContextHolder.clearContext();
+    }
+
+    @Test
+    @DisplayName("Should take the workshop's rating back off the booking when the app user's summary cannot count it")
+    void shouldUndoAppUserRatingWhenCountingFails() {
+        WorkshopUser workshopUser = new WorkshopUser();
+        workshopUser.setId("w1");
+        signIn("workshop_garage");
+        when(workshopUserRepository.findByUsername("workshop_garage")).thenReturn(Optional.of(workshopUser));
+        when(bookingRepository.findByIdAndWorkshopUserId("b1", "w1")).thenReturn(Optional.of(booking));
+        when(bookingRepository.setRatingWorkshopToAppUser("b1", 4)).thenReturn(true);
+        doThrow(new ResourceNotFoundException("AppUser not found for id: u1"))
+                .when(userRatingService).addAppUserRating("u1", 4);
+
+        assertThrows(ResourceNotFoundException.class,
+                () -> bookingService.giveRatingToAppUser(new AppUserRatingRequest("b1", 4)));
+        verify(bookingRepository).clearRatingWorkshopToAppUser("b1", 4);
+    }
+
+    @Test
+    @DisplayName("Should take the app user's rating back off the booking when the workshop's summary cannot count it")
+    void shouldUndoWorkshopRatingWhenCountingFails() {
+        AppUser appUser = new AppUser();
+        appUser.setId("u1");
+        signIn("user_alice");
+        when(appUserService.getAppUserByUsername("user_alice")).thenReturn(appUser);
+        when(bookingRepository.findByIdAndAppUserId("b1", "u1")).thenReturn(Optional.of(booking));
+        when(bookingRepository.setRatingAppUserToWorkshop("b1", 5)).thenReturn(true);
+        doThrow(new ResourceNotFoundException("WorkshopUser not found for id: w1"))
+                .when(userRatingService).addWorkshopUserRating("w1", 5);
+
+        assertThrows(ResourceNotFoundException.class,
+                () -> bookingService.giveRatingToWorkShopUser(new WorkShopUserRatingRequest("b1", 5)));
+        verify(bookingRepository).clearRatingAppUserToWorkshop("b1", 5);
+    }
+
+    @Test
+    @DisplayName("Should leave the summary alone when the booking was already rated")
+    void shouldNotCountARepeatedRating() {
+        AppUser appUser = new AppUser();
+        appUser.setId("u1");
+        signIn("user_alice");
+        when(appUserService.getAppUserByUsername("user_alice")).thenReturn(appUser);
+        when(bookingRepository.findByIdAndAppUserId("b1", "u1")).thenReturn(Optional.of(booking));
+        when(bookingRepository.setRatingAppUserToWorkshop("b1", 5)).thenReturn(false);
+
+        assertThrows(RuntimeException.class,
+                () -> bookingService.giveRatingToWorkShopUser(new WorkShopUserRatingRequest("b1", 5)));
+        verify(userRatingService, never()).addWorkshopUserRating(anyString(), anyInt());
+        verify(bookingRepository, never()).clearRatingAppUserToWorkshop(anyString(), anyInt());
+    }
+
+    private static void signIn(String username) {
+        SecurityContextHolder.getContext().setAuthentication(new UsernamePasswordAuthenticationToken(username, null));
+    }
+}
@@ -0,0 +1,31 @@
+package com.pitstop.app.service.impl;
+
+import org.junit.jupiter.api.DisplayName;
+import org.junit.jupiter.api.Test;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertNotEquals;
+
+public class GeocodingServiceTest {
+
+    @Test
+    @DisplayName("Should map spelling variants of one address to the same cache key")
+    void shouldNormalizeAddresses() {
+        String key = GeocodingService.forwardKey("12 MG Road, Bengaluru");
+
+        assertEquals(key, GeocodingService.forwardKey("  12 mg road ,Bengaluru. "));
+        assertEquals(key, GeocodingService.forwardKey("12\tMG  Road,   BENGALURU"));
+        assertNotEquals(key, GeocodingService.forwardKey("14 MG Road, Bengaluru"));
+    }
+
+    @Test
+    @DisplayName("Should share a reverse cache key only within one coordinate cell")
+    void shouldQuantizeCoordinates() {
+        double scale = 10_000;
+        String key = GeocodingService.reverseKey(12.97160, 77.59460, scale);
+
+        assertEquals(key, GeocodingService.reverseKey(12.97162, 77.59458, scale));
+        assertNotEquals(key, GeocodingService.reverseKey(12.97180, 77.59460, scale));
+        assertNotEquals(GeocodingService.reverseKey(-12.9716, 77.5946, scale), key);
+    }
+}
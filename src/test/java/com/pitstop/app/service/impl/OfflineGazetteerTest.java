@@ -0,0 +1,109 @@
+package com.pitstop.app.service.impl;
+
+import com.pitstop.app.dto.AddressResponse;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.DisplayName;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.io.TempDir;
+import org.springframework.test.util.ReflectionTestUtils;
+
+import java.io.IOException;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.List;
+import java.util.Random;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+public class OfflineGazetteerTest {
+
+    @TempDir
+    Path tempDir;
+
+    private OfflineGazetteer gazetteer;
+
+    @BeforeEach
+    void setUp() throws IOException {
+        Path file = tempDir.resolve("places.tsv");
+        Files.writeString(file, """
+                # name\tlat\tlon\tformatted address
+                MG Road, Bengaluru\t12.9756\t77.6050\tMG Road, Bengaluru, Karnataka 560001, India
+                MG Road Metro, Bengaluru\t12.9755\t77.6068
+                Bandra West, Mumbai\t19.0596\t72.8295\tBandra West, Mumbai, Maharashtra, India
+                San Jose, California\t37.3382\t-121.8863
+                San Jose, Costa Rica\t9.9281\t-84.0907
+                Springfield\t39.7817\t-89.6501
+                Springfield\t42.1015\t-72.5898
+                broken line without coordinates
+                """);
+
+        gazetteer = new OfflineGazetteer();
+        ReflectionTestUtils.setField(gazetteer, "path", file.toString());
+        ReflectionTestUtils.setField(gazetteer, "maxDistanceKm", 1.0);
+        ReflectionTestUtils.setField(gazetteer, "minPrefixLength", 4);
+        gazetteer.load();
+    }
+
+    @Test
+    @DisplayName("Should resolve an address by exact name or by the only name it prefixes")
+    void shouldResolveForward() {
+        AddressResponse exact = gazetteer.findCoordinatesFromAddress("  mg road ,BENGALURU ").orElseThrow();
+        assertEquals(12.9756, exact.getLatitude());
+        assertEquals("MG Road, Bengaluru, Karnataka 560001, India", exact.getFormattedAddress());
+
+        AddressResponse prefix = gazetteer.findCoordinatesFromAddress("Bandra").orElseThrow();
+        assertEquals(72.8295, prefix.getLongitude());
+
+        AddressResponse unique = gazetteer.findCoordinatesFromAddress("MG Road M").orElseThrow();
+        assertEquals(77.6068, unique.getLongitude());
+
+        assertTrue(gazetteer.findCoordinatesFromAddress("mg").isEmpty());
+        assertTrue(gazetteer.findCoordinatesFromAddress("Koramangala").isEmpty());
+    }
+
+    @Test
+    @DisplayName("Should leave ambiguous addresses to the external APIs")
+    void shouldMissAmbiguousForward() {
+        assertTrue(gazetteer.findCoordinatesFromAddress("mg ro").isEmpty());
+        assertTrue(gazetteer.findCoordinatesFromAddress("san jose").isEmpty());
+        assertTrue(gazetteer.findCoordinatesFromAddress("Springfield").isEmpty());
+
+        AddressResponse resolved = gazetteer.findCoordinatesFromAddress("San Jose, Cal").orElseThrow();
+        assertEquals(37.3382, resolved.getLatitude());
+    }
+
+    @Test
+    @DisplayName("Should find every place of a larger unsorted gazetteer by its name")
+    void shouldIndexLargeFile() throws IOException {
+        List<Integer> places = new ArrayList<>();
+        for (int i = 0; i < 1000; i++) {
+            places.add(i);
+        }
+        Collections.shuffle(places, new Random(7));
+        StringBuilder lines = new StringBuilder();
+        for (int i : places) {
+            lines.append("Place ").append(i).append('\t').append(i * 0.05 - 25).append('\t').append(i * 0.1).append('\n');
+        }
+        Path file = tempDir.resolve("large.tsv");
+        Files.writeString(file, lines);
+        ReflectionTestUtils.setField(gazetteer, "path", file.toString());
+        gazetteer.load();
+
+        for (int i = 0; i < 1000; i++) {
+            AddressResponse place = gazetteer.findCoordinatesFromAddress("place " + i).orElseThrow();
+            assertEquals(i * 0.1, place.getLongitude());
+        }
+    }
+
+    @Test
+    @DisplayName("Should resolve coordinates to the nearest place within range")
+    void shouldResolveReverse() {
+        AddressResponse near = gazetteer.findAddressFromCoordinates(12.9754, 77.6067).orElseThrow();
+        assertEquals("MG Road Metro, Bengaluru", near.getFormattedAddress());
+
+        assertTrue(gazetteer.findAddressFromCoordinates(28.6139, 77.2090).isEmpty());
+    }
+}
@@ -0,0 +1,97 @@
+package com.pitstop.app.service.impl;
+
+import com.pitstop.app.constants.VehicleType;
+import com.pitstop.app.constants.WorkshopServiceType;
+import com.pitstop.app.model.PricingRule;
+import com.pitstop.app.model.PricingSnapshot;
+import com.pitstop.app.repository.PricingRuleRepository;
+import org.bson.Document;
+import org.junit.jupiter.api.DisplayName;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.extension.ExtendWith;
+import org.mockito.ArgumentCaptor;
+import org.mockito.InjectMocks;
+import org.mockito.Mock;
+import org.mockito.junit.jupiter.MockitoExtension;
+import org.springframework.data.mongodb.core.FindAndModifyOptions;
+import org.springframework.data.mongodb.core.MongoTemplate;
+import org.springframework.data.mongodb.core.query.Query;
+import org.springframework.data.mongodb.core.query.Update;
+
+import java.util.List;
+import java.util.function.Consumer;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+import static org.mockito.ArgumentMatchers.any;
+import static org.mockito.ArgumentMatchers.eq;
+import static org.mockito.Mockito.times;
+import static org.mockito.Mockito.verify;
+import static org.mockito.Mockito.when;
+
+@ExtendWith(MockitoExtension.class)
+public class PricingCatalogTest {
+
+    @Mock
+    private PricingRuleRepository pricingRuleRepository;
+    @Mock
+    private MongoTemplate mongoTemplate;
+    @Mock
+    private ClusterEventService clusterEventService;
+    @InjectMocks
+    private PricingCatalog pricingCatalog;
+
+    private static PricingRule rule(double amount) {
+        PricingRule rule = new PricingRule();
+        rule.setVehicleType(VehicleType.TWO_WHEELER);
+        rule.setServiceType(WorkshopServiceType.OIL_CHANGE);
+        rule.setAmount(amount);
+        rule.setPremiumAmount(100);
+        return rule;
+    }
+
+    @SuppressWarnings("unchecked")
+    private Consumer<String> startAndCaptureHandler() {
+        pricingCatalog.start();
+        ArgumentCaptor<Consumer<String>> handler = ArgumentCaptor.forClass(Consumer.class);
+        verify(clusterEventService).subscribe(eq(PricingCatalog.CLUSTER_TOPIC), handler.capture());
+        return handler.getValue();
+    }
+
+    @Test
+    @DisplayName("Should serve lookups from the snapshot and reload only for newer versions")
+    void shouldReloadOnNewerVersion() {
+        when(mongoTemplate.findById("pricing", Document.class, "pricing_meta"))
+                .thenReturn(new Document("version", 3L), new Document("version", 4L));
+        when(pricingRuleRepository.findAll()).thenReturn(List.of(rule(300)), List.of(rule(350)));
+        Consumer<String> handler = startAndCaptureHandler();
+
+        PricingSnapshot first = pricingCatalog.current();
+        assertEquals(3, first.getVersion());
+        assertEquals(300, first.find(VehicleType.TWO_WHEELER, WorkshopServiceType.OIL_CHANGE).orElseThrow().amount());
+        assertTrue(first.find(VehicleType.FOUR_WHEELER, WorkshopServiceType.OIL_CHANGE).isEmpty());
+
+        handler.accept("3");
+        assertEquals(3, pricingCatalog.current().getVersion());
+
+        handler.accept("4");
+        PricingSnapshot second = pricingCatalog.current();
+        assertEquals(4, second.getVersion());
+        assertEquals(350, second.find(VehicleType.TWO_WHEELER, WorkshopServiceType.OIL_CHANGE).orElseThrow().amount());
+        verify(pricingRuleRepository, times(2)).findAll();
+    }
+
+    @Test
+    @DisplayName("Should bump the version and tell the other nodes when rules change")
+    void shouldPublishChange() {
+        when(mongoTemplate.findAndModify(any(Query.class), any(Update.class), any(FindAndModifyOptions.class),
+                eq(Document.class), eq("pricing_meta"))).thenReturn(new Document("version", 8L));
+        when(mongoTemplate.findById("pricing", Document.class, "pricing_meta")).thenReturn(new Document("version", 8L));
+        when(pricingRuleRepository.findAll()).thenReturn(List.of(rule(300)));
+
+        PricingSnapshot updated = pricingCatalog.publishChange();
+
+        assertEquals(8, updated.getVersion());
+        verify(clusterEventService).publish(PricingCatalog.CLUSTER_TOPIC, "8");
+    }
+}
@@ -0,0 +1,60 @@
+package com.pitstop.app.service.impl;
+
+import com.pitstop.app.model.RevokedToken;
+import com.pitstop.app.repository.RevokedTokenRepository;
+import org.junit.jupiter.api.DisplayName;
+import org.junit.jupiter.api.Test;
+import org.springframework.test.util.ReflectionTestUtils;
+
+import java.time.Instant;
+import java.util.List;
+
+import static org.junit.jupiter.api.Assertions.assertFalse;
+import static org.junit.jupiter.api.Assertions.assertNotSame;
+import static org.junit.jupiter.api.Assertions.assertSame;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+import static org.mockito.ArgumentMatchers.any;
+import static org.mockito.Mockito.mock;
+import static org.mockito.Mockito.when;
+
+public class TokenRevocationServiceTest {
+
+    private final RevokedTokenRepository repository = mock(RevokedTokenRepository.class);
+    private final TokenRevocationService service = new TokenRevocationService(repository);
+
+    @Test
+    @DisplayName("Should rebuild the filter only when the revocations outgrow the capacity it was built with")
+    void shouldNotRebuildOnEveryPollAboveExpectedTokens() {
+        Instant now = Instant.now();
+        List<RevokedToken> tokens = List.of(
+                new RevokedToken("a", now.plusSeconds(600), now),
+                new RevokedToken("b", now.plusSeconds(600), now),
+                new RevokedToken("c", now.plusSeconds(600), now));
+        when(repository.findByExpiresAtAfter(any())).thenReturn(tokens);
+        when(repository.findByRevokedAtGreaterThanEqual(any())).thenReturn(List.of());
+        ReflectionTestUtils.setField(service, "expectedTokens", 2L);
+        ReflectionTestUtils.setField(service, "falsePositiveRate", 0.01);
+        service.load();
+
+        Object filter = ReflectionTestUtils.getField(service, "filter");
+        service.poll();
+        service.poll();
+        assertSame(filter, ReflectionTestUtils.getField(service, "filter"));
+        assertTrue(service.isRevoked("c"));
+        assertFalse(service.isRevoked("d"));
+
+        // three more fill the six slots sized at load, the seventh needs a bigger filter
+        when(repository.findByRevokedAtGreaterThanEqual(any())).thenReturn(List.of(
+                new RevokedToken("d", now.plusSeconds(600), now),
+                new RevokedToken("e", now.plusSeconds(600), now),
+                new RevokedToken("f", now.plusSeconds(600), now)));
+        service.poll();
+        assertSame(filter, ReflectionTestUtils.getField(service, "filter"));
+
+        when(repository.findByRevokedAtGreaterThanEqual(any())).thenReturn(List.of(
+                new RevokedToken("g", now.plusSeconds(600), now)));
+        service.poll();
+        assertNotSame(filter, ReflectionTestUtils.getField(service, "filter"));
+        assertTrue(service.isRevoked("g"));
+    }
+}
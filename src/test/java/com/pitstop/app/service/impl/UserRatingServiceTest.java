@@ -0,0 +1,111 @@
+package com.pitstop.app.service.impl;
+
+import com.mongodb.client.result.UpdateResult;
+import com.pitstop.app.exception.ResourceNotFoundException;
+import com.pitstop.app.model.AppUser;
+import com.pitstop.app.model.RatingSummary;
+import com.pitstop.app.model.WorkshopUser;
+import org.bson.Document;
+import org.junit.jupiter.api.DisplayName;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.extension.ExtendWith;
+import org.mockito.ArgumentCaptor;
+import org.mockito.InjectMocks;
+import org.mockito.Mock;
+import org.mockito.junit.jupiter.MockitoExtension;
+import org.springframework.data.mongodb.core.MongoTemplate;
+import org.springframework.data.mongodb.core.query.Query;
+import org.springframework.data.mongodb.core.query.Update;
+
+import java.time.Duration;
+import java.time.Instant;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertThrows;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+import static org.mockito.ArgumentMatchers.any;
+import static org.mockito.ArgumentMatchers.eq;
+import static org.mockito.Mockito.verify;
+import static org.mockito.Mockito.verifyNoInteractions;
+import static org.mockito.Mockito.when;
+
+@ExtendWith(MockitoExtension.class)
+public class UserRatingServiceTest {
+
+    @Mock
+    private MongoTemplate mongoTemplate;
+
+    @InjectMocks
+    private UserRatingService userRatingService;
+
+    @Test
+    @DisplayName("Should show the default rating until enough ratings have come in")
+    void shouldKeepDefaultBelowThreshold() {
+        RatingSummary summary = new RatingSummary();
+        assertEquals(RatingSummary.DEFAULT_RATING, summary.getAverage());
+        assertEquals(RatingSummary.DEFAULT_RATING, summary.getDecayedAverage());
+
+        summary.setCount(RatingSummary.MIN_RATINGS_FOR_AVERAGE - 1);
+        summary.setSum(RatingSummary.MIN_RATINGS_FOR_AVERAGE - 1);
+        summary.setDecayedSum(4.0);
+        summary.setDecayedWeight(4.0);
+        assertEquals(RatingSummary.DEFAULT_RATING, summary.getAverage());
+        assertEquals(RatingSummary.DEFAULT_RATING, summary.getDecayedAverage());
+
+        summary.setCount(RatingSummary.MIN_RATINGS_FOR_AVERAGE);
+        summary.setSum(RatingSummary.MIN_RATINGS_FOR_AVERAGE * 3L);
+        assertEquals(3.0, summary.getAverage());
+        assertEquals(1.0, summary.getDecayedAverage());
+    }
+
+    @Test
+    @DisplayName("Should weigh a rating from one half-life ago half as much as one given now")
+    void shouldDecayByHalfLife() {
+        assertEquals(1.0, RatingSummary.decayWeight(RatingSummary.DECAY_EPOCH));
+
+        Instant now = Instant.parse("2026-06-01T00:00:00Z");
+        Instant halfLifeAgo = now.minus(Duration.ofDays((long) RatingSummary.DECAY_HALF_LIFE_DAYS));
+        assertEquals(0.5, RatingSummary.decayWeight(halfLifeAgo) / RatingSummary.decayWeight(now), 1e-12);
+
+        // five 1-star ratings a year ago and five 5-star ratings now: the recent ones dominate
+        double old = RatingSummary.decayWeight(now.minus(Duration.ofDays(365)));
+        double recent = RatingSummary.decayWeight(now);
+        RatingSummary summary = new RatingSummary();
+        summary.setCount(10);
+        summary.setSum(30);
+        summary.setDecayedSum(5 * old + 5 * 5 * recent);
+        summary.setDecayedWeight(5 * old + 5 * recent);
+        assertEquals(3.0, summary.getAverage());
+        assertTrue(summary.getDecayedAverage() > 4.7);
+    }
+
+    @Test
+    @DisplayName("Should record a rating with a single $inc on the user")
+    void shouldIncrementSummary() {
+        when(mongoTemplate.updateFirst(any(Query.class), any(Update.class), eq(WorkshopUser.class)))
+                .thenReturn(UpdateResult.acknowledged(1, 1L, null));
+
+        userRatingService.addWorkshopUserRating("w1", 4);
+
+        ArgumentCaptor<Update> update = ArgumentCaptor.forClass(Update.class);
+        verify(mongoTemplate).updateFirst(any(Query.class), update.capture(), eq(WorkshopUser.class));
+        Document inc = (Document) update.getValue().getUpdateObject().get("$inc");
+        assertEquals(1, inc.get("ratingSummary.count"));
+        assertEquals(4, inc.get("ratingSummary.sum"));
+        assertEquals(1, inc.get("ratingSummary.histogram.4"));
+        assertEquals(4 * (double) inc.get("ratingSummary.decayedWeight"), (double) inc.get("ratingSummary.decayedSum"), 1e-9);
+        assertEquals(1, inc.get("version"));
+    }
+
+    @Test
+    @DisplayName("Should reject out-of-range stars and unknown users")
+    void shouldRejectBadRatings() {
+        assertThrows(IllegalArgumentException.class, () -> userRatingService.addAppUserRating("u1", 0));
+        assertThrows(IllegalArgumentException.class, () -> userRatingService.addAppUserRating("u1", 6));
+        verifyNoInteractions(mongoTemplate);
+
+        when(mongoTemplate.updateFirst(any(Query.class), any(Update.class), eq(AppUser.class)))
+                .thenReturn(UpdateResult.acknowledged(0, 0L, null));
+        assertThrows(ResourceNotFoundException.class, () -> userRatingService.addAppUserRating("missing", 3));
+    }
+}
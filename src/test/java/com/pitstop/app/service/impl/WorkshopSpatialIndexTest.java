@@ -0,0 +1,166 @@
+package com.pitstop.app.service.impl;
+
+import com.pitstop.app.constants.VehicleType;
+import com.pitstop.app.constants.WorkshopServiceType;
+import com.pitstop.app.constants.WorkshopStatus;
+import com.pitstop.app.model.Address;
+import com.pitstop.app.model.WorkshopSearchCandidate;
+import com.pitstop.app.model.WorkshopUser;
+import com.pitstop.app.repository.WorkshopUserRepository;
+import com.pitstop.app.utils.GeoDistance;
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+import org.bson.Document;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.DisplayName;
+import org.junit.jupiter.api.Test;
+import org.springframework.data.mongodb.core.MongoTemplate;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Random;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.mockito.ArgumentMatchers.any;
+import static org.mockito.ArgumentMatchers.eq;
+import static org.mockito.Mockito.mock;
+import static org.mockito.Mockito.times;
+import static org.mockito.Mockito.verify;
+import static org.mockito.Mockito.when;
+
+public class WorkshopSpatialIndexTest {
+
+    private SimpleMeterRegistry meterRegistry;
+    private WorkshopSpatialIndex index;
+    private final List<WorkshopUser> workshops = new ArrayList<>();
+
+    @BeforeEach
+    void setUp() {
+        meterRegistry = new SimpleMeterRegistry();
+        WorkshopSearchCache searchCache = new WorkshopSearchCache(meterRegistry, true, 0.01, 5, 60_000, 1000);
+        index = new WorkshopSpatialIndex(mock(WorkshopUserRepository.class), mock(ClusterEventService.class),
+                searchCache, mock(MongoTemplate.class));
+
+        Random random = new Random(3);
+        for (int i = 0; i < 300; i++) {
+            WorkshopUser workshop = workshop("w" + i, 12.97 + (random.nextDouble() - 0.5) * 0.3,
+                    77.59 + (random.nextDouble() - 0.5) * 0.3,
+                    random.nextBoolean() ? VehicleType.BOTH : VehicleType.TWO_WHEELER);
+            workshops.add(workshop);
+            index.onWorkshopSaved(workshop);
+        }
+    }
+
+    @Test
+    @DisplayName("Should return the same workshops as a brute force scan")
+    void shouldMatchBruteForce() {
+        Random random = new Random(5);
+        for (int i = 0; i < 50; i++) {
+            double lat = 12.97 + (random.nextDouble() - 0.5) * 0.2;
+            double lon = 77.59 + (random.nextDouble() - 0.5) * 0.2;
+            double radius = 1 + random.nextDouble() * 9;
+            assertEquals(bruteForce(lat, lon, radius), ids(lat, lon, radius));
+            // again, now answered from the cache
+            assertEquals(bruteForce(lat, lon, radius), ids(lat, lon, radius));
+        }
+    }
+
+    @Test
+    @DisplayName("Should share one cache entry between nearby users with the same filters")
+    void shouldShareEntryWithinCell() {
+        ids(12.9701, 77.5901, 3);
+        ids(12.9702, 77.5902, 4);
+
+        assertEquals(1, meterRegistry.get("cache.gets").tag("cache", "workshop.search").tag("result", "hit")
+                .functionCounter().count());
+        assertEquals(1, meterRegistry.get("cache.gets").tag("cache", "workshop.search").tag("result", "miss")
+                .functionCounter().count());
+    }
+
+    @Test
+    @DisplayName("Should see a workshop opening next to a cached search")
+    void shouldReloadWhenCellChanges() {
+        int before = ids(12.97, 77.59, 5).size();
+
+        WorkshopUser opened = workshop("new", 12.971, 77.591, VehicleType.BOTH);
+        workshops.add(opened);
+        index.onWorkshopSaved(opened);
+
+        assertEquals(before + 1, ids(12.97, 77.59, 5).size());
+        assertEquals(1, meterRegistry.get("pitstop.search.cache.stale").counter().count());
+        // the outdated entry was reloaded, which is a miss and not a hit
+        assertEquals(0, meterRegistry.get("cache.gets").tag("cache", "workshop.search").tag("result", "hit")
+                .functionCounter().count());
+        assertEquals(2, meterRegistry.get("cache.gets").tag("cache", "workshop.search").tag("result", "miss")
+                .functionCounter().count());
+
+        opened.setCurrentWorkshopStatus(WorkshopStatus.CLOSED);
+        workshops.remove(opened);
+        index.onWorkshopSaved(opened);
+
+        assertEquals(before, ids(12.97, 77.59, 5).size());
+    }
+
+    @Test
+    @DisplayName("Should catch up on changes whose cluster events never arrived")
+    void shouldCatchUpOnMissedChanges() {
+        WorkshopUserRepository repository = mock(WorkshopUserRepository.class);
+        MongoTemplate mongoTemplate = mock(MongoTemplate.class);
+        WorkshopSpatialIndex remote = new WorkshopSpatialIndex(repository, mock(ClusterEventService.class),
+                new WorkshopSearchCache(meterRegistry, true, 0.01, 5, 60_000, 1000), mongoTemplate);
+
+        WorkshopUser first = workshop("a", 12.97, 77.59, VehicleType.BOTH);
+        WorkshopUser second = workshop("b", 12.971, 77.591, VehicleType.BOTH);
+        when(mongoTemplate.findById(any(), eq(Document.class), any())).thenReturn(new Document("version", 1L));
+        when(repository.findCandidatesByCurrentWorkshopStatus(WorkshopStatus.OPEN))
+                .thenReturn(List.of(WorkshopSearchCandidate.of(first)));
+        remote.load();
+        assertEquals(List.of("a"), ids(remote, 12.97, 77.59, 5));
+
+        // up to date: the poll only reads the counter
+        remote.poll();
+        verify(repository, times(1)).findCandidatesByCurrentWorkshopStatus(WorkshopStatus.OPEN);
+
+        // another node closed a and opened b, both events were lost
+        when(mongoTemplate.findById(any(), eq(Document.class), any())).thenReturn(new Document("version", 3L));
+        when(repository.findCandidatesByCurrentWorkshopStatus(WorkshopStatus.OPEN))
+                .thenReturn(List.of(WorkshopSearchCandidate.of(second)));
+        remote.poll();
+
+        assertEquals(List.of("b"), ids(remote, 12.97, 77.59, 5));
+    }
+
+    private List<String> ids(double lat, double lon, double radius) {
+        return ids(index, lat, lon, radius);
+    }
+
+    private static List<String> ids(WorkshopSpatialIndex index, double lat, double lon, double radius) {
+        return index.search(lat, lon, radius, VehicleType.FOUR_WHEELER, WorkshopServiceType.OIL_CHANGE).stream()
+                .map(match -> match.workshop().id())
+                .sorted()
+                .toList();
+    }
+
+    private List<String> bruteForce(double lat, double lon, double radius) {
+        return workshops.stream()
+                .filter(w -> w.getVehicleTypeSupported() == VehicleType.BOTH)
+                .filter(w -> GeoDistance.haversine(lat, lon, w.getWorkshopAddress().getLatitude(),
+                        w.getWorkshopAddress().getLongitude()) <= radius)
+                .map(WorkshopUser::getId)
+                .sorted()
+                .toList();
+    }
+
+    private static WorkshopUser workshop(String id, double lat, double lon, VehicleType vehicleType) {
+        WorkshopUser workshop = new WorkshopUser();
+        workshop.setId(id);
+        workshop.setUsername("workshop_" + id);
+        workshop.setCurrentWorkshopStatus(WorkshopStatus.OPEN);
+        workshop.setVehicleTypeSupported(vehicleType);
+        workshop.setServicesOffered(List.of(WorkshopServiceType.OIL_CHANGE));
+        Address address = new Address();
+        address.setLatitude(lat);
+        address.setLongitude(lon);
+        workshop.setWorkshopAddress(address);
+        return workshop;
+    }
+}